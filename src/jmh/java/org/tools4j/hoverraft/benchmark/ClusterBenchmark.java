@@ -0,0 +1,97 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.benchmark;
+
+import org.agrona.IoUtil;
+import org.openjdk.jmh.annotations.*;
+import org.tools4j.hoverraft.cluster.AeronIpcClusterTransport;
+import org.tools4j.hoverraft.cluster.TestCluster;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of {@link org.tools4j.hoverraft.server.Server#perform()} for a cluster connected through
+ * Aeron IPC; all servers are driven by the benchmark thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ClusterBenchmark {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    @Param({"3", "5"})
+    public int serverCount;
+
+    private File directory;
+    private TestCluster cluster;
+    private int leader;
+    private long sent;
+
+    @Setup
+    public void setup() throws Exception {
+        final ConsensusConfig consensusConfig = TestCluster.configBuilder(serverCount).build();
+        directory = Files.createTempDirectory("hover-raft-jmh").toFile();
+        final File dataDirectory = new File(directory, "data");
+        IoUtil.ensureDirectoryExists(dataDirectory, "data");
+        cluster = new TestCluster(consensusConfig,
+                new AeronIpcClusterTransport(consensusConfig, new File(directory, "aeron")),
+                dataDirectory);
+        leader = cluster.awaitLeader(TIMEOUT_MILLIS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cluster.close();
+        IoUtil.delete(directory, true);
+    }
+
+    /**
+     * One duty cycle of all servers without pending commands, that is, polling plus timer and heartbeat handling.
+     */
+    @Benchmark
+    public int performIdle() {
+        return cluster.perform();
+    }
+
+    /**
+     * Round trip of a single command from the source until it is committed by a majority and applied to the
+     * state machine of the leader; followers learn about the commit with the next append request.
+     */
+    @Benchmark
+    public long replicateCommand() {
+        cluster.sendCommand();
+        sent++;
+        while (cluster.applied(leader) < sent) {
+            cluster.perform();
+        }
+        return sent;
+    }
+}
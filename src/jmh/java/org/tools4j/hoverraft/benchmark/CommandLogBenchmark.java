@@ -0,0 +1,96 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.benchmark;
+
+import org.agrona.IoUtil;
+import org.openjdk.jmh.annotations.*;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.command.LogEntry;
+import org.tools4j.hoverraft.command.mapped.MappedCommandLog;
+import org.tools4j.hoverraft.direct.PooledDirectFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append and read performance of the memory mapped command log.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CommandLogBenchmark {
+
+    private static final int PAYLOAD_LENGTH = 32;
+    private static final int PREFILLED_ENTRIES = 1 << 20;
+    private static final int MAX_ENTRIES = 1 << 22;
+
+    private File directory;
+    private MappedCommandLog commandLog;
+    private Command command;
+    private LogEntry logEntry;
+    private long readIndex;
+
+    @Setup
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("hover-raft-jmh").toFile();
+        commandLog = new MappedCommandLog(directory, "commandlog");
+        final PooledDirectFactory directFactory = new PooledDirectFactory(PooledDirectFactory.DEFAULT_POOL_SIZE,
+                64 * 1024, PooledDirectFactory.DEFAULT_PAYLOAD_CAPACITY);
+        command = directFactory.command().sourceId(1);
+        command.commandPayload().bytesFrom(new byte[PAYLOAD_LENGTH], 0, PAYLOAD_LENGTH);
+        logEntry = directFactory.logEntry();
+        for (int i = 0; i < PREFILLED_ENTRIES; i++) {
+            append();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        commandLog.close();
+        IoUtil.delete(directory, true);
+    }
+
+    @Benchmark
+    public long append() {
+        final long size = commandLog.size();
+        if (size >= MAX_ENTRIES) {
+            //keep the log at a bounded size, the prefilled entries remain readable
+            commandLog.truncateIncluding(PREFILLED_ENTRIES);
+        }
+        command.commandIndex(commandLog.size());
+        commandLog.append(1, command);
+        return commandLog.size();
+    }
+
+    @Benchmark
+    public long readTo() {
+        readIndex = readIndex + 1 < PREFILLED_ENTRIES ? readIndex + 1 : 0;
+        commandLog.readTo(readIndex, logEntry);
+        return logEntry.command().commandKey().commandIndex();
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.tools4j.hoverraft.command.LogEntry;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.direct.PooledDirectFactory;
+import org.tools4j.hoverraft.message.AppendRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of append requests with a varying number of log entries into pooled flyweights.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DirectAppendRequestBenchmark {
+
+    private static final int PAYLOAD_LENGTH = 32;
+
+    @Param({"1", "10", "100"})
+    public int entryCount;
+
+    private PooledDirectFactory directFactory;
+    private LogEntry logEntry;
+
+    @Setup
+    public void setup() {
+        directFactory = new PooledDirectFactory(PooledDirectFactory.DEFAULT_POOL_SIZE, 64 * 1024,
+                PooledDirectFactory.DEFAULT_PAYLOAD_CAPACITY);
+        logEntry = new AllocatingDirectFactory().logEntry();
+        logEntry.logKey().term(7).index(42);
+        logEntry.command().sourceId(3).commandIndex(123)
+                .commandPayload().bytesFrom(new byte[PAYLOAD_LENGTH], 0, PAYLOAD_LENGTH);
+    }
+
+    @Benchmark
+    public int encode() {
+        directFactory.acquireScope();
+        try {
+            final AppendRequest appendRequest = directFactory.appendRequest()
+                    .term(7)
+                    .leaderId(1)
+                    .leaderCommit(41);
+            appendRequest.prevLogKey().term(7).index(41);
+            for (int i = 0; i < entryCount; i++) {
+                appendRequest.appendLogEntry(logEntry);
+            }
+            return appendRequest.byteLength();
+        } finally {
+            directFactory.releaseScope();
+        }
+    }
+}
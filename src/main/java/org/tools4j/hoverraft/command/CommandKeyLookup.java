@@ -56,7 +56,7 @@ public final class CommandKeyLookup {
         long maxCommandIndex = maxCommandIndexBySourceId.get(sourceId);
         if (maxCommandIndex < 0) {
             final CommandKey tempKey = this.tempKey;
-            for (long idx = commandLog.lastIndex(); idx >= 0; idx--) {
+            for (long idx = commandLog.lastIndex(); idx >= commandLog.firstIndex(); idx--) {
                 commandLog.readTo(idx, tempKey);
                 if (tempKey.sourceId() == sourceId) {
                     maxCommandIndex = tempKey.commandIndex();
@@ -23,25 +23,139 @@
  */
 package org.tools4j.hoverraft.command;
 
+import org.tools4j.hoverraft.message.Sequence;
+
 public interface CommandLog {
+    /** Term of the (non-existent) last entry of an empty log */
+    int NO_TERM = -1;
+
+    /**
+     * Returns the size of the log, that is, the index of the next entry to append. Entries discarded through
+     * {@link #compactIncluding(int, long)} are included in the size.
+     *
+     * @return the index of the next appended entry
+     */
     long size();
     default long lastIndex() {
         return size() - 1;
     }
+
+    /**
+     * Returns the index of the first entry retained in the log. This is zero unless a prefix of the log was
+     * discarded through {@link #compactIncluding(int, long)}.
+     *
+     * @return the first index that can be read from this log
+     */
+    default long firstIndex() {
+        return 0;
+    }
     int readTerm(long index);
     void readTo(long index, LogKey target);
     void readTo(long index, CommandKey target);
     void readTo(long index, LogEntry target);
 
+    /**
+     * Wraps the given flyweight around the log entry at the specified index without copying the entry into the
+     * flyweight's own buffer. The flyweight is wrapped read-only and must not be modified.
+     * <p>
+     * Lifetime: the wrapped entry is only guaranteed to be valid until the next invocation of this method or until
+     * the log is modified through {@link #append(int, Command)} or {@link #truncateIncluding(long)}, whatever comes
+     * first. Data that must outlive this period has to be copied by the caller.
+     *
+     * @param index     the index of the log entry to wrap
+     * @param flyweight the flyweight to wrap around the log entry
+     * @throws IllegalArgumentException if index is not a valid log index
+     */
+    void wrap(long index, LogEntry flyweight);
+
     void append(int term, Command command);
+
+    /**
+     * Appends all entries of the given sequence with an index not less than {@link #size()}, for instance the
+     * entries of an append request after the log has been matched against them. Terms and indices are taken from
+     * the log keys of the entries; indices must be consecutive and start at or before {@link #size()}.
+     * <p>
+     * Implementations may copy the entries into the log as a block; the default implementation appends one entry at
+     * a time.
+     *
+     * @param entries   the entries to append
+     * @param flyweight the flyweight used to iterate over the entries
+     * @return the number of appended entries
+     * @throws IllegalArgumentException if the entries are not contiguous with the end of the log
+     */
+    default int appendAll(final Sequence<LogEntry> entries, final LogEntry flyweight) {
+        final Sequence.SequenceIterator<LogEntry> iterator = entries.iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.readNextTo(flyweight);
+            final long index = flyweight.logKey().index();
+            final long size = size();
+            if (index >= size) {
+                if (index != size) {
+                    throw new IllegalArgumentException("Entry index " + index + " is not contiguous with log size " + size);
+                }
+                append(flyweight.logKey().term(), flyweight.command());
+                count++;
+            }
+        }
+        return count;
+    }
     void truncateIncluding(long index);
 
+    /**
+     * Forces all entries appended so far to durable storage. The default implementation does nothing and is used by
+     * logs without durable storage.
+     */
+    default void sync() {
+        //no op by default
+    }
+
+    /**
+     * Discards all log entries up to and including the given index after they have been included in a snapshot.
+     * The term of the last discarded entry remains readable through {@link #readTerm(long)} and
+     * {@link #readTo(long, LogKey)} so that the log can be matched against the previous log key of append requests
+     * at the snapshot boundary.
+     * <p>
+     * If the log does not contain an entry with the given term and index, the whole log is discarded and the next
+     * appended entry gets index {@code index + 1}. Invocations with an index before {@link #firstIndex()} are
+     * ignored.
+     *
+     * @param term  the term of the last log entry included in the snapshot
+     * @param index the index of the last log entry included in the snapshot
+     * @throws UnsupportedOperationException if this log does not support compaction
+     */
+    default void compactIncluding(final int term, final long index) {
+        throw new UnsupportedOperationException("Log compaction is not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * @return true if this log supports {@link #compactIncluding(int, long)}, false by default
+     */
+    default boolean supportsCompaction() {
+        return false;
+    }
+
+    /**
+     * Returns true if entries can be read through {@link #wrap(long, LogEntry)} and the {@code readTo(..)} methods
+     * by one thread while another thread appends to the log, as is the case with a
+     * {@link org.tools4j.hoverraft.config.ConsensusConfig#dedicatedApplyThread() dedicated apply thread}.
+     *
+     * @return true if this log supports reads concurrent to modifications, false by default
+     */
+    default boolean supportsConcurrentReads() {
+        return false;
+    }
+
+    /**
+     * @return the term of the last log entry, or {@link #NO_TERM} if the log is empty and has never been compacted
+     */
     default int lastTerm() {
-        return readTerm(lastIndex());
+        final long lastIndex = lastIndex();
+        return lastIndex < 0 ? NO_TERM : readTerm(lastIndex);
     }
 
     default void lastKeyTo(final LogKey target) {
-        readTo(lastIndex(), target);
+        target.term(lastTerm()).index(lastIndex());
     }
 
     default int lastKeyCompareTo(final LogKey logKey) {
@@ -49,6 +163,28 @@ public interface CommandLog {
         return termCompare == 0 ? Long.compare(lastIndex(), logKey.index()) : termCompare;
     }
 
+    /**
+     * Returns the index of the first retained entry with a term greater than or equal to the given term. Terms never
+     * decrease along the log, hence the index is found through binary search.
+     *
+     * @param term the term to search for
+     * @return the first index in {@link #firstIndex()} (inclusive) to {@link #size()} (exclusive) whose term is not
+     *          less than term, or {@link #size()} if all retained entries have a lower term
+     */
+    default long firstIndexOfTerm(final int term) {
+        long low = firstIndex();
+        long high = size();
+        while (low < high) {
+            final long mid = (low + high) >>> 1;
+            if (readTerm(mid) < term) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
     boolean contains(CommandKey commandKey);
     default LogContainment contains(final LogKey logKey) {
         return LogContainment.containmentFor(logKey, this);
@@ -0,0 +1,89 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.command;
+
+import java.util.Objects;
+
+/**
+ * Reusable {@link LogCursor} implementation reading entries from a {@link CommandLog} through a single flyweight.
+ */
+public final class CommandLogCursor implements LogCursor {
+
+    private final LogEntry logEntry = new DirectLogEntry();
+
+    private CommandLog commandLog;
+    private long firstIndex;
+    private long lastIndex;
+    private long nextIndex;
+
+    /**
+     * Initialises this cursor for the given range of the command log.
+     *
+     * @param commandLog the command log
+     * @param firstIndex the first index of the range
+     * @param lastIndex  the last index of the range (inclusive)
+     * @return this cursor positioned at the first index
+     */
+    public CommandLogCursor init(final CommandLog commandLog, final long firstIndex, final long lastIndex) {
+        if (firstIndex < 0 || lastIndex < firstIndex - 1) {
+            throw new IllegalArgumentException("Invalid range [" + firstIndex + ", " + lastIndex + "]");
+        }
+        this.commandLog = Objects.requireNonNull(commandLog);
+        this.firstIndex = firstIndex;
+        this.lastIndex = lastIndex;
+        this.nextIndex = firstIndex;
+        return this;
+    }
+
+    @Override
+    public long firstIndex() {
+        return firstIndex;
+    }
+
+    @Override
+    public long lastIndex() {
+        return lastIndex;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextIndex <= lastIndex;
+    }
+
+    @Override
+    public LogEntry next() {
+        if (!hasNext()) {
+            throw new IllegalStateException("No more entries after index " + lastIndex);
+        }
+        commandLog.wrap(nextIndex, logEntry);
+        nextIndex++;
+        return logEntry;
+    }
+
+    @Override
+    public LogCursor reset() {
+        nextIndex = firstIndex;
+        return this;
+    }
+}
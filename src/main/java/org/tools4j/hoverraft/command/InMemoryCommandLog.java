@@ -36,20 +36,30 @@ public class InMemoryCommandLog implements CommandLog {
     private final List<LogEntry> entries = new ArrayList<>();
     private final CommandKeyLookup commandKeyLookup = new CommandKeyLookup(this);
 
+    private long firstIndex;
+    private int compactedTerm;
+
     @Override
     public synchronized long size() {
-        return entries.size();
+        return firstIndex + entries.size();
+    }
+
+    @Override
+    public synchronized long firstIndex() {
+        return firstIndex;
     }
 
     @Override
     public synchronized int readTerm(final long index) {
+        if (index == firstIndex - 1 && index >= 0) {
+            return compactedTerm;
+        }
         return read(index).logKey().term();
     }
 
     @Override
     public synchronized void readTo(final long index, final LogKey logKey) {
-        final LogKey readKey = read(index).logKey();
-        logKey.term(readKey.term()).index(readKey.index());
+        logKey.term(readTerm(index)).index(index);
     }
 
     @Override
@@ -64,11 +74,17 @@ public class InMemoryCommandLog implements CommandLog {
         target.copyFrom(source);
     }
 
+    @Override
+    public synchronized void wrap(final long index, final LogEntry flyweight) {
+        final LogEntry source = read(index);
+        flyweight.wrap(source.readBufferOrNull(), source.offset());
+    }
+
     private LogEntry read(final long index) {
-        if (index < entries.size()) {
-            return entries.get((int)index);
+        if (index >= firstIndex && index < size()) {
+            return entries.get((int)(index - firstIndex));
         }
-        throw new IllegalArgumentException("Index " + index + " is not in [0, " + (lastIndex()) + "]");
+        throw new IllegalArgumentException("Index " + index + " is not in [" + firstIndex + ", " + (lastIndex()) + "]");
     }
 
     @Override
@@ -77,7 +93,7 @@ public class InMemoryCommandLog implements CommandLog {
         logEntry.logKey().term(term);
         logEntry.command().copyFrom(command);
         synchronized (this) {
-            final long index = entries.size();
+            final long index = size();
             logEntry.logKey().index(index);//TODO this is redundant, do we need this?
             entries.add(logEntry);
             commandKeyLookup.append(command.commandKey());
@@ -87,20 +103,47 @@ public class InMemoryCommandLog implements CommandLog {
 
     @Override
     public synchronized void truncateIncluding(final long index) {
-        for (int idx = entries.size() - 1; idx >= index; idx--) {
-            final LogEntry removed = entries.remove(idx);
+        if (index < firstIndex) {
+            throw new IllegalArgumentException("Index " + index + " has been compacted, first index is " + firstIndex);
+        }
+        for (long idx = size() - 1; idx >= index; idx--) {
+            final LogEntry removed = entries.remove((int)(idx - firstIndex));
             commandKeyLookup.remove(removed.command().commandKey());
         }
     }
 
+    @Override
+    public boolean supportsCompaction() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsConcurrentReads() {
+        return true;
+    }
+
+    @Override
+    public synchronized void compactIncluding(final int term, final long index) {
+        if (index < firstIndex) {
+            return;
+        }
+        if (index < size() && readTerm(index) == term) {
+            entries.subList(0, (int)(index + 1 - firstIndex)).clear();
+        } else {
+            entries.clear();
+        }
+        firstIndex = index + 1;
+        compactedTerm = term;
+    }
+
     @Override
     public synchronized int lastTerm() {
-        return readTerm(lastIndex());
+        return CommandLog.super.lastTerm();
     }
 
     @Override
     public synchronized void lastKeyTo(final LogKey target) {
-        readTo(lastIndex(), target);
+        CommandLog.super.lastKeyTo(target);
     }
 
     @Override
@@ -28,6 +28,14 @@ public enum LogContainment {
 
 
     public static LogContainment containmentFor(final LogKey logKey, final CommandLog commandLog) {
+        if (logKey.index() < 0) {
+            //the empty log prefix is contained in every log
+            return IN;
+        }
+        if (logKey.index() < commandLog.firstIndex() - 1) {
+            //entries discarded after compaction were committed and hence match every valid log
+            return IN;
+        }
         if (logKey.index() >= commandLog.size()) {
             return OUT;
         } else {
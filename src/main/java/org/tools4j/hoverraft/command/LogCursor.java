@@ -0,0 +1,62 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.command;
+
+/**
+ * Cursor over a contiguous range of entries of a {@link CommandLog}. Entries returned by {@link #next()} are
+ * flyweights wrapped around the log storage as per {@link CommandLog#wrap(long, LogEntry)}; an entry is only valid
+ * until the next invocation of {@link #next()}.
+ */
+public interface LogCursor {
+    /**
+     * @return the log index of the first entry in the range
+     */
+    long firstIndex();
+
+    /**
+     * @return the log index of the last entry in the range (inclusive)
+     */
+    long lastIndex();
+
+    default long size() {
+        return lastIndex() - firstIndex() + 1;
+    }
+
+    boolean hasNext();
+
+    /**
+     * Returns the next entry and advances the cursor.
+     *
+     * @return the next entry, valid until the next invocation of this method
+     * @throws IllegalStateException if there are no more entries
+     */
+    LogEntry next();
+
+    /**
+     * Rewinds the cursor to the first entry of the range.
+     *
+     * @return this cursor
+     */
+    LogCursor reset();
+}
@@ -24,7 +24,57 @@
 package org.tools4j.hoverraft.command.machine;
 
 import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.command.LogCursor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 public interface StateMachine {
     void onMessage(Command message);
+
+    /**
+     * Invoked with the contiguous range of log entries committed since the last invocation. Batch oriented
+     * state machines override this method to amortise per-batch costs over all entries of the range; the default
+     * implementation passes the commands one by one to {@link #onMessage(Command)}.
+     *
+     * @param committed cursor over the newly committed log entries, only valid during this invocation
+     */
+    default void onCommitted(final LogCursor committed) {
+        while (committed.hasNext()) {
+            onMessage(committed.next().command());
+        }
+    }
+
+    /**
+     * Writes a snapshot of the state after applying all committed entries passed to this state machine so far.
+     * Snapshots are taken by the thread applying committed entries, no entries are applied while the snapshot is
+     * written.
+     *
+     * @param out the stream to write the snapshot to
+     * @throws IOException if writing to the stream fails
+     * @throws UnsupportedOperationException if this state machine does not support snapshots
+     */
+    default void writeSnapshot(final OutputStream out) throws IOException {
+        throw new UnsupportedOperationException("Snapshots are not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Replaces the current state with the snapshot state read from the given stream.
+     *
+     * @param in the stream to read the snapshot from, as written by {@link #writeSnapshot(OutputStream)}
+     * @throws IOException if reading from the stream fails
+     * @throws UnsupportedOperationException if this state machine does not support snapshots
+     */
+    default void loadSnapshot(final InputStream in) throws IOException {
+        throw new UnsupportedOperationException("Snapshots are not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * @return true if this state machine supports {@link #writeSnapshot(OutputStream)} and
+     *          {@link #loadSnapshot(InputStream)}, false by default
+     */
+    default boolean supportsSnapshots() {
+        return false;
+    }
 }
@@ -0,0 +1,356 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.command.mapped;
+
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.tools4j.hoverraft.command.*;
+import org.tools4j.hoverraft.message.Sequence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+/**
+ * Command log writing entries directly into pre-allocated memory mapped segment files. Entries are stored in the
+ * same layout as a {@link DirectLogEntry}, that is, term, index, sourceId, commandIndex, payload length and payload.
+ * A dense index file maps every log index to the position of the entry in the data segments, hence term and entry
+ * lookups by index are constant time operations.
+ * <p>
+ * Entries never span two data segments; an entry that does not fit into the remainder of a segment is written to
+ * the start of the next segment. Entries appended through {@link #appendAll(Sequence, LogEntry)} are copied as
+ * contiguous blocks with a single memory copy per block and data segment; entries inside a block are stored packed
+ * as received and only the block start is aligned.
+ * <p>
+ * Compaction through {@link #compactIncluding(int, long)} deletes data and index segment files that only contain
+ * discarded entries; log indices remain unchanged and the first retained index is stored in the meta file.
+ */
+public final class MappedCommandLog implements CommandLog, AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final int DEFAULT_INDEX_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+    private static final int TERM_OFF = 0;
+    private static final int TERM_LEN = 4;
+    private static final int INDEX_OFF = TERM_OFF + TERM_LEN;
+    private static final int INDEX_LEN = 8;
+    private static final int COMMAND_OFF = INDEX_OFF + INDEX_LEN;
+    private static final int SOURCE_ID_OFF = COMMAND_OFF;
+    private static final int SOURCE_ID_LEN = 4;
+    private static final int COMMAND_INDEX_OFF = SOURCE_ID_OFF + SOURCE_ID_LEN;
+    private static final int COMMAND_INDEX_LEN = 8;
+    private static final int PAYLOAD_LENGTH_OFF = COMMAND_INDEX_OFF + COMMAND_INDEX_LEN;
+
+    private static final int ENTRY_ALIGNMENT = 8;
+    private static final int INDEX_ENTRY_SHIFT = 3;
+
+    private static final int META_SIZE_OFF = 0;
+    private static final int META_SIZE_LEN = 8;
+    private static final int META_FIRST_INDEX_OFF = META_SIZE_OFF + META_SIZE_LEN;
+    private static final int META_FIRST_INDEX_LEN = 8;
+    private static final int META_FIRST_POSITION_OFF = META_FIRST_INDEX_OFF + META_FIRST_INDEX_LEN;
+    private static final int META_FIRST_POSITION_LEN = 8;
+    private static final int META_COMPACTED_TERM_OFF = META_FIRST_POSITION_OFF + META_FIRST_POSITION_LEN;
+    private static final int META_COMPACTED_TERM_LEN = 4;
+    private static final int META_BYTE_LENGTH = META_COMPACTED_TERM_OFF + META_COMPACTED_TERM_LEN;
+
+    private final MappedByteBuffer mappedMeta;
+    private final UnsafeBuffer meta;
+    private final MappedSegments dataSegments;
+    private final MappedSegments indexSegments;
+    private final CommandKeyLookup commandKeyLookup = new CommandKeyLookup(this);
+
+    private long size;
+    private long firstIndex;
+    private long firstPosition;
+    private int compactedTerm;
+    private long appendPosition;
+    private long syncedSize;
+    private long syncedPosition;
+
+    public MappedCommandLog(final File directory, final String name) throws IOException {
+        this(directory, name, DEFAULT_SEGMENT_SIZE, DEFAULT_INDEX_SEGMENT_SIZE);
+    }
+
+    public MappedCommandLog(final File directory, final String name,
+                            final int segmentSize, final int indexSegmentSize) throws IOException {
+        this.mappedMeta = mapMeta(new File(directory, name + ".meta"));
+        this.meta = new UnsafeBuffer(mappedMeta);
+        this.dataSegments = new MappedSegments(directory, name + ".data", segmentSize);
+        this.indexSegments = new MappedSegments(directory, name + ".index", indexSegmentSize);
+        this.size = meta.getLongVolatile(META_SIZE_OFF);
+        this.firstIndex = meta.getLong(META_FIRST_INDEX_OFF);
+        this.firstPosition = meta.getLong(META_FIRST_POSITION_OFF);
+        this.compactedTerm = meta.getInt(META_COMPACTED_TERM_OFF);
+        this.appendPosition = size == firstIndex ? firstPosition : endPosition(size - 1);
+        this.syncedSize = size;
+        this.syncedPosition = appendPosition;
+    }
+
+    private static MappedByteBuffer mapMeta(final File file) throws IOException {
+        try (final RandomAccessFile raf = new RandomAccessFile(Objects.requireNonNull(file), "rw")) {
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, META_BYTE_LENGTH);
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public long firstIndex() {
+        return firstIndex;
+    }
+
+    @Override
+    public int readTerm(final long index) {
+        if (index == firstIndex - 1 && index >= 0) {
+            return compactedTerm;
+        }
+        final long position = position(index);
+        return dataSegments.segmentAt(position).getInt(dataSegments.segmentOffset(position) + TERM_OFF);
+    }
+
+    @Override
+    public void readTo(final long index, final LogKey target) {
+        target.term(readTerm(index)).index(index);
+    }
+
+    @Override
+    public void readTo(final long index, final CommandKey target) {
+        final long position = position(index);
+        final DirectBuffer segment = dataSegments.segmentAt(position);
+        final int offset = dataSegments.segmentOffset(position);
+        target.sourceId(segment.getInt(offset + SOURCE_ID_OFF))
+                .commandIndex(segment.getLong(offset + COMMAND_INDEX_OFF));
+    }
+
+    @Override
+    public void readTo(final long index, final LogEntry target) {
+        final MutableDirectBuffer targetBuffer = Objects.requireNonNull(target.writeBufferOrNull(), "target write buffer must be initialised");
+        final long position = position(index);
+        final DirectBuffer segment = dataSegments.segmentAt(position);
+        final int offset = dataSegments.segmentOffset(position);
+        targetBuffer.putBytes(target.offset(), segment, offset, entryByteLength(segment, offset));
+    }
+
+    @Override
+    public void wrap(final long index, final LogEntry flyweight) {
+        final long position = position(index);
+        final DirectBuffer segment = dataSegments.segmentAt(position);
+        flyweight.wrap(segment, dataSegments.segmentOffset(position));
+    }
+
+    @Override
+    public void append(final int term, final Command command) {
+        final DirectBuffer commandBuffer = Objects.requireNonNull(command.readBufferOrNull());
+        final int commandLength = command.byteLength();
+        final int entryLength = COMMAND_OFF + commandLength;
+        final long position = nextAppendPosition(appendPosition, entryLength);
+        final MutableDirectBuffer segment = dataSegments.segmentAt(position);
+        final int offset = dataSegments.segmentOffset(position);
+        final long index = size;
+        segment.putInt(offset + TERM_OFF, term);
+        segment.putLong(offset + INDEX_OFF, index);
+        segment.putBytes(offset + COMMAND_OFF, commandBuffer, command.offset(), commandLength);
+        writeIndex(index, position);
+        appendPosition = position + BitUtil.align(entryLength, ENTRY_ALIGNMENT);
+        size = index + 1;
+        meta.putLongOrdered(META_SIZE_OFF, size);
+        commandKeyLookup.append(command.commandKey());
+    }
+
+    @Override
+    public int appendAll(final Sequence<LogEntry> entries, final LogEntry flyweight) {
+        final Sequence.SequenceIterator<LogEntry> iterator = entries.iterator();
+        final int segmentSize = dataSegments.segmentSize();
+        long index = size;
+        long position = appendPosition;
+        long blockPosition = position;
+        DirectBuffer blockBuffer = null;
+        int blockOffset = 0;
+        int blockLength = 0;
+        while (iterator.hasNext()) {
+            iterator.readNextTo(flyweight);
+            final long entryIndex = flyweight.logKey().index();
+            if (entryIndex < index) {
+                //already in the log
+                continue;
+            }
+            if (entryIndex != index) {
+                throw new IllegalArgumentException("Entry index " + entryIndex + " is not contiguous with log size " + index);
+            }
+            final DirectBuffer buffer = flyweight.readBufferOrNull();
+            final int offset = flyweight.offset();
+            final int length = flyweight.byteLength();
+            if (buffer != blockBuffer || offset != blockOffset + blockLength
+                    || dataSegments.segmentOffset(blockPosition) + blockLength + length > segmentSize) {
+                if (blockLength > 0) {
+                    copyBlock(blockPosition, blockBuffer, blockOffset, blockLength);
+                    position = blockPosition + BitUtil.align(blockLength, ENTRY_ALIGNMENT);
+                }
+                blockPosition = nextAppendPosition(position, length);
+                blockBuffer = buffer;
+                blockOffset = offset;
+                blockLength = 0;
+            }
+            writeIndex(index, blockPosition + blockLength);
+            blockLength += length;
+            commandKeyLookup.append(flyweight.command().commandKey());
+            index++;
+        }
+        if (blockLength > 0) {
+            copyBlock(blockPosition, blockBuffer, blockOffset, blockLength);
+            position = blockPosition + BitUtil.align(blockLength, ENTRY_ALIGNMENT);
+        }
+        final int count = (int)(index - size);
+        if (count > 0) {
+            appendPosition = position;
+            size = index;
+            meta.putLongOrdered(META_SIZE_OFF, size);
+        }
+        return count;
+    }
+
+    private void copyBlock(final long position, final DirectBuffer buffer, final int offset, final int length) {
+        dataSegments.segmentAt(position).putBytes(dataSegments.segmentOffset(position), buffer, offset, length);
+    }
+
+    @Override
+    public void truncateIncluding(final long index) {
+        if (index < firstIndex) {
+            throw new IllegalArgumentException("Index " + index + " has been compacted, first index is " + firstIndex);
+        }
+        if (index >= size) {
+            return;
+        }
+        appendPosition = position(index);
+        size = index;
+        syncedPosition = Math.min(syncedPosition, appendPosition);
+        syncedSize = Math.min(syncedSize, size);
+        meta.putLongOrdered(META_SIZE_OFF, size);
+        commandKeyLookup.clear();
+    }
+
+    @Override
+    public boolean supportsCompaction() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsConcurrentReads() {
+        return true;
+    }
+
+    @Override
+    public void compactIncluding(final int term, final long index) {
+        if (index < firstIndex) {
+            return;
+        }
+        if (index < size - 1 && readTerm(index) == term) {
+            firstPosition = position(index + 1);
+        } else {
+            firstPosition = appendPosition;
+            size = index + 1;
+            syncedSize = size;
+        }
+        firstIndex = index + 1;
+        compactedTerm = term;
+        meta.putLong(META_FIRST_INDEX_OFF, firstIndex);
+        meta.putLong(META_FIRST_POSITION_OFF, firstPosition);
+        meta.putInt(META_COMPACTED_TERM_OFF, compactedTerm);
+        meta.putLongOrdered(META_SIZE_OFF, size);
+        mappedMeta.force();
+        dataSegments.deleteBefore(dataSegments.segmentIndex(firstPosition));
+        indexSegments.deleteBefore(indexSegments.segmentIndex(firstIndex << INDEX_ENTRY_SHIFT));
+    }
+
+    /**
+     * Forces data and index segments written since the last sync and the log size to storage.
+     */
+    @Override
+    public void sync() {
+        final long size = this.size;
+        final long position = this.appendPosition;
+        dataSegments.force(syncedPosition, position);
+        indexSegments.force(syncedSize << INDEX_ENTRY_SHIFT, size << INDEX_ENTRY_SHIFT);
+        mappedMeta.force();
+        syncedSize = size;
+        syncedPosition = position;
+    }
+
+    @Override
+    public boolean contains(final CommandKey commandKey) {
+        return commandKeyLookup.contains(commandKey);
+    }
+
+    @Override
+    public void close() {
+        dataSegments.close();
+        indexSegments.close();
+        IoUtil.unmap(mappedMeta);
+    }
+
+    private long nextAppendPosition(final long position, final int entryLength) {
+        final int segmentSize = dataSegments.segmentSize();
+        if (entryLength > segmentSize) {
+            throw new IllegalArgumentException("Entry length " + entryLength + " exceeds segment size " + segmentSize);
+        }
+        if (dataSegments.segmentOffset(position) + entryLength > segmentSize) {
+            return dataSegments.segmentPosition(dataSegments.segmentIndex(position) + 1);
+        }
+        return position;
+    }
+
+    private long position(final long index) {
+        if (index < firstIndex || index >= size) {
+            throw new IllegalArgumentException("Index " + index + " is not in [" + firstIndex + ", " + (lastIndex()) + "]");
+        }
+        final long indexPosition = index << INDEX_ENTRY_SHIFT;
+        return indexSegments.segmentAt(indexPosition).getLong(indexSegments.segmentOffset(indexPosition));
+    }
+
+    private void writeIndex(final long index, final long position) {
+        final long indexPosition = index << INDEX_ENTRY_SHIFT;
+        indexSegments.segmentAt(indexPosition).putLong(indexSegments.segmentOffset(indexPosition), position);
+    }
+
+    private long endPosition(final long index) {
+        final long position = position(index);
+        final int entryLength = entryByteLength(dataSegments.segmentAt(position), dataSegments.segmentOffset(position));
+        return position + BitUtil.align(entryLength, ENTRY_ALIGNMENT);
+    }
+
+    private static int entryByteLength(final DirectBuffer segment, final int offset) {
+        return DirectLogEntry.EMPTY_COMMAND_BYTE_LENGTH + segment.getInt(offset + PAYLOAD_LENGTH_OFF);
+    }
+
+}
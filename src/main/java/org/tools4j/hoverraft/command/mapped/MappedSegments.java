@@ -0,0 +1,187 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.command.mapped;
+
+import org.agrona.BitUtil;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Sequence of equally sized memory mapped segment files addressed through a contiguous long position. Segment
+ * files are pre-allocated to the segment size and mapped lazily when first accessed. Leading segments that are no
+ * longer needed can be deleted through {@link #deleteBefore(int)}.
+ * <p>
+ * Mapped segments are published safely so that another thread can read from segments that were mapped before the
+ * data it accesses was published to it. Segments can be mapped by any thread accessing them; mapping and deleting
+ * segments is serialised so that concurrent accesses never map a segment twice or lose a mapping.
+ */
+public final class MappedSegments implements AutoCloseable {
+
+    private final File directory;
+    private final String name;
+    private final int segmentSize;
+    private final int segmentShift;
+    private final long segmentMask;
+    private volatile MappedByteBuffer[] mappedBuffers = new MappedByteBuffer[0];
+    private volatile UnsafeBuffer[] segments = new UnsafeBuffer[0];
+    private int firstSegmentIndex;
+
+    public MappedSegments(final File directory, final String name, final int segmentSize) {
+        if (!BitUtil.isPowerOfTwo(segmentSize)) {
+            throw new IllegalArgumentException("segmentSize must be a power of two: " + segmentSize);
+        }
+        this.directory = Objects.requireNonNull(directory);
+        this.name = Objects.requireNonNull(name);
+        this.segmentSize = segmentSize;
+        this.segmentShift = Integer.numberOfTrailingZeros(segmentSize);
+        this.segmentMask = segmentSize - 1;
+    }
+
+    public int segmentSize() {
+        return segmentSize;
+    }
+
+    public int segmentIndex(final long position) {
+        return (int)(position >>> segmentShift);
+    }
+
+    public int segmentOffset(final long position) {
+        return (int)(position & segmentMask);
+    }
+
+    public long segmentPosition(final int segmentIndex) {
+        return ((long)segmentIndex) << segmentShift;
+    }
+
+    /**
+     * Returns the segment buffer containing the given position, mapping the segment file if necessary.
+     *
+     * @param position the position
+     * @return the buffer of the segment containing position, to be accessed at {@link #segmentOffset(long)}
+     */
+    public UnsafeBuffer segmentAt(final long position) {
+        return segment(segmentIndex(position));
+    }
+
+    public UnsafeBuffer segment(final int segmentIndex) {
+        final UnsafeBuffer[] segments = this.segments;
+        if (segmentIndex < segments.length && segments[segmentIndex] != null) {
+            return segments[segmentIndex];
+        }
+        return mapSegment(segmentIndex);
+    }
+
+    private synchronized UnsafeBuffer mapSegment(final int segmentIndex) {
+        if (segmentIndex < this.segments.length && this.segments[segmentIndex] != null) {
+            return this.segments[segmentIndex];
+        }
+        final int length = Math.max(segmentIndex + 1, this.segments.length);
+        final MappedByteBuffer[] mappedBuffers = Arrays.copyOf(this.mappedBuffers, length);
+        final UnsafeBuffer[] segments = Arrays.copyOf(this.segments, length);
+        mappedBuffers[segmentIndex] = map(segmentIndex);
+        segments[segmentIndex] = new UnsafeBuffer(mappedBuffers[segmentIndex]);
+        this.segments = segments;
+        this.mappedBuffers = mappedBuffers;
+        return segments[segmentIndex];
+    }
+
+    /**
+     * Unmaps and deletes all segment files before the given segment index.
+     *
+     * @param segmentIndex the index of the first segment to retain
+     */
+    public synchronized void deleteBefore(final int segmentIndex) {
+        final MappedByteBuffer[] mappedBuffers = this.mappedBuffers.clone();
+        final UnsafeBuffer[] segments = this.segments.clone();
+        final int mapped = Math.min(segmentIndex, segments.length);
+        for (int i = 0; i < mapped; i++) {
+            segments[i] = null;
+        }
+        this.segments = segments;
+        for (int i = 0; i < mapped; i++) {
+            if (mappedBuffers[i] != null) {
+                IoUtil.unmap(mappedBuffers[i]);
+                mappedBuffers[i] = null;
+            }
+        }
+        this.mappedBuffers = mappedBuffers;
+        for (int i = firstSegmentIndex; i < segmentIndex; i++) {
+            final File file = segmentFile(i);
+            if (!file.delete() && file.exists()) {
+                throw new RuntimeException("Deleting segment " + i + " of " + name + " failed: " + file);
+            }
+        }
+        firstSegmentIndex = Math.max(firstSegmentIndex, segmentIndex);
+    }
+
+    /**
+     * Forces the mapped segments containing positions from (inclusive) to (exclusive) to storage.
+     *
+     * @param from the start position, inclusive
+     * @param to   the end position, exclusive
+     */
+    public void force(final long from, final long to) {
+        if (from >= to) {
+            return;
+        }
+        final MappedByteBuffer[] mappedBuffers = this.mappedBuffers;
+        final int last = Math.min(segmentIndex(to - 1), mappedBuffers.length - 1);
+        for (int i = segmentIndex(from); i <= last; i++) {
+            if (mappedBuffers[i] != null) {
+                mappedBuffers[i].force();
+            }
+        }
+    }
+
+    public File segmentFile(final int segmentIndex) {
+        return new File(directory, name + "." + segmentIndex);
+    }
+
+    private MappedByteBuffer map(final int segmentIndex) {
+        try (final RandomAccessFile raf = new RandomAccessFile(segmentFile(segmentIndex), "rw")) {
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (final IOException e) {
+            throw new RuntimeException("Mapping segment " + segmentIndex + " of " + name + " failed, e=" + e, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (int i = 0; i < mappedBuffers.length; i++) {
+            if (mappedBuffers[i] != null) {
+                IoUtil.unmap(mappedBuffers[i]);
+            }
+        }
+        mappedBuffers = new MappedByteBuffer[0];
+        segments = new UnsafeBuffer[0];
+    }
+}
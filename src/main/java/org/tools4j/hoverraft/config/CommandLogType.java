@@ -0,0 +1,43 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.config;
+
+/**
+ * Implementation of the command log used by {@link org.tools4j.hoverraft.state.DirectPersistentState}.
+ */
+public enum CommandLogType {
+    /**
+     * Log backed by a Chronicle vanilla queue, see
+     * {@link org.tools4j.hoverraft.transport.chronicle.ChronicleCommandLog}. Log indexes are mapped onto Chronicle's
+     * composite vanilla indexes, which are not dense from zero as the consensus algorithm expects; reading entries
+     * by log index fails for this reason.
+     */
+    CHRONICLE,
+    /**
+     * Log written directly into pre-allocated memory mapped segment files, see
+     * {@link org.tools4j.hoverraft.command.mapped.MappedCommandLog}. Supports log compaction for snapshots; the
+     * default.
+     */
+    MAPPED
+}
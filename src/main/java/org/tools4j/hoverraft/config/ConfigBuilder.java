@@ -42,6 +42,20 @@ public class ConfigBuilder {
     private long heartbeatMillis = 20;
     private String ipcMulticastChannel = null;
     private ThreadingMode threadingMode = ThreadingMode.SHARED;
+    private int maxAppendRequestByteLength = 64 * 1024;
+    private int maxInflightAppendRequests = 8;
+    private boolean dedicatedApplyThread = false;
+    private int commandQueueCapacity = 1024 * 1024;
+    private int serverMessagePollLimit = 16;
+    private int sourceMessagePollLimit = 16;
+    private long groupCommitWindowNanos = 0;
+    private CommandLogType commandLogType = CommandLogType.MAPPED;
+    private DurabilityPolicy durabilityPolicy = DurabilityPolicy.NONE;
+    private long durabilitySyncIntervalMillis = 100;
+    private long snapshotLogEntryThreshold = 0;
+    private ResendPolicy resendPolicy = ResendPolicy.DEFER;
+    private int maxResendAttempts = 16;
+    private int maxPendingResends = 16;
     private final List<ServerConfig> serverConfigs = new ArrayList<>();
     private final List<SourceConfig> sourceConfigs = new ArrayList<>();
 
@@ -70,6 +84,76 @@ public class ConfigBuilder {
         return this;
     }
 
+    public ConfigBuilder maxAppendRequestByteLength(final int maxAppendRequestByteLength) {
+        this.maxAppendRequestByteLength = maxAppendRequestByteLength;
+        return this;
+    }
+
+    public ConfigBuilder maxInflightAppendRequests(final int maxInflightAppendRequests) {
+        this.maxInflightAppendRequests = maxInflightAppendRequests;
+        return this;
+    }
+
+    public ConfigBuilder dedicatedApplyThread(final boolean dedicatedApplyThread) {
+        this.dedicatedApplyThread = dedicatedApplyThread;
+        return this;
+    }
+
+    public ConfigBuilder commandQueueCapacity(final int commandQueueCapacity) {
+        this.commandQueueCapacity = commandQueueCapacity;
+        return this;
+    }
+
+    public ConfigBuilder serverMessagePollLimit(final int serverMessagePollLimit) {
+        this.serverMessagePollLimit = serverMessagePollLimit;
+        return this;
+    }
+
+    public ConfigBuilder sourceMessagePollLimit(final int sourceMessagePollLimit) {
+        this.sourceMessagePollLimit = sourceMessagePollLimit;
+        return this;
+    }
+
+    public ConfigBuilder groupCommitWindowNanos(final long groupCommitWindowNanos) {
+        this.groupCommitWindowNanos = groupCommitWindowNanos;
+        return this;
+    }
+
+    public ConfigBuilder commandLogType(final CommandLogType commandLogType) {
+        this.commandLogType = Objects.requireNonNull(commandLogType, "commandLogType cannot be null");
+        return this;
+    }
+
+    public ConfigBuilder durabilityPolicy(final DurabilityPolicy durabilityPolicy) {
+        this.durabilityPolicy = Objects.requireNonNull(durabilityPolicy, "durabilityPolicy cannot be null");
+        return this;
+    }
+
+    public ConfigBuilder durabilitySyncIntervalMillis(final long durabilitySyncIntervalMillis) {
+        this.durabilitySyncIntervalMillis = durabilitySyncIntervalMillis;
+        return this;
+    }
+
+    public ConfigBuilder snapshotLogEntryThreshold(final long snapshotLogEntryThreshold) {
+        this.snapshotLogEntryThreshold = snapshotLogEntryThreshold;
+        return this;
+    }
+
+    public ConfigBuilder resendPolicy(final ResendPolicy resendPolicy) {
+        this.resendPolicy = Objects.requireNonNull(resendPolicy, "resendPolicy cannot be null");
+        return this;
+    }
+
+    public ConfigBuilder maxResendAttempts(final int maxResendAttempts) {
+        this.maxResendAttempts = maxResendAttempts;
+        return this;
+    }
+
+    public ConfigBuilder maxPendingResends(final int maxPendingResends) {
+        this.maxPendingResends = maxPendingResends;
+        return this;
+    }
+
     public ConfigBuilder addServer(final String channel) {
         return addServerConfig(nextId(serverConfigs, SERVER_CONFIG_ID_EXTRACTOR), channel);
     }
@@ -92,7 +176,7 @@ public class ConfigBuilder {
     }
 
     private ConfigBuilder addSourceConfig(final int id, final String channel) {
-        serverConfigs.add(new DefaultSourceConfig(id, channel));
+        sourceConfigs.add(new DefaultSourceConfig(id, channel));
         return this;
     }
 
@@ -100,6 +184,10 @@ public class ConfigBuilder {
         return new DefaultConsensusConfig(
                 minTimeoutMillis, maxTimeoutMillis, heartbeatMillis,
                 Optional.ofNullable(ipcMulticastChannel), threadingMode,
+                maxAppendRequestByteLength, maxInflightAppendRequests, dedicatedApplyThread,
+                commandQueueCapacity, serverMessagePollLimit, sourceMessagePollLimit, groupCommitWindowNanos,
+                commandLogType, durabilityPolicy, durabilitySyncIntervalMillis, snapshotLogEntryThreshold,
+                resendPolicy, maxResendAttempts, maxPendingResends,
                 new ArrayList<>(serverConfigs), new ArrayList<>(sourceConfigs));
     }
 
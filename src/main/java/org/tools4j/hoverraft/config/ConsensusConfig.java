@@ -35,6 +35,89 @@ public interface ConsensusConfig {
     int sourceCount();
     SourceConfig sourceConfig(int index);
     ThreadingMode threadingMode();
+    int maxAppendRequestByteLength();
+    int maxInflightAppendRequests();
+
+    /**
+     * Returns true if committed log entries are applied to the state machine in a dedicated apply thread, and false
+     * if they are applied inline by the consensus thread. The dedicated apply thread reads from the command log
+     * concurrently to the consensus thread appending to it, hence it requires a command log implementation that
+     * supports one concurrent reader such as the in-memory or the memory mapped command log.
+     *
+     * @return true if a dedicated thread applies committed entries to the state machine
+     */
+    boolean dedicatedApplyThread();
+
+    /**
+     * Returns the capacity in bytes of the queue handing over commands from source polling threads to the
+     * consensus thread; only used for threading modes other than {@link ThreadingMode#SHARED}.
+     *
+     * @return the command queue capacity in bytes, a power of two
+     */
+    int commandQueueCapacity();
+
+    /**
+     * Returns the maximum number of messages received from other servers in one duty cycle. Receivers are polled
+     * in turns, one message per receiver and turn, until this limit is reached or no more messages are available.
+     *
+     * @return the maximum number of server messages polled per duty cycle
+     */
+    int serverMessagePollLimit();
+
+    /**
+     * Returns the maximum number of commands received from sources in one duty cycle. Receivers are polled
+     * in turns, one command per receiver and turn, until this limit is reached or no more commands are available.
+     *
+     * @return the maximum number of source commands polled per duty cycle
+     */
+    int sourceMessagePollLimit();
+
+    /**
+     * Returns the group commit window in nanoseconds. The leader accumulates commands in the log and replicates
+     * them in batches once the window has elapsed since the first pending command. With a zero window, commands
+     * received within one duty cycle are replicated together at the end of the cycle.
+     *
+     * @return the group commit window in nanoseconds, zero to replicate at the end of every duty cycle
+     */
+    long groupCommitWindowNanos();
+
+    /**
+     * @return the command log implementation used by the persistent state
+     */
+    CommandLogType commandLogType();
+
+    /**
+     * @return the policy defining when command log and persistent state are forced to durable storage
+     */
+    DurabilityPolicy durabilityPolicy();
+
+    /**
+     * @return the sync interval in milliseconds used by {@link DurabilityPolicy#PERIODIC}
+     */
+    long durabilitySyncIntervalMillis();
+
+    /**
+     * @return the number of applied log entries after which a snapshot is taken and the log is compacted, zero to
+     *          disable snapshots
+     */
+    long snapshotLogEntryThreshold();
+
+    /**
+     * @return the policy defining how messages are handled whose offer to the transport has been rejected
+     */
+    ResendPolicy resendPolicy();
+
+    /**
+     * @return the maximum number of times a rejected message is offered again before it is dropped, used by
+     *          {@link ResendPolicy#SPIN}, {@link ResendPolicy#DEFER} and {@link ResendPolicy#COALESCE}
+     */
+    int maxResendAttempts();
+
+    /**
+     * @return the maximum number of pending messages per sender for {@link ResendPolicy#DEFER} and
+     *          {@link ResendPolicy#COALESCE}
+     */
+    int maxPendingResends();
 
     default ServerConfig serverConfigByIdOrNull(int id) {
         for (int i = 0; i < serverCount(); i++) {
@@ -23,6 +23,8 @@
  */
 package org.tools4j.hoverraft.config;
 
+import org.agrona.BitUtil;
+
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -37,6 +39,20 @@ public final class DefaultConsensusConfig implements ConsensusConfig {
     private final long heartbeatMillis;
     private final Optional<String> ipcMulticastChannel;
     private final ThreadingMode threadingMode;
+    private final int maxAppendRequestByteLength;
+    private final int maxInflightAppendRequests;
+    private final boolean dedicatedApplyThread;
+    private final int commandQueueCapacity;
+    private final int serverMessagePollLimit;
+    private final int sourceMessagePollLimit;
+    private final long groupCommitWindowNanos;
+    private final CommandLogType commandLogType;
+    private final DurabilityPolicy durabilityPolicy;
+    private final long durabilitySyncIntervalMillis;
+    private final long snapshotLogEntryThreshold;
+    private final ResendPolicy resendPolicy;
+    private final int maxResendAttempts;
+    private final int maxPendingResends;
     private final List<ServerConfig> serverConfigs;
     private final List<SourceConfig> sourceConfigs;
 
@@ -45,6 +61,20 @@ public final class DefaultConsensusConfig implements ConsensusConfig {
                                   final long heartbeatMillis,
                                   final Optional<String> ipcMulticastChannel,
                                   final ThreadingMode threadingMode,
+                                  final int maxAppendRequestByteLength,
+                                  final int maxInflightAppendRequests,
+                                  final boolean dedicatedApplyThread,
+                                  final int commandQueueCapacity,
+                                  final int serverMessagePollLimit,
+                                  final int sourceMessagePollLimit,
+                                  final long groupCommitWindowNanos,
+                                  final CommandLogType commandLogType,
+                                  final DurabilityPolicy durabilityPolicy,
+                                  final long durabilitySyncIntervalMillis,
+                                  final long snapshotLogEntryThreshold,
+                                  final ResendPolicy resendPolicy,
+                                  final int maxResendAttempts,
+                                  final int maxPendingResends,
                                   final List<ServerConfig> serverConfigs,
                                   final List<SourceConfig> sourceConfigs) {
         if (heartbeatMillis >= minElectionTimeoutMillis) {
@@ -53,6 +83,36 @@ public final class DefaultConsensusConfig implements ConsensusConfig {
         if (minElectionTimeoutMillis > maxElectionTimeoutMillis) {
             throw new IllegalArgumentException("minElectionTimeoutMillis must not be greater than maxElectionTimeoutMillis: " + minElectionTimeoutMillis + " > " + maxElectionTimeoutMillis);
         }
+        if (maxAppendRequestByteLength <= 0) {
+            throw new IllegalArgumentException("maxAppendRequestByteLength must be positive: " + maxAppendRequestByteLength);
+        }
+        if (maxInflightAppendRequests <= 0) {
+            throw new IllegalArgumentException("maxInflightAppendRequests must be positive: " + maxInflightAppendRequests);
+        }
+        if (!BitUtil.isPowerOfTwo(commandQueueCapacity)) {
+            throw new IllegalArgumentException("commandQueueCapacity must be a power of two: " + commandQueueCapacity);
+        }
+        if (serverMessagePollLimit <= 0) {
+            throw new IllegalArgumentException("serverMessagePollLimit must be positive: " + serverMessagePollLimit);
+        }
+        if (sourceMessagePollLimit <= 0) {
+            throw new IllegalArgumentException("sourceMessagePollLimit must be positive: " + sourceMessagePollLimit);
+        }
+        if (groupCommitWindowNanos < 0) {
+            throw new IllegalArgumentException("groupCommitWindowNanos cannot be negative: " + groupCommitWindowNanos);
+        }
+        if (durabilitySyncIntervalMillis <= 0) {
+            throw new IllegalArgumentException("durabilitySyncIntervalMillis must be positive: " + durabilitySyncIntervalMillis);
+        }
+        if (snapshotLogEntryThreshold < 0) {
+            throw new IllegalArgumentException("snapshotLogEntryThreshold cannot be negative: " + snapshotLogEntryThreshold);
+        }
+        if (maxResendAttempts <= 0) {
+            throw new IllegalArgumentException("maxResendAttempts must be positive: " + maxResendAttempts);
+        }
+        if (maxPendingResends <= 0) {
+            throw new IllegalArgumentException("maxPendingResends must be positive: " + maxPendingResends);
+        }
         if (serverConfigs.isEmpty()) {
             throw new IllegalArgumentException("serverConfigs must not be empty");
         }
@@ -61,6 +121,20 @@ public final class DefaultConsensusConfig implements ConsensusConfig {
         this.heartbeatMillis = heartbeatMillis;
         this.ipcMulticastChannel = Objects.requireNonNull(ipcMulticastChannel, "ipcMulticastChannel cannot be null");
         this.threadingMode = Objects.requireNonNull(threadingMode, "threadingMode cannot be null");
+        this.maxAppendRequestByteLength = maxAppendRequestByteLength;
+        this.maxInflightAppendRequests = maxInflightAppendRequests;
+        this.dedicatedApplyThread = dedicatedApplyThread;
+        this.commandQueueCapacity = commandQueueCapacity;
+        this.serverMessagePollLimit = serverMessagePollLimit;
+        this.sourceMessagePollLimit = sourceMessagePollLimit;
+        this.groupCommitWindowNanos = groupCommitWindowNanos;
+        this.commandLogType = Objects.requireNonNull(commandLogType, "commandLogType cannot be null");
+        this.durabilityPolicy = Objects.requireNonNull(durabilityPolicy, "durabilityPolicy cannot be null");
+        this.durabilitySyncIntervalMillis = durabilitySyncIntervalMillis;
+        this.snapshotLogEntryThreshold = snapshotLogEntryThreshold;
+        this.resendPolicy = Objects.requireNonNull(resendPolicy, "resendPolicy cannot be null");
+        this.maxResendAttempts = maxResendAttempts;
+        this.maxPendingResends = maxPendingResends;
         this.serverConfigs = Objects.requireNonNull(serverConfigs, "serverConfigs cannot be null");
         this.sourceConfigs = Objects.requireNonNull(sourceConfigs, "sourceConfigs cannot be null");
     }
@@ -110,6 +184,76 @@ public final class DefaultConsensusConfig implements ConsensusConfig {
         return threadingMode;
     }
 
+    @Override
+    public int maxAppendRequestByteLength() {
+        return maxAppendRequestByteLength;
+    }
+
+    @Override
+    public int maxInflightAppendRequests() {
+        return maxInflightAppendRequests;
+    }
+
+    @Override
+    public boolean dedicatedApplyThread() {
+        return dedicatedApplyThread;
+    }
+
+    @Override
+    public int commandQueueCapacity() {
+        return commandQueueCapacity;
+    }
+
+    @Override
+    public int serverMessagePollLimit() {
+        return serverMessagePollLimit;
+    }
+
+    @Override
+    public int sourceMessagePollLimit() {
+        return sourceMessagePollLimit;
+    }
+
+    @Override
+    public long groupCommitWindowNanos() {
+        return groupCommitWindowNanos;
+    }
+
+    @Override
+    public CommandLogType commandLogType() {
+        return commandLogType;
+    }
+
+    @Override
+    public DurabilityPolicy durabilityPolicy() {
+        return durabilityPolicy;
+    }
+
+    @Override
+    public long durabilitySyncIntervalMillis() {
+        return durabilitySyncIntervalMillis;
+    }
+
+    @Override
+    public long snapshotLogEntryThreshold() {
+        return snapshotLogEntryThreshold;
+    }
+
+    @Override
+    public ResendPolicy resendPolicy() {
+        return resendPolicy;
+    }
+
+    @Override
+    public int maxResendAttempts() {
+        return maxResendAttempts;
+    }
+
+    @Override
+    public int maxPendingResends() {
+        return maxPendingResends;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -122,6 +266,20 @@ public final class DefaultConsensusConfig implements ConsensusConfig {
         if (heartbeatMillis != that.heartbeatMillis) return false;
         if (!ipcMulticastChannel.equals(that.ipcMulticastChannel)) return false;
         if (threadingMode != that.threadingMode) return false;
+        if (maxAppendRequestByteLength != that.maxAppendRequestByteLength) return false;
+        if (maxInflightAppendRequests != that.maxInflightAppendRequests) return false;
+        if (dedicatedApplyThread != that.dedicatedApplyThread) return false;
+        if (commandQueueCapacity != that.commandQueueCapacity) return false;
+        if (serverMessagePollLimit != that.serverMessagePollLimit) return false;
+        if (sourceMessagePollLimit != that.sourceMessagePollLimit) return false;
+        if (groupCommitWindowNanos != that.groupCommitWindowNanos) return false;
+        if (commandLogType != that.commandLogType) return false;
+        if (durabilityPolicy != that.durabilityPolicy) return false;
+        if (durabilitySyncIntervalMillis != that.durabilitySyncIntervalMillis) return false;
+        if (snapshotLogEntryThreshold != that.snapshotLogEntryThreshold) return false;
+        if (resendPolicy != that.resendPolicy) return false;
+        if (maxResendAttempts != that.maxResendAttempts) return false;
+        if (maxPendingResends != that.maxPendingResends) return false;
         if (!serverConfigs.equals(that.serverConfigs)) return false;
         return sourceConfigs.equals(that.sourceConfigs);
 
@@ -134,6 +292,20 @@ public final class DefaultConsensusConfig implements ConsensusConfig {
         result = 31 * result + (int) (heartbeatMillis ^ (heartbeatMillis >>> 32));
         result = 31 * result + ipcMulticastChannel.hashCode();
         result = 31 * result + threadingMode.hashCode();
+        result = 31 * result + maxAppendRequestByteLength;
+        result = 31 * result + maxInflightAppendRequests;
+        result = 31 * result + (dedicatedApplyThread ? 1 : 0);
+        result = 31 * result + commandQueueCapacity;
+        result = 31 * result + serverMessagePollLimit;
+        result = 31 * result + sourceMessagePollLimit;
+        result = 31 * result + (int) (groupCommitWindowNanos ^ (groupCommitWindowNanos >>> 32));
+        result = 31 * result + commandLogType.hashCode();
+        result = 31 * result + durabilityPolicy.hashCode();
+        result = 31 * result + (int) (durabilitySyncIntervalMillis ^ (durabilitySyncIntervalMillis >>> 32));
+        result = 31 * result + (int) (snapshotLogEntryThreshold ^ (snapshotLogEntryThreshold >>> 32));
+        result = 31 * result + resendPolicy.hashCode();
+        result = 31 * result + maxResendAttempts;
+        result = 31 * result + maxPendingResends;
         result = 31 * result + serverConfigs.hashCode();
         result = 31 * result + sourceConfigs.hashCode();
         return result;
@@ -147,6 +319,20 @@ public final class DefaultConsensusConfig implements ConsensusConfig {
                 ", heartbeatMillis=" + heartbeatMillis +
                 ", ipcMulticastChannel=" + ipcMulticastChannel +
                 ", threadingMode=" + threadingMode +
+                ", maxAppendRequestByteLength=" + maxAppendRequestByteLength +
+                ", maxInflightAppendRequests=" + maxInflightAppendRequests +
+                ", dedicatedApplyThread=" + dedicatedApplyThread +
+                ", commandQueueCapacity=" + commandQueueCapacity +
+                ", serverMessagePollLimit=" + serverMessagePollLimit +
+                ", sourceMessagePollLimit=" + sourceMessagePollLimit +
+                ", groupCommitWindowNanos=" + groupCommitWindowNanos +
+                ", commandLogType=" + commandLogType +
+                ", durabilityPolicy=" + durabilityPolicy +
+                ", durabilitySyncIntervalMillis=" + durabilitySyncIntervalMillis +
+                ", snapshotLogEntryThreshold=" + snapshotLogEntryThreshold +
+                ", resendPolicy=" + resendPolicy +
+                ", maxResendAttempts=" + maxResendAttempts +
+                ", maxPendingResends=" + maxPendingResends +
                 ", serverConfigs=" + serverConfigs +
                 ", sourceConfigs=" + sourceConfigs +
                 '}';
@@ -23,7 +23,7 @@
  */
 package org.tools4j.hoverraft.config;
 
-public final class DefaultSourceConfig implements ServerConfig {
+public final class DefaultSourceConfig implements SourceConfig {
 
     private final int id;
     private final String channel;
@@ -0,0 +1,89 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.config;
+
+import org.tools4j.hoverraft.command.CommandLog;
+
+/**
+ * Policy defining when the command log and persistent state are forced to durable storage.
+ */
+public enum DurabilityPolicy {
+    /**
+     * Never force data to storage explicitly, durability is left to the operating system page cache.
+     */
+    NONE,
+    /**
+     * Force the command log to storage after every appended entry and persistent state after every change.
+     */
+    SYNC_PER_APPEND {
+        @Override
+        public void afterAppend(final CommandLog commandLog) {
+            commandLog.sync();
+        }
+    },
+    /**
+     * Force the command log to storage after every batch of appended entries, that is, before a follower responds
+     * to an append request and before a leader replicates newly appended commands. Persistent state is forced
+     * after every change.
+     */
+    SYNC_PER_BATCH {
+        @Override
+        public void afterBatch(final CommandLog commandLog) {
+            commandLog.sync();
+        }
+    },
+    /**
+     * Force command log and persistent state periodically every
+     * {@link ConsensusConfig#durabilitySyncIntervalMillis()} as part of the server duty cycle. Responses and commit
+     * advancement do not wait for data to be forced, hence entries appended since the last sync may be lost on a
+     * machine crash.
+     */
+    PERIODIC;
+
+    /**
+     * Invoked after appending an entry to the command log.
+     *
+     * @param commandLog the command log
+     */
+    public void afterAppend(final CommandLog commandLog) {
+        //no op by default
+    }
+
+    /**
+     * Invoked after appending a batch of entries to the command log and before the entries are acknowledged or
+     * replicated.
+     *
+     * @param commandLog the command log
+     */
+    public void afterBatch(final CommandLog commandLog) {
+        //no op by default
+    }
+
+    /**
+     * @return true if persistent state is forced to storage whenever it changes
+     */
+    public boolean syncStateOnChange() {
+        return this == SYNC_PER_APPEND || this == SYNC_PER_BATCH;
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.config;
+
+import org.tools4j.hoverraft.transport.RejectReason;
+
+/**
+ * Policy defining how messages are handled whose offer to the transport has been rejected, for instance due to
+ * {@link RejectReason#BACK_PRESSURED back pressure}.
+ */
+public enum ResendPolicy {
+    /**
+     * Rejected messages are dropped; raft recovers lost messages through heartbeats and retries after timeouts.
+     */
+    NONE,
+    /**
+     * Rejected messages are offered again immediately up to {@link ConsensusConfig#maxResendAttempts()} times if
+     * the rejection is transient, that is, due to back pressure or an admin action.
+     */
+    SPIN,
+    /**
+     * Rejected messages are copied to a pending queue per sender and offered again in subsequent duty cycles, up to
+     * {@link ConsensusConfig#maxResendAttempts()} times. Queues hold at most
+     * {@link ConsensusConfig#maxPendingResends()} messages; the oldest message is dropped if a queue is full.
+     */
+    DEFER,
+    /**
+     * As {@link #DEFER} but a newer append request for the same follower replaces a pending append request that
+     * has become stale, that is, a heartbeat without entries or a request starting at the same log index.
+     */
+    COALESCE
+}
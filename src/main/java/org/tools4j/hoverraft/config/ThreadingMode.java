@@ -37,6 +37,8 @@ public enum ThreadingMode {
      * <br>
      * (i) server/state machine logic is performed in main thread
      * (ii) source polling is performed in polling thread
+     * <br>
+     * Commands are handed over to the main thread through a single producer, single consumer ring buffer.
      */
     SOURCES_SHARED,
     /**
@@ -44,6 +46,8 @@ public enum ThreadingMode {
      * <br>
      * (i) server/state machine logic is performed in main thread
      * (ii) source polling is performed in separate threads, one per source
+     * <br>
+     * Commands are handed over to the main thread through a many producer, single consumer ring buffer.
      */
     DEDICATED;
 }
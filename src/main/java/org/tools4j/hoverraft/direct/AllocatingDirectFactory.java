@@ -70,7 +70,21 @@ public class AllocatingDirectFactory implements DirectFactory {
     public TimeoutNow timeoutNow() {
         final DirectTimeoutNow directTimeoutNow = new DirectTimeoutNow();
         directTimeoutNow.wrap(newBuffer(DirectTimeoutNow.BYTE_LENGTH), 0);
-        return null;
+        return directTimeoutNow;
+    }
+
+    @Override
+    public InstallSnapshot installSnapshot() {
+        final DirectInstallSnapshot directInstallSnapshot = new DirectInstallSnapshot();
+        directInstallSnapshot.wrap(newBuffer(DirectInstallSnapshot.EMPTY_CHUNK_BYTE_LENGTH), 0);
+        return directInstallSnapshot;
+    }
+
+    @Override
+    public InstallSnapshotResponse installSnapshotResponse() {
+        final DirectInstallSnapshotResponse directInstallSnapshotResponse = new DirectInstallSnapshotResponse();
+        directInstallSnapshotResponse.wrap(newBuffer(DirectInstallSnapshotResponse.BYTE_LENGTH), 0);
+        return directInstallSnapshotResponse;
     }
 
     @Override
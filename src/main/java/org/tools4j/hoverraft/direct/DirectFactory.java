@@ -43,9 +43,30 @@ public interface DirectFactory {
 
     TimeoutNow timeoutNow();
 
+    InstallSnapshot installSnapshot();
+
+    InstallSnapshotResponse installSnapshotResponse();
+
     CommandKey commandKey();
 
     Command command();
 
     LogEntry logEntry();
+
+    /**
+     * Opens a scope for the flyweights returned by this factory. Factories pooling their flyweights return all
+     * flyweights created after this call to the pool when the scope is closed through {@link #releaseScope()}.
+     * The default implementation does nothing.
+     */
+    default void acquireScope() {
+        //no op by default
+    }
+
+    /**
+     * Closes the scope most recently opened through {@link #acquireScope()}; flyweights created within the scope
+     * must no longer be used thereafter. The default implementation does nothing.
+     */
+    default void releaseScope() {
+        //no op by default
+    }
 }
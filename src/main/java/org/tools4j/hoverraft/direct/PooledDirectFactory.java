@@ -0,0 +1,221 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.direct;
+
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.command.CommandKey;
+import org.tools4j.hoverraft.command.DirectLogEntry;
+import org.tools4j.hoverraft.command.LogEntry;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.message.*;
+import org.tools4j.hoverraft.message.direct.*;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Factory handing out pooled flyweights wrapped around pre-sized buffers owned by the pool. Flyweights are acquired
+ * through the factory methods and released in scopes: all flyweights acquired after {@link #acquireScope()} are
+ * returned to their pools by the matching {@link #releaseScope()}. Several flyweights of the same type can be live
+ * at the same time, and scopes can be nested, for instance one per duty cycle and one per event.
+ * <p>
+ * Pools and buffers grow on demand if more flyweights or larger messages are needed than pre-allocated; no further
+ * allocation occurs after warm-up. The factory is not thread safe and must only be used by one thread.
+ */
+public final class PooledDirectFactory implements DirectFactory {
+
+    public static final int DEFAULT_POOL_SIZE = 4;
+    public static final int DEFAULT_PAYLOAD_CAPACITY = 1024;
+
+    private final Pool<AppendRequest> appendRequests;
+    private final Pool<AppendResponse> appendResponses;
+    private final Pool<VoteRequest> voteRequests;
+    private final Pool<VoteResponse> voteResponses;
+    private final Pool<TimeoutNow> timeoutNows;
+    private final Pool<InstallSnapshot> installSnapshots;
+    private final Pool<InstallSnapshotResponse> installSnapshotResponses;
+    private final Pool<CommandKey> commandKeys;
+    private final Pool<Command> commands;
+    private final Pool<LogEntry> logEntries;
+    private final Pool<?>[] pools;
+
+    private int[] scopeMarks;
+    private int scopeDepth;
+
+    public PooledDirectFactory(final ConsensusConfig consensusConfig) {
+        this(DEFAULT_POOL_SIZE, consensusConfig.maxAppendRequestByteLength(), DEFAULT_PAYLOAD_CAPACITY);
+    }
+
+    public PooledDirectFactory(final int poolSize,
+                               final int maxAppendRequestByteLength,
+                               final int commandPayloadCapacity) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize must be positive: " + poolSize);
+        }
+        if (maxAppendRequestByteLength < DirectAppendRequest.EMPTY_LOG_BYTE_LENGTH) {
+            throw new IllegalArgumentException("maxAppendRequestByteLength must not be less than "
+                    + DirectAppendRequest.EMPTY_LOG_BYTE_LENGTH + ": " + maxAppendRequestByteLength);
+        }
+        if (commandPayloadCapacity < 0) {
+            throw new IllegalArgumentException("commandPayloadCapacity must not be negative: " + commandPayloadCapacity);
+        }
+        this.appendRequests = new Pool<>(DirectAppendRequest::new, maxAppendRequestByteLength, poolSize);
+        this.appendResponses = new Pool<>(DirectAppendResponse::new, DirectAppendResponse.BYTE_LENGTH, poolSize);
+        this.voteRequests = new Pool<>(DirectVoteRequest::new, DirectVoteRequest.BYTE_LENGTH, poolSize);
+        this.voteResponses = new Pool<>(DirectVoteResponse::new, DirectVoteResponse.BYTE_LENGTH, poolSize);
+        this.timeoutNows = new Pool<>(DirectTimeoutNow::new, DirectTimeoutNow.BYTE_LENGTH, poolSize);
+        this.installSnapshots = new Pool<>(DirectInstallSnapshot::new, maxAppendRequestByteLength, poolSize);
+        this.installSnapshotResponses = new Pool<>(DirectInstallSnapshotResponse::new,
+                DirectInstallSnapshotResponse.BYTE_LENGTH, poolSize);
+        this.commandKeys = new Pool<>(DirectCommandKey::new, DirectCommandKey.BYTE_LENGTH, poolSize);
+        this.commands = new Pool<>(DirectCommand::new,
+                DirectCommand.EMPTY_COMMAND_BYTE_LENGTH + commandPayloadCapacity, poolSize);
+        this.logEntries = new Pool<>(DirectLogEntry::new,
+                DirectLogEntry.EMPTY_COMMAND_BYTE_LENGTH + commandPayloadCapacity, poolSize);
+        this.pools = new Pool<?>[] {appendRequests, appendResponses, voteRequests, voteResponses, timeoutNows,
+                installSnapshots, installSnapshotResponses, commandKeys, commands, logEntries};
+        this.scopeMarks = new int[2 * pools.length];
+    }
+
+    @Override
+    public void acquireScope() {
+        final int markOffset = scopeDepth * pools.length;
+        if (markOffset + pools.length > scopeMarks.length) {
+            scopeMarks = Arrays.copyOf(scopeMarks, 2 * scopeMarks.length);
+        }
+        for (int i = 0; i < pools.length; i++) {
+            scopeMarks[markOffset + i] = pools[i].acquired;
+        }
+        scopeDepth++;
+    }
+
+    @Override
+    public void releaseScope() {
+        if (scopeDepth == 0) {
+            throw new IllegalStateException("No scope has been acquired");
+        }
+        scopeDepth--;
+        final int markOffset = scopeDepth * pools.length;
+        for (int i = 0; i < pools.length; i++) {
+            pools[i].acquired = scopeMarks[markOffset + i];
+        }
+    }
+
+    /**
+     * @return the number of scopes acquired but not released yet
+     */
+    public int scopeDepth() {
+        return scopeDepth;
+    }
+
+    @Override
+    public AppendRequest appendRequest() {
+        return appendRequests.acquire();
+    }
+
+    @Override
+    public AppendResponse appendResponse() {
+        return appendResponses.acquire();
+    }
+
+    @Override
+    public VoteRequest voteRequest() {
+        return voteRequests.acquire();
+    }
+
+    @Override
+    public VoteResponse voteResponse() {
+        return voteResponses.acquire();
+    }
+
+    @Override
+    public TimeoutNow timeoutNow() {
+        return timeoutNows.acquire();
+    }
+
+    @Override
+    public InstallSnapshot installSnapshot() {
+        return installSnapshots.acquire();
+    }
+
+    @Override
+    public InstallSnapshotResponse installSnapshotResponse() {
+        return installSnapshotResponses.acquire();
+    }
+
+    @Override
+    public CommandKey commandKey() {
+        return commandKeys.acquire();
+    }
+
+    @Override
+    public Command command() {
+        return commands.acquire();
+    }
+
+    @Override
+    public LogEntry logEntry() {
+        return logEntries.acquire();
+    }
+
+    private static final class Pool<T> {
+        private final Supplier<? extends DirectPayload> flyweightFactory;
+        private final int bufferCapacity;
+        private DirectPayload[] flyweights;
+        private MutableDirectBuffer[] buffers;
+        private int acquired;
+
+        Pool(final Supplier<? extends DirectPayload> flyweightFactory, final int bufferCapacity, final int poolSize) {
+            this.flyweightFactory = flyweightFactory;
+            this.bufferCapacity = bufferCapacity;
+            this.flyweights = new DirectPayload[0];
+            this.buffers = new MutableDirectBuffer[0];
+            grow(poolSize);
+        }
+
+        @SuppressWarnings("unchecked")
+        T acquire() {
+            if (acquired == flyweights.length) {
+                grow(2 * flyweights.length);
+            }
+            final DirectPayload flyweight = flyweights[acquired];
+            //rewrap as received messages may have been wrapped around a receive buffer in the meantime
+            flyweight.wrap(buffers[acquired], 0);
+            acquired++;
+            return (T)flyweight;
+        }
+
+        private void grow(final int poolSize) {
+            final int oldSize = flyweights.length;
+            flyweights = Arrays.copyOf(flyweights, poolSize);
+            buffers = Arrays.copyOf(buffers, poolSize);
+            for (int i = oldSize; i < poolSize; i++) {
+                flyweights[i] = flyweightFactory.get();
+                buffers[i] = new ExpandableArrayBuffer(bufferCapacity);
+            }
+        }
+    }
+}
@@ -40,6 +40,8 @@ public final class RecyclingDirectFactory implements DirectFactory {
     private final VoteRequest voteRequest = new DirectVoteRequest();
     private final VoteResponse voteResponse = new DirectVoteResponse();
     private final TimeoutNow timeoutNow = new DirectTimeoutNow();
+    private final InstallSnapshot installSnapshot = new DirectInstallSnapshot();
+    private final InstallSnapshotResponse installSnapshotResponse = new DirectInstallSnapshotResponse();
     private final CommandKey commandKey = new DirectCommandKey();
     private final Command command = new DirectCommand();
     private final LogEntry logEntry = new DirectLogEntry();
@@ -69,6 +71,16 @@ public final class RecyclingDirectFactory implements DirectFactory {
         return timeoutNow;
     }
 
+    @Override
+    public InstallSnapshot installSnapshot() {
+        return installSnapshot;
+    }
+
+    @Override
+    public InstallSnapshotResponse installSnapshotResponse() {
+        return installSnapshotResponse;
+    }
+
     @Override
     public CommandKey commandKey() {
         return commandKey;
@@ -27,7 +27,9 @@ import org.tools4j.hoverraft.command.CommandLog;
 import org.tools4j.hoverraft.command.LogContainment;
 import org.tools4j.hoverraft.command.LogEntry;
 import org.tools4j.hoverraft.command.LogKey;
+import org.tools4j.hoverraft.config.DurabilityPolicy;
 import org.tools4j.hoverraft.message.AppendRequest;
+import org.tools4j.hoverraft.message.AppendResponse;
 import org.tools4j.hoverraft.message.Sequence;
 import org.tools4j.hoverraft.server.ServerContext;
 import org.tools4j.hoverraft.state.PersistentState;
@@ -49,6 +51,10 @@ public class AppendRequestHandler {
         final int appendRequestTerm = appendRequest.term();
         final int leaderId = appendRequest.leaderId();
         final int currentTerm = persistentState.currentTerm();
+        final AppendResponse appendResponse = serverContext.directFactory().appendResponse()
+                .matchLogIndex(-1)
+                .conflictTerm(AppendResponse.NO_CONFLICT_TERM)
+                .conflictIndex(-1);
         final Transition transition;
         final boolean successful;
 
@@ -58,60 +64,80 @@ public class AppendRequestHandler {
         } else {
             //appendRequestTerm == currentTerm, as HigherTermHandler would
             transition = Transition.STEADY;
-            successful = appendToLog(serverContext, appendRequest);
+            successful = appendToLog(serverContext, appendRequest, appendResponse);
         }
 
-        long matchLogIndex = -1;
-
-        if (successful) {
-            final LogEntry lastLogEntry = serverContext.directFactory().logEntry();
-            final Sequence.SequenceIterator<LogEntry> logIt = appendRequest.logEntries().iterator();
-            while (logIt.hasNext()) {
-                logIt.readNextTo(lastLogEntry);
-            }
-            if (lastLogEntry.isWrapped()) {
-                matchLogIndex = lastLogEntry.logKey().index();
-            }
-        }
-
-        serverContext.directFactory().appendResponse()
+        appendResponse
                 .term(currentTerm)
                 .successful(successful)
                 .serverId(serverContext.serverConfig().id())
-                .matchLogIndex(matchLogIndex)
                 .sendTo(serverContext.connections().serverSender(leaderId),
                         serverContext.resendStrategy());
 
         return transition;
     }
 
-    private boolean appendToLog(final ServerContext serverContext, final AppendRequest appendRequest) {
+    private boolean appendToLog(final ServerContext serverContext,
+                                final AppendRequest appendRequest,
+                                final AppendResponse appendResponse) {
 
         final LogKey prevLogKey = appendRequest.prevLogKey();
 
         final CommandLog commandLog = persistentState.commandLog();
 
+        //identifies the request to the leader if it is rejected, replaced by the last new index otherwise
+        appendResponse.matchLogIndex(prevLogKey.index());
+
         final LogContainment containment = commandLog.contains(prevLogKey);
 
         switch(containment) {
-            case OUT: return false;
+            case OUT:
+                //hint the leader to continue at the end of our log
+                appendResponse.conflictIndex(commandLog.size());
+                return false;
             case CONFLICT:
+                //hint the leader to skip all our entries of the conflicting term
+                final int conflictTerm = commandLog.readTerm(prevLogKey.index());
+                appendResponse
+                        .conflictTerm(conflictTerm)
+                        .conflictIndex(commandLog.firstIndexOfTerm(conflictTerm));
                 commandLog.truncateIncluding(prevLogKey.index());
                 return false;
             case IN:
-                //Append any new entries not already in the log
+                //Skip entries already in the log, requests may be retransmitted or overlap with previous
+                //requests when the leader pipelines append requests; truncate the log at the first conflict
                 final LogEntry logEntry = serverContext.directFactory().logEntry();
                 final Sequence.SequenceIterator<LogEntry> logIt = appendRequest.logEntries().iterator();
+                long lastNewIndex = prevLogKey.index();
                 while (logIt.hasNext()) {
                     logIt.readNextTo(logEntry);
-                    commandLog.append(logEntry.logKey().term(), logEntry.command());
+                    final LogKey logKey = logEntry.logKey();
+                    final long index = logKey.index();
+                    if (index >= commandLog.size()) {
+                        break;
+                    }
+                    if (index >= commandLog.firstIndex() && commandLog.readTerm(index) != logKey.term()) {
+                        commandLog.truncateIncluding(index);
+                        break;
+                    }
+                    lastNewIndex = index;
+                }
+
+                //Append the remaining entries in bulk
+                if (commandLog.appendAll(appendRequest.logEntries(), logEntry) > 0) {
+                    final DurabilityPolicy durabilityPolicy = serverContext.consensusConfig().durabilityPolicy();
+                    durabilityPolicy.afterAppend(commandLog);
+                    durabilityPolicy.afterBatch(commandLog);
+                    lastNewIndex = commandLog.lastIndex();
                 }
+                appendResponse.matchLogIndex(lastNewIndex);
 
                 //From paper:  If leaderCommit > commitIndex, set commitIndex =
                 // min(leaderCommit, index of last new entry).
-                // I think, "index of last new entry" implies not empty log entries.
-                if (logEntry.isWrapped() && appendRequest.leaderCommit() > volatileState.commitIndex()) {
-                    volatileState.commitIndex(Long.min(appendRequest.leaderCommit(), logEntry.logKey().index()));
+                // The index of the last new entry is prevLogIndex for heartbeats without entries.
+                final long commitIndex = Long.min(appendRequest.leaderCommit(), lastNewIndex);
+                if (commitIndex > volatileState.commitIndex()) {
+                    volatileState.commitIndex(commitIndex);
                 }
                 return true;
             default:
@@ -41,5 +41,8 @@ public interface EventHandler {
     default Transition onAppendRequest(ServerContext serverContext, AppendRequest appendRequest) {return Transition.STEADY;}
     default Transition onAppendResponse(ServerContext serverContext, AppendResponse appendResponse) {return Transition.STEADY;}
     default Transition onTimeoutNow(ServerContext serverContext, TimeoutNow timeoutNow) {return Transition.STEADY;}
+    default Transition onInstallSnapshot(ServerContext serverContext, InstallSnapshot installSnapshot) {return Transition.STEADY;}
+    default Transition onInstallSnapshotResponse(ServerContext serverContext, InstallSnapshotResponse installSnapshotResponse) {return Transition.STEADY;}
     default Transition onTimerEvent(ServerContext serverContext, TimerEvent timerEvent) {return Transition.STEADY;};
+    default Transition onFlush(ServerContext serverContext, FlushEvent flushEvent) {return Transition.STEADY;}
 }
@@ -63,7 +63,23 @@ public final class HigherTermHandler implements EventHandler {
         return onTerm(timeoutRequest.term());
     }
 
-    private Transition onTerm(final int term) {
+    @Override
+    public Transition onInstallSnapshot(final ServerContext serverContext, final InstallSnapshot installSnapshot) {
+        return onTerm(installSnapshot.term());
+    }
+
+    @Override
+    public Transition onInstallSnapshotResponse(final ServerContext serverContext, final InstallSnapshotResponse installSnapshotResponse) {
+        return onTerm(installSnapshotResponse.term());
+    }
+
+    /**
+     * Adopts the given term and returns {@link Transition#TO_FOLLOWER} if it is higher than the current term.
+     *
+     * @param term the term of a received message
+     * @return TO_FOLLOWER if term is higher than the current term, and STEADY otherwise
+     */
+    public Transition onTerm(final int term) {
         if (term > persistentState.currentTerm()) {
             persistentState.clearVotedForAndSetCurrentTerm(term);
             return Transition.TO_FOLLOWER;
@@ -0,0 +1,71 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.event;
+
+import org.tools4j.hoverraft.message.InstallSnapshot;
+import org.tools4j.hoverraft.server.ServerContext;
+import org.tools4j.hoverraft.state.PersistentState;
+import org.tools4j.hoverraft.state.Snapshotter;
+import org.tools4j.hoverraft.state.Transition;
+
+import java.util.Objects;
+
+public class InstallSnapshotHandler {
+    private final PersistentState persistentState;
+
+    public InstallSnapshotHandler(final PersistentState persistentState) {
+        this.persistentState = Objects.requireNonNull(persistentState);
+    }
+
+    public Transition onInstallSnapshot(final ServerContext serverContext, final InstallSnapshot installSnapshot) {
+        final int currentTerm = persistentState.currentTerm();
+        final long snapshotIndex = installSnapshot.lastIncludedLogKey().index();
+        final long nextChunkPosition;
+        final boolean installed;
+
+        if (installSnapshot.term() < currentTerm) {
+            nextChunkPosition = installSnapshot.chunkPosition();
+            installed = false;
+        } else {
+            final Snapshotter snapshotter = serverContext.snapshotter();
+            nextChunkPosition = snapshotter.receiveChunk(installSnapshot);
+            if (!serverContext.consensusConfig().dedicatedApplyThread()) {
+                snapshotter.installReceived(serverContext.stateMachine());
+                snapshotter.compactLog();
+            }
+            installed = snapshotter.isInstalled(snapshotIndex);
+        }
+
+        serverContext.directFactory().installSnapshotResponse()
+                .term(currentTerm)
+                .serverId(serverContext.serverConfig().id())
+                .snapshotIndex(snapshotIndex)
+                .nextChunkPosition(nextChunkPosition)
+                .installed(installed)
+                .sendTo(serverContext.connections().serverSender(installSnapshot.leaderId()),
+                        serverContext.resendStrategy());
+
+        return Transition.STEADY;
+    }
+}
@@ -29,6 +29,11 @@ import org.tools4j.hoverraft.state.Transition;
 
 public interface AppendResponse extends Message {
 
+    /**
+     * Conflict term of a rejection because the follower's log does not contain the previous log index at all.
+     */
+    int NO_CONFLICT_TERM = -1;
+
     int term();
 
     AppendResponse term(int term);
@@ -43,8 +48,36 @@ public interface AppendResponse extends Message {
 
     AppendResponse matchLogIndex(long matchLogIndex);
 
+    /**
+     * Returns the index of the last entry known to match the leader's log if the response is successful. If the
+     * append request has been rejected, the previous log index of the rejected request is returned instead so that
+     * the leader can tell which of its in-flight requests the rejection belongs to.
+     *
+     * @return the match log index of a successful response, or the previous log index of a rejected request
+     */
     long matchLogIndex();
 
+    /**
+     * Returns the term of the conflicting entry at the previous log index of a rejected append request, or
+     * {@link #NO_CONFLICT_TERM} if the follower's log is shorter than the previous log index.
+     *
+     * @return the term of the follower's conflicting entry, or {@link #NO_CONFLICT_TERM} if the log is too short
+     */
+    int conflictTerm();
+
+    AppendResponse conflictTerm(int conflictTerm);
+
+    /**
+     * Returns the index of the first entry in the follower's log with {@link #conflictTerm()}, or the follower's log
+     * size if the log is shorter than the previous log index of a rejected append request. The leader continues
+     * replication at or after this index instead of moving back one entry per rejection.
+     *
+     * @return the first index of the conflict term, or the log size if there is no conflict term
+     */
+    long conflictIndex();
+
+    AppendResponse conflictIndex(long conflictIndex);
+
     @Override
     default Transition accept(final ServerContext serverContext, final EventHandler eventHandler) {
         return eventHandler.onAppendResponse(serverContext, this);
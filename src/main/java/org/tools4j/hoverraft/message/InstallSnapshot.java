@@ -0,0 +1,74 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.message;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.tools4j.hoverraft.command.LogKey;
+import org.tools4j.hoverraft.event.EventHandler;
+import org.tools4j.hoverraft.server.ServerContext;
+import org.tools4j.hoverraft.state.Transition;
+
+/**
+ * Chunk of a snapshot sent by the leader to a follower whose next log entries have been discarded after a snapshot.
+ * Chunks are sent in order, the follower acknowledges received chunks with an {@link InstallSnapshotResponse}.
+ */
+public interface InstallSnapshot extends Message {
+
+    int term();
+
+    InstallSnapshot term(int term);
+
+    int leaderId();
+
+    InstallSnapshot leaderId(int leaderId);
+
+    /**
+     * @return the key of the last log entry included in the snapshot
+     */
+    LogKey lastIncludedLogKey();
+
+    long snapshotByteLength();
+
+    InstallSnapshot snapshotByteLength(long snapshotByteLength);
+
+    long chunkPosition();
+
+    InstallSnapshot chunkPosition(long chunkPosition);
+
+    int chunkByteLength();
+
+    void chunkFrom(DirectBuffer bytes, int offset, int length);
+
+    void chunkTo(MutableDirectBuffer bytes, int offset);
+
+    default boolean lastChunk() {
+        return chunkPosition() + chunkByteLength() >= snapshotByteLength();
+    }
+
+    @Override
+    default Transition accept(final ServerContext serverContext, final EventHandler eventHandler) {
+        return eventHandler.onInstallSnapshot(serverContext, this);
+    }
+}
@@ -25,6 +25,7 @@ package org.tools4j.hoverraft.message;
 
 import org.tools4j.hoverraft.direct.DirectPayload;
 import org.tools4j.hoverraft.event.Event;
+import org.tools4j.hoverraft.transport.RejectReason;
 import org.tools4j.hoverraft.transport.ResendStrategy;
 import org.tools4j.hoverraft.transport.Sender;
 
@@ -36,11 +37,31 @@ public interface Message extends DirectPayload, Event {
     MessageType type();
 
     default void sendTo(final Sender<? super Message> sender, final ResendStrategy resendStrategy) {
+        if (resendStrategy.hasDeferred(sender)) {
+            resendStrategy.onRejectedOffer(sender, this, RejectReason.DEFERRED);
+            return;
+        }
         final long res = sender.offer(this);
         if (res < 0) {
             resendStrategy.onRejectedOffer(sender, this, res);
         }
     }
 
-
+    /**
+     * Commits the message if it has been encoded in a region claimed through
+     * {@link Sender#tryClaim(int, org.tools4j.hoverraft.direct.DirectPayload)}, and sends it through
+     * {@link #sendTo(Sender, ResendStrategy)} otherwise.
+     *
+     * @param sender the sender used to claim or to send the message
+     * @param claimed true if the message is wrapped around a region claimed from sender
+     * @param resendStrategy the strategy invoked if the message is sent and the offer is rejected
+     */
+    default void commitOrSendTo(final Sender<? super Message> sender, final boolean claimed,
+                                final ResendStrategy resendStrategy) {
+        if (claimed) {
+            sender.commit(this);
+        } else {
+            sendTo(sender, resendStrategy);
+        }
+    }
 }
@@ -0,0 +1,62 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.message;
+
+import org.agrona.DirectBuffer;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.direct.RecyclingDirectFactory;
+
+/**
+ * Table of message flyweights indexed by {@link MessageType} ordinal, used by receivers to decode incoming messages
+ * in place. Decoding reads the message type once and wraps the pre-allocated flyweight of that type, hence no
+ * factory is invoked per message. Every receiver must own its own table as flyweights are reused for all messages
+ * of the same type.
+ */
+public final class MessageFlyweights {
+
+    private final Message[] flyweights;
+
+    public MessageFlyweights() {
+        final DirectFactory directFactory = new RecyclingDirectFactory();
+        this.flyweights = new Message[MessageType.maxOrdinal() + 1];
+        for (int i = 0; i < flyweights.length; i++) {
+            flyweights[i] = MessageType.valueByOrdinal(i).create(directFactory);
+        }
+    }
+
+    /**
+     * Wraps the flyweight of the message type found at offset read-only around the given buffer. The returned
+     * message is valid until it is unwrapped or until the next message of the same type is wrapped.
+     *
+     * @param buffer the buffer containing the message
+     * @param offset the offset of the message in buffer
+     * @return the flyweight wrapped around the message
+     * @throws IllegalArgumentException if the buffer contains no valid message type at offset
+     */
+    public Message wrap(final DirectBuffer buffer, final int offset) {
+        final Message message = flyweights[MessageType.readOrdinalFrom(buffer, offset)];
+        message.wrap(buffer, offset);
+        return message;
+    }
+}
@@ -56,6 +56,18 @@ public enum MessageType {
         public Message create(final DirectFactory factory) {
             return factory.timeoutNow();
         }
+    },
+    INSTALL_SNAPSHOT {
+        @Override
+        public Message create(final DirectFactory factory) {
+            return factory.installSnapshot();
+        }
+    },
+    INSTALL_SNAPSHOT_RESPONSE {
+        @Override
+        public Message create(final DirectFactory factory) {
+            return factory.installSnapshotResponse();
+        }
     };
 
     private static final MessageType[] VALUES = values();
@@ -71,12 +83,24 @@ public enum MessageType {
     abstract public Message create(DirectFactory factory);
 
     public static MessageType readFrom(final DirectBuffer directBuffer, final int offset) {
+        return MessageType.valueByOrdinal(readOrdinalFrom(directBuffer, offset));
+    }
+
+    /**
+     * Reads the message type ordinal without resolving the type constant, for instance to index type tables
+     * directly.
+     *
+     * @param directBuffer the buffer containing the message
+     * @param offset the offset of the message in directBuffer
+     * @return the ordinal of the message type, a value between zero and {@link #maxOrdinal()}
+     * @throws IllegalArgumentException if the type read from the buffer is not a valid message type ordinal
+     */
+    public static int readOrdinalFrom(final DirectBuffer directBuffer, final int offset) {
         final int type = directBuffer.getInt(offset);
         if (type >= 0 & type <= MessageType.maxOrdinal()) {
-            return MessageType.valueByOrdinal(type);
+            return type;
         }
         throw new IllegalArgumentException("Illegal message type: " + type);
     }
 
-
 }
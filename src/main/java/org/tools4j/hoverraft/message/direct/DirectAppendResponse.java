@@ -42,7 +42,13 @@ public final class DirectAppendResponse extends AbstractDirectMessage implements
     private static final int MATCH_LOG_INDEX_OFF = SERVER_ID_OFF + SERVER_ID_LEN;
     private static final int MATCH_LOG_INDEX__LEN = 8;
 
-    public static final int BYTE_LENGTH = MATCH_LOG_INDEX_OFF + MATCH_LOG_INDEX__LEN;
+    private static final int CONFLICT_TERM_OFF = MATCH_LOG_INDEX_OFF + MATCH_LOG_INDEX__LEN;
+    private static final int CONFLICT_TERM_LEN = 4;
+
+    private static final int CONFLICT_INDEX_OFF = CONFLICT_TERM_OFF + CONFLICT_TERM_LEN;
+    private static final int CONFLICT_INDEX_LEN = 8;
+
+    public static final int BYTE_LENGTH = CONFLICT_INDEX_OFF + CONFLICT_INDEX_LEN;
 
     @Override
     public MessageType type() {
@@ -95,4 +101,26 @@ public final class DirectAppendResponse extends AbstractDirectMessage implements
         writeBuffer.putLong(offset + MATCH_LOG_INDEX_OFF, matchLogIndex);
         return this;
     }
+
+    @Override
+    public int conflictTerm() {
+        return readBuffer.getInt(offset + CONFLICT_TERM_OFF);
+    }
+
+    @Override
+    public DirectAppendResponse conflictTerm(final int conflictTerm) {
+        writeBuffer.putInt(offset + CONFLICT_TERM_OFF, conflictTerm);
+        return this;
+    }
+
+    @Override
+    public long conflictIndex() {
+        return readBuffer.getLong(offset + CONFLICT_INDEX_OFF);
+    }
+
+    @Override
+    public DirectAppendResponse conflictIndex(final long conflictIndex) {
+        writeBuffer.putLong(offset + CONFLICT_INDEX_OFF, conflictIndex);
+        return this;
+    }
 }
@@ -0,0 +1,149 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.message.direct;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.tools4j.hoverraft.command.LogKey;
+import org.tools4j.hoverraft.message.InstallSnapshot;
+import org.tools4j.hoverraft.message.MessageType;
+
+public final class DirectInstallSnapshot extends AbstractDirectMessage implements InstallSnapshot {
+
+    private static final int TERM_OFF = TYPE_OFF + TYPE_LEN;
+    private static final int TERM_LEN = 4;
+    private static final int LEADER_ID_OFF = TERM_OFF + TERM_LEN;
+    private static final int LEADER_ID_LEN = 4;
+
+    private static final int LAST_INCLUDED_LOG_KEY_OFF = LEADER_ID_OFF + LEADER_ID_LEN;
+    private static final int LAST_INCLUDED_LOG_KEY_LEN = DirectLogKey.BYTE_LENGTH;
+
+    private static final int SNAPSHOT_BYTE_LENGTH_OFF = LAST_INCLUDED_LOG_KEY_OFF + LAST_INCLUDED_LOG_KEY_LEN;
+    private static final int SNAPSHOT_BYTE_LENGTH_LEN = 8;
+
+    private static final int CHUNK_POSITION_OFF = SNAPSHOT_BYTE_LENGTH_OFF + SNAPSHOT_BYTE_LENGTH_LEN;
+    private static final int CHUNK_POSITION_LEN = 8;
+
+    private static final int CHUNK_BYTE_LENGTH_OFF = CHUNK_POSITION_OFF + CHUNK_POSITION_LEN;
+    private static final int CHUNK_BYTE_LENGTH_LEN = 4;
+
+    private static final int CHUNK_OFF = CHUNK_BYTE_LENGTH_OFF + CHUNK_BYTE_LENGTH_LEN;
+
+    public static final int EMPTY_CHUNK_BYTE_LENGTH = CHUNK_OFF;
+
+    private final DirectLogKey lastIncludedLogKey = new DirectLogKey();
+
+    @Override
+    public MessageType type() {
+        return MessageType.INSTALL_SNAPSHOT;
+    }
+
+    @Override
+    public int byteLength() {
+        return CHUNK_OFF + chunkByteLength();
+    }
+
+    @Override
+    public int term() {
+        return readBuffer.getInt(offset + TERM_OFF);
+    }
+
+    @Override
+    public InstallSnapshot term(final int term) {
+        writeBuffer.putInt(offset + TERM_OFF, term);
+        return this;
+    }
+
+    @Override
+    public int leaderId() {
+        return readBuffer.getInt(offset + LEADER_ID_OFF);
+    }
+
+    @Override
+    public InstallSnapshot leaderId(final int leaderId) {
+        writeBuffer.putInt(offset + LEADER_ID_OFF, leaderId);
+        return this;
+    }
+
+    @Override
+    public LogKey lastIncludedLogKey() {
+        return lastIncludedLogKey;
+    }
+
+    @Override
+    public long snapshotByteLength() {
+        return readBuffer.getLong(offset + SNAPSHOT_BYTE_LENGTH_OFF);
+    }
+
+    @Override
+    public InstallSnapshot snapshotByteLength(final long snapshotByteLength) {
+        writeBuffer.putLong(offset + SNAPSHOT_BYTE_LENGTH_OFF, snapshotByteLength);
+        return this;
+    }
+
+    @Override
+    public long chunkPosition() {
+        return readBuffer.getLong(offset + CHUNK_POSITION_OFF);
+    }
+
+    @Override
+    public InstallSnapshot chunkPosition(final long chunkPosition) {
+        writeBuffer.putLong(offset + CHUNK_POSITION_OFF, chunkPosition);
+        return this;
+    }
+
+    @Override
+    public int chunkByteLength() {
+        return readBuffer.getInt(offset + CHUNK_BYTE_LENGTH_OFF);
+    }
+
+    @Override
+    public void chunkFrom(final DirectBuffer bytes, final int offset, final int length) {
+        writeBuffer.putInt(this.offset + CHUNK_BYTE_LENGTH_OFF, length);
+        writeBuffer.putBytes(this.offset + CHUNK_OFF, bytes, offset, length);
+    }
+
+    @Override
+    public void chunkTo(final MutableDirectBuffer bytes, final int offset) {
+        readBuffer.getBytes(this.offset + CHUNK_OFF, bytes, offset, chunkByteLength());
+    }
+
+    @Override
+    public void wrap(final DirectBuffer buffer, final int offset) {
+        super.wrap(buffer, offset);
+        lastIncludedLogKey.wrap(buffer, offset + LAST_INCLUDED_LOG_KEY_OFF);
+    }
+
+    @Override
+    public void wrap(final MutableDirectBuffer buffer, final int offset) {
+        super.wrap(buffer, offset);
+        lastIncludedLogKey.wrap(buffer, offset + LAST_INCLUDED_LOG_KEY_OFF);
+    }
+
+    @Override
+    public void unwrap() {
+        lastIncludedLogKey.unwrap();
+        super.unwrap();
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.message.direct;
+
+import org.tools4j.hoverraft.message.InstallSnapshotResponse;
+import org.tools4j.hoverraft.message.MessageType;
+
+public final class DirectInstallSnapshotResponse extends AbstractDirectMessage implements InstallSnapshotResponse {
+
+    private static final byte INSTALLED = 1;
+    private static final byte NOT_INSTALLED = 0;
+
+    private static final int TERM_OFF = TYPE_OFF + TYPE_LEN;
+    private static final int TERM_LEN = 4;
+    private static final int SERVER_ID_OFF = TERM_OFF + TERM_LEN;
+    private static final int SERVER_ID_LEN = 4;
+    private static final int SNAPSHOT_INDEX_OFF = SERVER_ID_OFF + SERVER_ID_LEN;
+    private static final int SNAPSHOT_INDEX_LEN = 8;
+    private static final int NEXT_CHUNK_POSITION_OFF = SNAPSHOT_INDEX_OFF + SNAPSHOT_INDEX_LEN;
+    private static final int NEXT_CHUNK_POSITION_LEN = 8;
+    private static final int INSTALLED_OFF = NEXT_CHUNK_POSITION_OFF + NEXT_CHUNK_POSITION_LEN;
+    private static final int INSTALLED_LEN = 1;
+
+    public static final int BYTE_LENGTH = INSTALLED_OFF + INSTALLED_LEN;
+
+    @Override
+    public MessageType type() {
+        return MessageType.INSTALL_SNAPSHOT_RESPONSE;
+    }
+
+    @Override
+    public int byteLength() {
+        return BYTE_LENGTH;
+    }
+
+    @Override
+    public int term() {
+        return readBuffer.getInt(offset + TERM_OFF);
+    }
+
+    @Override
+    public DirectInstallSnapshotResponse term(final int term) {
+        writeBuffer.putInt(offset + TERM_OFF, term);
+        return this;
+    }
+
+    @Override
+    public int serverId() {
+        return readBuffer.getInt(offset + SERVER_ID_OFF);
+    }
+
+    @Override
+    public DirectInstallSnapshotResponse serverId(final int serverId) {
+        writeBuffer.putInt(offset + SERVER_ID_OFF, serverId);
+        return this;
+    }
+
+    @Override
+    public long snapshotIndex() {
+        return readBuffer.getLong(offset + SNAPSHOT_INDEX_OFF);
+    }
+
+    @Override
+    public DirectInstallSnapshotResponse snapshotIndex(final long snapshotIndex) {
+        writeBuffer.putLong(offset + SNAPSHOT_INDEX_OFF, snapshotIndex);
+        return this;
+    }
+
+    @Override
+    public long nextChunkPosition() {
+        return readBuffer.getLong(offset + NEXT_CHUNK_POSITION_OFF);
+    }
+
+    @Override
+    public DirectInstallSnapshotResponse nextChunkPosition(final long nextChunkPosition) {
+        writeBuffer.putLong(offset + NEXT_CHUNK_POSITION_OFF, nextChunkPosition);
+        return this;
+    }
+
+    @Override
+    public boolean installed() {
+        return readBuffer.getByte(offset + INSTALLED_OFF) == INSTALLED;
+    }
+
+    @Override
+    public DirectInstallSnapshotResponse installed(final boolean installed) {
+        writeBuffer.putByte(offset + INSTALLED_OFF, installed ? INSTALLED : NOT_INSTALLED);
+        return this;
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.metrics;
+
+/**
+ * Stages of a command on its way through the leader for which latencies are recorded by {@link LatencyTracker}.
+ */
+public enum LatencyStage {
+    /** From receiving the command until it has been appended to the leader's log */
+    APPEND,
+    /** From appending to the log until the entry is first sent to followers in an append request */
+    SEND,
+    /** From sending the append request until the entry is acknowledged by a majority and hence committed */
+    COMMIT,
+    /** From committing the entry until it has been applied to the state machine */
+    APPLY,
+    /** From receiving the command until it has been applied to the state machine */
+    END_TO_END;
+
+    private static final LatencyStage[] VALUES = values();
+
+    public static int count() {
+        return VALUES.length;
+    }
+}
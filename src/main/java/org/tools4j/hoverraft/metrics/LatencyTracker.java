@@ -0,0 +1,207 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records latencies in nanoseconds of the {@link LatencyStage stages} a command passes through on the leader. Stage
+ * timestamps are kept per log index in a ring of fixed capacity; entries that are overtaken by more than capacity
+ * newer entries before they are applied are not recorded. Recording does not allocate.
+ * <p>
+ * All stages but {@link LatencyStage#APPLY apply} are recorded by the consensus thread; applied entries may be
+ * recorded by a different thread if a dedicated apply thread is used. Histograms are read through
+ * {@link #intervalHistogram(LatencyStage, Histogram)} from any thread, each invocation returning the values recorded
+ * since the previous invocation for the same stage.
+ */
+public final class LatencyTracker {
+
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+    public static final long DEFAULT_HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(10);
+    public static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+
+    private static final long NO_INDEX = -1;
+
+    private final int mask;
+    private final long highestTrackableNanos;
+    private final Recorder[] recorders;
+    private final long[] indices;
+    private final long[] receivedNanos;
+    private final long[] appendedNanos;
+    private final long[] sentNanos;
+    private final long[] committedNanos;
+
+    private long commandReceivedNanos;
+    private long lastSentIndex = NO_INDEX;
+    private long lastCommittedIndex = NO_INDEX;
+    private long lastAppliedIndex = NO_INDEX;
+
+    public LatencyTracker() {
+        this(DEFAULT_CAPACITY, DEFAULT_HIGHEST_TRACKABLE_NANOS, DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    public LatencyTracker(final int capacity, final long highestTrackableNanos, final int significantDigits) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a positive power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.highestTrackableNanos = highestTrackableNanos;
+        this.recorders = new Recorder[LatencyStage.count()];
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i] = new Recorder(highestTrackableNanos, significantDigits);
+        }
+        this.indices = new long[capacity];
+        this.receivedNanos = new long[capacity];
+        this.appendedNanos = new long[capacity];
+        this.sentNanos = new long[capacity];
+        this.committedNanos = new long[capacity];
+        Arrays.fill(indices, NO_INDEX);
+    }
+
+    /**
+     * Invoked when a command has been received; the time is associated with the next appended entry.
+     */
+    public void onCommandReceived() {
+        commandReceivedNanos = System.nanoTime();
+    }
+
+    /**
+     * Invoked by the leader after appending the last received command to its log.
+     *
+     * @param index the log index of the appended entry
+     */
+    public void onAppended(final long index) {
+        final long now = System.nanoTime();
+        final int slot = slot(index);
+        indices[slot] = index;
+        receivedNanos[slot] = commandReceivedNanos;
+        appendedNanos[slot] = now;
+        sentNanos[slot] = 0;
+        committedNanos[slot] = 0;
+        //entries after a truncated log suffix are sent again
+        lastSentIndex = Math.min(lastSentIndex, index - 1);
+        record(LatencyStage.APPEND, now - commandReceivedNanos);
+    }
+
+    /**
+     * Invoked by the leader after sending an append request; entries are recorded when they are sent for the first
+     * time only.
+     *
+     * @param lastIndex the log index of the last entry in the append request
+     */
+    public void onAppendRequestSent(final long lastIndex) {
+        if (lastIndex <= lastSentIndex) {
+            return;
+        }
+        final long now = System.nanoTime();
+        for (long index = firstTracked(lastSentIndex, lastIndex); index <= lastIndex; index++) {
+            final int slot = slot(index);
+            if (indices[slot] == index) {
+                sentNanos[slot] = now;
+                record(LatencyStage.SEND, now - appendedNanos[slot]);
+            }
+        }
+        lastSentIndex = lastIndex;
+    }
+
+    /**
+     * Invoked by the leader when the commit index advances.
+     *
+     * @param commitIndex the new commit index
+     */
+    public void onCommitted(final long commitIndex) {
+        if (commitIndex <= lastCommittedIndex) {
+            return;
+        }
+        final long now = System.nanoTime();
+        for (long index = firstTracked(lastCommittedIndex, commitIndex); index <= commitIndex; index++) {
+            final int slot = slot(index);
+            if (indices[slot] == index && sentNanos[slot] != 0) {
+                committedNanos[slot] = now;
+                record(LatencyStage.COMMIT, now - sentNanos[slot]);
+            }
+        }
+        lastCommittedIndex = commitIndex;
+    }
+
+    /**
+     * Invoked after committed entries have been applied to the state machine.
+     *
+     * @param lastApplied the index of the last applied entry
+     */
+    public void onApplied(final long lastApplied) {
+        if (lastApplied <= lastAppliedIndex) {
+            return;
+        }
+        final long now = System.nanoTime();
+        for (long index = firstTracked(lastAppliedIndex, lastApplied); index <= lastApplied; index++) {
+            final int slot = slot(index);
+            final long committed = committedNanos[slot];
+            if (indices[slot] == index && committed != 0) {
+                record(LatencyStage.APPLY, now - committed);
+                record(LatencyStage.END_TO_END, now - receivedNanos[slot]);
+            }
+        }
+        lastAppliedIndex = lastApplied;
+    }
+
+    /**
+     * Returns the latencies recorded for the given stage since the last invocation for this stage.
+     *
+     * @param stage     the stage
+     * @param recycle   a histogram previously returned by this method for the same stage to be reused, or null to
+     *                  allocate a new histogram
+     * @return the interval histogram with latencies in nanoseconds
+     */
+    public Histogram intervalHistogram(final LatencyStage stage, final Histogram recycle) {
+        return recorders[stage.ordinal()].getIntervalHistogram(recycle);
+    }
+
+    /**
+     * Copies the latencies recorded for the given stage since the last interval into the given histogram without
+     * allocating. Cumulative snapshots can be maintained by adding consecutive intervals to another histogram.
+     *
+     * @param stage     the stage
+     * @param target    the histogram to copy the interval values into
+     */
+    public void intervalHistogramInto(final LatencyStage stage, final Histogram target) {
+        recorders[stage.ordinal()].getIntervalHistogramInto(target);
+    }
+
+    private long firstTracked(final long lastRecorded, final long last) {
+        return Math.max(lastRecorded + 1, last - mask);
+    }
+
+    private int slot(final long index) {
+        return (int)(index & mask);
+    }
+
+    private void record(final LatencyStage stage, final long nanos) {
+        recorders[stage.ordinal()].recordValue(Math.max(0, Math.min(nanos, highestTrackableNanos)));
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.metrics;
+
+import org.agrona.IoUtil;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+import org.agrona.concurrent.status.CountersReader;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.state.PersistentState;
+import org.tools4j.hoverraft.state.Role;
+import org.tools4j.hoverraft.state.TrackedFollowerState;
+import org.tools4j.hoverraft.state.VolatileState;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.util.Objects;
+
+/**
+ * Counters of consensus events and gauges of the server state in a memory mapped file. The file contains counter
+ * meta data followed by counter values in the format of Agrona's {@link CountersManager}, so that external tools can
+ * read the counters through {@link #mapReader(File)} while the server is running.
+ * <p>
+ * Counters are updated with ordered writes by a single thread each: the consensus thread for all counters except
+ * the ones counting commands polled from sources which are updated by the thread polling the source. Dropped
+ * commands are counted with atomic increments as they may be dropped by several source polling threads.
+ */
+public final class ServerCounters implements AutoCloseable {
+
+    private static final int GLOBAL_COUNTER_COUNT = 10;
+    private static final int COUNTERS_PER_SERVER = 3;
+    private static final int COUNTERS_PER_SOURCE = 1;
+    private static final int RECORD_LENGTH = CountersReader.METADATA_LENGTH + CountersReader.COUNTER_LENGTH;
+
+    private final MappedByteBuffer mappedBuffer;
+    private final CountersManager countersManager;
+
+    private final AtomicCounter electionsStarted;
+    private final AtomicCounter termChanges;
+    private final AtomicCounter currentTerm;
+    private final AtomicCounter commitIndex;
+    private final AtomicCounter lastApplied;
+    private final AtomicCounter logSize;
+    private final AtomicCounter appendRequestsSent;
+    private final AtomicCounter appendRequestsRejected;
+    private final AtomicCounter resendStrategyInvocations;
+    private final AtomicCounter commandsDropped;
+    private final Int2ObjectHashMap<AtomicCounter> serverMessagesPolled = new Int2ObjectHashMap<>();
+    private final Int2ObjectHashMap<AtomicCounter> sourceMessagesPolled = new Int2ObjectHashMap<>();
+    private final AtomicCounter[] matchIndexLag;
+    private final AtomicCounter[] nextIndexLag;
+
+    public ServerCounters(final File file, final int serverId, final ConsensusConfig consensusConfig) {
+        final int counterCount = GLOBAL_COUNTER_COUNT
+                + COUNTERS_PER_SERVER * (consensusConfig.serverCount() - 1)
+                + COUNTERS_PER_SOURCE * consensusConfig.sourceCount();
+        this.mappedBuffer = IoUtil.mapNewFile(file, (long)counterCount * RECORD_LENGTH);
+        this.countersManager = countersManager(mappedBuffer, counterCount);
+        this.electionsStarted = countersManager.newCounter("elections started");
+        this.termChanges = countersManager.newCounter("term changes");
+        this.currentTerm = countersManager.newCounter("current term");
+        this.commitIndex = countersManager.newCounter("commit index");
+        this.lastApplied = countersManager.newCounter("last applied");
+        this.logSize = countersManager.newCounter("log size");
+        this.appendRequestsSent = countersManager.newCounter("append requests sent");
+        this.appendRequestsRejected = countersManager.newCounter("append requests rejected");
+        this.resendStrategyInvocations = countersManager.newCounter("resend strategy invocations");
+        this.commandsDropped = countersManager.newCounter("commands dropped");
+        this.matchIndexLag = new AtomicCounter[consensusConfig.serverCount() - 1];
+        this.nextIndexLag = new AtomicCounter[consensusConfig.serverCount() - 1];
+        int followerIndex = 0;
+        for (int i = 0; i < consensusConfig.serverCount(); i++) {
+            final int id = consensusConfig.serverConfig(i).id();
+            if (id != serverId) {
+                serverMessagesPolled.put(id, countersManager.newCounter("messages polled from server " + id));
+                //same order as follower states in VolatileState
+                matchIndexLag[followerIndex] = countersManager.newCounter("follower " + id + " match index lag");
+                nextIndexLag[followerIndex] = countersManager.newCounter("follower " + id + " next index lag");
+                followerIndex++;
+            }
+        }
+        for (int i = 0; i < consensusConfig.sourceCount(); i++) {
+            final int id = consensusConfig.sourceConfig(i).id();
+            sourceMessagesPolled.put(id, countersManager.newCounter("commands polled from source " + id));
+        }
+    }
+
+    /**
+     * Maps a counters file written by a server for reading. The mapping is not released until the returned reader is
+     * garbage collected.
+     *
+     * @param file the counters file of a server
+     * @return a reader for the counters in the file
+     */
+    public static CountersReader mapReader(final File file) {
+        final MappedByteBuffer mappedBuffer = IoUtil.mapExistingFile(file, "counters");
+        final int counterCount = mappedBuffer.capacity() / RECORD_LENGTH;
+        return new CountersReader(
+                new UnsafeBuffer(mappedBuffer, 0, counterCount * CountersReader.METADATA_LENGTH),
+                new UnsafeBuffer(mappedBuffer, counterCount * CountersReader.METADATA_LENGTH,
+                        counterCount * CountersReader.COUNTER_LENGTH));
+    }
+
+    private static CountersManager countersManager(final MappedByteBuffer mappedBuffer, final int counterCount) {
+        final int metaDataLength = counterCount * CountersReader.METADATA_LENGTH;
+        return new CountersManager(
+                new UnsafeBuffer(mappedBuffer, 0, metaDataLength),
+                new UnsafeBuffer(mappedBuffer, metaDataLength, counterCount * CountersReader.COUNTER_LENGTH));
+    }
+
+    public CountersReader countersReader() {
+        return countersManager;
+    }
+
+    public AtomicCounter serverMessagesPolled(final int serverId) {
+        return Objects.requireNonNull(serverMessagesPolled.get(serverId), "No counter for server ID " + serverId);
+    }
+
+    public AtomicCounter sourceMessagesPolled(final int sourceId) {
+        return Objects.requireNonNull(sourceMessagesPolled.get(sourceId), "No counter for source ID " + sourceId);
+    }
+
+    /**
+     * @return the counter of commands polled from sources but dropped because they could not be enqueued
+     */
+    public AtomicCounter commandsDropped() {
+        return commandsDropped;
+    }
+
+    public void onElectionStarted() {
+        electionsStarted.orderedIncrement();
+    }
+
+    public void onAppendRequestSent() {
+        appendRequestsSent.orderedIncrement();
+    }
+
+    public void onAppendRequestRejected() {
+        appendRequestsRejected.orderedIncrement();
+    }
+
+    public void onResendStrategyInvoked() {
+        resendStrategyInvocations.orderedIncrement();
+    }
+
+    /**
+     * Updates the gauges of the server state; invoked by the consensus thread once per duty cycle.
+     *
+     * @param role              the current role of the server
+     * @param persistentState   the persistent state of the server
+     * @param volatileState     the volatile state of the server
+     */
+    public void update(final Role role, final PersistentState persistentState, final VolatileState volatileState) {
+        final int term = persistentState.currentTerm();
+        if (term != currentTerm.get()) {
+            currentTerm.setOrdered(term);
+            termChanges.orderedIncrement();
+        }
+        final long size = persistentState.commandLog().size();
+        setIfChanged(commitIndex, volatileState.commitIndex());
+        setIfChanged(lastApplied, volatileState.lastApplied());
+        setIfChanged(logSize, size);
+        final boolean leader = role == Role.LEADER;
+        for (int i = 0; i < matchIndexLag.length; i++) {
+            final TrackedFollowerState followerState = volatileState.followerState(i);
+            setIfChanged(matchIndexLag[i], leader ? size - 1 - followerState.matchIndex() : 0);
+            setIfChanged(nextIndexLag[i], leader ? size - followerState.nextIndex() : 0);
+        }
+    }
+
+    private static void setIfChanged(final AtomicCounter counter, final long value) {
+        if (counter.get() != value) {
+            counter.setOrdered(value);
+        }
+    }
+
+    @Override
+    public void close() {
+        IoUtil.unmap(mappedBuffer);
+    }
+}
@@ -37,11 +37,17 @@ public class RoundRobinMessagePoller<M extends DirectPayload> {
 
     private final Receiver<M> roundRobinReceiver;
     private final Consumer<? super M> messageHandler;
+    private final int pollLimit;
 
     private RoundRobinMessagePoller(final Receiver<M> roundRobinReceiver,
-                                    final Consumer<? super M> messageHandler) {
+                                    final Consumer<? super M> messageHandler,
+                                    final int pollLimit) {
+        if (pollLimit <= 0) {
+            throw new IllegalArgumentException("pollLimit must be positive: " + pollLimit);
+        }
         this.roundRobinReceiver = Objects.requireNonNull(roundRobinReceiver);
         this.messageHandler = Objects.requireNonNull(messageHandler);
+        this.pollLimit = pollLimit;
     }
 
     public static RoundRobinMessagePoller<Message> forServerMessages(final ServerContext serverContext,
@@ -53,7 +59,8 @@ public class RoundRobinMessagePoller<M extends DirectPayload> {
             final int id = config.serverConfig(i).id();
             if (!Objects.equals(serverContext.id(), id)) {
                 if (index < config.serverCount()) {
-                    receivers[index] = serverContext.connections().serverReceiver(id);
+                    receivers[index] = Receivers.countingReceiver(serverContext.connections().serverReceiver(id),
+                            serverContext.counters().serverMessagesPolled(id));
                     index++;
                 } else {
                     throw new IllegalArgumentException("Bad config: Server ID '" +  serverContext.id() + "' not found in list of servers");
@@ -63,7 +70,8 @@ public class RoundRobinMessagePoller<M extends DirectPayload> {
         if (index < config.serverCount() - 1) {
             throw new IllegalArgumentException("Bad config: Server ID '" +  serverContext.id() + "' occurs more than once in list of servers");
         }
-        return new RoundRobinMessagePoller<>(Receivers.roundRobinReceiver(receivers), messageHandler);
+        return new RoundRobinMessagePoller<>(Receivers.fairRoundRobinReceiver(receivers), messageHandler,
+                config.serverMessagePollLimit());
     }
 
     public static RoundRobinMessagePoller<Command> forSourceMessages(final ServerContext serverContext,
@@ -72,13 +80,27 @@ public class RoundRobinMessagePoller<M extends DirectPayload> {
         final Receiver<Command>[] receivers = (Receiver<Command>[])new Receiver<?>[config.sourceCount()];
         for (int i = 0; i < config.sourceCount(); i++) {
             final int id = config.sourceConfig(i).id();
-            receivers[i] = serverContext.connections().sourceReceiver(id);
+            receivers[i] = Receivers.countingReceiver(serverContext.connections().sourceReceiver(id),
+                    serverContext.counters().sourceMessagesPolled(id));
         }
-        return new RoundRobinMessagePoller<>(Receivers.roundRobinReceiver(receivers), messageHandler);
+        return new RoundRobinMessagePoller<>(Receivers.fairRoundRobinReceiver(receivers), messageHandler,
+                config.sourceMessagePollLimit());
+    }
+
+    public static RoundRobinMessagePoller<Command> forCommandQueue(final ServerContext serverContext,
+                                                                   final Receiver<Command> commandQueue,
+                                                                   final Consumer<? super Command> messageHandler) {
+        return new RoundRobinMessagePoller<>(commandQueue, messageHandler,
+                serverContext.consensusConfig().sourceMessagePollLimit());
     }
 
-    public void pollNextMessage() {
-        roundRobinReceiver.poll(messageHandler, 1);
+    /**
+     * Polls messages up to the configured poll limit.
+     *
+     * @return the number of messages polled
+     */
+    public int pollMessages() {
+        return roundRobinReceiver.poll(messageHandler, pollLimit);
     }
 
 }
@@ -26,30 +26,59 @@ package org.tools4j.hoverraft.server;
 import org.tools4j.hoverraft.command.Command;
 import org.tools4j.hoverraft.command.machine.StateMachine;
 import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.config.DurabilityPolicy;
 import org.tools4j.hoverraft.config.ServerConfig;
 import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.event.Event;
+import org.tools4j.hoverraft.event.FlushEvent;
 import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.metrics.LatencyTracker;
+import org.tools4j.hoverraft.metrics.ServerCounters;
+import org.tools4j.hoverraft.state.CommittedLogApplier;
 import org.tools4j.hoverraft.state.HoverRaftMachine;
 import org.tools4j.hoverraft.state.PersistentState;
+import org.tools4j.hoverraft.state.Role;
+import org.tools4j.hoverraft.state.Snapshotter;
 import org.tools4j.hoverraft.state.VolatileState;
 import org.tools4j.hoverraft.timer.Timer;
 import org.tools4j.hoverraft.timer.TimerEvent;
 import org.tools4j.hoverraft.transport.Connections;
+import org.tools4j.hoverraft.transport.DeferringResendStrategy;
 import org.tools4j.hoverraft.transport.ResendStrategy;
+import org.tools4j.hoverraft.transport.Sender;
+import org.tools4j.hoverraft.transport.SpinRetryResendStrategy;
+import org.tools4j.hoverraft.transport.embedded.RingBufferMessageBus;
+import org.tools4j.hoverraft.util.Files;
 
+import java.io.File;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
-public final class Server implements ServerContext {
+/**
+ * Server running the consensus algorithm through {@link #perform()}. The server owns the memory mapped counters and
+ * snapshot files in its file directory and releases them on {@link #close()}.
+ */
+public final class Server implements ServerContext, AutoCloseable {
 
     private final ServerConfig serverConfig;
     private final ConsensusConfig consensusConfig;
+    private final PersistentState persistentState;
+    private final VolatileState volatileState;
     private final HoverRaftMachine hoverRaftMachine;
     private final StateMachine stateMachine;
+    private final CommittedLogApplier committedLogApplier;
+    private final Snapshotter snapshotter;
     private final Connections<Message> connections;
     private final DirectFactory directFactory;
     private final RoundRobinMessagePoller<Message> serverMessagePoller;
+    private final RingBufferMessageBus<Command> commandQueueOrNull;
     private final RoundRobinMessagePoller<Command> sourceMessagePoller;
     private final Timer timer;
+    private final LatencyTracker latencyTracker;
+    private final ServerCounters counters;
+    private final ResendStrategy resendStrategy;
+    private final long syncIntervalNanos;
+    private long lastSyncNanos;
 
     public Server(final int serverId,
                   final ConsensusConfig consensusConfig,
@@ -58,16 +87,121 @@ public final class Server implements ServerContext {
                   final StateMachine stateMachine,
                   final Connections<Message> connections,
                   final DirectFactory directFactory) {
+        this(serverId, consensusConfig, persistentState, volatileState, stateMachine, connections, directFactory,
+                new File(Files.fileDirectory()));
+    }
+
+    public Server(final int serverId,
+                  final ConsensusConfig consensusConfig,
+                  final PersistentState persistentState,
+                  final VolatileState volatileState,
+                  final StateMachine stateMachine,
+                  final Connections<Message> connections,
+                  final DirectFactory directFactory,
+                  final File fileDirectory) {
+        Objects.requireNonNull(fileDirectory);
         this.serverConfig = Objects.requireNonNull(consensusConfig.serverConfigByIdOrNull(serverId), "No server serverConfig found for ID " + serverId);
         this.consensusConfig = Objects.requireNonNull(consensusConfig);
-        this.hoverRaftMachine = new HoverRaftMachine(Objects.requireNonNull(persistentState),
-                Objects.requireNonNull(volatileState));
+        this.persistentState = Objects.requireNonNull(persistentState);
+        this.volatileState = Objects.requireNonNull(volatileState);
+        this.hoverRaftMachine = new HoverRaftMachine(persistentState, volatileState);
         this.stateMachine = Objects.requireNonNull(stateMachine);
+        this.committedLogApplier = new CommittedLogApplier(persistentState, volatileState);
+        validateSnapshotSupport(consensusConfig, persistentState, stateMachine);
+        validateApplyThreadSupport(consensusConfig, persistentState);
+        this.snapshotter = new Snapshotter(new File(fileDirectory, Files.fileName(serverId, "snapshot")),
+                persistentState, volatileState, consensusConfig.snapshotLogEntryThreshold());
+        this.snapshotter.recover(stateMachine);
         this.connections = Objects.requireNonNull(connections);
         this.directFactory = Objects.requireNonNull(directFactory);
+        this.counters = new ServerCounters(new File(fileDirectory, Files.fileName(serverId, "counters")),
+                serverId, consensusConfig);
+        this.resendStrategy = countingResendStrategy(initResendStrategy(consensusConfig), counters);
         this.serverMessagePoller = RoundRobinMessagePoller.forServerMessages(this, this::handleMessage);
-        this.sourceMessagePoller = RoundRobinMessagePoller.forSourceMessages(this, this::handleCommand);
+        this.commandQueueOrNull = initCommandQueue(consensusConfig);
+        this.sourceMessagePoller = commandQueueOrNull == null ?
+                RoundRobinMessagePoller.forSourceMessages(this, this::handleCommand) :
+                RoundRobinMessagePoller.forCommandQueue(this, commandQueueOrNull, this::handleCommand);
         this.timer = new Timer();
+        this.latencyTracker = new LatencyTracker();
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(consensusConfig.durabilitySyncIntervalMillis());
+        this.lastSyncNanos = System.nanoTime();
+    }
+
+    private static void validateSnapshotSupport(final ConsensusConfig consensusConfig,
+                                                final PersistentState persistentState,
+                                                final StateMachine stateMachine) {
+        if (consensusConfig.snapshotLogEntryThreshold() <= 0) {
+            return;
+        }
+        if (!persistentState.commandLog().supportsCompaction()) {
+            throw new IllegalArgumentException("Snapshots require a command log supporting compaction: "
+                    + persistentState.commandLog().getClass().getSimpleName());
+        }
+        if (!stateMachine.supportsSnapshots()) {
+            throw new IllegalArgumentException("Snapshots require a state machine supporting snapshots: "
+                    + stateMachine.getClass().getSimpleName());
+        }
+    }
+
+    private static void validateApplyThreadSupport(final ConsensusConfig consensusConfig,
+                                                   final PersistentState persistentState) {
+        if (consensusConfig.dedicatedApplyThread() && !persistentState.commandLog().supportsConcurrentReads()) {
+            throw new IllegalArgumentException("Dedicated apply thread requires a command log supporting concurrent "
+                    + "reads: " + persistentState.commandLog().getClass().getSimpleName());
+        }
+    }
+
+    private static ResendStrategy initResendStrategy(final ConsensusConfig consensusConfig) {
+        switch (consensusConfig.resendPolicy()) {
+            case NONE:
+                return ResendStrategy.NOOP;
+            case SPIN:
+                return new SpinRetryResendStrategy(consensusConfig.maxResendAttempts());
+            case DEFER:
+                return new DeferringResendStrategy(consensusConfig.maxResendAttempts(),
+                        consensusConfig.maxPendingResends(), false);
+            case COALESCE:
+                return new DeferringResendStrategy(consensusConfig.maxResendAttempts(),
+                        consensusConfig.maxPendingResends(), true);
+            default:
+                throw new IllegalArgumentException("Unsupported resend policy: " + consensusConfig.resendPolicy());
+        }
+    }
+
+    private static ResendStrategy countingResendStrategy(final ResendStrategy resendStrategy,
+                                                         final ServerCounters counters) {
+        return new ResendStrategy() {
+            @Override
+            public <M extends Message> void onRejectedOffer(final Sender<? super M> sender, final M message,
+                                                            final long rejectReason) {
+                counters.onResendStrategyInvoked();
+                resendStrategy.onRejectedOffer(sender, message, rejectReason);
+            }
+
+            @Override
+            public int resendDeferred() {
+                return resendStrategy.resendDeferred();
+            }
+
+            @Override
+            public boolean hasDeferred(final Sender<?> sender) {
+                return resendStrategy.hasDeferred(sender);
+            }
+        };
+    }
+
+    private static RingBufferMessageBus<Command> initCommandQueue(final ConsensusConfig consensusConfig) {
+        switch (consensusConfig.threadingMode()) {
+            case SHARED:
+                return null;
+            case SOURCES_SHARED:
+                return RingBufferMessageBus.oneToOneCommandBus(consensusConfig.commandQueueCapacity());
+            case DEDICATED:
+                return RingBufferMessageBus.manyToOneCommandBus(consensusConfig.commandQueueCapacity());
+            default:
+                throw new IllegalArgumentException("Unsupported threading mode: " + consensusConfig.threadingMode());
+        }
     }
 
     @Override
@@ -85,6 +219,13 @@ public final class Server implements ServerContext {
         return connections;
     }
 
+    /**
+     * @return the current role of this server
+     */
+    public Role role() {
+        return hoverRaftMachine.role();
+    }
+
     @Override
     public DirectFactory directFactory() {
         return directFactory;
@@ -95,25 +236,96 @@ public final class Server implements ServerContext {
         return stateMachine;
     }
 
+    /**
+     * Returns the queue through which commands polled by source polling threads are handed over to the server, or
+     * null if sources are polled by the server thread in {@link org.tools4j.hoverraft.config.ThreadingMode#SHARED}
+     * mode.
+     *
+     * @return the command queue, or null for shared threading mode
+     */
+    public RingBufferMessageBus<Command> commandQueueOrNull() {
+        return commandQueueOrNull;
+    }
+
+    /**
+     * Installs a snapshot received from the leader, applies committed log entries to the state machine and takes a
+     * snapshot if due; invoked by the dedicated apply thread if {@link ConsensusConfig#dedicatedApplyThread()} is
+     * true.
+     *
+     * @return the number of log entries applied plus one for each installed or taken snapshot
+     */
+    public int applyCommitted() {
+        final int installed = snapshotter.installReceived(stateMachine);
+        final int applied = committedLogApplier.applyCommitted(stateMachine);
+        if (applied > 0) {
+            latencyTracker.onApplied(volatileState.lastApplied());
+        }
+        return installed + applied + snapshotter.takeSnapshot(stateMachine);
+    }
+
     @Override
-    public void perform() {
-        checkTimeoutElapsed();
-        serverMessagePoller.pollNextMessage();
-        sourceMessagePoller.pollNextMessage();
+    public int perform() {
+        directFactory.acquireScope();
+        try {
+            int workCount = resendStrategy.resendDeferred();
+            workCount += checkTimeoutElapsed();
+            workCount += serverMessagePoller.pollMessages();
+            final int commandCount = sourceMessagePoller.pollMessages();
+            if (commandCount > 0 || consensusConfig.groupCommitWindowNanos() > 0) {
+                onEvent(FlushEvent.FLUSH);
+            }
+            if (!consensusConfig.dedicatedApplyThread()) {
+                workCount += snapshotter.takeSnapshot(stateMachine);
+            }
+            workCount += snapshotter.compactLog();
+            counters.update(role(), persistentState, volatileState);
+            return workCount + commandCount + syncPeriodically();
+        } finally {
+            directFactory.releaseScope();
+        }
+    }
+
+    private int syncPeriodically() {
+        if (consensusConfig.durabilityPolicy() == DurabilityPolicy.PERIODIC) {
+            final long now = System.nanoTime();
+            if (now - lastSyncNanos >= syncIntervalNanos) {
+                lastSyncNanos = now;
+                persistentState.sync();
+                return 1;
+            }
+        }
+        return 0;
     }
 
     private void handleCommand(final Command command) {
-        hoverRaftMachine.onEvent(this, command);
+        latencyTracker.onCommandReceived();
+        onEvent(command);
     }
 
     private void handleMessage(final Message message) {
-        hoverRaftMachine.onEvent(this, message);
+        directFactory.acquireScope();
+        try {
+            hoverRaftMachine.onMessage(this, message);
+        } finally {
+            directFactory.releaseScope();
+        }
     }
 
-    private void checkTimeoutElapsed() {
+    private void onEvent(final Event event) {
+        directFactory.acquireScope();
+        try {
+            hoverRaftMachine.onEvent(this, event);
+        } finally {
+            directFactory.releaseScope();
+        }
+    }
+
+    private int checkTimeoutElapsed() {
         if (timer.hasTimeoutElapsed()) {
-            hoverRaftMachine.onEvent(this, TimerEvent.TIMEOUT);
+            onEvent(TimerEvent.TIMEOUT);
+            return 1;
         }
+        return 0;
     }
 
     @Override
@@ -121,9 +333,34 @@ public final class Server implements ServerContext {
         return timer;
     }
 
+    @Override
+    public Snapshotter snapshotter() {
+        return snapshotter;
+    }
+
+    @Override
+    public LatencyTracker latencyTracker() {
+        return latencyTracker;
+    }
+
+    @Override
+    public ServerCounters counters() {
+        return counters;
+    }
+
     @Override
     public ResendStrategy resendStrategy() {
-        return ResendStrategy.NOOP;//FIXME use better resend strategy
+        return resendStrategy;
+    }
+
+    /**
+     * Releases the memory mapped counters and snapshot files. Must be invoked after the server has stopped
+     * performing duty cycles and applying committed entries.
+     */
+    @Override
+    public void close() {
+        snapshotter.close();
+        counters.close();
     }
 
 }
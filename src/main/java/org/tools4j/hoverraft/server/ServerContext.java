@@ -28,6 +28,9 @@ import org.tools4j.hoverraft.config.ConsensusConfig;
 import org.tools4j.hoverraft.config.ServerConfig;
 import org.tools4j.hoverraft.direct.DirectFactory;
 import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.metrics.LatencyTracker;
+import org.tools4j.hoverraft.metrics.ServerCounters;
+import org.tools4j.hoverraft.state.Snapshotter;
 import org.tools4j.hoverraft.timer.Timer;
 import org.tools4j.hoverraft.transport.Connections;
 import org.tools4j.hoverraft.transport.ResendStrategy;
@@ -48,7 +51,24 @@ public interface ServerContext {
 
     ResendStrategy resendStrategy();
 
-    void perform();
+    Snapshotter snapshotter();
+
+    /**
+     * @return the tracker recording latencies of commands passing through the stages from receipt to apply
+     */
+    LatencyTracker latencyTracker();
+
+    /**
+     * @return the counters of consensus events and server state readable by external tools
+     */
+    ServerCounters counters();
+
+    /**
+     * Performs one unit of work of the server's duty cycle, that is, checking for timeouts and polling messages.
+     *
+     * @return the amount of work done, zero if no work was available
+     */
+    int perform();
 
     default int id() {
         return serverConfig().id();
@@ -23,27 +23,144 @@
  */
 package org.tools4j.hoverraft.server;
 
+import org.agrona.concurrent.BusySpinIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.config.ThreadingMode;
+import org.tools4j.hoverraft.transport.Receiver;
+import org.tools4j.hoverraft.transport.Receivers;
+import org.tools4j.hoverraft.transport.embedded.RingBufferMessageBus;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 
+/**
+ * Runs the server duty cycle in its own thread plus optional worker threads. Threads back off according to an
+ * {@link IdleStrategy} when no work is available, for instance {@link BusySpinIdleStrategy} for lowest latency or
+ * {@link org.agrona.concurrent.BackoffIdleStrategy} to release the CPU in idle periods.
+ */
 public class ServerProcess {
 
     private enum Status {
         IDLE, RUNNING, TERMINATED;
     }
 
-    private final Thread thread = new Thread(this::run);
     private final AtomicReference<Status> status = new AtomicReference<>(Status.IDLE);
 
-    private final ServerContext server;
+    private final Supplier<? extends IdleStrategy> idleStrategySupplier;
+    private final Thread thread;
+    private final Thread[] workerThreads;
 
     public ServerProcess(final ServerContext server) {
-        this.server = Objects.requireNonNull(server);
+        this(server, BusySpinIdleStrategy::new);
+    }
+
+    /**
+     * Constructor for a server process running the server duty cycle in a single thread. Configurations requiring
+     * worker threads are not supported, use {@link #ServerProcess(Server, Supplier)} for those.
+     *
+     * @param server                the server
+     * @param idleStrategySupplier  supplier for the idle strategy, invoked once per thread
+     * @throws IllegalArgumentException if the server's consensus config requires worker threads
+     */
+    public ServerProcess(final ServerContext server, final Supplier<? extends IdleStrategy> idleStrategySupplier) {
+        validateSingleThreaded(server.consensusConfig());
+        this.idleStrategySupplier = Objects.requireNonNull(idleStrategySupplier);
+        this.thread = dutyCycleThread(server::perform, "server-" + server.id());
+        this.workerThreads = new Thread[0];
+    }
+
+    private static void validateSingleThreaded(final ConsensusConfig config) {
+        if (config.dedicatedApplyThread()) {
+            throw new IllegalArgumentException("A dedicated apply thread requires a server process constructed from " +
+                    "a Server");
+        }
+        if (config.threadingMode() != ThreadingMode.SHARED) {
+            throw new IllegalArgumentException("Threading mode " + config.threadingMode() + " requires a server " +
+                    "process constructed from a Server");
+        }
+    }
+
+    /**
+     * Constructor for a server process that starts worker threads in addition to the server thread as configured
+     * through {@link ConsensusConfig#threadingMode()} for source polling and
+     * {@link ConsensusConfig#dedicatedApplyThread()} for applying committed entries to the state machine.
+     *
+     * @param server the server
+     */
+    public ServerProcess(final Server server) {
+        this(server, BusySpinIdleStrategy::new);
+    }
+
+    /**
+     * Constructor for a server process that starts worker threads in addition to the server thread as configured
+     * through {@link ConsensusConfig#threadingMode()} for source polling and
+     * {@link ConsensusConfig#dedicatedApplyThread()} for applying committed entries to the state machine.
+     *
+     * @param server                the server
+     * @param idleStrategySupplier  supplier for the idle strategy, invoked once per thread
+     */
+    public ServerProcess(final Server server, final Supplier<? extends IdleStrategy> idleStrategySupplier) {
+        this.idleStrategySupplier = Objects.requireNonNull(idleStrategySupplier);
+        this.thread = dutyCycleThread(server::perform, "server-" + server.id());
+        this.workerThreads = initWorkerThreads(server);
+    }
+
+    private Thread[] initWorkerThreads(final Server server) {
+        final ConsensusConfig config = server.consensusConfig();
+        final List<Thread> threads = new ArrayList<>();
+        if (config.dedicatedApplyThread()) {
+            threads.add(dutyCycleThread(server::applyCommitted, "apply-" + server.id()));
+        }
+        final RingBufferMessageBus<Command> commandQueue = server.commandQueueOrNull();
+        if (commandQueue != null) {
+            @SuppressWarnings("unchecked")
+            final Receiver<Command>[] receivers = (Receiver<Command>[])new Receiver<?>[config.sourceCount()];
+            for (int i = 0; i < config.sourceCount(); i++) {
+                final int id = config.sourceConfig(i).id();
+                receivers[i] = Receivers.countingReceiver(server.connections().sourceReceiver(id),
+                        server.counters().sourceMessagesPolled(id));
+            }
+            if (config.threadingMode() == ThreadingMode.DEDICATED) {
+                for (int i = 0; i < receivers.length; i++) {
+                    threads.add(sourcePollerThread(server, receivers[i], commandQueue,
+                            "source-" + config.sourceConfig(i).id() + "-" + server.id()));
+                }
+            } else {
+                threads.add(sourcePollerThread(server, Receivers.fairRoundRobinReceiver(receivers), commandQueue,
+                        "sources-" + server.id()));
+            }
+        }
+        return threads.toArray(new Thread[threads.size()]);
+    }
+
+    private Thread sourcePollerThread(final Server server, final Receiver<Command> receiver,
+                                      final RingBufferMessageBus<Command> commandQueue, final String name) {
+        final SourcePoller sourcePoller = new SourcePoller(receiver, commandQueue, server.counters().commandsDropped(),
+                server.consensusConfig().sourceMessagePollLimit(), this::isRunning);
+        return dutyCycleThread(sourcePoller::poll, name);
+    }
+
+    private Thread dutyCycleThread(final IntSupplier dutyCycle, final String name) {
+        final IdleStrategy idleStrategy = Objects.requireNonNull(idleStrategySupplier.get());
+        return new Thread(() -> {
+            while (isRunning()) {
+                idleStrategy.idle(dutyCycle.getAsInt());
+            }
+        }, name);
     }
 
     public void start() {
         if (status.compareAndSet(Status.IDLE, Status.RUNNING)) {
+            for (final Thread workerThread : workerThreads) {
+                workerThread.start();
+            }
             thread.start();
         }
     }
@@ -62,15 +179,13 @@ public class ServerProcess {
 
     public void awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException{
         if (status.get() == Status.TERMINATED) {
+            final long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
             thread.join(unit.toMillis(timeout));
+            for (final Thread workerThread : workerThreads) {
+                workerThread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
         } else {
             throw new IllegalStateException("status is not " + Status.TERMINATED);
         }
     }
-
-    private void run() {
-        while (isRunning()) {
-            server.perform();
-        }
-    }
 }
@@ -0,0 +1,86 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.server;
+
+import org.agrona.concurrent.status.AtomicCounter;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.transport.Receiver;
+import org.tools4j.hoverraft.transport.RejectReason;
+import org.tools4j.hoverraft.transport.Sender;
+
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Polls commands from source receivers and hands them over to the consensus thread via a command queue, usually a
+ * {@link org.tools4j.hoverraft.transport.embedded.RingBufferMessageBus RingBufferMessageBus}. If the queue is full
+ * the poller retries until space becomes available or the process is no longer running. Commands that cannot be
+ * enqueued at all, for instance because they are longer than the queue's maximum message length, are dropped and
+ * counted instead of failing the polling thread.
+ */
+public final class SourcePoller {
+
+    private final Receiver<Command> sourceReceiver;
+    private final Sender<Command> commandQueue;
+    private final AtomicCounter commandsDropped;
+    private final int pollLimit;
+    private final BooleanSupplier running;
+    private final Consumer<Command> commandHandler = this::offer;
+
+    public SourcePoller(final Receiver<Command> sourceReceiver,
+                        final Sender<Command> commandQueue,
+                        final AtomicCounter commandsDropped,
+                        final int pollLimit,
+                        final BooleanSupplier running) {
+        if (pollLimit <= 0) {
+            throw new IllegalArgumentException("pollLimit must be positive: " + pollLimit);
+        }
+        this.sourceReceiver = Objects.requireNonNull(sourceReceiver);
+        this.commandQueue = Objects.requireNonNull(commandQueue);
+        this.commandsDropped = Objects.requireNonNull(commandsDropped);
+        this.pollLimit = pollLimit;
+        this.running = Objects.requireNonNull(running);
+    }
+
+    /**
+     * Polls commands up to the poll limit and enqueues them.
+     *
+     * @return the number of commands polled
+     */
+    public int poll() {
+        return sourceReceiver.poll(commandHandler, pollLimit);
+    }
+
+    private void offer(final Command command) {
+        long result = commandQueue.offer(command);
+        while (result == RejectReason.BACK_PRESSURED && running.getAsBoolean()) {
+            Thread.yield();
+            result = commandQueue.offer(command);
+        }
+        if (result < 0) {
+            commandsDropped.increment();
+        }
+    }
+}
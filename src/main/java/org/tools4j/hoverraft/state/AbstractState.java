@@ -23,11 +23,10 @@
  */
 package org.tools4j.hoverraft.state;
 
-import org.tools4j.hoverraft.command.CommandLog;
-import org.tools4j.hoverraft.command.LogEntry;
-import org.tools4j.hoverraft.command.machine.StateMachine;
 import org.tools4j.hoverraft.event.*;
 import org.tools4j.hoverraft.message.AppendRequest;
+import org.tools4j.hoverraft.message.InstallSnapshot;
+import org.tools4j.hoverraft.message.Message;
 import org.tools4j.hoverraft.message.VoteRequest;
 import org.tools4j.hoverraft.server.ServerContext;
 
@@ -41,6 +40,9 @@ abstract public class AbstractState implements State {
     private final HigherTermHandler higherTermHandler;
     private final VoteRequestHandler voteRequestHandler;
     private final AppendRequestHandler appendRequestHandler;
+    private final InstallSnapshotHandler installSnapshotHandler;
+    private final CommittedLogApplier committedLogApplier;
+    private final MessageDispatchTable messageDispatchTable;
 
     public AbstractState(final Role role, final PersistentState persistentState, final VolatileState volatileState) {
         this.role = Objects.requireNonNull(role);
@@ -49,6 +51,9 @@ abstract public class AbstractState implements State {
         this.higherTermHandler = new HigherTermHandler(persistentState);
         this.voteRequestHandler = new VoteRequestHandler(persistentState);
         this.appendRequestHandler = new AppendRequestHandler(persistentState, volatileState);
+        this.installSnapshotHandler = new InstallSnapshotHandler(persistentState);
+        this.committedLogApplier = new CommittedLogApplier(persistentState, volatileState);
+        this.messageDispatchTable = new MessageDispatchTable(this, higherTermHandler);
     }
 
     abstract protected EventHandler eventHandler();
@@ -65,6 +70,11 @@ abstract public class AbstractState implements State {
                 .ifSteadyThen(serverContext, event, eventHandler());
     }
 
+    @Override
+    public final Transition onMessage(final ServerContext serverContext, final Message message) {
+        return messageDispatchTable.dispatch(serverContext, message);
+    }
+
     public int currentTerm() {
         return persistentState.currentTerm();
     }
@@ -82,20 +92,25 @@ abstract public class AbstractState implements State {
     }
 
     protected Transition onAppendRequest(final ServerContext serverContext, final AppendRequest appendRequest) {
-        return appendRequestHandler.onAppendRequest(serverContext, appendRequest);
+        final Transition transition = appendRequestHandler.onAppendRequest(serverContext, appendRequest);
+        invokeStateMachineWithCommittedLogEntries(serverContext);
+        return transition;
+    }
+
+    protected Transition onInstallSnapshot(final ServerContext serverContext, final InstallSnapshot installSnapshot) {
+        final Transition transition = installSnapshotHandler.onInstallSnapshot(serverContext, installSnapshot);
+        invokeStateMachineWithCommittedLogEntries(serverContext);
+        return transition;
     }
 
+    /**
+     * Applies committed log entries to the state machine unless this is done by a dedicated apply thread.
+     */
     protected void invokeStateMachineWithCommittedLogEntries(final ServerContext serverContext) {
-        final CommandLog commandLog = persistentState.commandLog();
-        final StateMachine stateMachine = serverContext.stateMachine();
-        long lastApplied = volatileState.lastApplied();
-        while (volatileState.commitIndex() > lastApplied) {
-            lastApplied++;
-            final LogEntry logEntry = serverContext.directFactory().logEntry();
-            //FIXME logEntry.wrap(buffer)
-            commandLog.readTo(lastApplied, logEntry);
-            stateMachine.onMessage(logEntry.command());
-            volatileState.lastApplied(lastApplied);
+        if (!serverContext.consensusConfig().dedicatedApplyThread()) {
+            if (committedLogApplier.applyCommitted(serverContext.stateMachine()) > 0) {
+                serverContext.latencyTracker().onApplied(volatileState.lastApplied());
+            }
         }
     }
 }
@@ -26,6 +26,7 @@ package org.tools4j.hoverraft.state;
 import org.tools4j.hoverraft.config.ConsensusConfig;
 import org.tools4j.hoverraft.event.EventHandler;
 import org.tools4j.hoverraft.message.AppendRequest;
+import org.tools4j.hoverraft.message.InstallSnapshot;
 import org.tools4j.hoverraft.message.VoteRequest;
 import org.tools4j.hoverraft.message.VoteResponse;
 import org.tools4j.hoverraft.server.ServerContext;
@@ -39,34 +40,41 @@ public final class CandidateState extends AbstractState {
         super(Role.CANDIDATE, persistentState, volatileState);
     }
 
+    private final EventHandler eventHandler = new EventHandler() {
+        @Override
+        public Transition onTransition(final ServerContext serverContext, final Transition transition) {
+            return CandidateState.this.onTransition(serverContext, transition);
+        }
+
+        @Override
+        public Transition onVoteRequest(final ServerContext serverContext, final VoteRequest voteRequest) {
+            return CandidateState.this.onVoteRequest(serverContext, voteRequest);
+        }
+
+        @Override
+        public Transition onVoteResponse(final ServerContext serverContext, final VoteResponse voteResponse) {
+            return CandidateState.this.onVoteResponse(serverContext, voteResponse);
+        }
+
+        @Override
+        public Transition onAppendRequest(final ServerContext serverContext, final AppendRequest appendRequest) {
+            return CandidateState.this.onAppendRequest(serverContext, appendRequest);
+        }
+
+        @Override
+        public Transition onInstallSnapshot(final ServerContext serverContext, final InstallSnapshot installSnapshot) {
+            return CandidateState.this.onInstallSnapshot(serverContext, installSnapshot);
+        }
+
+        @Override
+        public Transition onTimerEvent(final ServerContext serverContext, final TimerEvent timerEvent) {
+            return CandidateState.this.onTimerEvent(serverContext, timerEvent);
+        }
+    };
+
     @Override
     protected EventHandler eventHandler() {
-        return new EventHandler() {
-            @Override
-            public Transition onTransition(final ServerContext serverContext, final Transition transition) {
-                return CandidateState.this.onTransition(serverContext, transition);
-            }
-
-            @Override
-            public Transition onVoteRequest(final ServerContext serverContext, final VoteRequest voteRequest) {
-                return CandidateState.this.onVoteRequest(serverContext, voteRequest);
-            }
-
-            @Override
-            public Transition onVoteResponse(final ServerContext serverContext, final VoteResponse voteResponse) {
-                return CandidateState.this.onVoteResponse(serverContext, voteResponse);
-            }
-
-            @Override
-            public Transition onAppendRequest(final ServerContext serverContext, final AppendRequest appendRequest) {
-                return CandidateState.this.onAppendRequest(serverContext, appendRequest);
-            }
-
-            @Override
-            public Transition onTimerEvent(final ServerContext serverContext, final TimerEvent timerEvent) {
-                return CandidateState.this.onTimerEvent(serverContext, timerEvent);
-            }
-        };
+        return eventHandler;
     }
 
     private Transition onTransition(final ServerContext serverContext, final Transition transition) {
@@ -94,6 +102,15 @@ public final class CandidateState extends AbstractState {
         }
     }
 
+    protected Transition onInstallSnapshot(final ServerContext serverContext, final InstallSnapshot installSnapshot) {
+        if (installSnapshot.term() >= currentTerm()) {
+            serverContext.timer().reset();
+            return Transition.TO_FOLLOWER;
+        } else {
+            return super.onInstallSnapshot(serverContext, installSnapshot);
+        }
+    }
+
     private Transition onTimerEvent(final ServerContext serverContext, final TimerEvent timerEvent) {
         startNewElection(serverContext);
         return Transition.STEADY;
@@ -102,6 +119,7 @@ public final class CandidateState extends AbstractState {
     private void startNewElection(final ServerContext serverContext) {
         final ConsensusConfig config = serverContext.consensusConfig();
         persistentState().clearVotedForAndIncCurrentTerm();
+        serverContext.counters().onElectionStarted();
         serverContext.timer().restart(config.minElectionTimeoutMillis(), config.maxElectionTimeoutMillis());
         voteForMyself(serverContext);
     }
@@ -0,0 +1,64 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.state;
+
+import org.tools4j.hoverraft.command.CommandLogCursor;
+import org.tools4j.hoverraft.command.machine.StateMachine;
+
+import java.util.Objects;
+
+/**
+ * Applies committed log entries to the {@link StateMachine} following the commit index published in
+ * {@link VolatileState}. Invoked either inline by the consensus thread or repeatedly by a dedicated apply thread;
+ * in both cases only a single thread must apply entries and update {@link VolatileState#lastApplied()}.
+ */
+public final class CommittedLogApplier {
+
+    private final PersistentState persistentState;
+    private final VolatileState volatileState;
+    private final CommandLogCursor committedCursor = new CommandLogCursor();
+
+    public CommittedLogApplier(final PersistentState persistentState, final VolatileState volatileState) {
+        this.persistentState = Objects.requireNonNull(persistentState);
+        this.volatileState = Objects.requireNonNull(volatileState);
+    }
+
+    /**
+     * Applies all entries committed since the last invocation as a single batch to the given state machine.
+     *
+     * @param stateMachine the state machine to apply to
+     * @return the number of entries applied, zero if no new entries were committed
+     */
+    public int applyCommitted(final StateMachine stateMachine) {
+        final long lastApplied = volatileState.lastApplied();
+        final long commitIndex = volatileState.commitIndex();
+        if (commitIndex > lastApplied) {
+            committedCursor.init(persistentState.commandLog(), lastApplied + 1, commitIndex);
+            stateMachine.onCommitted(committedCursor);
+            volatileState.lastApplied(commitIndex);
+            return (int)(commitIndex - lastApplied);
+        }
+        return 0;
+    }
+}
@@ -27,33 +27,43 @@ import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.tools4j.hoverraft.command.CommandLog;
 import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.config.DurabilityPolicy;
 import org.tools4j.hoverraft.config.ServerConfig;
 import org.tools4j.hoverraft.util.Files;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 
 public final class DirectPersistentState implements PersistentState {
 
-    private static final int STATE_SIZE = 4 + 4;
+    private static final int CURRENT_TERM_OFF = 0;
+    private static final int VOTED_FOR_OFF = 4;
+    private static final int SNAPSHOT_TERM_OFF = 8;
+    //stored plus one so that the zero initialised file reads NO_SNAPSHOT
+    private static final int SNAPSHOT_INDEX_PLUS_ONE_OFF = 16;
+    private static final int STATE_SIZE = SNAPSHOT_INDEX_PLUS_ONE_OFF + 8;
 
+    private final MappedByteBuffer mappedState;
     private final MutableDirectBuffer state;
     private final CommandLog commandLog;
+    private final DurabilityPolicy durabilityPolicy;
 
     public DirectPersistentState(final ServerConfig serverConfig, final ConsensusConfig consensusConfig) throws IOException {
-        this.state = initState(serverConfig, consensusConfig);
+        this.mappedState = initState(serverConfig, consensusConfig);
+        this.state = new UnsafeBuffer(mappedState);
         this.commandLog = initCommandLog(serverConfig, consensusConfig);
+        this.durabilityPolicy = consensusConfig.durabilityPolicy();
     }
 
     public int currentTerm() {
-        return state.getInt(0);
+        return state.getInt(CURRENT_TERM_OFF);
     }
 
     public int votedFor() {
-        return state.getInt(4);
+        return state.getInt(VOTED_FOR_OFF);
     }
 
     @Override
@@ -62,33 +72,72 @@ public final class DirectPersistentState implements PersistentState {
     }
 
     public int clearVotedForAndSetCurrentTerm(int term) {
-        state.putInt(0, term);
-        state.putInt(4, NOT_VOTED_YET);
+        state.putInt(CURRENT_TERM_OFF, term);
+        state.putInt(VOTED_FOR_OFF, NOT_VOTED_YET);
+        onStateChange();
         return term;
     }
 
     public int clearVotedForAndIncCurrentTerm() {
         final int term = currentTerm() + 1;
-        state.putInt(0, term);
-        state.putInt(4, NOT_VOTED_YET);
+        state.putInt(CURRENT_TERM_OFF, term);
+        state.putInt(VOTED_FOR_OFF, NOT_VOTED_YET);
+        onStateChange();
         return term;
     }
 
     public void votedFor(final int candidateId) {
-        state.putInt(4, candidateId);
+        state.putInt(VOTED_FOR_OFF, candidateId);
+        onStateChange();
+    }
+
+    @Override
+    public int snapshotTerm() {
+        return state.getInt(SNAPSHOT_TERM_OFF);
+    }
+
+    @Override
+    public long snapshotIndex() {
+        return state.getLong(SNAPSHOT_INDEX_PLUS_ONE_OFF) - 1;
+    }
+
+    @Override
+    public void snapshotTaken(final int term, final long index) {
+        state.putInt(SNAPSHOT_TERM_OFF, term);
+        state.putLong(SNAPSHOT_INDEX_PLUS_ONE_OFF, index + 1);
+        onStateChange();
+        commandLog.compactIncluding(term, index);
+    }
+
+    @Override
+    public void sync() {
+        mappedState.force();
+        commandLog.sync();
+    }
+
+    private void onStateChange() {
+        if (durabilityPolicy.syncStateOnChange()) {
+            mappedState.force();
+        }
     }
 
 
-    private static MutableDirectBuffer initState(final ServerConfig serverConfig, final ConsensusConfig consensusConfig) throws IOException {
+    private static MappedByteBuffer initState(final ServerConfig serverConfig, final ConsensusConfig consensusConfig) throws IOException {
         final String path = Files.fileDirectory();
         final String file = Files.fileName(serverConfig.id(), "persistentState");
         final RandomAccessFile raf = new RandomAccessFile(new File(path, file), "rw");
-        final ByteBuffer byteBuffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, STATE_SIZE);
-        return new UnsafeBuffer(byteBuffer);
+        return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, STATE_SIZE);
     }
 
     private static CommandLog initCommandLog(final ServerConfig serverConfig, final ConsensusConfig consensusConfig) throws IOException {
-        return Files.commandLog(serverConfig.id(), "commandlog");
+        switch (consensusConfig.commandLogType()) {
+            case CHRONICLE:
+                return Files.commandLog(serverConfig.id(), "commandlog");
+            case MAPPED:
+                return Files.mappedCommandLog(serverConfig.id(), "commandlog");
+            default:
+                throw new IllegalArgumentException("Unsupported command log type: " + consensusConfig.commandLogType());
+        }
     }
 
 }
@@ -23,8 +23,10 @@
  */
 package org.tools4j.hoverraft.state;
 
+import org.tools4j.hoverraft.config.ConsensusConfig;
 import org.tools4j.hoverraft.event.EventHandler;
 import org.tools4j.hoverraft.message.AppendRequest;
+import org.tools4j.hoverraft.message.InstallSnapshot;
 import org.tools4j.hoverraft.message.TimeoutNow;
 import org.tools4j.hoverraft.message.VoteRequest;
 import org.tools4j.hoverraft.server.ServerContext;
@@ -36,32 +38,75 @@ public class FollowerState extends AbstractState {
         super(Role.FOLLOWER, persistentState, volatileState);
     }
 
+    private final EventHandler eventHandler = new EventHandler() {
+        @Override
+        public Transition onTransition(final ServerContext serverContext, final Transition transition) {
+            return FollowerState.this.onTransition(serverContext, transition);
+        }
+
+        @Override
+        public Transition onVoteRequest(final ServerContext serverContext, final VoteRequest voteRequest) {
+            return FollowerState.this.onVoteRequest(serverContext, voteRequest);
+        }
+
+        @Override
+        public Transition onAppendRequest(final ServerContext serverContext, final AppendRequest appendRequest) {
+            return FollowerState.this.onAppendRequest(serverContext, appendRequest);
+        }
+
+        @Override
+        public Transition onInstallSnapshot(final ServerContext serverContext, final InstallSnapshot installSnapshot) {
+            return FollowerState.this.onInstallSnapshot(serverContext, installSnapshot);
+        }
+
+        @Override
+        public Transition onTimerEvent(final ServerContext serverContext, final TimerEvent timerEvent) {
+            return FollowerState.this.onTimerEvent(serverContext, timerEvent);
+        }
+
+        @Override
+        public Transition onTimeoutNow(final ServerContext serverContext, final TimeoutNow timeoutNow) {
+            return FollowerState.this.onTimeoutNow(serverContext, timeoutNow);
+        }
+
+    };
+
     @Override
     protected EventHandler eventHandler() {
-        return new EventHandler() {
-            @Override
-            public Transition onVoteRequest(final ServerContext serverContext, final VoteRequest voteRequest) {
-                return FollowerState.this.onVoteRequest(serverContext, voteRequest);
-            }
-
-            @Override
-            public Transition onAppendRequest(final ServerContext serverContext, final AppendRequest appendRequest) {
-                return FollowerState.this.onAppendRequest(serverContext, appendRequest);
-            }
-
-            @Override
-            public Transition onTimerEvent(final ServerContext serverContext, final TimerEvent timerEvent) {
-                return FollowerState.this.onTimerEvent(serverContext, timerEvent);
-            }
-
-            @Override
-            public Transition onTimeoutNow(final ServerContext serverContext, final TimeoutNow timeoutNow) {
-                return FollowerState.this.onTimeoutNow(serverContext, timeoutNow);
-            }
-
-        };
+        return eventHandler;
     }
 
+    private Transition onTransition(final ServerContext serverContext, final Transition transition) {
+        final ConsensusConfig config = serverContext.consensusConfig();
+        serverContext.timer().restart(config.minElectionTimeoutMillis(), config.maxElectionTimeoutMillis());
+        return Transition.STEADY;
+    }
+
+    @Override
+    protected Transition onVoteRequest(final ServerContext serverContext, final VoteRequest voteRequest) {
+        final Transition transition = super.onVoteRequest(serverContext, voteRequest);
+        if (voteRequest.term() == currentTerm() && persistentState().votedFor() == voteRequest.candidateId()) {
+            //vote granted, give the candidate time to win the election
+            serverContext.timer().reset();
+        }
+        return transition;
+    }
+
+    @Override
+    protected Transition onAppendRequest(final ServerContext serverContext, final AppendRequest appendRequest) {
+        if (appendRequest.term() >= currentTerm()) {
+            serverContext.timer().reset();
+        }
+        return super.onAppendRequest(serverContext, appendRequest);
+    }
+
+    @Override
+    protected Transition onInstallSnapshot(final ServerContext serverContext, final InstallSnapshot installSnapshot) {
+        if (installSnapshot.term() >= currentTerm()) {
+            serverContext.timer().reset();
+        }
+        return super.onInstallSnapshot(serverContext, installSnapshot);
+    }
 
     private Transition onTimerEvent(final ServerContext serverContext, final TimerEvent timerEvent) {
         return Transition.TO_CANDIDATE;
@@ -25,6 +25,7 @@ package org.tools4j.hoverraft.state;
 
 import org.tools4j.hoverraft.command.machine.StateMachine;
 import org.tools4j.hoverraft.event.Event;
+import org.tools4j.hoverraft.message.Message;
 import org.tools4j.hoverraft.server.ServerContext;
 
 import java.util.EnumMap;
@@ -66,11 +67,20 @@ public class HoverRaftMachine {
         return stateMap.get(role);
     }
 
+    public Role role() {
+        return currentState.role();
+    }
+
     public void onEvent(final ServerContext serverContext, final Event event) {
         final Transition transition = currentState.onEvent(serverContext, event);
         performTransition(serverContext, transition, event);
     }
 
+    public void onMessage(final ServerContext serverContext, final Message message) {
+        final Transition transition = currentState.onMessage(serverContext, message);
+        performTransition(serverContext, transition, message);
+    }
+
     private void performTransition(final ServerContext serverContext, final Transition transition, final Event event) {
         final Role currentRole = currentState.role();
         final Role targetRole = transition.targetRole(currentRole);
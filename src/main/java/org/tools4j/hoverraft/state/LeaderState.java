@@ -23,149 +23,394 @@
  */
 package org.tools4j.hoverraft.state;
 
+import org.agrona.DirectBuffer;
 import org.tools4j.hoverraft.command.Command;
 import org.tools4j.hoverraft.command.CommandLog;
+import org.tools4j.hoverraft.command.DirectLogEntry;
 import org.tools4j.hoverraft.command.LogEntry;
 import org.tools4j.hoverraft.event.EventHandler;
+import org.tools4j.hoverraft.event.FlushEvent;
 import org.tools4j.hoverraft.message.AppendRequest;
 import org.tools4j.hoverraft.message.AppendResponse;
+import org.tools4j.hoverraft.message.InstallSnapshot;
+import org.tools4j.hoverraft.message.InstallSnapshotResponse;
+import org.tools4j.hoverraft.message.Message;
 import org.tools4j.hoverraft.message.VoteRequest;
+import org.tools4j.hoverraft.message.direct.DirectAppendRequest;
+import org.tools4j.hoverraft.message.direct.DirectInstallSnapshot;
 import org.tools4j.hoverraft.server.ServerContext;
 import org.tools4j.hoverraft.timer.TimerEvent;
+import org.tools4j.hoverraft.transport.Sender;
 
 public class LeaderState extends AbstractState {
 
+    private final LogEntry logEntry = new DirectLogEntry();
+    private final QuorumMatchIndex quorumMatchIndex;
+
+    private long termFirstIndex;
+    /** last index of the completed group commit batches, only entries up to here are replicated */
+    private long syncedIndex;
+    private int appendRequestByteLength;
+    private boolean groupCommitPending;
+    private long groupCommitStartNanos;
+
     public LeaderState(final PersistentState persistentState, final VolatileState volatileState) {
         super(Role.LEADER, persistentState, volatileState);
+        this.quorumMatchIndex = new QuorumMatchIndex(volatileState.followerCount() + 1);
     }
 
-    @Override
-    protected EventHandler eventHandler() {
-        return new EventHandler() {
-            @Override
-            public Transition onTransition(ServerContext serverContext, Transition transition) {
-                return LeaderState.this.onTransition(serverContext, transition);
-            }
+    private final EventHandler eventHandler = new EventHandler() {
+        @Override
+        public Transition onTransition(ServerContext serverContext, Transition transition) {
+            return LeaderState.this.onTransition(serverContext, transition);
+        }
 
-            @Override
-            public Transition onCommand(final ServerContext serverContext, final Command command) {
-                return LeaderState.this.onCommand(serverContext, command);
-            }
+        @Override
+        public Transition onCommand(final ServerContext serverContext, final Command command) {
+            return LeaderState.this.onCommand(serverContext, command);
+        }
 
-            @Override
-            public Transition onVoteRequest(final ServerContext serverContext, final VoteRequest voteRequest) {
-                return LeaderState.this.onVoteRequest(serverContext, voteRequest);
-            }
+        @Override
+        public Transition onVoteRequest(final ServerContext serverContext, final VoteRequest voteRequest) {
+            return LeaderState.this.onVoteRequest(serverContext, voteRequest);
+        }
 
-            @Override
-            public Transition onAppendResponse(final ServerContext serverContext, final AppendResponse appendResponse) {
-                return LeaderState.this.onAppendResponse(serverContext, appendResponse);
-            }
+        @Override
+        public Transition onAppendResponse(final ServerContext serverContext, final AppendResponse appendResponse) {
+            return LeaderState.this.onAppendResponse(serverContext, appendResponse);
+        }
 
-            @Override
-            public Transition onTimerEvent(final ServerContext serverContext, final TimerEvent timerEvent) {
-                return LeaderState.this.onTimerEvent(serverContext, timerEvent);
-            }
-        };
+        @Override
+        public Transition onInstallSnapshotResponse(final ServerContext serverContext, final InstallSnapshotResponse installSnapshotResponse) {
+            return LeaderState.this.onInstallSnapshotResponse(serverContext, installSnapshotResponse);
+        }
+
+        @Override
+        public Transition onTimerEvent(final ServerContext serverContext, final TimerEvent timerEvent) {
+            return LeaderState.this.onTimerEvent(serverContext, timerEvent);
+        }
+
+        @Override
+        public Transition onFlush(final ServerContext serverContext, final FlushEvent flushEvent) {
+            return LeaderState.this.onFlush(serverContext, flushEvent);
+        }
+    };
+
+    @Override
+    protected EventHandler eventHandler() {
+        return eventHandler;
     }
 
     private Transition onTransition(final ServerContext serverContext, final Transition transition) {
         final long heartbeatMillis = serverContext.consensusConfig().heartbeatTimeoutMillis();
         serverContext.timer().restart(heartbeatMillis, heartbeatMillis);
-        volatileState().resetFollowersState(persistentState().commandLog().size());
+        //all entries appended from here are of our term, entries before are of previous terms
+        termFirstIndex = persistentState().commandLog().size();
+        syncedIndex = termFirstIndex - 1;
+        volatileState().resetFollowersState(termFirstIndex);
+        groupCommitPending = false;
+        sendHeartbeat(serverContext);
         return Transition.STEADY;
     }
 
+    /**
+     * Appends the command to the log; replication is deferred until the group commit window has elapsed and the
+     * batch has been completed, see {@link #onFlush(ServerContext, FlushEvent)}.
+     */
     private Transition onCommand(final ServerContext serverContext, final Command command) {
-        persistentState().commandLog().append(currentTerm(), command);
-        sendAppendRequest(serverContext);//FIXME send log message in request
+        final CommandLog commandLog = persistentState().commandLog();
+        commandLog.append(currentTerm(), command);
+        serverContext.latencyTracker().onAppended(commandLog.lastIndex());
+        serverContext.consensusConfig().durabilityPolicy().afterAppend(commandLog);
+        if (!groupCommitPending) {
+            groupCommitPending = true;
+            groupCommitStartNanos = System.nanoTime();
+        }
+        return Transition.STEADY;
+    }
+
+    private Transition onFlush(final ServerContext serverContext, final FlushEvent flushEvent) {
+        if (groupCommitPending) {
+            final long windowNanos = serverContext.consensusConfig().groupCommitWindowNanos();
+            if (windowNanos == 0 || System.nanoTime() - groupCommitStartNanos >= windowNanos) {
+                completeBatch(serverContext);
+                sendPendingAppendRequests(serverContext);
+            }
+        }
         return Transition.STEADY;
     }
 
     private Transition onAppendResponse(final ServerContext serverContext, final AppendResponse appendResponse) {
-        final TrackedFollowerState followerState = volatileState().followerState(appendResponse.serverId());
+        if (appendResponse.term() != currentTerm()) {
+            //stale response from a previous term
+            return Transition.STEADY;
+        }
+        final TrackedFollowerState followerState = volatileState().followerStateById(appendResponse.serverId());
+        if (followerState.isSendingSnapshot()) {
+            //stale response to an append request sent before the snapshot
+            return Transition.STEADY;
+        }
 
         if (!appendResponse.successful()) {
-            followerState.decrementNextIndex();
-            sendAppendRequest(serverContext, appendResponse.serverId());
+            serverContext.counters().onAppendRequestRejected();
+            followerState.onAppendFailure(appendResponse.matchLogIndex(), conflictNextIndex(appendResponse));
         } else {
-            final long matchLogIndex = appendResponse.matchLogIndex();
-            followerState
-                    .updateMatchIndex(matchLogIndex)
-                    .nextIndex(matchLogIndex + 1);
+            followerState.onAppendSuccess(appendResponse.matchLogIndex());
         }
-        updateCommitIndex();
+        sendPendingAppendRequests(serverContext, followerState);
+        updateCommitIndex(serverContext);
         invokeStateMachineWithCommittedLogEntries(serverContext);
         return Transition.STEADY;
     }
 
-    private Transition onTimerEvent(final ServerContext serverContext, final TimerEvent timerEvent) {
-        sendAppendRequest(serverContext);
-        return Transition.STEADY;
+    /**
+     * Returns the index after our last entry of the follower's conflict term if we have entries of that term, and
+     * the follower's conflict index otherwise, as suggested in section 5.3 of the raft paper.
+     */
+    private long conflictNextIndex(final AppendResponse appendResponse) {
+        final int conflictTerm = appendResponse.conflictTerm();
+        if (conflictTerm != AppendResponse.NO_CONFLICT_TERM) {
+            final CommandLog commandLog = persistentState().commandLog();
+            final long lastIndexOfTerm = commandLog.firstIndexOfTerm(conflictTerm + 1) - 1;
+            if (lastIndexOfTerm >= commandLog.firstIndex() && commandLog.readTerm(lastIndexOfTerm) == conflictTerm) {
+                return lastIndexOfTerm + 1;
+            }
+        }
+        return appendResponse.conflictIndex();
     }
 
-    //FIXme test it!!!
-    private void updateCommitIndex() {
-
-        long currentCommitIndex = volatileState().commitIndex();
-
-        int followerCount = volatileState().followerCount();
-
-        final int majority = (followerCount + 1) / 2;
-
-        long minIndexHigherThanCommitIndex = Long.MAX_VALUE;
-        int higherThanCommitCount = 0;
-
-        for(int idx = 0; idx < followerCount; idx++) {
-
-            final TrackedFollowerState followerState = volatileState().followerState(idx);
-            final long matchIndex = followerState.matchIndex();
+    private Transition onInstallSnapshotResponse(final ServerContext serverContext, final InstallSnapshotResponse response) {
+        if (response.term() != currentTerm()) {
+            //stale response from a previous term
+            return Transition.STEADY;
+        }
+        final TrackedFollowerState followerState = volatileState().followerStateById(response.serverId());
+        if (followerState.snapshotIndex() != response.snapshotIndex()) {
+            //stale response to a previous snapshot
+            return Transition.STEADY;
+        }
+        if (response.installed()) {
+            followerState.onSnapshotInstalled(response.snapshotIndex());
+            sendPendingAppendRequests(serverContext, followerState);
+            updateCommitIndex(serverContext);
+            invokeStateMachineWithCommittedLogEntries(serverContext);
+        } else {
+            followerState.onSnapshotAck(response.nextChunkPosition());
+            sendSnapshotChunks(serverContext, followerState, false);
+        }
+        return Transition.STEADY;
+    }
 
-            if (matchIndex > currentCommitIndex) {
+    private Transition onTimerEvent(final ServerContext serverContext, final TimerEvent timerEvent) {
+        if (groupCommitPending) {
+            completeBatch(serverContext);
+        }
+        sendHeartbeat(serverContext);
+        return Transition.STEADY;
+    }
 
-                final int matchTerm = persistentState().commandLog().readTerm(matchIndex);
+    /**
+     * Completes the pending group commit batch: the command log is forced to storage if required by the durability
+     * policy and the appended entries are released for replication. Entries appended while the group commit window
+     * is still open are neither sent to followers nor counted as stored on the leader.
+     */
+    private void completeBatch(final ServerContext serverContext) {
+        final CommandLog commandLog = persistentState().commandLog();
+        groupCommitPending = false;
+        serverContext.consensusConfig().durabilityPolicy().afterBatch(commandLog);
+        syncedIndex = commandLog.lastIndex();
+    }
 
-                if (matchTerm == currentTerm()) {
+    /**
+     * Advances the commit index to the highest index stored on a majority of servers if the entry at this index is of
+     * the current term, as required by section 5.4.2 of the raft paper. The leader itself counts as storing the
+     * entries of completed batches only, that is, entries forced to storage where required by the durability policy.
+     * Entries from the first index appended as leader are known to be of the current term, hence the log is only read
+     * while the quorum index is still behind the entries of previous terms.
+     */
+    private void updateCommitIndex(final ServerContext serverContext) {
+        final CommandLog commandLog = persistentState().commandLog();
+        final long quorumIndex = quorumMatchIndex.quorumIndex(syncedIndex, volatileState());
+        if (quorumIndex <= volatileState().commitIndex()) {
+            return;
+        }
+        if (quorumIndex >= termFirstIndex || commandLog.readTerm(quorumIndex) == currentTerm()) {
+            //record before publishing so that a dedicated apply thread finds the commit time
+            serverContext.latencyTracker().onCommitted(quorumIndex);
+            volatileState().commitIndex(quorumIndex);
+        }
+    }
 
-                    higherThanCommitCount++;
-                    if (matchIndex < minIndexHigherThanCommitIndex) {
-                        minIndexHigherThanCommitIndex = matchIndex;
-                    }
-                }
+    /**
+     * Sends an append request to every follower, empty if the follower is up to date, and pipelines further
+     * requests if more entries are pending. Requests and snapshot chunks to a follower that have not made progress
+     * during a whole heartbeat interval are assumed to be lost and are sent again. No heartbeat is needed for a
+     * follower whose in-flight window is full but still progressing.
+     */
+    private void sendHeartbeat(final ServerContext serverContext) {
+        final VolatileState volatileState = volatileState();
+        final int followerCount = volatileState.followerCount();
+        for (int i = 0; i < followerCount; i++) {
+            final TrackedFollowerState followerState = volatileState.followerState(i);
+            final boolean expired = followerState.onHeartbeat();
+            if (isSnapshotRequired(followerState)) {
+                sendSnapshotChunks(serverContext, followerState, expired);
+                continue;
+            }
+            if (expired) {
+                followerState.resetInflight();
+            }
+            if (followerState.hasInflightCapacity()) {
+                sendAppendRequest(serverContext, followerState);
+                sendPendingAppendRequests(serverContext, followerState);
             }
         }
-        if (higherThanCommitCount >= majority) {
-            volatileState().commitIndex(minIndexHigherThanCommitIndex);
+        serverContext.timer().reset();
+    }
+
+    private void sendPendingAppendRequests(final ServerContext serverContext) {
+        final VolatileState volatileState = volatileState();
+        final int followerCount = volatileState.followerCount();
+        for (int i = 0; i < followerCount; i++) {
+            sendPendingAppendRequests(serverContext, volatileState.followerState(i));
         }
     }
 
-    private void sendAppendRequest(final ServerContext serverContext) {
-        //FIXME impl
-        serverContext.timer().reset();
+    private void sendPendingAppendRequests(final ServerContext serverContext, final TrackedFollowerState followerState) {
+        if (isSnapshotRequired(followerState)) {
+            sendSnapshotChunks(serverContext, followerState, false);
+            return;
+        }
+        while (followerState.nextIndex() <= syncedIndex && followerState.hasInflightCapacity()) {
+            sendAppendRequest(serverContext, followerState);
+        }
+    }
 
+    private boolean isSnapshotRequired(final TrackedFollowerState followerState) {
+        return followerState.isSendingSnapshot()
+                || followerState.nextIndex() < persistentState().commandLog().firstIndex();
     }
 
-    private void sendAppendRequest(final ServerContext serverContext, final int serverId) {
+    /**
+     * Sends chunks of the latest snapshot to a follower whose next log entries have been discarded, up to the
+     * in-flight window. The transfer restarts from the beginning if a newer snapshot has been taken in the meantime.
+     *
+     * @param resend true to resend unacknowledged chunks, or the last chunk if all chunks have been acknowledged
+     */
+    private void sendSnapshotChunks(final ServerContext serverContext, final TrackedFollowerState followerState,
+                                    final boolean resend) {
+        final DirectBuffer snapshot = serverContext.snapshotter().mappedSnapshot();
+        if (snapshot == null) {
+            return;
+        }
+        final long snapshotIndex = Snapshotter.snapshotIndex(snapshot);
+        final int snapshotByteLength = snapshot.capacity();
+        final int maxChunkByteLength = Math.max(1, serverContext.consensusConfig().maxAppendRequestByteLength()
+                - DirectInstallSnapshot.EMPTY_CHUNK_BYTE_LENGTH);
+        if (followerState.snapshotIndex() != snapshotIndex) {
+            followerState.startSnapshot(snapshotIndex);
+        } else if (resend) {
+            followerState.resetSnapshotInflight(Math.max(0, snapshotByteLength - maxChunkByteLength));
+        }
+        while (followerState.snapshotSentPosition() < snapshotByteLength
+                && followerState.hasSnapshotCapacity(maxChunkByteLength)) {
+            final int position = (int)followerState.snapshotSentPosition();
+            final int chunkByteLength = Math.min(maxChunkByteLength, snapshotByteLength - position);
+            final Sender<Message> sender = serverContext.connections().serverSender(followerState.serverId());
+            final InstallSnapshot installSnapshot = serverContext.directFactory().installSnapshot();
+            final boolean claimed = !serverContext.resendStrategy().hasDeferred(sender)
+                    && sender.tryClaim(DirectInstallSnapshot.EMPTY_CHUNK_BYTE_LENGTH + chunkByteLength,
+                    installSnapshot) >= 0;
+            try {
+                installSnapshot
+                        .term(currentTerm())
+                        .leaderId(serverContext.id())
+                        .snapshotByteLength(snapshotByteLength)
+                        .chunkPosition(position);
+                installSnapshot.lastIncludedLogKey()
+                        .term(Snapshotter.snapshotTerm(snapshot))
+                        .index(snapshotIndex);
+                installSnapshot.chunkFrom(snapshot, position, chunkByteLength);
+            } catch (final RuntimeException e) {
+                abortIfClaimed(sender, installSnapshot, claimed);
+                throw e;
+            }
+            followerState.onSnapshotChunkSent(position + chunkByteLength);
+            installSnapshot.commitOrSendTo(sender, claimed, serverContext.resendStrategy());
+        }
+    }
 
-        final TrackedFollowerState trackedFollowerState =  volatileState().followerStateById(serverId);
+    private void sendAppendRequest(final ServerContext serverContext, final TrackedFollowerState followerState) {
         final CommandLog commandLog = persistentState().commandLog();
-        final long nextLogIndex = trackedFollowerState.nextIndex();
+        final long nextLogIndex = followerState.nextIndex();
         final long prevLogIndex = nextLogIndex - 1;
+        final long lastLogIndex = lastLogIndexToSend(serverContext, nextLogIndex);
+
+        //encode in place in the transport if possible to avoid copying the log entries twice, unless earlier
+        //requests are deferred and this one has to be queued behind them
+        final Sender<Message> sender = serverContext.connections().serverSender(followerState.serverId());
+        final AppendRequest appendRequest = serverContext.directFactory().appendRequest();
+        final boolean claimed = !serverContext.resendStrategy().hasDeferred(sender)
+                && sender.tryClaim(appendRequestByteLength, appendRequest) >= 0;
+
+        try {
+            appendRequest
+                    .term(currentTerm())
+                    .leaderCommit(volatileState().commitIndex())
+                    .leaderId(serverContext.id());
+
+            if (prevLogIndex >= 0) {
+                commandLog.readTo(prevLogIndex, appendRequest.prevLogKey());
+            } else {
+                appendRequest.prevLogKey().term(CommandLog.NO_TERM).index(prevLogIndex);
+            }
+            for (long index = nextLogIndex; index <= lastLogIndex; index++) {
+                commandLog.wrap(index, logEntry);
+                appendRequest.appendLogEntry(logEntry);
+            }
+        } catch (final RuntimeException e) {
+            abortIfClaimed(sender, appendRequest, claimed);
+            throw e;
+        }
+        followerState.onAppendRequestSent(prevLogIndex, lastLogIndex);
 
-        final AppendRequest appendRequest = serverContext.directFactory().appendRequest()
-                .term(currentTerm())
-                .leaderCommit(volatileState().commitIndex())
-                .leaderId(serverContext.id());
-
-        commandLog.readTo(prevLogIndex, appendRequest.prevLogKey());
-        final LogEntry newLogEntry = serverContext.directFactory().logEntry();
-        commandLog.readTo(nextLogIndex, newLogEntry);
-
-        appendRequest.appendLogEntry(newLogEntry);
+        appendRequest.commitOrSendTo(sender, claimed, serverContext.resendStrategy());
+        serverContext.latencyTracker().onAppendRequestSent(lastLogIndex);
+        serverContext.counters().onAppendRequestSent();
+    }
 
-        appendRequest.sendTo(serverContext.connections().serverMulticastSender(),
-                        serverContext.resendStrategy());
+    /**
+     * Aborts the claimed region if encoding the message failed, otherwise the claim would block the sender.
+     */
+    private static void abortIfClaimed(final Sender<Message> sender, final Message message, final boolean claimed) {
+        if (claimed) {
+            sender.abort(message);
+        }
+    }
 
+    /**
+     * Determines the consecutive log entries of completed batches starting at the given index that fit into the
+     * configured maximum append request byte length and stores the byte length of the append request in
+     * {@link #appendRequestByteLength}. At least one entry is included if available, even if it exceeds the maximum
+     * byte length.
+     *
+     * @return the index of the last entry to include in the request, or {@code nextLogIndex - 1} if none
+     */
+    private long lastLogIndexToSend(final ServerContext serverContext, final long nextLogIndex) {
+        final CommandLog commandLog = persistentState().commandLog();
+        final int maxByteLength = serverContext.consensusConfig().maxAppendRequestByteLength();
+        int byteLength = DirectAppendRequest.EMPTY_LOG_BYTE_LENGTH;
+        long index = nextLogIndex;
+        while (index <= syncedIndex) {
+            commandLog.wrap(index, logEntry);
+            if (byteLength + logEntry.byteLength() > maxByteLength && index > nextLogIndex) {
+                break;
+            }
+            byteLength += logEntry.byteLength();
+            index++;
+        }
+        appendRequestByteLength = byteLength;
+        return index - 1;
     }
 
 }
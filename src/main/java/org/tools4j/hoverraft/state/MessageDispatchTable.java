@@ -0,0 +1,92 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.state;
+
+import org.tools4j.hoverraft.event.EventHandler;
+import org.tools4j.hoverraft.event.HigherTermHandler;
+import org.tools4j.hoverraft.message.*;
+import org.tools4j.hoverraft.server.ServerContext;
+
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/**
+ * Dispatch table of a state indexed by {@link MessageType} ordinal. Every entry is bound to the handler method for
+ * its message type and performs the higher term check before passing the message to the state's event handler,
+ * hence dispatching a message takes one array lookup instead of the double dispatch through
+ * {@link org.tools4j.hoverraft.event.Event#accept(ServerContext, EventHandler) Event.accept(..)} for the higher term handler and again for the event handler.
+ */
+final class MessageDispatchTable {
+
+    @FunctionalInterface
+    private interface Dispatcher {
+        Transition dispatch(ServerContext serverContext, Message message);
+    }
+
+    @FunctionalInterface
+    private interface Handler<M extends Message> {
+        Transition handle(EventHandler eventHandler, ServerContext serverContext, M message);
+    }
+
+    private final AbstractState state;
+    private final HigherTermHandler higherTermHandler;
+    private final Dispatcher[] dispatchers;
+
+    MessageDispatchTable(final AbstractState state, final HigherTermHandler higherTermHandler) {
+        this.state = Objects.requireNonNull(state);
+        this.higherTermHandler = Objects.requireNonNull(higherTermHandler);
+        this.dispatchers = new Dispatcher[MessageType.maxOrdinal() + 1];
+        bind(MessageType.VOTE_REQUEST, VoteRequest::term, EventHandler::onVoteRequest);
+        bind(MessageType.VOTE_RESPONSE, VoteResponse::term, EventHandler::onVoteResponse);
+        bind(MessageType.APPEND_REQUEST, AppendRequest::term, EventHandler::onAppendRequest);
+        bind(MessageType.APPEND_RESPONSE, AppendResponse::term, EventHandler::onAppendResponse);
+        bind(MessageType.TIMEOUT_NOW, TimeoutNow::term, EventHandler::onTimeoutNow);
+        bind(MessageType.INSTALL_SNAPSHOT, InstallSnapshot::term, EventHandler::onInstallSnapshot);
+        bind(MessageType.INSTALL_SNAPSHOT_RESPONSE, InstallSnapshotResponse::term,
+                EventHandler::onInstallSnapshotResponse);
+        for (int i = 0; i < dispatchers.length; i++) {
+            if (dispatchers[i] == null) {
+                throw new IllegalStateException("No dispatcher bound for message type " + MessageType.valueByOrdinal(i));
+            }
+        }
+    }
+
+    Transition dispatch(final ServerContext serverContext, final Message message) {
+        return dispatchers[message.type().ordinal()].dispatch(serverContext, message);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <M extends Message> void bind(final MessageType type,
+                                          final ToIntFunction<? super M> term,
+                                          final Handler<M> handler) {
+        dispatchers[type.ordinal()] = (serverContext, message) -> {
+            final M typed = (M)message;
+            final Transition transition = higherTermHandler.onTerm(term.applyAsInt(typed));
+            if (transition == Transition.STEADY) {
+                return handler.handle(state.eventHandler(), serverContext, typed);
+            }
+            return transition;
+        };
+    }
+}
@@ -29,6 +29,7 @@ import org.tools4j.hoverraft.command.CommandLog;
 public interface PersistentState {
 
     int NOT_VOTED_YET = -1;
+    long NO_SNAPSHOT = -1;
 
     int currentTerm();
 
@@ -41,4 +42,31 @@ public interface PersistentState {
     void votedFor(final int candidateId);
 
     CommandLog commandLog();
+
+    /**
+     * @return the term of the last log entry included in the latest snapshot, undefined if no snapshot was taken
+     */
+    int snapshotTerm();
+
+    /**
+     * @return the index of the last log entry included in the latest snapshot, or {@link #NO_SNAPSHOT}
+     */
+    long snapshotIndex();
+
+    /**
+     * Records the last log entry included in a snapshot and discards the log entries covered by the snapshot through
+     * {@link CommandLog#compactIncluding(int, long)}.
+     *
+     * @param term  the term of the last log entry included in the snapshot
+     * @param index the index of the last log entry included in the snapshot
+     */
+    void snapshotTaken(int term, long index);
+
+    /**
+     * Forces persistent state and command log to durable storage. The default implementation only syncs the
+     * command log.
+     */
+    default void sync() {
+        commandLog().sync();
+    }
 }
@@ -0,0 +1,105 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.state;
+
+/**
+ * Computes the highest log index stored on a majority of servers, the leader included, from the leader's last log
+ * index and the match indices of its followers. Match indices are copied into a primitive array and the quorum
+ * index is found by selection in linear expected time, hence no log reads and no allocation are involved.
+ */
+final class QuorumMatchIndex {
+
+    private final long[] matchIndices;
+
+    QuorumMatchIndex(final int serverCount) {
+        if (serverCount <= 0) {
+            throw new IllegalArgumentException("serverCount must be positive: " + serverCount);
+        }
+        this.matchIndices = new long[serverCount];
+    }
+
+    /**
+     * Returns the highest index such that a majority of servers have stored all entries up to this index.
+     *
+     * @param leaderLastIndex   the index of the last entry in the leader's log
+     * @param volatileState     the volatile state with the match indices of all followers
+     * @return the highest index stored on a majority of servers, -1 if no such entry exists
+     */
+    long quorumIndex(final long leaderLastIndex, final VolatileState volatileState) {
+        final int followerCount = volatileState.followerCount();
+        final int serverCount = followerCount + 1;
+        if (serverCount != matchIndices.length) {
+            throw new IllegalArgumentException("Expected " + (matchIndices.length - 1) + " followers but found "
+                    + followerCount);
+        }
+        matchIndices[0] = leaderLastIndex;
+        for (int i = 0; i < followerCount; i++) {
+            matchIndices[i + 1] = volatileState.followerState(i).matchIndex();
+        }
+        //a majority holds the values at and above this position in ascending order
+        final int majority = serverCount / 2 + 1;
+        return select(matchIndices, serverCount - majority);
+    }
+
+    /**
+     * Returns the value at the given position if the values were sorted in ascending order. The values are
+     * partially reordered in place.
+     *
+     * @param values    the values to select from
+     * @param position  the zero based position in ascending order
+     * @return the value at position in ascending order
+     */
+    static long select(final long[] values, final int position) {
+        int left = 0;
+        int right = values.length - 1;
+        while (left < right) {
+            final long pivot = values[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    final long value = values[i];
+                    values[i] = values[j];
+                    values[j] = value;
+                    i++;
+                    j--;
+                }
+            }
+            if (position <= j) {
+                right = j;
+            } else if (position >= i) {
+                left = i;
+            } else {
+                return values[position];
+            }
+        }
+        return values[position];
+    }
+}
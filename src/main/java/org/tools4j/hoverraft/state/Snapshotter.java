@@ -0,0 +1,351 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.state;
+
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.tools4j.hoverraft.command.machine.StateMachine;
+import org.tools4j.hoverraft.message.InstallSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes snapshots of the {@link StateMachine} once the configured number of log entries has been applied since the
+ * last snapshot and compacts the command log accordingly.
+ * <p>
+ * Snapshots are written by the thread applying committed entries through {@link #takeSnapshot(StateMachine)}, the
+ * log is compacted by the consensus thread through {@link #compactLog()}. At most one snapshot is pending
+ * compaction at any time. Snapshot files start with term and index of the last included log entry followed by the
+ * state machine data; they are written to a temporary file first and then atomically moved to the snapshot file.
+ * <p>
+ * Snapshot files are transferred as they are to followers lagging behind the compacted log: the leader maps the
+ * latest snapshot file through {@link #mappedSnapshot()} and sends it in chunks, the follower writes the chunks into
+ * a mapped receive file through {@link #receiveChunk(InstallSnapshot)}. The applying thread installs a completely
+ * received snapshot through {@link #installReceived(StateMachine)} and the consensus thread compacts the log
+ * thereafter.
+ */
+public final class Snapshotter implements AutoCloseable {
+
+    private static final int SNAPSHOT_TERM_OFF = 0;
+    private static final int SNAPSHOT_TERM_LEN = 4;
+    private static final int SNAPSHOT_INDEX_OFF = SNAPSHOT_TERM_OFF + SNAPSHOT_TERM_LEN;
+    private static final int SNAPSHOT_INDEX_LEN = 8;
+    private static final int SNAPSHOT_HEADER_LENGTH = SNAPSHOT_INDEX_OFF + SNAPSHOT_INDEX_LEN;
+
+    private final File snapshotFile;
+    private final PersistentState persistentState;
+    private final VolatileState volatileState;
+    private final long logEntryThreshold;
+
+    //written by the applying thread, read by the consensus thread
+    private final AtomicLong snapshotIndex = new AtomicLong(PersistentState.NO_SNAPSHOT);
+    private int snapshotTerm;
+    //written by the consensus thread, read by the applying thread
+    private final AtomicLong compactedIndex = new AtomicLong(PersistentState.NO_SNAPSHOT);
+    private final AtomicLong receivedIndex = new AtomicLong(PersistentState.NO_SNAPSHOT);
+
+    //consensus thread only
+    private final UnsafeBuffer snapshotBuffer = new UnsafeBuffer(0, 0);
+    private final UnsafeBuffer receiveBuffer = new UnsafeBuffer(0, 0);
+    private final File receiveFile;
+    private MappedByteBuffer mappedSnapshot;
+    private long mappedSnapshotIndex = PersistentState.NO_SNAPSHOT;
+    private MappedByteBuffer mappedReceive;
+    private long receiveIndex = PersistentState.NO_SNAPSHOT;
+    private long receivePosition;
+    private long receiveLength;
+
+    public Snapshotter(final File snapshotFile,
+                       final PersistentState persistentState,
+                       final VolatileState volatileState,
+                       final long logEntryThreshold) {
+        if (logEntryThreshold < 0) {
+            throw new IllegalArgumentException("logEntryThreshold cannot be negative: " + logEntryThreshold);
+        }
+        this.snapshotFile = Objects.requireNonNull(snapshotFile);
+        this.persistentState = Objects.requireNonNull(persistentState);
+        this.volatileState = Objects.requireNonNull(volatileState);
+        this.logEntryThreshold = logEntryThreshold;
+        this.receiveFile = new File(snapshotFile.getPath() + ".recv");
+    }
+
+    public static int snapshotTerm(final DirectBuffer snapshot) {
+        return snapshot.getInt(SNAPSHOT_TERM_OFF, ByteOrder.BIG_ENDIAN);
+    }
+
+    public static long snapshotIndex(final DirectBuffer snapshot) {
+        return snapshot.getLong(SNAPSHOT_INDEX_OFF, ByteOrder.BIG_ENDIAN);
+    }
+
+    public File snapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Loads the latest snapshot into the state machine if the command log has been compacted and sets commit index
+     * and last applied index to the last log entry included in the snapshot. Must be invoked before any committed
+     * entries are applied.
+     *
+     * @param stateMachine the state machine to load the snapshot into
+     * @return the index of the last entry included in the loaded snapshot, or {@link PersistentState#NO_SNAPSHOT}
+     */
+    public long recover(final StateMachine stateMachine) {
+        if (persistentState.commandLog().firstIndex() == 0) {
+            return PersistentState.NO_SNAPSHOT;
+        }
+        final long index = loadSnapshot(stateMachine);
+        volatileState.commitIndex(Math.max(index, volatileState.commitIndex()));
+        volatileState.lastApplied(index);
+        if (index > persistentState.snapshotIndex()) {
+            persistentState.snapshotTaken(snapshotTerm, index);
+        }
+        snapshotIndex.set(index);
+        compactedIndex.set(index);
+        return index;
+    }
+
+    /**
+     * Writes a snapshot of the state machine if the configured number of log entries has been applied since the
+     * last snapshot and the previous snapshot has been compacted. Must be invoked by the thread applying committed
+     * entries to the state machine.
+     *
+     * @param stateMachine the state machine to snapshot
+     * @return one if a snapshot was taken and zero otherwise
+     */
+    public int takeSnapshot(final StateMachine stateMachine) {
+        if (logEntryThreshold == 0) {
+            return 0;
+        }
+        final long lastSnapshotIndex = snapshotIndex.get();
+        final long lastApplied = volatileState.lastApplied();
+        if (lastApplied - lastSnapshotIndex < logEntryThreshold || compactedIndex.get() != lastSnapshotIndex) {
+            return 0;
+        }
+        final int term = persistentState.commandLog().readTerm(lastApplied);
+        writeSnapshot(stateMachine, term, lastApplied);
+        snapshotTerm = term;
+        snapshotIndex.lazySet(lastApplied);
+        return 1;
+    }
+
+    /**
+     * Records a snapshot written through {@link #takeSnapshot(StateMachine)} in the persistent state and discards
+     * the log entries included in the snapshot. Must be invoked by the consensus thread.
+     *
+     * @return one if the log was compacted and zero otherwise
+     */
+    public int compactLog() {
+        final long index = snapshotIndex.get();
+        if (index == compactedIndex.get()) {
+            return 0;
+        }
+        persistentState.snapshotTaken(snapshotTerm, index);
+        if (index > volatileState.commitIndex()) {
+            volatileState.commitIndex(index);
+        }
+        compactedIndex.lazySet(index);
+        return 1;
+    }
+
+    /**
+     * Returns the latest compacted snapshot mapped read-only for sending it to followers. The snapshot is remapped
+     * if a newer snapshot has been compacted since the last invocation. Must be invoked by the consensus thread.
+     *
+     * @return the mapped snapshot file, or null if no snapshot has been taken yet
+     */
+    public DirectBuffer mappedSnapshot() {
+        final long index = compactedIndex.get();
+        if (index == PersistentState.NO_SNAPSHOT) {
+            return null;
+        }
+        if (mappedSnapshotIndex < index) {
+            unmap(mappedSnapshot);
+            mappedSnapshot = map(snapshotFile, FileChannel.MapMode.READ_ONLY, snapshotFile.length());
+            snapshotBuffer.wrap(mappedSnapshot);
+            mappedSnapshotIndex = snapshotIndex(snapshotBuffer);
+        }
+        return snapshotBuffer;
+    }
+
+    /**
+     * Returns true if the log entries up to the given snapshot index are already committed or included in an
+     * installed snapshot.
+     *
+     * @param index the index of the last log entry included in a snapshot
+     * @return true if no snapshot with the given index needs to be installed
+     */
+    public boolean isInstalled(final long index) {
+        return volatileState.commitIndex() >= index || compactedIndex.get() >= index;
+    }
+
+    /**
+     * Writes a snapshot chunk received from the leader into the receive file. Chunks must be received in order,
+     * other chunks are ignored. The snapshot is installed through {@link #installReceived(StateMachine)} after the
+     * last chunk has been received. Must be invoked by the consensus thread.
+     *
+     * @param installSnapshot the message with the snapshot chunk
+     * @return the position of the next chunk expected from the leader
+     */
+    public long receiveChunk(final InstallSnapshot installSnapshot) {
+        final long index = installSnapshot.lastIncludedLogKey().index();
+        final long length = installSnapshot.snapshotByteLength();
+        final long position = installSnapshot.chunkPosition();
+        if (isInstalled(index)) {
+            return length;
+        }
+        if (index != receiveIndex) {
+            if (receivedIndex.get() > snapshotIndex.get() || position != 0) {
+                //previously received snapshot is not installed yet, or first chunk is missing
+                return 0;
+            }
+            openReceiveFile(index, length);
+        }
+        if (position != receivePosition || receivePosition == receiveLength
+                || position + installSnapshot.chunkByteLength() > receiveLength) {
+            return receivePosition;
+        }
+        installSnapshot.chunkTo(receiveBuffer, (int)position);
+        receivePosition += installSnapshot.chunkByteLength();
+        if (receivePosition == receiveLength) {
+            mappedReceive.force();
+            unmap(mappedReceive);
+            mappedReceive = null;
+            receiveBuffer.wrap(0, 0);
+            receivedIndex.lazySet(index);
+        }
+        return receivePosition;
+    }
+
+    /**
+     * Installs a snapshot completely received from the leader: loads it into the state machine and advances the
+     * last applied index. The log is compacted thereafter by {@link #compactLog()}. Must be invoked by the thread
+     * applying committed entries to the state machine.
+     *
+     * @param stateMachine the state machine to load the snapshot into
+     * @return one if a snapshot was installed and zero otherwise
+     */
+    public int installReceived(final StateMachine stateMachine) {
+        final long index = receivedIndex.get();
+        final long lastSnapshotIndex = snapshotIndex.get();
+        if (index <= lastSnapshotIndex || compactedIndex.get() != lastSnapshotIndex) {
+            return 0;
+        }
+        try {
+            java.nio.file.Files.move(receiveFile.toPath(), snapshotFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new RuntimeException("Moving received snapshot " + receiveFile + " failed, e=" + e, e);
+        }
+        loadSnapshot(stateMachine);
+        volatileState.lastApplied(index);
+        snapshotIndex.lazySet(index);
+        return 1;
+    }
+
+    /**
+     * Releases the mapped snapshot and receive files; a partially received snapshot is discarded and received again
+     * from the beginning. Must be invoked by the consensus thread.
+     */
+    @Override
+    public void close() {
+        unmap(mappedSnapshot);
+        mappedSnapshot = null;
+        mappedSnapshotIndex = PersistentState.NO_SNAPSHOT;
+        snapshotBuffer.wrap(0, 0);
+        unmap(mappedReceive);
+        mappedReceive = null;
+        receiveIndex = PersistentState.NO_SNAPSHOT;
+        receiveBuffer.wrap(0, 0);
+    }
+
+    private void openReceiveFile(final long index, final long length) {
+        unmap(mappedReceive);
+        mappedReceive = map(receiveFile, FileChannel.MapMode.READ_WRITE, length);
+        receiveBuffer.wrap(mappedReceive);
+        receiveIndex = index;
+        receivePosition = 0;
+        receiveLength = length;
+    }
+
+    private static MappedByteBuffer map(final File file, final FileChannel.MapMode mode, final long length) {
+        if (length < SNAPSHOT_HEADER_LENGTH || length > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Invalid snapshot length " + length + " for " + file);
+        }
+        try (final RandomAccessFile raf = new RandomAccessFile(file, mode == FileChannel.MapMode.READ_ONLY ? "r" : "rw")) {
+            return raf.getChannel().map(mode, 0, length);
+        } catch (final IOException e) {
+            throw new RuntimeException("Mapping snapshot " + file + " failed, e=" + e, e);
+        }
+    }
+
+    private static void unmap(final MappedByteBuffer mappedByteBuffer) {
+        if (mappedByteBuffer != null) {
+            IoUtil.unmap(mappedByteBuffer);
+        }
+    }
+
+    private long loadSnapshot(final StateMachine stateMachine) {
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            snapshotTerm = in.readInt();
+            final long index = in.readLong();
+            stateMachine.loadSnapshot(in);
+            return index;
+        } catch (final IOException e) {
+            throw new RuntimeException("Loading snapshot " + snapshotFile + " failed, e=" + e, e);
+        }
+    }
+
+    private void writeSnapshot(final StateMachine stateMachine, final int term, final long index) {
+        final File tempFile = new File(snapshotFile.getPath() + ".tmp");
+        try {
+            try (final FileOutputStream fileOut = new FileOutputStream(tempFile);
+                 final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                out.writeInt(term);
+                out.writeLong(index);
+                stateMachine.writeSnapshot(out);
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            java.nio.file.Files.move(tempFile.toPath(), snapshotFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new RuntimeException("Writing snapshot " + snapshotFile + " failed, e=" + e, e);
+        }
+    }
+}
@@ -24,9 +24,20 @@
 package org.tools4j.hoverraft.state;
 
 import org.tools4j.hoverraft.event.Event;
+import org.tools4j.hoverraft.message.Message;
 import org.tools4j.hoverraft.server.ServerContext;
 
 public interface State {
     Role role();
     Transition onEvent(ServerContext serverContext, Event event);
+
+    /**
+     * Handles a message received from another server. Equivalent to {@link #onEvent(ServerContext, Event)} but
+     * dispatched through a table indexed by message type.
+     *
+     * @param serverContext the server context
+     * @param message the received message
+     * @return the transition resulting from the message
+     */
+    Transition onMessage(ServerContext serverContext, Message message);
 }
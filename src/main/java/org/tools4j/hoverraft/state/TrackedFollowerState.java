@@ -23,15 +23,53 @@
  */
 package org.tools4j.hoverraft.state;
 
+/**
+ * Leader side replication state of a follower. Tracks nextIndex and matchIndex as defined by the raft paper and in
+ * addition the window of append requests that have been sent to the follower but not yet been acknowledged.
+ * <p>
+ * Responses are matched against the in-flight requests by the log indices reported by the follower rather than by
+ * their number, so that lost, coalesced or late responses cannot be mistaken for the response to another request. A
+ * successful response acknowledges all in-flight requests up to its match index, including requests whose responses
+ * never arrive because they have been lost or coalesced with later requests by the resend strategy. A rejection
+ * applies to the in-flight request with the rejected previous log index and is ignored if no such request is in
+ * flight any more. After a rejection the follower is probed with a single request at a time until a response
+ * acknowledges an in-flight request again, and pipelining is resumed thereafter.
+ * In-flight requests are assumed to be lost if no progress has been made during a whole heartbeat interval, that is,
+ * if no response has been received since the oldest in-flight request was sent or the last request was acknowledged.
+ * <p>
+ * If the entries needed by the follower have been discarded after a snapshot, the snapshot is sent in chunks instead.
+ * Sent and acknowledged snapshot positions are tracked so that at most as many chunks as append requests are in
+ * flight. Unacknowledged chunks are assumed to be lost under the same rule as append requests, that is, if no
+ * acknowledgement has been received during a whole heartbeat interval.
+ */
 public final class TrackedFollowerState {
 
     private final int serverId;
+    private final long[] inflightPrevLogIndices;
+    private final long[] inflightLastLogIndices;
 
     private long nextIndex;
     private long matchIndex;
+    private int inflightHead;
+    private int inflightCount;
+    private int heartbeatsWithoutProgress;
+    private boolean probing;
+    private long snapshotIndex = PersistentState.NO_SNAPSHOT;
+    private long snapshotSentPosition;
+    private long snapshotAckedPosition;
 
     public TrackedFollowerState(final int serverId) {
+        this(serverId, 1);
+    }
+
+    public TrackedFollowerState(final int serverId, final int maxInflightAppendRequests) {
+        if (maxInflightAppendRequests <= 0) {
+            throw new IllegalArgumentException("maxInflightAppendRequests must be positive: " + maxInflightAppendRequests);
+        }
         this.serverId = serverId;
+        this.inflightPrevLogIndices = new long[maxInflightAppendRequests];
+        this.inflightLastLogIndices = new long[maxInflightAppendRequests];
+        this.probing = true;
     }
 
     public int serverId() {
@@ -46,13 +84,16 @@ public final class TrackedFollowerState {
         return matchIndex;
     }
 
-    public TrackedFollowerState nextIndex(final long index) {
-        this.nextIndex = index;
-        return this;
+    public int inflightCount() {
+        return inflightCount;
     }
 
-    public TrackedFollowerState decrementNextIndex() {
-        this.nextIndex--;
+    public boolean isProbing() {
+        return probing;
+    }
+
+    public TrackedFollowerState nextIndex(final long index) {
+        this.nextIndex = index;
         return this;
     }
 
@@ -65,4 +106,257 @@ public final class TrackedFollowerState {
         this.matchIndex = Long.max(index, this.matchIndex);
         return this;
     }
+
+    /**
+     * Returns true if another append request can be sent to this follower without exceeding the in-flight window.
+     * The window is a single request while probing the follower's log after a rejection.
+     *
+     * @return true if another append request can be sent
+     */
+    public boolean hasInflightCapacity() {
+        return inflightCount < (probing ? 1 : inflightPrevLogIndices.length);
+    }
+
+    /**
+     * Records an append request sent to this follower and advances {@link #nextIndex()} past the last entry
+     * contained in the request.
+     *
+     * @param prevLogIndex the previous log index of the append request
+     * @param lastLogIndex the index of the last entry in the request, or prevLogIndex if it contains no entries
+     * @return this follower state
+     */
+    public TrackedFollowerState onAppendRequestSent(final long prevLogIndex, final long lastLogIndex) {
+        if (!hasInflightCapacity()) {
+            throw new IllegalStateException("No in-flight capacity for follower " + serverId);
+        }
+        final int capacity = inflightPrevLogIndices.length;
+        if (inflightCount == 0) {
+            heartbeatsWithoutProgress = 0;
+        }
+        final int slot = (inflightHead + inflightCount) % capacity;
+        inflightPrevLogIndices[slot] = prevLogIndex;
+        inflightLastLogIndices[slot] = lastLogIndex;
+        inflightCount++;
+        nextIndex = lastLogIndex + 1;
+        return this;
+    }
+
+    /**
+     * Acknowledges the in-flight append requests up to the match index of a successful response. A response that
+     * acknowledges no in-flight request, such as a late response to a discarded request, still advances the match
+     * index but does not count as progress.
+     *
+     * @param matchLogIndex the match log index returned by the follower
+     * @return this follower state
+     */
+    public TrackedFollowerState onAppendSuccess(final long matchLogIndex) {
+        boolean acknowledged = false;
+        while (inflightCount > 0 && inflightLastLogIndices[inflightHead] <= matchLogIndex) {
+            removeInflightHead();
+            acknowledged = true;
+        }
+        updateMatchIndex(matchLogIndex);
+        nextIndex = Long.max(nextIndex, matchIndex + 1);
+        if (acknowledged) {
+            probing = false;
+            heartbeatsWithoutProgress = 0;
+        }
+        return this;
+    }
+
+    /**
+     * Discards all in-flight append requests after the follower has rejected the request with the given previous log
+     * index. Requests sent after the rejected one were based on the same wrong assumption, and requests sent before
+     * it are assumed to be lost. The next index is moved back to the index derived from the conflict hint of the
+     * follower, but at least by one entry relative to the rejected request. The rejection is ignored if no request
+     * with the given previous log index is in flight, for instance if it is a late response to a discarded request.
+     *
+     * @param rejectedPrevLogIndex the previous log index of the rejected request as reported by the follower
+     * @param conflictNextIndex    the next index derived from conflict term and index of the rejecting response
+     * @return this follower state
+     */
+    public TrackedFollowerState onAppendFailure(final long rejectedPrevLogIndex, final long conflictNextIndex) {
+        if (!isInflight(rejectedPrevLogIndex)) {
+            return this;
+        }
+        inflightHead = 0;
+        inflightCount = 0;
+        heartbeatsWithoutProgress = 0;
+        nextIndex = Long.max(matchIndex + 1, Long.min(conflictNextIndex, rejectedPrevLogIndex));
+        probing = true;
+        return this;
+    }
+
+    /**
+     * Invoked on every heartbeat of the leader, returns true if append requests or snapshot chunks are in flight and
+     * no progress has been made during a whole heartbeat interval. The outstanding requests are then assumed to be
+     * lost and should be discarded through {@link #resetInflight()}, or {@link #resetSnapshotInflight(long)} if a
+     * snapshot is being sent.
+     *
+     * @return true if in-flight requests have not made progress for a whole heartbeat interval
+     */
+    public boolean onHeartbeat() {
+        if (isSendingSnapshot() ? snapshotSentPosition == 0 : inflightCount == 0) {
+            heartbeatsWithoutProgress = 0;
+            return false;
+        }
+        //the first heartbeat after progress may follow it closely, only the second one is a whole interval later
+        return ++heartbeatsWithoutProgress > 1;
+    }
+
+    /**
+     * Discards all in-flight append requests, usually if no progress has been made within a heartbeat interval and
+     * the requests are assumed to be lost. Replication resumes with the entries of the oldest unacknowledged request.
+     * Responses to the discarded requests may still arrive; successful ones advance the match index and rejections
+     * are ignored unless a request with the same previous log index has been sent again.
+     *
+     * @return this follower state
+     */
+    public TrackedFollowerState resetInflight() {
+        if (inflightCount > 0) {
+            nextIndex = Long.max(matchIndex + 1, inflightPrevLogIndices[inflightHead] + 1);
+        }
+        inflightHead = 0;
+        inflightCount = 0;
+        heartbeatsWithoutProgress = 0;
+        return this;
+    }
+
+    public boolean isSendingSnapshot() {
+        return snapshotIndex != PersistentState.NO_SNAPSHOT;
+    }
+
+    /**
+     * @return the index of the last log entry included in the snapshot sent to the follower, or
+     *          {@link PersistentState#NO_SNAPSHOT} if log entries are replicated
+     */
+    public long snapshotIndex() {
+        return snapshotIndex;
+    }
+
+    public long snapshotSentPosition() {
+        return snapshotSentPosition;
+    }
+
+    public long snapshotAckedPosition() {
+        return snapshotAckedPosition;
+    }
+
+    /**
+     * Starts sending the snapshot with the given last included index from the beginning; discards in-flight append
+     * requests.
+     *
+     * @param snapshotIndex the index of the last log entry included in the snapshot
+     * @return this follower state
+     */
+    public TrackedFollowerState startSnapshot(final long snapshotIndex) {
+        this.snapshotIndex = snapshotIndex;
+        this.snapshotSentPosition = 0;
+        this.snapshotAckedPosition = 0;
+        this.inflightHead = 0;
+        this.inflightCount = 0;
+        this.heartbeatsWithoutProgress = 0;
+        return this;
+    }
+
+    /**
+     * Returns true if another snapshot chunk can be sent without exceeding the in-flight window.
+     *
+     * @param chunkByteLength the maximum chunk length
+     * @return true if another chunk can be sent
+     */
+    public boolean hasSnapshotCapacity(final int chunkByteLength) {
+        return snapshotSentPosition - snapshotAckedPosition < ((long)chunkByteLength) * inflightPrevLogIndices.length;
+    }
+
+    public TrackedFollowerState onSnapshotChunkSent(final long endPosition) {
+        if (snapshotSentPosition == snapshotAckedPosition) {
+            heartbeatsWithoutProgress = 0;
+        }
+        snapshotSentPosition = endPosition;
+        return this;
+    }
+
+    /**
+     * Acknowledges snapshot chunks up to the given position. A position before the acknowledged position indicates
+     * that the follower has lost or discarded chunks, and sending resumes from the follower's position.
+     *
+     * @param nextChunkPosition the position of the next chunk expected by the follower
+     * @return this follower state
+     */
+    public TrackedFollowerState onSnapshotAck(final long nextChunkPosition) {
+        if (nextChunkPosition != snapshotAckedPosition) {
+            heartbeatsWithoutProgress = 0;
+        }
+        if (nextChunkPosition < snapshotAckedPosition) {
+            snapshotSentPosition = nextChunkPosition;
+        }
+        snapshotAckedPosition = nextChunkPosition;
+        snapshotSentPosition = Long.max(snapshotSentPosition, nextChunkPosition);
+        return this;
+    }
+
+    /**
+     * Resumes sending unacknowledged chunks, usually if no acknowledgement has been received within a whole
+     * heartbeat interval as indicated by {@link #onHeartbeat()}.
+     *
+     * @param maxPosition the maximum position to resume from, used to resend the last chunk if all chunks have
+     *                    been acknowledged but the snapshot has not been installed yet
+     * @return this follower state
+     */
+    public TrackedFollowerState resetSnapshotInflight(final long maxPosition) {
+        snapshotSentPosition = Long.min(snapshotAckedPosition, maxPosition);
+        heartbeatsWithoutProgress = 0;
+        return this;
+    }
+
+    /**
+     * Completes sending the snapshot after the follower has installed it; replication continues with the log entry
+     * following the snapshot.
+     *
+     * @param snapshotIndex the index of the last log entry included in the installed snapshot
+     * @return this follower state
+     */
+    public TrackedFollowerState onSnapshotInstalled(final long snapshotIndex) {
+        this.snapshotIndex = PersistentState.NO_SNAPSHOT;
+        updateMatchIndex(snapshotIndex);
+        this.nextIndex = matchIndex + 1;
+        this.inflightHead = 0;
+        this.inflightCount = 0;
+        this.heartbeatsWithoutProgress = 0;
+        this.probing = false;
+        return this;
+    }
+
+    /**
+     * Resets this follower state when a new leader term starts.
+     *
+     * @param nextIndex the next index, usually the leader's log size
+     * @return this follower state
+     */
+    public TrackedFollowerState reset(final long nextIndex) {
+        this.nextIndex = nextIndex;
+        this.matchIndex = -1;
+        this.inflightHead = 0;
+        this.inflightCount = 0;
+        this.heartbeatsWithoutProgress = 0;
+        this.probing = true;
+        this.snapshotIndex = PersistentState.NO_SNAPSHOT;
+        return this;
+    }
+
+    private boolean isInflight(final long prevLogIndex) {
+        final int capacity = inflightPrevLogIndices.length;
+        for (int i = 0; i < inflightCount; i++) {
+            if (inflightPrevLogIndices[(inflightHead + i) % capacity] == prevLogIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeInflightHead() {
+        inflightHead = (inflightHead + 1) % inflightPrevLogIndices.length;
+        inflightCount--;
+    }
 }
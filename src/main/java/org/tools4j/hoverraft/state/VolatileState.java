@@ -25,34 +25,38 @@ package org.tools4j.hoverraft.state;
 
 import org.tools4j.hoverraft.config.ConsensusConfig;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public final class VolatileState {
 
     private final TrackedFollowerState[] trackedFollowerStates;
 
     @Deprecated //REMOVE this is now storted as State in HoverRaftMachine
     private Role role = Role.FOLLOWER;
-    private long commitIndex = -1;
-    private long lastApplied = -1;
+    //single writer counters published with ordered writes, commitIndex is written by the consensus thread and
+    //lastApplied by the thread applying committed entries to the state machine
+    private final AtomicLong commitIndex = new AtomicLong(-1);
+    private final AtomicLong lastApplied = new AtomicLong(-1);
 
     public VolatileState(final int serverId, final ConsensusConfig consensusConfig) {
         this.trackedFollowerStates = initFollowerStates(serverId, consensusConfig);
     }
 
     public long commitIndex() {
-        return commitIndex;
+        return commitIndex.get();
     }
 
     public VolatileState commitIndex(final long commitIndex) {
-        this.commitIndex = commitIndex;
+        this.commitIndex.lazySet(commitIndex);
         return this;
     }
 
     public long lastApplied() {
-        return lastApplied;
+        return lastApplied.get();
     }
 
     public VolatileState lastApplied(final long lastApplied) {
-        this.lastApplied = lastApplied;
+        this.lastApplied.lazySet(lastApplied);
         return this;
     }
 
@@ -66,8 +70,7 @@ public final class VolatileState {
 
     public void resetFollowersState(final long nextIndex) {
         for (final TrackedFollowerState fs : trackedFollowerStates) {
-            fs.nextIndex(nextIndex)
-                    .resetMatchIndex();
+            fs.reset(nextIndex);
         }
     }
 
@@ -86,7 +89,7 @@ public final class VolatileState {
         for (int i = 0; i < consensusConfig.serverCount(); i++) {
             final int id = consensusConfig.serverConfig(i).id();
             if (id != serverId) {
-                states[index] = new TrackedFollowerState(id);
+                states[index] = new TrackedFollowerState(id, consensusConfig.maxInflightAppendRequests());
                 index++;
             }
         }
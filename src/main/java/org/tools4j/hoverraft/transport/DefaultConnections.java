@@ -23,55 +23,81 @@
  */
 package org.tools4j.hoverraft.transport;
 
+import org.agrona.collections.Int2ObjectHashMap;
 import org.tools4j.hoverraft.command.Command;
-import org.tools4j.hoverraft.direct.DirectPayload;
 import org.tools4j.hoverraft.message.Message;
 
-import java.util.List;
 import java.util.Objects;
 
+/**
+ * Connections with point-to-point senders and receivers per peer server ID and receivers per source ID. Messages
+ * to a single peer such as append requests and responses are sent through the point-to-point sender of that peer;
+ * only broadcasts such as vote requests go through the multicast sender.
+ */
 public class DefaultConnections<M extends Message> implements Connections<M> {
 
-    private final Receiver<Command>[] sourceReceivers;
-    private final Receiver<M>[] serverReceivers;
+    private final Int2ObjectHashMap<Receiver<Command>> sourceReceivers;
+    private final Int2ObjectHashMap<Receiver<M>> serverReceivers;
+    private final Int2ObjectHashMap<Sender<M>> serverSenders;
     private final Sender<M> serverMulticastSender;
 
-    public DefaultConnections(final List<Receiver<? extends Command>> sourceReceivers,
-                              final List<Receiver<? extends M>> serverReceivers,
-                              final Sender<? super M> serverMulticastSender) {
-        Objects.requireNonNull(serverMulticastSender);
-        this.sourceReceivers = receivers(sourceReceivers);
-        this.serverReceivers = receivers(serverReceivers);
-        this.serverMulticastSender = (m) -> serverMulticastSender.offer(m);
+    /**
+     * Constructor for connections broadcasting messages by offering them to every point-to-point server sender.
+     *
+     * @param sourceReceivers   receivers by source ID
+     * @param serverReceivers   receivers by peer server ID
+     * @param serverSenders     point-to-point senders by peer server ID
+     */
+    public DefaultConnections(final Int2ObjectHashMap<Receiver<Command>> sourceReceivers,
+                              final Int2ObjectHashMap<Receiver<M>> serverReceivers,
+                              final Int2ObjectHashMap<Sender<M>> serverSenders) {
+        this(sourceReceivers, serverReceivers, serverSenders,
+                Senders.multicastSender(serverSenders.values()));
     }
 
-    //safely wraps Receiver<? super M> to Receiver<M> and converts List to array
-    private static <M extends DirectPayload> Receiver<M>[] receivers(final List<Receiver<? extends M>> receivers) {
-        final Receiver<M>[] arr = (Receiver<M>[])new Receiver<?>[receivers.size()];
-        for (int i = 0; i < arr.length; i++) {
-            final int index = i;
-            arr[index] = (c, l) -> receivers.get(index).poll(c, l);
-        }
-        return arr;
+    /**
+     * Constructor for connections broadcasting messages through a multicast sender.
+     *
+     * @param sourceReceivers       receivers by source ID
+     * @param serverReceivers       receivers by peer server ID
+     * @param serverSenders         point-to-point senders by peer server ID
+     * @param serverMulticastSender sender broadcasting messages to all peer servers
+     */
+    public DefaultConnections(final Int2ObjectHashMap<Receiver<Command>> sourceReceivers,
+                              final Int2ObjectHashMap<Receiver<M>> serverReceivers,
+                              final Int2ObjectHashMap<Sender<M>> serverSenders,
+                              final Sender<M> serverMulticastSender) {
+        this.sourceReceivers = Objects.requireNonNull(sourceReceivers);
+        this.serverReceivers = Objects.requireNonNull(serverReceivers);
+        this.serverSenders = Objects.requireNonNull(serverSenders);
+        this.serverMulticastSender = Objects.requireNonNull(serverMulticastSender);
     }
 
     @Override
-    public Receiver<Command> sourceReceiver(int sourceId) {
-        return sourceReceivers[sourceId];
+    public Receiver<Command> sourceReceiver(final int sourceId) {
+        return getOrThrow(sourceReceivers, sourceId, "source receiver");
     }
 
     @Override
-    public Receiver<M> serverReceiver(int serverId) {
-        return serverReceivers[serverId];
+    public Receiver<M> serverReceiver(final int serverId) {
+        return getOrThrow(serverReceivers, serverId, "server receiver");
     }
 
     @Override
-    public Sender<M> serverSender(int serverId) {
-        return serverMulticastSender;
+    public Sender<M> serverSender(final int serverId) {
+        return getOrThrow(serverSenders, serverId, "server sender");
     }
 
     @Override
     public Sender<M> serverMulticastSender() {
         return serverMulticastSender;
     }
+
+    private static <T> T getOrThrow(final Int2ObjectHashMap<T> map, final int id, final String name) {
+        final T value = map.get(id);
+        if (value == null) {
+            throw new IllegalArgumentException("No " + name + " found for ID " + id);
+        }
+        return value;
+    }
 }
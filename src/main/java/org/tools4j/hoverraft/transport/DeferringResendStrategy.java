@@ -0,0 +1,248 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.direct.RecyclingDirectFactory;
+import org.tools4j.hoverraft.message.AppendRequest;
+import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.message.MessageType;
+
+import java.util.Arrays;
+
+/**
+ * Resend strategy copying rejected messages to a pending queue per sender; pending messages are offered again in
+ * order by {@link #resendDeferred()} in subsequent duty cycles. While messages to a sender are pending, new messages
+ * to that sender are queued behind them, see {@link #hasDeferred(Sender)}. A message is dropped after the maximum
+ * number of attempts including the rejected offer, or if it is rejected permanently because the sender is closed or
+ * the message is too long. If a queue is full, its oldest message is dropped as newer messages such as heartbeats
+ * carry more recent state.
+ * <p>
+ * With coalescing, a rejected append request replaces a pending append request to the same sender if the pending
+ * request is a heartbeat without entries or starts at the same log index, as the newer request then supersedes the
+ * pending one. The leader receives no response for the replaced request; the response to the newer request
+ * acknowledges both as it covers all entries of the replaced one.
+ * <p>
+ * Queue buffers grow on demand; no allocation occurs after warm-up. The strategy is not thread safe and must be
+ * used by the thread sending messages.
+ */
+public final class DeferringResendStrategy implements ResendStrategy {
+
+    private static final int INITIAL_BUFFER_CAPACITY = 256;
+
+    private final int maxAttempts;
+    private final int maxPendingPerSender;
+    private final boolean coalesceAppendRequests;
+    private final DirectFactory flyweights = new RecyclingDirectFactory();
+    private PendingQueue[] queues = new PendingQueue[0];
+
+    public DeferringResendStrategy(final int maxAttempts,
+                                   final int maxPendingPerSender,
+                                   final boolean coalesceAppendRequests) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        if (maxPendingPerSender <= 0) {
+            throw new IllegalArgumentException("maxPendingPerSender must be positive: " + maxPendingPerSender);
+        }
+        this.maxAttempts = maxAttempts;
+        this.maxPendingPerSender = maxPendingPerSender;
+        this.coalesceAppendRequests = coalesceAppendRequests;
+    }
+
+    @Override
+    public <M extends Message> void onRejectedOffer(final Sender<? super M> sender, final M message,
+                                                    final long rejectReason) {
+        if (isPermanent(rejectReason) || maxAttempts == 1) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        final Sender<? super Message> messageSender = (Sender<? super Message>)sender;
+        final PendingQueue queue = queue(messageSender);
+        final int attempted = rejectReason == RejectReason.DEFERRED ? 0 : 1;
+        if (coalesceAppendRequests && message.type() == MessageType.APPEND_REQUEST
+                && queue.replaceStale((AppendRequest)message, attempted)) {
+            return;
+        }
+        queue.add(message, attempted);
+    }
+
+    private static boolean isPermanent(final long rejectReason) {
+        return rejectReason == RejectReason.CLOSED || rejectReason == RejectReason.MESSAGE_TOO_LONG;
+    }
+
+    @Override
+    public boolean hasDeferred(final Sender<?> sender) {
+        for (final PendingQueue queue : queues) {
+            if (queue.sender == sender) {
+                return queue.size > 0;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int resendDeferred() {
+        int count = 0;
+        for (final PendingQueue queue : queues) {
+            count += queue.resend();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of messages pending for all senders
+     */
+    public int pendingCount() {
+        int count = 0;
+        for (final PendingQueue queue : queues) {
+            count += queue.size;
+        }
+        return count;
+    }
+
+    private PendingQueue queue(final Sender<? super Message> sender) {
+        for (final PendingQueue queue : queues) {
+            if (queue.sender == sender) {
+                return queue;
+            }
+        }
+        final PendingQueue queue = new PendingQueue(sender, maxPendingPerSender);
+        queues = Arrays.copyOf(queues, queues.length + 1);
+        queues[queues.length - 1] = queue;
+        return queue;
+    }
+
+    private Message wrap(final MutableDirectBuffer buffer) {
+        final Message message = MessageType.readFrom(buffer, 0).create(flyweights);
+        //wrap read-only, wrapping a mutable buffer initialises the message
+        message.wrap((DirectBuffer)buffer, 0);
+        return message;
+    }
+
+    private final class PendingQueue {
+        private final Sender<? super Message> sender;
+        private final MutableDirectBuffer[] buffers;
+        private final int[] attempts;
+        private int head;
+        private int size;
+
+        PendingQueue(final Sender<? super Message> sender, final int capacity) {
+            this.sender = sender;
+            this.buffers = new MutableDirectBuffer[capacity];
+            this.attempts = new int[capacity];
+            for (int i = 0; i < capacity; i++) {
+                buffers[i] = new ExpandableArrayBuffer(INITIAL_BUFFER_CAPACITY);
+            }
+        }
+
+        void add(final Message message, final int attempted) {
+            if (size == buffers.length) {
+                //drop oldest
+                removeHead();
+            }
+            final int slot = (head + size) % buffers.length;
+            copy(message, slot, attempted);
+            size++;
+        }
+
+        /**
+         * Replaces the first stale pending append request with the given request and removes other stale ones.
+         *
+         * @return true if a stale request has been replaced, false otherwise
+         */
+        boolean replaceStale(final AppendRequest appendRequest, final int attempted) {
+            boolean replaced = false;
+            int i = 0;
+            while (i < size) {
+                final int slot = (head + i) % buffers.length;
+                final Message pending = wrap(buffers[slot]);
+                final boolean stale = pending.type() == MessageType.APPEND_REQUEST
+                        && isStale((AppendRequest)pending, appendRequest);
+                pending.unwrap();
+                if (stale && !replaced) {
+                    copy(appendRequest, slot, attempted);
+                    replaced = true;
+                } else if (stale) {
+                    remove(i);
+                    continue;
+                }
+                i++;
+            }
+            return replaced;
+        }
+
+        private boolean isStale(final AppendRequest pending, final AppendRequest newer) {
+            return !pending.logEntries().iterator().hasNext()
+                    || pending.prevLogKey().index() == newer.prevLogKey().index();
+        }
+
+        int resend() {
+            int count = 0;
+            while (size > 0) {
+                final Message message = wrap(buffers[head]);
+                final long result = sender.offer(message);
+                message.unwrap();
+                if (result >= 0) {
+                    removeHead();
+                    count++;
+                } else if (isPermanent(result) || ++attempts[head] >= maxAttempts) {
+                    removeHead();
+                } else {
+                    //preserve order, try again in next duty cycle
+                    break;
+                }
+            }
+            return count;
+        }
+
+        private void copy(final Message message, final int slot, final int attempted) {
+            buffers[slot].putBytes(0, message.readBufferOrNull(), message.offset(), message.byteLength());
+            attempts[slot] = attempted;
+        }
+
+        private void remove(final int index) {
+            //shift buffer references of subsequent messages, the removed buffer is reused as last slot
+            final int removedSlot = (head + index) % buffers.length;
+            final MutableDirectBuffer removed = buffers[removedSlot];
+            int slot = removedSlot;
+            for (int i = index + 1; i < size; i++) {
+                final int next = (head + i) % buffers.length;
+                buffers[slot] = buffers[next];
+                attempts[slot] = attempts[next];
+                slot = next;
+            }
+            buffers[slot] = removed;
+            size--;
+        }
+
+        private void removeHead() {
+            head = (head + 1) % buffers.length;
+            size--;
+        }
+    }
+}
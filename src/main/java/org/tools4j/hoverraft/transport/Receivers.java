@@ -23,6 +23,7 @@
  */
 package org.tools4j.hoverraft.transport;
 
+import org.agrona.concurrent.status.AtomicCounter;
 import org.tools4j.hoverraft.direct.DirectPayload;
 import org.tools4j.hoverraft.message.Message;
 
@@ -51,4 +52,62 @@ public final class Receivers {
         };
     }
 
+    /**
+     * Returns a receiver polling the given receivers in turns, one message per receiver and turn, until the poll
+     * limit is reached or none of the receivers has a message available. Unlike {@link #roundRobinReceiver(Receiver[])}
+     * a single busy receiver cannot starve the others.
+     *
+     * @param receivers the receivers to poll
+     * @param <M> the message type
+     * @return a receiver interleaving messages from all receivers
+     */
+    @SafeVarargs
+    public static <M extends DirectPayload> Receiver<M> fairRoundRobinReceiver(final Receiver<? extends M>... receivers) {
+        return new Receiver<M>() {
+            private int index = -1;
+
+            @Override
+            public int poll(final Consumer<? super M> messageHandler, final int limit) {
+                final Receiver<? extends M>[] r = receivers;
+                final int len = r.length;
+                int cnt = 0;
+                int emptyPolls = 0;
+                while (cnt < limit && emptyPolls < len) {
+                    index++;
+                    if (index >= len) {
+                        index -= len;
+                    }
+                    if (r[index].poll(messageHandler, 1) > 0) {
+                        cnt++;
+                        emptyPolls = 0;
+                    } else {
+                        emptyPolls++;
+                    }
+                }
+                return cnt;
+            }
+        };
+    }
+
+    /**
+     * Returns a receiver delegating to the given receiver and adding the number of polled messages to the given
+     * counter. The counter is updated with ordered writes and must only be updated by the thread polling the
+     * returned receiver.
+     *
+     * @param receiver  the receiver to delegate to
+     * @param counter   the counter incremented by the number of polled messages
+     * @param <M> the message type
+     * @return a receiver counting polled messages
+     */
+    public static <M extends DirectPayload> Receiver<M> countingReceiver(final Receiver<M> receiver,
+                                                                         final AtomicCounter counter) {
+        return (messageHandler, limit) -> {
+            final int cnt = receiver.poll(messageHandler, limit);
+            if (cnt > 0) {
+                counter.setOrdered(counter.get() + cnt);
+            }
+            return cnt;
+        };
+    }
+
 }
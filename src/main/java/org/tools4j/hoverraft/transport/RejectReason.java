@@ -27,7 +27,8 @@ import io.aeron.Publication;
 import org.tools4j.hoverraft.direct.DirectPayload;
 
 /**
- * Reject reasons that may be returned by {@link Sender#offer(DirectPayload)}.
+ * Reject reasons that may be returned by {@link Sender#offer(DirectPayload)} and
+ * {@link Sender#tryClaim(int, DirectPayload)}.
  */
 public interface RejectReason {
     /**
@@ -49,4 +50,23 @@ public interface RejectReason {
      * The transport has been closed and should no longer be used.
      */
     long CLOSED = Publication.CLOSED;
+
+    /**
+     * Returned by {@link Sender#tryClaim(int, DirectPayload)} if the transport does not support claims of the
+     * requested length; the message should be encoded in its own buffer and offered instead.
+     */
+    long CLAIM_NOT_SUPPORTED = -100;
+
+    /**
+     * Passed to {@link ResendStrategy#onRejectedOffer(Sender, org.tools4j.hoverraft.message.Message, long)} for a
+     * message that has not been offered because earlier messages to the same sender are still deferred; the message
+     * has to be queued behind them to preserve the message order.
+     */
+    long DEFERRED = -101;
+
+    /**
+     * The message is longer than the maximum message length supported by the transport; it will never be accepted
+     * and should not be offered again.
+     */
+    long MESSAGE_TOO_LONG = -102;
 }
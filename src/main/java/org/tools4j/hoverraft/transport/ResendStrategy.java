@@ -25,9 +25,37 @@ package org.tools4j.hoverraft.transport;
 
 import org.tools4j.hoverraft.message.Message;
 
+/**
+ * Strategy invoked when the offer of a message to a sender has been rejected. The message flyweight is only valid
+ * for the duration of the invocation; strategies resending messages later have to copy them.
+ */
 public interface ResendStrategy {
     <M extends Message> void onRejectedOffer(Sender<? super M> sender, M message, long rejectReason);
 
+    /**
+     * Offers messages again that have been deferred by previous invocations of
+     * {@link #onRejectedOffer(Sender, Message, long)}; invoked once per duty cycle by the thread sending messages.
+     * The default implementation does nothing and returns zero.
+     *
+     * @return the number of messages that have been resent
+     */
+    default int resendDeferred() {
+        return 0;
+    }
+
+    /**
+     * Returns true if messages to the given sender have been deferred and not yet been resent. New messages to this
+     * sender must then not be offered or claimed directly but be passed to
+     * {@link #onRejectedOffer(Sender, Message, long)} with {@link RejectReason#DEFERRED}, otherwise they would
+     * overtake the deferred messages. The default implementation returns false.
+     *
+     * @param sender the sender
+     * @return true if messages to sender are pending
+     */
+    default boolean hasDeferred(final Sender<?> sender) {
+        return false;
+    }
+
     ResendStrategy NOOP = new ResendStrategy() {
         @Override
         public <M extends Message> void onRejectedOffer(Sender<? super M> sender, M message, long rejectReason) {
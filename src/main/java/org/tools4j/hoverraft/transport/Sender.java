@@ -38,4 +38,44 @@ public interface Sender<M extends DirectPayload> {
      * {@link RejectReason#ADMIN_ACTION} or {@link RejectReason#CLOSED}.
      */
     long offer(M message);
+
+    /**
+     * Claims a region of the given length in the transport and wraps the message flyweight around it, so that the
+     * message can be encoded in place instead of being copied by {@link #offer(DirectPayload)}. A successful claim
+     * must be completed through {@link #commit(DirectPayload)} or {@link #abort(DirectPayload)} once the message has
+     * been encoded with exactly the claimed length; only one claim can be outstanding at a time. If the claim fails,
+     * the message is left untouched and can be encoded in its own buffer and offered instead.
+     * <p>
+     * The default implementation returns {@link RejectReason#CLAIM_NOT_SUPPORTED}.
+     *
+     * @param byteLength the byte length of the message to encode
+     * @param message the message flyweight to wrap around the claimed region
+     * @return Non-negative transport state such as position if the region was claimed, otherwise a negative error
+     * value as returned by {@link #offer(DirectPayload)} or {@link RejectReason#CLAIM_NOT_SUPPORTED}.
+     */
+    default long tryClaim(final int byteLength, final M message) {
+        return RejectReason.CLAIM_NOT_SUPPORTED;
+    }
+
+    /**
+     * Commits the message encoded in the region claimed through {@link #tryClaim(int, DirectPayload)} and unwraps
+     * the message flyweight.
+     *
+     * @param message the message wrapped around the claimed region
+     * @throws IllegalStateException if the message is not wrapped around a claimed region or if it does not have the
+     *                               claimed length, in which case the claim is aborted
+     */
+    default void commit(final M message) {
+        throw new IllegalStateException("No claim to commit");
+    }
+
+    /**
+     * Aborts the claim made through {@link #tryClaim(int, DirectPayload)} and unwraps the message flyweight.
+     *
+     * @param message the message wrapped around the claimed region
+     * @throws IllegalStateException if the message is not wrapped around a claimed region
+     */
+    default void abort(final M message) {
+        throw new IllegalStateException("No claim to abort");
+    }
 }
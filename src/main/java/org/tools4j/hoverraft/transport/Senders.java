@@ -0,0 +1,77 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport;
+
+import org.tools4j.hoverraft.direct.DirectPayload;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+public final class Senders {
+
+    /**
+     * Returns a sender offering every message to all given senders, for instance to broadcast messages to all
+     * peers of a server through point-to-point senders if no multicast transport is available. The returned result
+     * is the first negative result of the given senders, or zero if all offers succeeded. Note that a rejected
+     * message may have been sent to some of the senders and a resend will reach those senders again.
+     *
+     * @param senders the senders to offer messages to
+     * @param <M> the message type
+     * @return a sender offering messages to all senders
+     */
+    @SafeVarargs
+    public static <M extends DirectPayload> Sender<M> multicastSender(final Sender<? super M>... senders) {
+        final List<Sender<? super M>> list = new ArrayList<>(senders.length);
+        for (final Sender<? super M> sender : senders) {
+            list.add(sender);
+        }
+        return multicastSender(list);
+    }
+
+    /**
+     * Returns a sender offering every message to all given senders, see {@link #multicastSender(Sender[])}.
+     *
+     * @param senders the senders to offer messages to, copied by this method
+     * @param <M> the message type
+     * @return a sender offering messages to all senders
+     */
+    public static <M extends DirectPayload> Sender<M> multicastSender(final Collection<? extends Sender<? super M>> senders) {
+        final List<Sender<? super M>> list = new ArrayList<>(senders.size());
+        for (final Sender<? super M> sender : senders) {
+            list.add(Objects.requireNonNull(sender));
+        }
+        return message -> {
+            long result = 0;
+            for (int i = 0; i < list.size(); i++) {
+                final long res = list.get(i).offer(message);
+                if (res < 0 && result == 0) {
+                    result = res;
+                }
+            }
+            return result;
+        };
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport;
+
+import org.tools4j.hoverraft.message.Message;
+
+/**
+ * Resend strategy offering a rejected message again immediately, up to a maximum number of attempts including the
+ * rejected offer. Only transient rejections due to back pressure or an admin action are retried; messages are
+ * dropped if the sender is not connected or closed, or if the last attempt fails.
+ */
+public final class SpinRetryResendStrategy implements ResendStrategy {
+
+    private final int maxAttempts;
+
+    public SpinRetryResendStrategy(final int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public <M extends Message> void onRejectedOffer(final Sender<? super M> sender, final M message,
+                                                    final long rejectReason) {
+        long result = rejectReason;
+        for (int attempt = 1; attempt < maxAttempts && isTransient(result); attempt++) {
+            result = sender.offer(message);
+        }
+    }
+
+    private static boolean isTransient(final long result) {
+        return result == RejectReason.BACK_PRESSURED || result == RejectReason.ADMIN_ACTION;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport.aeron;
+
+import io.aeron.Aeron;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.config.ServerConfig;
+import org.tools4j.hoverraft.config.SourceConfig;
+import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.transport.Connections;
+import org.tools4j.hoverraft.transport.DefaultConnections;
+import org.tools4j.hoverraft.transport.Receiver;
+import org.tools4j.hoverraft.transport.Receivers;
+import org.tools4j.hoverraft.transport.Sender;
+
+import java.util.Objects;
+
+/**
+ * Creates Aeron connections for a server from the channels in the consensus config. Each server receives on its
+ * {@link ServerConfig#channel() channel} with one stream per peer, the stream ID being the ID of the sending peer.
+ * Point-to-point messages to a peer are therefore published on the peer's channel with the own server ID as stream
+ * ID, and every peer has its own subscription so that servers never receive messages addressed to other servers.
+ * <p>
+ * Broadcasts are published on the {@link ConsensusConfig#ipcMulticastChannel() multicast channel} with the own
+ * server ID as stream ID if one is configured, and are offered to every point-to-point sender otherwise. Commands
+ * are received from each {@link SourceConfig#channel() source channel} with the source ID as stream ID.
+ */
+public final class AeronConnections {
+
+    public static Connections<Message> create(final Aeron aeron,
+                                              final int serverId,
+                                              final ConsensusConfig consensusConfig) {
+        Objects.requireNonNull(aeron);
+        final ServerConfig serverConfig = Objects.requireNonNull(consensusConfig.serverConfigByIdOrNull(serverId),
+                "No server config found for ID " + serverId);
+        final String multicastChannel = consensusConfig.ipcMulticastChannel().orElse(null);
+        final Int2ObjectHashMap<Receiver<Command>> sourceReceivers = new Int2ObjectHashMap<>();
+        final Int2ObjectHashMap<Receiver<Message>> serverReceivers = new Int2ObjectHashMap<>();
+        final Int2ObjectHashMap<Sender<Message>> serverSenders = new Int2ObjectHashMap<>();
+        for (int i = 0; i < consensusConfig.sourceCount(); i++) {
+            final SourceConfig sourceConfig = consensusConfig.sourceConfig(i);
+            sourceReceivers.put(sourceConfig.id(), AeronReceiver.commandReceiver(aeron.addSubscription(
+                    sourceConfig.channel(), sourceConfig.id())));
+        }
+        for (int i = 0; i < consensusConfig.serverCount(); i++) {
+            final ServerConfig peerConfig = consensusConfig.serverConfig(i);
+            final int peerId = peerConfig.id();
+            if (peerId == serverId) {
+                continue;
+            }
+            serverSenders.put(peerId, new AeronSender(aeron.addPublication(peerConfig.channel(), serverId)));
+            final Receiver<Message> receiver = AeronReceiver.messageReceiver(aeron.addSubscription(
+                    serverConfig.channel(), peerId));
+            if (multicastChannel == null) {
+                serverReceivers.put(peerId, receiver);
+            } else {
+                serverReceivers.put(peerId, Receivers.fairRoundRobinReceiver(receiver,
+                        AeronReceiver.messageReceiver(aeron.addSubscription(multicastChannel, peerId))));
+            }
+        }
+        if (multicastChannel == null) {
+            return new DefaultConnections<>(sourceReceivers, serverReceivers, serverSenders);
+        }
+        return new DefaultConnections<>(sourceReceivers, serverReceivers, serverSenders,
+                new AeronSender(aeron.addPublication(multicastChannel, serverId)));
+    }
+}
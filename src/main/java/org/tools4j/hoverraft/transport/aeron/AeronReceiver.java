@@ -23,15 +23,16 @@
  */
 package org.tools4j.hoverraft.transport.aeron;
 
+import io.aeron.FragmentAssembler;
 import io.aeron.Subscription;
 import io.aeron.logbuffer.FragmentHandler;
 import io.aeron.logbuffer.Header;
 import org.agrona.DirectBuffer;
 import org.tools4j.hoverraft.command.Command;
-import org.tools4j.hoverraft.direct.DirectFactory;
 import org.tools4j.hoverraft.direct.DirectPayload;
+import org.tools4j.hoverraft.direct.RecyclingDirectFactory;
 import org.tools4j.hoverraft.message.Message;
-import org.tools4j.hoverraft.message.MessageType;
+import org.tools4j.hoverraft.message.MessageFlyweights;
 import org.tools4j.hoverraft.transport.Receiver;
 
 import java.util.Objects;
@@ -41,65 +42,84 @@ public class AeronReceiver<M extends DirectPayload> implements Receiver<M> {
 
     private final Subscription subscription;
     private final AeronHandler<M> aeronHandler;
+    private final FragmentAssembler fragmentAssembler;
 
     private AeronReceiver(final Subscription subscription,
                           final AeronHandler<M> aeronHandler) {
         this.subscription = Objects.requireNonNull(subscription);
         this.aeronHandler= Objects.requireNonNull(aeronHandler);
+        //messages larger than the MTU such as append requests with many entries arrive in several fragments
+        this.fragmentAssembler = new FragmentAssembler(aeronHandler);
     }
 
-    public static AeronReceiver<Command> commandReceiver(final DirectFactory directFactory,
-                                                         final Subscription subscription) {
+    public static AeronReceiver<Command> commandReceiver(final Subscription subscription) {
+        final Command command = new RecyclingDirectFactory().command();
         return new AeronReceiver<>(subscription, new AeronHandler<Command>() {
             @Override
-            protected Command message(DirectBuffer buffer, int offset, int length) {
-                return directFactory.command();
+            protected Command wrap(final DirectBuffer buffer, final int offset) {
+                command.wrap(buffer, offset);
+                return command;
             }
         });
     }
 
-    public static AeronReceiver<Message> messageReceiver(final DirectFactory directFactory,
-                                                         final Subscription subscription) {
+    public static AeronReceiver<Message> messageReceiver(final Subscription subscription) {
+        final MessageFlyweights flyweights = new MessageFlyweights();
         return new AeronReceiver<>(subscription, new AeronHandler<Message>() {
             @Override
-            protected Message message(DirectBuffer buffer, int offset, int length) {
-                final MessageType messageType = MessageType.readFrom(buffer, offset);
-                return messageType.create(directFactory);
+            protected Message wrap(final DirectBuffer buffer, final int offset) {
+                return flyweights.wrap(buffer, offset);
             }
         });
     }
 
     @Override
     public int poll(final Consumer<? super M> messageMandler, final int limit) {
-        for (int i = 0; i < limit; i++) {
-            if (0 < subscription.poll(aeronHandler, 1)) {
-                messageMandler.accept(aeronHandler.message);
-                aeronHandler.reset();
-            } else {
-                return i;
+        aeronHandler.start(messageMandler);
+        try {
+            while (aeronHandler.count < limit) {
+                if (0 == subscription.poll(fragmentAssembler, 1)) {
+                    break;
+                }
             }
+            return aeronHandler.count;
+        } finally {
+            aeronHandler.stop();
         }
-        return limit;
     }
 
+    /**
+     * Passes messages to the message handler from within the fragment callback: once the subscriber position has
+     * moved past a fragment, its bytes may be cleaned or overwritten in the log buffer at any time.
+     */
     private static abstract class AeronHandler<M extends DirectPayload> implements FragmentHandler {
-        private M message = null;
+        private Consumer<? super M> messageHandler;
+        private int count;
 
-        @Override
-        public void onFragment(final DirectBuffer buffer, final int offset, final int length, final Header header) {
-            final MessageType messageType = MessageType.readFrom(buffer, offset);
-            message = message(buffer, offset, length);
-            message.wrap(buffer, offset);
+        void start(final Consumer<? super M> messageHandler) {
+            this.messageHandler = Objects.requireNonNull(messageHandler);
+            this.count = 0;
+        }
+
+        void stop() {
+            this.messageHandler = null;
         }
 
-        public void reset() {
-            if (message != null) {
+        @Override
+        public void onFragment(final DirectBuffer buffer, final int offset, final int length, final Header header) {
+            final M message = wrap(buffer, offset);
+            try {
+                messageHandler.accept(message);
+            } finally {
                 message.unwrap();
-                message = null;
             }
+            count++;
         }
 
-        abstract protected M message(final DirectBuffer buffer, final int offset, final int length);
+        /**
+         * Wraps the receiver's flyweight read-only around the message at offset.
+         */
+        abstract protected M wrap(DirectBuffer buffer, int offset);
     }
 
 }
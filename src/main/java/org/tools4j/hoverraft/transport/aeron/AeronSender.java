@@ -24,15 +24,24 @@
 package org.tools4j.hoverraft.transport.aeron;
 
 import io.aeron.Publication;
+import io.aeron.logbuffer.BufferClaim;
 import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.transport.RejectReason;
 import org.tools4j.hoverraft.transport.Sender;
 
 import java.util.Objects;
 
+/**
+ * Sender offering messages to an Aeron publication. Messages up to the publication's max payload length can also
+ * be encoded in place in the publication's term buffer through {@link #tryClaim(int, Message)}; longer messages
+ * span several fragments and have to be offered. Not thread safe, messages must be sent by a single thread.
+ */
 //FIXMe can AbstractDirectMessage repace Message?
 public class AeronSender implements Sender<Message> {
 
     private final Publication publication;
+    private final BufferClaim bufferClaim = new BufferClaim();
+    private Message claimedOrNull;
 
     public AeronSender(final Publication publication) {
         this.publication = Objects.requireNonNull(publication);
@@ -42,4 +51,50 @@ public class AeronSender implements Sender<Message> {
     public long offer(final Message message) {
         return publication.offer(message.readBufferOrNull(), message.offset(), message.byteLength());
     }
+
+    @Override
+    public long tryClaim(final int byteLength, final Message message) {
+        if (claimedOrNull != null) {
+            throw new IllegalStateException("Claim for " + claimedOrNull.type() + " has not been committed or aborted");
+        }
+        if (byteLength > publication.maxPayloadLength()) {
+            return RejectReason.CLAIM_NOT_SUPPORTED;
+        }
+        final long result = publication.tryClaim(byteLength, bufferClaim);
+        if (result >= 0) {
+            message.wrap(bufferClaim.buffer(), bufferClaim.offset());
+            claimedOrNull = message;
+        }
+        return result;
+    }
+
+    @Override
+    public void commit(final Message message) {
+        checkClaimed(message);
+        if (message.byteLength() != bufferClaim.length()) {
+            abort(message);
+            throw new IllegalStateException("Message byte length " + message.byteLength()
+                    + " does not match claimed length " + bufferClaim.length());
+        }
+        bufferClaim.commit();
+        unwrap(message);
+    }
+
+    @Override
+    public void abort(final Message message) {
+        checkClaimed(message);
+        bufferClaim.abort();
+        unwrap(message);
+    }
+
+    private void checkClaimed(final Message message) {
+        if (claimedOrNull == null || claimedOrNull != message) {
+            throw new IllegalStateException("Message is not wrapped around a claimed region: " + message.type());
+        }
+    }
+
+    private void unwrap(final Message message) {
+        message.unwrap();
+        claimedOrNull = null;
+    }
 }
@@ -111,16 +111,6 @@ public final class ChronicleCommandLog implements CommandLog {
         target.sourceId(sourceId).commandIndex(commandIndex);
     }
 
-    @Override
-    public int lastTerm() {
-        return readTerm(appender.index());
-    }
-
-    @Override
-    public void lastKeyTo(final LogKey target) {
-        readTo(appender.index(), target);
-    }
-
     @Override
     public void readTo(final long index, final LogEntry target) {
         final MutableDirectBuffer mutableDirectBuffer = Objects.requireNonNull(target.writeBufferOrNull(), "target write buffer must be initialised");
@@ -139,6 +129,18 @@ public final class ChronicleCommandLog implements CommandLog {
                 .commandIndex(commandIndex);
     }
 
+    /**
+     * Chronicle excerpts cannot be wrapped directly, hence the entry is staged in a buffer owned by this log and
+     * the flyweight is wrapped around that buffer; it remains valid until the next call to this method. The staging
+     * buffer is shared, hence this log does not {@link #supportsConcurrentReads() support concurrent reads}.
+     */
+    @Override
+    public void wrap(final long index, final LogEntry flyweight) {
+        flyweight.wrap(mutableDirectBuffer, 0);
+        readTo(index, flyweight);
+        flyweight.wrap((DirectBuffer)mutableDirectBuffer, 0);
+    }
+
     @Override
     public void append(final int term, final Command command) {
         final DirectBuffer buffer = Objects.requireNonNull(command.readBufferOrNull());
@@ -24,55 +24,56 @@
 package org.tools4j.hoverraft.transport.chronicle;
 
 import net.openhft.chronicle.ExcerptTailer;
-import org.agrona.MutableDirectBuffer;
-import org.tools4j.hoverraft.direct.DirectFactory;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 import org.tools4j.hoverraft.message.Message;
-import org.tools4j.hoverraft.message.MessageType;
+import org.tools4j.hoverraft.message.MessageFlyweights;
 import org.tools4j.hoverraft.transport.Receiver;
 
 import java.util.Objects;
 import java.util.function.Consumer;
 
+import static org.tools4j.hoverraft.transport.chronicle.ChronicleSender.LENGTH_OFFSET;
+import static org.tools4j.hoverraft.transport.chronicle.ChronicleSender.MESSAGE_OFFSET;
+
 /**
- * Subscription reading from a chronicle queue.
+ * Subscription reading from a chronicle queue written by {@link ChronicleSender}. Messages are not copied; a
+ * flyweight per message type is wrapped directly around the excerpt's native memory, valid only during the
+ * invocation of the message handler.
  */
 public class ChronicleReceiver implements Receiver<Message> {
 
-    private final DirectFactory directFactory;
-    private final MutableDirectBuffer mutableDirectBuffer;
     private final ExcerptTailer tailer;
+    private final UnsafeBuffer excerptBuffer = new UnsafeBuffer(0, 0);
+    private final MessageFlyweights flyweights = new MessageFlyweights();
 
-    public ChronicleReceiver(final DirectFactory directFactory, final MutableDirectBuffer mutableDirectBuffer, final ExcerptTailer tailer) {
-        this.directFactory = Objects.requireNonNull(directFactory);
-        this.mutableDirectBuffer = Objects.requireNonNull(mutableDirectBuffer);
+    public ChronicleReceiver(final ExcerptTailer tailer) {
         this.tailer = Objects.requireNonNull(tailer);
     }
 
     @Override
-    public int poll(final Consumer<? super Message> messageMandler, final int limit) {
+    public int poll(final Consumer<? super Message> messageHandler, final int limit) {
         int messagesRead = 0;
         while (messagesRead < limit && tailer.nextIndex()) {
-            final int len = tailer.readInt();
-            for (int i = 0; i < len; ) {
-                if (i + 8 <= len) {
-                    mutableDirectBuffer.putLong(i, tailer.readLong());
-                    i += 8;
-                } else {
-                    mutableDirectBuffer.putByte(i, tailer.readByte());
-                    i++;
-                }
+            try {
+                final int len = tailer.readInt(LENGTH_OFFSET);
+                excerptBuffer.wrap(tailer.address() + MESSAGE_OFFSET, len);
+                consume(messageHandler);
+            } finally {
+                tailer.finish();
             }
-            consume(messageMandler);
             messagesRead++;
         }
         return messagesRead;
     }
 
-    private void consume(final Consumer<? super Message> messageMandler) {
-        final MessageType messageType = MessageType.readFrom(mutableDirectBuffer, 0);
-        final Message message = messageType.create(directFactory);
-        message.wrap(mutableDirectBuffer, 0);
-        messageMandler.accept(message);
-        message.unwrap();
+    private void consume(final Consumer<? super Message> messageHandler) {
+        //wrap read-only, wrapping a mutable buffer initialises the message
+        final Message message = flyweights.wrap((DirectBuffer)excerptBuffer, 0);
+        try {
+            messageHandler.accept(message);
+        } finally {
+            message.unwrap();
+        }
     }
 }
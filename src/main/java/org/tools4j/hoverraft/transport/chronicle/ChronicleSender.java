@@ -25,17 +25,23 @@ package org.tools4j.hoverraft.transport.chronicle;
 
 import net.openhft.chronicle.ExcerptAppender;
 import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 import org.tools4j.hoverraft.message.Message;
 import org.tools4j.hoverraft.transport.Sender;
 
 import java.util.Objects;
 
 /**
- * Publication writing to a chronicle queue.
+ * Publication writing to a chronicle queue. Each excerpt contains the message length followed by the message bytes,
+ * copied in bulk into the excerpt's native memory.
  */
 public class ChronicleSender implements Sender<Message> {
 
+    static final int LENGTH_OFFSET = 0;
+    static final int MESSAGE_OFFSET = LENGTH_OFFSET + 4;
+
     private final ExcerptAppender appender;
+    private final UnsafeBuffer excerptBuffer = new UnsafeBuffer(0, 0);
 
     public ChronicleSender(final ExcerptAppender appender) {
         this.appender = Objects.requireNonNull(appender);
@@ -45,20 +51,13 @@ public class ChronicleSender implements Sender<Message> {
     public long offer(final Message message) {
         final DirectBuffer buffer = Objects.requireNonNull(message.readBufferOrNull());
         final int len = message.byteLength();
-        appender.startExcerpt(len + 4);
-        appender.writeInt(len);
-        final int end = len + 4;
-        int index = 4;
-        while (index < end) {
-            if (index + 8 <= len) {
-                appender.writeLong(buffer.getLong(index));
-                index += 8;
-            } else {
-                appender.writeByte(buffer.getByte(index));
-                index++;
-            }
-        }
+        final int excerptLength = MESSAGE_OFFSET + len;
+        appender.startExcerpt(excerptLength);
+        excerptBuffer.wrap(appender.address(), excerptLength);
+        excerptBuffer.putInt(LENGTH_OFFSET, len);
+        excerptBuffer.putBytes(MESSAGE_OFFSET, buffer, message.offset(), len);
+        appender.position(excerptLength);
         appender.finish();
-        return appender.position();
+        return appender.lastWrittenIndex();
     }
 }
@@ -0,0 +1,187 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport.embedded;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.direct.DirectPayload;
+import org.tools4j.hoverraft.direct.RecyclingDirectFactory;
+import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.message.MessageFlyweights;
+import org.tools4j.hoverraft.transport.RejectReason;
+import org.tools4j.hoverraft.transport.Receiver;
+import org.tools4j.hoverraft.transport.Sender;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * In-process message bus based on an Agrona ring buffer. Message bytes are copied into the ring buffer when offered,
+ * hence senders can reuse their flyweights immediately. The receiver wraps a flyweight around the message in place,
+ * valid only during the invocation of the message handler.
+ * <p>
+ * Offers are thread safe for a single producer thread if the bus was created through one of the one-to-one factory
+ * methods, and for multiple producer threads if created through one of the many-to-one factory methods. Messages
+ * must be polled by a single consumer thread. Neither offers nor polls allocate.
+ */
+public abstract class RingBufferMessageBus<M extends DirectPayload> implements Sender<M>, Receiver<M> {
+
+    private static final int MSG_TYPE_ID = 1;
+
+    private final RingBuffer ringBuffer;
+    private final MessageHandler ringBufferHandler = this::onRingBufferMessage;
+    private Consumer<? super M> messageHandler;
+
+    private RingBufferMessageBus(final RingBuffer ringBuffer) {
+        this.ringBuffer = Objects.requireNonNull(ringBuffer);
+    }
+
+    /**
+     * Returns a message bus for server messages offered by a single producer thread.
+     *
+     * @param capacity the capacity in bytes, a power of two
+     * @return a single producer, single consumer message bus
+     */
+    public static RingBufferMessageBus<Message> oneToOneMessageBus(final int capacity) {
+        return new MessageBus(new OneToOneRingBuffer(ringBufferBuffer(capacity)));
+    }
+
+    /**
+     * Returns a message bus for server messages offered by multiple producer threads.
+     *
+     * @param capacity the capacity in bytes, a power of two
+     * @return a multi producer, single consumer message bus
+     */
+    public static RingBufferMessageBus<Message> manyToOneMessageBus(final int capacity) {
+        return new MessageBus(new ManyToOneRingBuffer(ringBufferBuffer(capacity)));
+    }
+
+    /**
+     * Returns a message bus for commands offered by a single producer thread.
+     *
+     * @param capacity the capacity in bytes, a power of two
+     * @return a single producer, single consumer command bus
+     */
+    public static RingBufferMessageBus<Command> oneToOneCommandBus(final int capacity) {
+        return new CommandBus(new OneToOneRingBuffer(ringBufferBuffer(capacity)));
+    }
+
+    /**
+     * Returns a message bus for commands offered by multiple producer threads.
+     *
+     * @param capacity the capacity in bytes, a power of two
+     * @return a multi producer, single consumer command bus
+     */
+    public static RingBufferMessageBus<Command> manyToOneCommandBus(final int capacity) {
+        return new CommandBus(new ManyToOneRingBuffer(ringBufferBuffer(capacity)));
+    }
+
+    private static UnsafeBuffer ringBufferBuffer(final int capacity) {
+        return new UnsafeBuffer(ByteBuffer.allocateDirect(capacity + RingBufferDescriptor.TRAILER_LENGTH));
+    }
+
+    /**
+     * @return the maximum byte length of a message that can be offered to this bus
+     */
+    public int maxMessageLength() {
+        return ringBuffer.maxMsgLength();
+    }
+
+    /**
+     * Copies the message into the ring buffer.
+     *
+     * @param message the message to send
+     * @return zero if the message was copied into the ring buffer, {@link RejectReason#BACK_PRESSURED} if the
+     *          ring buffer is full, and {@link RejectReason#MESSAGE_TOO_LONG} if the message is longer than
+     *          {@link #maxMessageLength()}
+     */
+    @Override
+    public long offer(final M message) {
+        if (message.byteLength() > ringBuffer.maxMsgLength()) {
+            return RejectReason.MESSAGE_TOO_LONG;
+        }
+        return ringBuffer.write(MSG_TYPE_ID, message.readBufferOrNull(), message.offset(), message.byteLength()) ?
+                0 : RejectReason.BACK_PRESSURED;
+    }
+
+    @Override
+    public int poll(final Consumer<? super M> messageHandler, final int limit) {
+        this.messageHandler = Objects.requireNonNull(messageHandler);
+        try {
+            return ringBuffer.read(ringBufferHandler, limit);
+        } finally {
+            this.messageHandler = null;
+        }
+    }
+
+    /**
+     * Wraps the bus's flyweight read-only around the message at index.
+     */
+    abstract protected M wrap(DirectBuffer buffer, int index);
+
+    private void onRingBufferMessage(final int msgTypeId, final MutableDirectBuffer buffer, final int index, final int length) {
+        //wrap read-only, wrapping a mutable buffer initialises the message
+        final M message = wrap((DirectBuffer)buffer, index);
+        try {
+            messageHandler.accept(message);
+        } finally {
+            message.unwrap();
+        }
+    }
+
+    private static final class MessageBus extends RingBufferMessageBus<Message> {
+        private final MessageFlyweights flyweights = new MessageFlyweights();
+
+        MessageBus(final RingBuffer ringBuffer) {
+            super(ringBuffer);
+        }
+
+        @Override
+        protected Message wrap(final DirectBuffer buffer, final int index) {
+            return flyweights.wrap(buffer, index);
+        }
+    }
+
+    private static final class CommandBus extends RingBufferMessageBus<Command> {
+        private final Command command = new RecyclingDirectFactory().command();
+
+        CommandBus(final RingBuffer ringBuffer) {
+            super(ringBuffer);
+        }
+
+        @Override
+        protected Command wrap(final DirectBuffer buffer, final int index) {
+            command.wrap(buffer, index);
+            return command;
+        }
+    }
+}
@@ -29,8 +29,10 @@ import net.openhft.chronicle.VanillaChronicle;
 import org.agrona.ExpandableArrayBuffer;
 import org.tools4j.hoverraft.command.Command;
 import org.tools4j.hoverraft.command.CommandLog;
+import org.tools4j.hoverraft.command.mapped.MappedCommandLog;
 import org.tools4j.hoverraft.transport.chronicle.ChronicleCommandLog;
 
+import java.io.File;
 import java.io.IOException;
 
 /**
@@ -43,7 +45,7 @@ public class Files {
     public static final String SYS_PROP_FILE_DIR = "org.tools4j.hoverraft.FileDir";
 
     public static final String defaultFileDirectory() {
-        return System.getProperty("java.util.tmpdir");
+        return System.getProperty("java.io.tmpdir");
     }
 
     public static final String fileDirectory() {
@@ -60,4 +62,10 @@ public class Files {
         final Chronicle chronicle = ChronicleQueueBuilder.vanilla(path, child).build();
         return new ChronicleCommandLog((VanillaChronicle)chronicle, new ExpandableArrayBuffer(INITIAL_BUFFER_SIZE));
     }
+
+    public static final CommandLog mappedCommandLog(final int serverId, final String name) throws IOException {
+        final String path = Files.fileDirectory();
+        final String child = Files.fileName(serverId, name);
+        return new MappedCommandLog(new File(path), child);
+    }
 }
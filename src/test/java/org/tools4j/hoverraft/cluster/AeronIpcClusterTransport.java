@@ -0,0 +1,104 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.cluster;
+
+import io.aeron.Aeron;
+import io.aeron.Publication;
+import io.aeron.driver.MediaDriver;
+import io.aeron.driver.ThreadingMode;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.direct.PooledDirectFactory;
+import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.transport.Receiver;
+import org.tools4j.hoverraft.transport.Sender;
+import org.tools4j.hoverraft.transport.aeron.AeronReceiver;
+import org.tools4j.hoverraft.transport.aeron.AeronSender;
+
+import java.io.File;
+import java.util.Objects;
+
+/**
+ * Cluster transport using Aeron IPC publications and subscriptions of an embedded media driver, one stream per
+ * channel. Servers use a {@link PooledDirectFactory} for messages that are not encoded in place in claimed regions
+ * of the IPC log buffers.
+ */
+public final class AeronIpcClusterTransport implements ClusterTransport {
+
+    private static final String IPC_CHANNEL = "aeron:ipc";
+    private static final int TERM_BUFFER_LENGTH = 1 << 20;
+
+    private final ConsensusConfig consensusConfig;
+    private final MediaDriver mediaDriver;
+    private final Aeron aeron;
+    private final Int2ObjectHashMap<Publication> publications = new Int2ObjectHashMap<>();
+
+    public AeronIpcClusterTransport(final ConsensusConfig consensusConfig, final File aeronDirectory) {
+        this.consensusConfig = Objects.requireNonNull(consensusConfig);
+        this.mediaDriver = MediaDriver.launchEmbedded(new MediaDriver.Context()
+                .aeronDirectoryName(aeronDirectory.getAbsolutePath())
+                .threadingMode(ThreadingMode.SHARED)
+                .ipcTermBufferLength(TERM_BUFFER_LENGTH)
+                .dirsDeleteOnStart(true));
+        this.aeron = Aeron.connect(new Aeron.Context().aeronDirectoryName(mediaDriver.aeronDirectoryName()));
+    }
+
+    @Override
+    public DirectFactory directFactory() {
+        return new PooledDirectFactory(consensusConfig);
+    }
+
+    @Override
+    public Sender<Message> messageSender(final int channelId) {
+        return new AeronSender(publication(channelId));
+    }
+
+    @Override
+    public Receiver<Message> messageReceiver(final int channelId, final DirectFactory directFactory) {
+        return AeronReceiver.messageReceiver(aeron.addSubscription(IPC_CHANNEL, channelId));
+    }
+
+    @Override
+    public Sender<Command> commandSender(final int channelId) {
+        final Publication publication = publication(channelId);
+        return command -> publication.offer(command.readBufferOrNull(), command.offset(), command.byteLength());
+    }
+
+    @Override
+    public Receiver<Command> commandReceiver(final int channelId, final DirectFactory directFactory) {
+        return AeronReceiver.commandReceiver(aeron.addSubscription(IPC_CHANNEL, channelId));
+    }
+
+    private Publication publication(final int channelId) {
+        return publications.computeIfAbsent(channelId, id -> aeron.addPublication(IPC_CHANNEL, id));
+    }
+
+    @Override
+    public void close() {
+        aeron.close();
+        mediaDriver.close();
+    }
+}
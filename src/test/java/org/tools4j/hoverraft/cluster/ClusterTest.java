@@ -0,0 +1,96 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.cluster;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.metrics.LatencyStage;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(Parameterized.class)
+public class ClusterTest {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final int serverCount;
+    private final BiFunction<ConsensusConfig, File, ClusterTransport> transportFactory;
+
+    public ClusterTest(final String name,
+                       final int serverCount,
+                       final BiFunction<ConsensusConfig, File, ClusterTransport> transportFactory) {
+        this.serverCount = serverCount;
+        this.transportFactory = transportFactory;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> transports() {
+        final BiFunction<ConsensusConfig, File, ClusterTransport> inMemory = (c, f) -> new InMemoryClusterTransport(c);
+        final BiFunction<ConsensusConfig, File, ClusterTransport> aeronIpc = AeronIpcClusterTransport::new;
+        return Arrays.asList(
+                new Object[] {"in-memory-3", 3, inMemory},
+                new Object[] {"in-memory-5", 5, inMemory},
+                new Object[] {"aeron-ipc-3", 3, aeronIpc},
+                new Object[] {"aeron-ipc-5", 5, aeronIpc}
+        );
+    }
+
+    @Test
+    public void should_elect_leader_and_apply_commands_on_all_servers() throws Exception {
+        //given
+        final ConsensusConfig consensusConfig = TestCluster.configBuilder(serverCount).build();
+        try (final TestCluster cluster = new TestCluster(consensusConfig,
+                transportFactory.apply(consensusConfig, new File(folder.getRoot(), "aeron")), folder.newFolder("data"))) {
+
+            //when
+            final int leader = cluster.awaitLeader(TIMEOUT_MILLIS);
+            for (int i = 0; i < 100; i++) {
+                cluster.sendCommand();
+                cluster.perform();
+            }
+            cluster.awaitApplied(100, TIMEOUT_MILLIS);
+
+            //then
+            assertThat(cluster.leaderIndexOrNegative()).isEqualTo(leader);
+            assertThat(cluster.server(leader).latencyTracker()
+                    .intervalHistogram(LatencyStage.END_TO_END, null).getTotalCount()).isEqualTo(100);
+            for (int i = 0; i < cluster.serverCount(); i++) {
+                assertThat(cluster.applied(i)).isEqualTo(100);
+                assertThat(cluster.appliedChecksum(i)).isEqualTo(cluster.appliedChecksum(leader));
+            }
+        }
+    }
+}
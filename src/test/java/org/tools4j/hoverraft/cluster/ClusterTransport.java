@@ -21,40 +21,33 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-package org.tools4j.hoverraft.transport.embedded;
+package org.tools4j.hoverraft.cluster;
 
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.direct.DirectFactory;
 import org.tools4j.hoverraft.message.Message;
 import org.tools4j.hoverraft.transport.Receiver;
 import org.tools4j.hoverraft.transport.Sender;
 
-import java.util.Deque;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.function.Consumer;
-
 /**
- * In-process message bus for simple messages.
+ * Transport connecting the members of a {@link TestCluster}. A channel is a one way connection identified by a
+ * channel ID; messages offered to the sender of a channel are received through the receiver of the same channel.
  */
-public class InMemoryMessageBus<M extends Message> implements Sender<M>,Receiver<M> {
+public interface ClusterTransport extends AutoCloseable {
 
-    private final Deque<M> queue = new ConcurrentLinkedDeque<M>();
+    /**
+     * @return a new direct factory for one server suitable for this transport
+     */
+    DirectFactory directFactory();
 
-    @Override
-    public long offer(final M message) {
-        return queue.offerLast(message) ? 1 : 0;
-    }
+    Sender<Message> messageSender(int channelId);
 
-    @Override
-    public int poll(final Consumer<? super M> messageMandler, final int limit) {
-        int cnt = 0;
-        while (cnt < limit) {
-            M msg = queue.pollFirst();
-            if (msg == null) {
-                return cnt;
-            }
-            messageMandler.accept(msg);
-            cnt++;
-        }
-        return cnt;
-    }
+    Receiver<Message> messageReceiver(int channelId, DirectFactory directFactory);
 
+    Sender<Command> commandSender(int channelId);
+
+    Receiver<Command> commandReceiver(int channelId, DirectFactory directFactory);
+
+    @Override
+    void close();
 }
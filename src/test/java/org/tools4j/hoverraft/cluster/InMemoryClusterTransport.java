@@ -0,0 +1,92 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.cluster;
+
+import org.agrona.collections.Int2ObjectHashMap;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.direct.PooledDirectFactory;
+import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.transport.Receiver;
+import org.tools4j.hoverraft.transport.Sender;
+import org.tools4j.hoverraft.transport.embedded.RingBufferMessageBus;
+
+import java.util.Objects;
+
+/**
+ * Cluster transport based on {@link RingBufferMessageBus}, one bus per channel. Messages are copied into the ring
+ * buffers when sent, hence servers use a {@link PooledDirectFactory}.
+ */
+public final class InMemoryClusterTransport implements ClusterTransport {
+
+    private static final int CAPACITY = 1 << 20;
+
+    private final ConsensusConfig consensusConfig;
+    private final Int2ObjectHashMap<RingBufferMessageBus<Message>> messageBuses = new Int2ObjectHashMap<>();
+    private final Int2ObjectHashMap<RingBufferMessageBus<Command>> commandBuses = new Int2ObjectHashMap<>();
+
+    public InMemoryClusterTransport(final ConsensusConfig consensusConfig) {
+        this.consensusConfig = Objects.requireNonNull(consensusConfig);
+    }
+
+    @Override
+    public DirectFactory directFactory() {
+        return new PooledDirectFactory(consensusConfig);
+    }
+
+    @Override
+    public Sender<Message> messageSender(final int channelId) {
+        return messageBus(channelId);
+    }
+
+    @Override
+    public Receiver<Message> messageReceiver(final int channelId, final DirectFactory directFactory) {
+        return messageBus(channelId);
+    }
+
+    @Override
+    public Sender<Command> commandSender(final int channelId) {
+        return commandBus(channelId);
+    }
+
+    @Override
+    public Receiver<Command> commandReceiver(final int channelId, final DirectFactory directFactory) {
+        return commandBus(channelId);
+    }
+
+    private RingBufferMessageBus<Message> messageBus(final int channelId) {
+        return messageBuses.computeIfAbsent(channelId, id -> RingBufferMessageBus.oneToOneMessageBus(CAPACITY));
+    }
+
+    private RingBufferMessageBus<Command> commandBus(final int channelId) {
+        return commandBuses.computeIfAbsent(channelId, id -> RingBufferMessageBus.oneToOneCommandBus(CAPACITY));
+    }
+
+    @Override
+    public void close() {
+        messageBuses.clear();
+        commandBuses.clear();
+    }
+}
@@ -0,0 +1,300 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.cluster;
+
+import org.agrona.collections.Int2ObjectHashMap;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.command.machine.StateMachine;
+import org.tools4j.hoverraft.config.ConfigBuilder;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.server.Server;
+import org.tools4j.hoverraft.state.DirectPersistentState;
+import org.tools4j.hoverraft.state.PersistentState;
+import org.tools4j.hoverraft.state.Role;
+import org.tools4j.hoverraft.state.VolatileState;
+import org.tools4j.hoverraft.transport.Connections;
+import org.tools4j.hoverraft.transport.DefaultConnections;
+import org.tools4j.hoverraft.transport.Receiver;
+import org.tools4j.hoverraft.transport.Sender;
+import org.tools4j.hoverraft.util.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Cluster of servers with IDs 1 to n driven by the calling thread through {@link #perform()}. Commands are sent by
+ * a single source with ID {@link #SOURCE_ID} to all servers; only the leader appends them to its log.
+ */
+public final class TestCluster implements AutoCloseable {
+
+    public static final int SOURCE_ID = 1;
+    public static final int PAYLOAD_LENGTH = 32;
+
+    private static final int MAX_SEND_ATTEMPTS = 1000;
+
+    private final ConsensusConfig consensusConfig;
+    private final ClusterTransport transport;
+    private final Server[] servers;
+    private final PersistentState[] persistentStates;
+    private final VolatileState[] volatileStates;
+    private final CountingStateMachine[] stateMachines;
+    private final Sender<Command>[] commandSenders;
+    private final Command command;
+    private final Runnable performOnRejectedOffer = this::perform;
+    private final Runnable yieldOnRejectedOffer = Thread::yield;
+    private long nextCommandIndex;
+
+    public TestCluster(final ConsensusConfig consensusConfig,
+                       final ClusterTransport transport,
+                       final File directory) throws IOException {
+        this.consensusConfig = Objects.requireNonNull(consensusConfig);
+        this.transport = Objects.requireNonNull(transport);
+        final int serverCount = consensusConfig.serverCount();
+        this.servers = new Server[serverCount];
+        this.persistentStates = new PersistentState[serverCount];
+        this.volatileStates = new VolatileState[serverCount];
+        this.stateMachines = new CountingStateMachine[serverCount];
+        this.commandSenders = (Sender<Command>[])new Sender<?>[serverCount];
+        final String fileDirectory = System.getProperty(Files.SYS_PROP_FILE_DIR);
+        System.setProperty(Files.SYS_PROP_FILE_DIR, directory.getAbsolutePath());
+        try {
+            for (int i = 0; i < serverCount; i++) {
+                final int serverId = consensusConfig.serverConfig(i).id();
+                final DirectFactory directFactory = transport.directFactory();
+                persistentStates[i] = new DirectPersistentState(consensusConfig.serverConfig(i), consensusConfig);
+                volatileStates[i] = new VolatileState(serverId, consensusConfig);
+                stateMachines[i] = new CountingStateMachine();
+                commandSenders[i] = transport.commandSender(commandChannel(serverId));
+                servers[i] = new Server(serverId, consensusConfig,
+                        persistentStates[i],
+                        volatileStates[i],
+                        stateMachines[i],
+                        connections(serverId, directFactory),
+                        directFactory,
+                        directory);
+            }
+        } finally {
+            if (fileDirectory == null) {
+                System.clearProperty(Files.SYS_PROP_FILE_DIR);
+            } else {
+                System.setProperty(Files.SYS_PROP_FILE_DIR, fileDirectory);
+            }
+        }
+        this.command = new AllocatingDirectFactory().command().sourceId(SOURCE_ID);
+        command.commandPayload().bytesFrom(new byte[PAYLOAD_LENGTH], 0, PAYLOAD_LENGTH);
+    }
+
+    public static ConfigBuilder configBuilder(final int serverCount) {
+        final ConfigBuilder configBuilder = new ConfigBuilder()
+                .minElectionTimeoutMillis(100)
+                .maxElectionTimeoutMillis(200)
+                .heartbeatMillis(20)
+                .maxAppendRequestByteLength(16 * 1024)
+                .addSource(SOURCE_ID, "source-" + SOURCE_ID);
+        for (int id = 1; id <= serverCount; id++) {
+            configBuilder.addServer(id, "server-" + id);
+        }
+        return configBuilder;
+    }
+
+    private static int messageChannel(final int senderId, final int receiverId) {
+        return 100 * senderId + receiverId;
+    }
+
+    private static int commandChannel(final int serverId) {
+        return 10000 + serverId;
+    }
+
+    private Connections<Message> connections(final int serverId, final DirectFactory directFactory) {
+        final Int2ObjectHashMap<Sender<Message>> senders = new Int2ObjectHashMap<>();
+        final Int2ObjectHashMap<Receiver<Message>> receivers = new Int2ObjectHashMap<>();
+        for (int i = 0; i < consensusConfig.serverCount(); i++) {
+            final int otherId = consensusConfig.serverConfig(i).id();
+            if (otherId != serverId) {
+                senders.put(otherId, transport.messageSender(messageChannel(serverId, otherId)));
+                receivers.put(otherId, transport.messageReceiver(messageChannel(otherId, serverId), directFactory));
+            }
+        }
+        final Int2ObjectHashMap<Receiver<Command>> sourceReceivers = new Int2ObjectHashMap<>();
+        sourceReceivers.put(SOURCE_ID, transport.commandReceiver(commandChannel(serverId), directFactory));
+        return new DefaultConnections<>(sourceReceivers, receivers, senders);
+    }
+
+    public int serverCount() {
+        return servers.length;
+    }
+
+    public Server server(final int index) {
+        return servers[index];
+    }
+
+    public PersistentState persistentState(final int index) {
+        return persistentStates[index];
+    }
+
+    public VolatileState volatileState(final int index) {
+        return volatileStates[index];
+    }
+
+    public long applied(final int index) {
+        return stateMachines[index].applied;
+    }
+
+    public long appliedChecksum(final int index) {
+        return stateMachines[index].checksum;
+    }
+
+    /**
+     * Performs one duty cycle of every server.
+     *
+     * @return the work count of all servers
+     */
+    public int perform() {
+        int workCount = 0;
+        for (final Server server : servers) {
+            workCount += server.perform();
+        }
+        return workCount;
+    }
+
+    /**
+     * Sends the next command to all servers.
+     *
+     * @return the command index of the sent command
+     */
+    public long sendCommand() {
+        return sendCommand(performOnRejectedOffer);
+    }
+
+    /**
+     * Sends the next command to all servers if the servers are run by other threads, for instance through a
+     * {@link org.tools4j.hoverraft.server.ServerProcess}. Must not be invoked concurrently.
+     *
+     * @return the command index of the sent command
+     */
+    public long offerCommand() {
+        return sendCommand(yieldOnRejectedOffer);
+    }
+
+    private long sendCommand(final Runnable onRejectedOffer) {
+        final long commandIndex = nextCommandIndex;
+        command.commandIndex(commandIndex);
+        for (final Sender<Command> commandSender : commandSenders) {
+            int attempts = 0;
+            //retry on back pressure or on transient failures such as a term rotation in Aeron
+            while (commandSender.offer(command) < 0) {
+                if (++attempts >= MAX_SEND_ATTEMPTS) {
+                    throw new IllegalStateException("Sending command " + commandIndex + " failed after "
+                            + attempts + " attempts");
+                }
+                onRejectedOffer.run();
+            }
+        }
+        nextCommandIndex++;
+        return commandIndex;
+    }
+
+    public int leaderIndexOrNegative() {
+        int leader = -1;
+        for (int i = 0; i < servers.length; i++) {
+            if (servers[i].role() == Role.LEADER) {
+                if (leader >= 0) {
+                    return -1;
+                }
+                leader = i;
+            }
+        }
+        return leader;
+    }
+
+    /**
+     * Performs duty cycles until exactly one server is leader.
+     *
+     * @param timeoutMillis the maximum time to wait
+     * @return the index of the leader
+     * @throws IllegalStateException if no leader has been elected within the given time
+     */
+    public int awaitLeader(final long timeoutMillis) {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        int leader;
+        while ((leader = leaderIndexOrNegative()) < 0) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("No leader elected after " + timeoutMillis + "ms");
+            }
+            perform();
+        }
+        return leader;
+    }
+
+    /**
+     * Performs duty cycles until all servers have applied at least the given number of commands.
+     *
+     * @param count         the number of commands that must be applied
+     * @param timeoutMillis the maximum time to wait
+     * @throws IllegalStateException if the commands have not been applied within the given time
+     */
+    public void awaitApplied(final long count, final long timeoutMillis) {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!isApplied(count)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Commands not applied after " + timeoutMillis + "ms");
+            }
+            perform();
+        }
+    }
+
+    private boolean isApplied(final long count) {
+        for (final CountingStateMachine stateMachine : stateMachines) {
+            if (stateMachine.applied < count) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        for (final Server server : servers) {
+            if (server != null) {
+                server.close();
+            }
+        }
+        transport.close();
+    }
+
+    private static final class CountingStateMachine implements StateMachine {
+        private long applied;
+        private long checksum;
+
+        @Override
+        public void onMessage(final Command message) {
+            applied++;
+            checksum = 31 * checksum + message.commandKey().commandIndex();
+        }
+    }
+}
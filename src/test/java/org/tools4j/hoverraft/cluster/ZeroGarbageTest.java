@@ -0,0 +1,129 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.cluster;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.octtech.bw.ByteWatcherSingleThread;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that the servers of a cluster connected through ring buffers or Aeron IPC and using pooled flyweights do
+ * not allocate in steady state. All servers are driven by the test thread whose allocations are measured through
+ * ByteWatcher; the Aeron media driver runs in its own thread.
+ */
+@RunWith(Parameterized.class)
+public class ZeroGarbageTest {
+
+    private static final long TIMEOUT_MILLIS = 30000;
+    private static final int BATCH_SIZE = 100;
+    private static final int WARMUP_COMMANDS = 50000;
+    private static final int MEASURED_COMMANDS = 20000;
+
+    /**
+     * Allocation threshold per command in bytes; non-zero to tolerate the fixed measuring cost of ByteWatcher and
+     * rare one-off allocations such as a pool growing once more after warm-up.
+     */
+    private static final double MAX_BYTES_PER_COMMAND = 1.0;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final int serverCount;
+    private final BiFunction<ConsensusConfig, File, ClusterTransport> transportFactory;
+    private TestCluster cluster;
+
+    public ZeroGarbageTest(final String name,
+                           final int serverCount,
+                           final BiFunction<ConsensusConfig, File, ClusterTransport> transportFactory) {
+        this.serverCount = serverCount;
+        this.transportFactory = transportFactory;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> transports() {
+        final BiFunction<ConsensusConfig, File, ClusterTransport> inMemory = (c, f) -> new InMemoryClusterTransport(c);
+        final BiFunction<ConsensusConfig, File, ClusterTransport> aeronIpc = AeronIpcClusterTransport::new;
+        return Arrays.asList(
+                new Object[] {"in-memory-3", 3, inMemory},
+                new Object[] {"in-memory-5", 5, inMemory},
+                new Object[] {"aeron-ipc-3", 3, aeronIpc},
+                new Object[] {"aeron-ipc-5", 5, aeronIpc}
+        );
+    }
+
+    @Before
+    public void init() throws Exception {
+        final ConsensusConfig consensusConfig = TestCluster.configBuilder(serverCount).build();
+        cluster = new TestCluster(consensusConfig,
+                transportFactory.apply(consensusConfig, new File(folder.getRoot(), "aeron")),
+                folder.newFolder("data"));
+    }
+
+    @After
+    public void close() {
+        cluster.close();
+    }
+
+    @Test
+    public void steady_state_replication_should_not_allocate() throws Exception {
+        //given
+        final ByteWatcherSingleThread byteWatcher = new ByteWatcherSingleThread();
+        cluster.awaitLeader(TIMEOUT_MILLIS);
+        sendAndApply(WARMUP_COMMANDS);
+
+        //when
+        byteWatcher.reset();
+        sendAndApply(MEASURED_COMMANDS);
+        final long allocatedBytes = byteWatcher.calculateAllocations();
+
+        //then
+        assertThat(allocatedBytes / (double)MEASURED_COMMANDS)
+                .as("Allocated bytes per command, total allocation %d bytes", allocatedBytes)
+                .isLessThanOrEqualTo(MAX_BYTES_PER_COMMAND);
+    }
+
+    private void sendAndApply(final int commands) {
+        long applied = cluster.applied(0);
+        for (int i = 0; i < commands; i += BATCH_SIZE) {
+            for (int j = 0; j < BATCH_SIZE; j++) {
+                cluster.sendCommand();
+            }
+            applied += BATCH_SIZE;
+            cluster.awaitApplied(applied, TIMEOUT_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.command;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tools4j.hoverraft.command.machine.StateMachine;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.direct.DirectFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CommandLogCursorTest {
+
+    private final DirectFactory directFactory = new AllocatingDirectFactory();
+    private final CommandLog commandLog = new InMemoryCommandLog();
+
+    //under test
+    private final CommandLogCursor cursor = new CommandLogCursor();
+
+    @Before
+    public void init() {
+        for (int i = 0; i < 6; i++) {
+            final Command command = directFactory.command().sourceId(1).commandIndex(i);
+            command.commandPayload().bytesFrom(new byte[0], 0, 0);
+            commandLog.append(1, command);
+        }
+    }
+
+    @Test
+    public void next_should_iterate_range() throws Exception {
+        //when
+        cursor.init(commandLog, 2, 4);
+
+        //then
+        assertThat(cursor.size()).isEqualTo(3);
+        for (int i = 2; i <= 4; i++) {
+            assertThat(cursor.hasNext()).isTrue();
+            assertThat(cursor.next().logKey().index()).isEqualTo(i);
+        }
+        assertThat(cursor.hasNext()).isFalse();
+        assertThat(cursor.reset().next().command().commandKey().commandIndex()).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void next_should_throw_after_last() throws Exception {
+        cursor.init(commandLog, 5, 5).next();
+        cursor.next();
+    }
+
+    @Test
+    public void onCommitted_should_default_to_onMessage() throws Exception {
+        //given
+        final List<Long> applied = new ArrayList<>();
+        final StateMachine stateMachine = command -> applied.add(command.commandKey().commandIndex());
+
+        //when
+        stateMachine.onCommitted(cursor.init(commandLog, 0, 5));
+
+        //then
+        assertThat(applied).containsExactly(0L, 1L, 2L, 3L, 4L, 5L);
+    }
+}
@@ -0,0 +1,314 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.command.mapped;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.command.CommandKey;
+import org.tools4j.hoverraft.command.CommandLog;
+import org.tools4j.hoverraft.command.DirectLogEntry;
+import org.tools4j.hoverraft.command.LogEntry;
+import org.tools4j.hoverraft.command.LogKey;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.message.AppendRequest;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedCommandLogTest {
+
+    private static final int SEGMENT_SIZE = 256;
+    private static final int INDEX_SEGMENT_SIZE = 64;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final DirectFactory directFactory = new AllocatingDirectFactory();
+
+    private MappedCommandLog commandLog;
+
+    @Before
+    public void init() throws Exception {
+        commandLog = open();
+    }
+
+    @After
+    public void close() {
+        commandLog.close();
+    }
+
+    private MappedCommandLog open() throws Exception {
+        return new MappedCommandLog(folder.getRoot(), "commandlog", SEGMENT_SIZE, INDEX_SEGMENT_SIZE);
+    }
+
+    @Test
+    public void lastTerm_should_return_no_term_for_empty_log() throws Exception {
+        //given
+        final LogKey lastKey = directFactory.logEntry().logKey();
+
+        //when
+        commandLog.lastKeyTo(lastKey);
+
+        //then
+        assertThat(commandLog.lastTerm()).isEqualTo(CommandLog.NO_TERM);
+        assertThat(lastKey.term()).isEqualTo(CommandLog.NO_TERM);
+        assertThat(lastKey.index()).isEqualTo(-1);
+    }
+
+    @Test
+    public void append_should_add_entries_across_segments() throws Exception {
+        //when
+        for (int i = 0; i < 20; i++) {
+            commandLog.append(i / 5 + 1, command(3, i, "command-" + i));
+        }
+
+        //then
+        assertThat(commandLog.size()).isEqualTo(20);
+        assertThat(commandLog.lastIndex()).isEqualTo(19);
+        assertThat(commandLog.lastTerm()).isEqualTo(4);
+        for (int i = 0; i < 20; i++) {
+            assertEntry(i, i / 5 + 1, 3, i, "command-" + i);
+        }
+    }
+
+    @Test
+    public void truncateIncluding_should_remove_tail() throws Exception {
+        //given
+        for (int i = 0; i < 10; i++) {
+            commandLog.append(1, command(3, i, "command-" + i));
+        }
+
+        //when
+        commandLog.truncateIncluding(6);
+        commandLog.append(2, command(4, 0, "replaced"));
+
+        //then
+        assertThat(commandLog.size()).isEqualTo(7);
+        assertEntry(5, 1, 3, 5, "command-5");
+        assertEntry(6, 2, 4, 0, "replaced");
+        assertThat(commandLog.contains(command(3, 5, "").commandKey())).isTrue();
+        assertThat(commandLog.contains(command(3, 6, "").commandKey())).isFalse();
+    }
+
+    @Test
+    public void reopen_should_recover_entries() throws Exception {
+        //given
+        for (int i = 0; i < 12; i++) {
+            commandLog.append(7, command(1, i, "command-" + i));
+        }
+        commandLog.close();
+
+        //when
+        commandLog = open();
+        commandLog.append(8, command(1, 12, "command-12"));
+
+        //then
+        assertThat(commandLog.size()).isEqualTo(13);
+        for (int i = 0; i < 12; i++) {
+            assertEntry(i, 7, 1, i, "command-" + i);
+        }
+        assertEntry(12, 8, 1, 12, "command-12");
+    }
+
+    @Test
+    public void wrap_should_wrap_mapped_entry() throws Exception {
+        //given
+        for (int i = 0; i < 8; i++) {
+            commandLog.append(2, command(5, i, "command-" + i));
+        }
+        final LogEntry flyweight = new DirectLogEntry();
+
+        //when
+        commandLog.wrap(6, flyweight);
+
+        //then
+        assertThat(flyweight.writeBufferOrNull()).isNull();
+        assertThat(flyweight.logKey().term()).isEqualTo(2);
+        assertThat(flyweight.logKey().index()).isEqualTo(6);
+        assertThat(flyweight.command().commandKey().sourceId()).isEqualTo(5);
+        assertThat(flyweight.command().commandKey().commandIndex()).isEqualTo(6);
+        final byte[] bytes = new byte[flyweight.command().commandPayload().commandByteLength()];
+        flyweight.command().commandPayload().bytesTo(bytes, 0);
+        assertThat(new String(bytes)).isEqualTo("command-6");
+    }
+
+    @Test
+    public void sync_should_keep_entries_after_truncate() throws Exception {
+        //given
+        for (int i = 0; i < 10; i++) {
+            commandLog.append(1, command(2, i, "command-" + i));
+        }
+        commandLog.sync();
+
+        //when
+        commandLog.truncateIncluding(4);
+        commandLog.append(2, command(3, 0, "replaced"));
+        commandLog.sync();
+        commandLog.sync();
+        commandLog.close();
+        commandLog = open();
+
+        //then
+        assertThat(commandLog.size()).isEqualTo(5);
+        assertEntry(3, 1, 2, 3, "command-3");
+        assertEntry(4, 2, 3, 0, "replaced");
+    }
+
+    @Test
+    public void compactIncluding_should_delete_segments_and_recover_after_reopen() throws Exception {
+        //given
+        for (int i = 0; i < 20; i++) {
+            commandLog.append(1, command(3, i, "command-" + i));
+        }
+
+        //when
+        commandLog.compactIncluding(1, 14);
+        commandLog.close();
+        commandLog = open();
+        commandLog.append(2, command(3, 20, "command-20"));
+
+        //then
+        assertThat(commandLog.firstIndex()).isEqualTo(15);
+        assertThat(commandLog.size()).isEqualTo(21);
+        assertThat(commandLog.readTerm(14)).isEqualTo(1);
+        assertThat(new File(folder.getRoot(), "commandlog.data.0").exists()).isFalse();
+        assertThat(new File(folder.getRoot(), "commandlog.index.0").exists()).isFalse();
+        for (int i = 15; i < 20; i++) {
+            assertEntry(i, 1, 3, i, "command-" + i);
+        }
+        assertEntry(20, 2, 3, 20, "command-20");
+    }
+
+    @Test
+    public void compactIncluding_should_discard_whole_log_if_snapshot_is_ahead() throws Exception {
+        //given
+        for (int i = 0; i < 5; i++) {
+            commandLog.append(1, command(3, i, "command-" + i));
+        }
+
+        //when
+        commandLog.compactIncluding(4, 99);
+        commandLog.close();
+        commandLog = open();
+        commandLog.append(5, command(3, 100, "command-100"));
+
+        //then
+        assertThat(commandLog.firstIndex()).isEqualTo(100);
+        assertThat(commandLog.lastIndex()).isEqualTo(100);
+        assertThat(commandLog.readTerm(99)).isEqualTo(4);
+        assertEntry(100, 5, 3, 100, "command-100");
+    }
+
+    @Test
+    public void appendAll_should_copy_new_entries_across_segments() throws Exception {
+        //given
+        for (int i = 0; i < 3; i++) {
+            commandLog.append(1, command(3, i, "command-" + i));
+        }
+        final AppendRequest appendRequest = directFactory.appendRequest();
+        for (int i = 1; i < 12; i++) {
+            final LogEntry logEntry = directFactory.logEntry();
+            logEntry.logKey().term(i < 6 ? 1 : 2).index(i);
+            logEntry.command().copyFrom(command(3, i, "command-" + i));
+            appendRequest.appendLogEntry(logEntry);
+        }
+
+        //when
+        final int appended = commandLog.appendAll(appendRequest.logEntries(), directFactory.logEntry());
+
+        //then
+        assertThat(appended).isEqualTo(9);
+        assertThat(commandLog.size()).isEqualTo(12);
+        assertThat(commandLog.contains(command(3, 11, "").commandKey())).isTrue();
+        for (int i = 0; i < 12; i++) {
+            assertEntry(i, i < 6 ? 1 : 2, 3, i, "command-" + i);
+        }
+
+        //when
+        commandLog.close();
+        commandLog = open();
+        commandLog.append(3, command(3, 12, "command-12"));
+
+        //then
+        assertThat(commandLog.size()).isEqualTo(13);
+        assertEntry(11, 2, 3, 11, "command-11");
+        assertEntry(12, 3, 3, 12, "command-12");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void appendAll_should_reject_gap() throws Exception {
+        final AppendRequest appendRequest = directFactory.appendRequest();
+        final LogEntry logEntry = directFactory.logEntry();
+        logEntry.logKey().term(1).index(1);
+        logEntry.command().copyFrom(command(3, 1, "command-1"));
+        appendRequest.appendLogEntry(logEntry);
+
+        commandLog.appendAll(appendRequest.logEntries(), directFactory.logEntry());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readTerm_should_reject_index_out_of_range() throws Exception {
+        commandLog.append(1, command(1, 0, "command"));
+        commandLog.readTerm(1);
+    }
+
+    private Command command(final int sourceId, final long commandIndex, final String payload) {
+        final Command command = directFactory.command()
+                .sourceId(sourceId)
+                .commandIndex(commandIndex);
+        final byte[] bytes = payload.getBytes();
+        command.commandPayload().bytesFrom(bytes, 0, bytes.length);
+        return command;
+    }
+
+    private void assertEntry(final long index, final int term, final int sourceId, final long commandIndex, final String payload) {
+        assertThat(commandLog.readTerm(index)).isEqualTo(term);
+
+        final LogKey logKey = directFactory.logEntry().logKey();
+        commandLog.readTo(index, logKey);
+        assertThat(logKey.term()).isEqualTo(term);
+        assertThat(logKey.index()).isEqualTo(index);
+
+        final CommandKey commandKey = directFactory.commandKey();
+        commandLog.readTo(index, commandKey);
+        assertThat(commandKey.sourceId()).isEqualTo(sourceId);
+        assertThat(commandKey.commandIndex()).isEqualTo(commandIndex);
+
+        final LogEntry logEntry = directFactory.logEntry();
+        commandLog.readTo(index, logEntry);
+        assertThat(logEntry.logKey().term()).isEqualTo(term);
+        assertThat(logEntry.logKey().index()).isEqualTo(index);
+        assertThat(logEntry.command().commandKey().sourceId()).isEqualTo(sourceId);
+        assertThat(logEntry.command().commandKey().commandIndex()).isEqualTo(commandIndex);
+        final byte[] bytes = new byte[logEntry.command().commandPayload().commandByteLength()];
+        logEntry.command().commandPayload().bytesTo(bytes, 0);
+        assertThat(new String(bytes)).isEqualTo(payload);
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.command.mapped;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedSegmentsTest {
+
+    private static final int SEGMENT_SIZE = 256;
+    private static final int SEGMENT_COUNT = 64;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private MappedSegments segments;
+
+    @Before
+    public void init() throws Exception {
+        segments = new MappedSegments(folder.getRoot(), "segments", SEGMENT_SIZE);
+    }
+
+    @After
+    public void close() {
+        segments.close();
+    }
+
+    @Test
+    public void segment_should_map_each_segment_once_when_accessed_concurrently() throws Exception {
+        //given
+        final UnsafeBuffer[][] mapped = new UnsafeBuffer[2][SEGMENT_COUNT];
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] threads = new Thread[mapped.length];
+        for (int t = 0; t < threads.length; t++) {
+            final UnsafeBuffer[] target = mapped[t];
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < SEGMENT_COUNT; i++) {
+                    target[i] = segments.segment(i);
+                }
+            });
+            threads[t].start();
+        }
+
+        //when
+        start.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        //then
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            assertThat(mapped[1][i]).isSameAs(mapped[0][i]);
+            assertThat(segments.segment(i)).isSameAs(mapped[0][i]);
+        }
+    }
+
+    @Test
+    public void deleteBefore_should_retain_segments_mapped_concurrently() throws Exception {
+        //given
+        final UnsafeBuffer[] mapped = new UnsafeBuffer[SEGMENT_COUNT];
+        final Thread mapper = new Thread(() -> {
+            for (int i = SEGMENT_COUNT / 2; i < SEGMENT_COUNT; i++) {
+                mapped[i] = segments.segment(i);
+            }
+        });
+
+        //when
+        mapper.start();
+        for (int i = 0; i < SEGMENT_COUNT / 2; i++) {
+            segments.segment(i);
+            segments.deleteBefore(i);
+        }
+        mapper.join();
+
+        //then
+        for (int i = SEGMENT_COUNT / 2; i < SEGMENT_COUNT; i++) {
+            assertThat(segments.segment(i)).isSameAs(mapped[i]);
+        }
+        assertThat(segments.segmentFile(0)).doesNotExist();
+    }
+}
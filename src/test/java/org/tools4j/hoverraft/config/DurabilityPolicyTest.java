@@ -0,0 +1,72 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.config;
+
+import org.junit.Test;
+import org.tools4j.hoverraft.command.CommandLog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class DurabilityPolicyTest {
+
+    private final CommandLog commandLog = mock(CommandLog.class);
+
+    @Test
+    public void syncPerAppend_should_sync_after_each_append() throws Exception {
+        //when
+        DurabilityPolicy.SYNC_PER_APPEND.afterAppend(commandLog);
+        DurabilityPolicy.SYNC_PER_APPEND.afterAppend(commandLog);
+        DurabilityPolicy.SYNC_PER_APPEND.afterBatch(commandLog);
+
+        //then
+        verify(commandLog, times(2)).sync();
+        assertThat(DurabilityPolicy.SYNC_PER_APPEND.syncStateOnChange()).isTrue();
+    }
+
+    @Test
+    public void syncPerBatch_should_sync_after_batch_only() throws Exception {
+        //when
+        DurabilityPolicy.SYNC_PER_BATCH.afterAppend(commandLog);
+        DurabilityPolicy.SYNC_PER_BATCH.afterAppend(commandLog);
+        DurabilityPolicy.SYNC_PER_BATCH.afterBatch(commandLog);
+
+        //then
+        verify(commandLog, times(1)).sync();
+        assertThat(DurabilityPolicy.SYNC_PER_BATCH.syncStateOnChange()).isTrue();
+    }
+
+    @Test
+    public void none_and_periodic_should_not_sync_inline() throws Exception {
+        //when
+        for (final DurabilityPolicy policy : new DurabilityPolicy[] {DurabilityPolicy.NONE, DurabilityPolicy.PERIODIC}) {
+            policy.afterAppend(commandLog);
+            policy.afterBatch(commandLog);
+            assertThat(policy.syncStateOnChange()).isFalse();
+        }
+
+        //then
+        verify(commandLog, never()).sync();
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.direct;
+
+import org.junit.Test;
+import org.tools4j.hoverraft.command.LogEntry;
+import org.tools4j.hoverraft.message.AppendRequest;
+import org.tools4j.hoverraft.message.MessageType;
+import org.tools4j.hoverraft.message.direct.DirectAppendRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PooledDirectFactoryTest {
+
+    //under test
+    private final PooledDirectFactory directFactory = new PooledDirectFactory(2, 256, 16);
+
+    @Test
+    public void should_reuse_flyweights_after_scope_is_released() throws Exception {
+        //given
+        directFactory.acquireScope();
+        final LogEntry first = directFactory.logEntry();
+        final LogEntry second = directFactory.logEntry();
+        final LogEntry third = directFactory.logEntry();
+        directFactory.releaseScope();
+
+        //when
+        directFactory.acquireScope();
+        final LogEntry reused = directFactory.logEntry();
+        final LogEntry reusedSecond = directFactory.logEntry();
+        final LogEntry reusedThird = directFactory.logEntry();
+        directFactory.releaseScope();
+
+        //then
+        assertThat(first).isNotSameAs(second).isNotSameAs(third);
+        assertThat(second).isNotSameAs(third);
+        assertThat(reused).isSameAs(first);
+        assertThat(reusedSecond).isSameAs(second);
+        assertThat(reusedThird).isSameAs(third);
+        assertThat(directFactory.scopeDepth()).isEqualTo(0);
+    }
+
+    @Test
+    public void nested_scope_should_only_release_its_own_flyweights() throws Exception {
+        //given
+        directFactory.acquireScope();
+        final AppendRequest outer = directFactory.appendRequest();
+
+        //when
+        directFactory.acquireScope();
+        final AppendRequest inner = directFactory.appendRequest();
+        directFactory.releaseScope();
+        final AppendRequest next = directFactory.appendRequest();
+        directFactory.releaseScope();
+
+        //then
+        assertThat(inner).isNotSameAs(outer);
+        assertThat(next).isSameAs(inner);
+        assertThat(next.type()).isEqualTo(MessageType.APPEND_REQUEST);
+        assertThat(next.byteLength()).isEqualTo(DirectAppendRequest.EMPTY_LOG_BYTE_LENGTH);
+    }
+
+    @Test
+    public void acquired_flyweight_should_be_rewrapped_around_pooled_buffer() throws Exception {
+        //given
+        directFactory.acquireScope();
+        final LogEntry logEntry = directFactory.logEntry();
+        logEntry.unwrap();
+        directFactory.releaseScope();
+
+        //when
+        directFactory.acquireScope();
+        final LogEntry reused = directFactory.logEntry();
+        reused.logKey().term(3).index(42);
+        directFactory.releaseScope();
+
+        //then
+        assertThat(reused).isSameAs(logEntry);
+        assertThat(reused.isWrapped()).isTrue();
+        assertThat(reused.logKey().index()).isEqualTo(42);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releaseScope_should_fail_without_scope() throws Exception {
+        directFactory.releaseScope();
+    }
+}
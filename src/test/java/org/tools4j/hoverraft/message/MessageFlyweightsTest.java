@@ -0,0 +1,79 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.message;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.junit.Test;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.direct.DirectFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MessageFlyweightsTest {
+
+    private final MessageFlyweights flyweights = new MessageFlyweights();
+    private final DirectFactory directFactory = new AllocatingDirectFactory();
+
+    @Test
+    public void should_wrap_flyweight_of_every_message_type() throws Exception {
+        for (final MessageType type : MessageType.values()) {
+            //given
+            final Message encoded = type.create(directFactory);
+
+            //when
+            final Message decoded = flyweights.wrap(encoded.readBufferOrNull(), encoded.offset());
+
+            //then
+            assertThat(decoded.type()).isEqualTo(type);
+            assertThat(decoded.readBufferOrNull()).isSameAs(encoded.readBufferOrNull());
+        }
+    }
+
+    @Test
+    public void should_reuse_flyweight_per_message_type() throws Exception {
+        //given
+        final VoteResponse first = directFactory.voteResponse().term(3).voteGranted(true);
+        final VoteResponse second = directFactory.voteResponse().term(4).voteGranted(false);
+
+        //when
+        final Message firstDecoded = flyweights.wrap(first.readBufferOrNull(), first.offset());
+        final Message secondDecoded = flyweights.wrap(second.readBufferOrNull(), second.offset());
+
+        //then
+        assertThat(secondDecoded).isSameAs(firstDecoded);
+        assertThat(((VoteResponse)secondDecoded).term()).isEqualTo(4);
+        assertThat(((VoteResponse)secondDecoded).voteGranted()).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_illegal_message_type() throws Exception {
+        //given
+        final ExpandableArrayBuffer buffer = new ExpandableArrayBuffer(8);
+        buffer.putInt(0, MessageType.maxOrdinal() + 1);
+
+        //when
+        flyweights.wrap((DirectBuffer)buffer, 0);
+    }
+}
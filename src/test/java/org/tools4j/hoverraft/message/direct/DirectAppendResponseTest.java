@@ -48,13 +48,17 @@ public class DirectAppendResponseTest {
         final boolean sucessful = true;
         final int serverId = 5;
         final long matchLogIndex = 564564;
+        final int conflictTerm = 7;
+        final long conflictIndex = 564000;
 
         //when
         directAppendResponse
                 .term(term)
                 .successful(sucessful)
                 .serverId(serverId)
-                .matchLogIndex(matchLogIndex);
+                .matchLogIndex(matchLogIndex)
+                .conflictTerm(conflictTerm)
+                .conflictIndex(conflictIndex);
 
         //then
         assertThat(directAppendResponse.type()).isEqualTo(MessageType.APPEND_RESPONSE);
@@ -62,6 +66,8 @@ public class DirectAppendResponseTest {
         assertThat(directAppendResponse.successful()).isEqualTo(sucessful);
         assertThat(directAppendResponse.serverId()).isEqualTo(serverId);
         assertThat(directAppendResponse.matchLogIndex()).isEqualTo(matchLogIndex);
+        assertThat(directAppendResponse.conflictTerm()).isEqualTo(conflictTerm);
+        assertThat(directAppendResponse.conflictIndex()).isEqualTo(conflictIndex);
         assertThat(directAppendResponse.byteLength()).isEqualTo(DirectAppendResponse.BYTE_LENGTH);
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.message.direct;
+
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import org.tools4j.hoverraft.message.MessageType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DirectInstallSnapshotTest {
+
+    private final ExpandableArrayBuffer buffer = new ExpandableArrayBuffer(DirectInstallSnapshot.EMPTY_CHUNK_BYTE_LENGTH);
+    private final DirectInstallSnapshot directInstallSnapshot = new DirectInstallSnapshot();
+
+    @Before
+    public void init() {
+        directInstallSnapshot.wrap(buffer, 0);
+    }
+
+    @Test
+    public void should_get_the_data_that_has_been_set() throws Exception {
+        //given
+        final int term = 10;
+        final int leaderId = 2;
+        final int lastIncludedTerm = 9;
+        final long lastIncludedIndex = 34765;
+        final long snapshotByteLength = 1000;
+        final long chunkPosition = 990;
+        final byte[] chunk = "0123456789".getBytes();
+        final UnsafeBuffer target = new UnsafeBuffer(new byte[chunk.length]);
+
+        //when
+        directInstallSnapshot
+                .term(term)
+                .leaderId(leaderId)
+                .snapshotByteLength(snapshotByteLength)
+                .chunkPosition(chunkPosition)
+                .lastIncludedLogKey().term(lastIncludedTerm).index(lastIncludedIndex);
+        directInstallSnapshot.chunkFrom(new UnsafeBuffer(chunk), 0, chunk.length);
+        directInstallSnapshot.chunkTo(target, 0);
+
+        //then
+        assertThat(directInstallSnapshot.type()).isEqualTo(MessageType.INSTALL_SNAPSHOT);
+        assertThat(directInstallSnapshot.term()).isEqualTo(term);
+        assertThat(directInstallSnapshot.leaderId()).isEqualTo(leaderId);
+        assertThat(directInstallSnapshot.lastIncludedLogKey().term()).isEqualTo(lastIncludedTerm);
+        assertThat(directInstallSnapshot.lastIncludedLogKey().index()).isEqualTo(lastIncludedIndex);
+        assertThat(directInstallSnapshot.snapshotByteLength()).isEqualTo(snapshotByteLength);
+        assertThat(directInstallSnapshot.chunkPosition()).isEqualTo(chunkPosition);
+        assertThat(directInstallSnapshot.chunkByteLength()).isEqualTo(chunk.length);
+        assertThat(directInstallSnapshot.lastChunk()).isTrue();
+        assertThat(target.byteArray()).isEqualTo(chunk);
+        assertThat(directInstallSnapshot.byteLength()).isEqualTo(DirectInstallSnapshot.EMPTY_CHUNK_BYTE_LENGTH + chunk.length);
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyTrackerTest {
+
+    private final LatencyTracker latencyTracker = new LatencyTracker(8, LatencyTracker.DEFAULT_HIGHEST_TRACKABLE_NANOS,
+            LatencyTracker.DEFAULT_SIGNIFICANT_DIGITS);
+
+    @Test
+    public void should_record_all_stages_of_applied_commands() throws Exception {
+        //given
+        for (int i = 0; i < 3; i++) {
+            latencyTracker.onCommandReceived();
+            latencyTracker.onAppended(i);
+        }
+
+        //when
+        latencyTracker.onAppendRequestSent(1);
+        latencyTracker.onAppendRequestSent(2);
+        latencyTracker.onAppendRequestSent(2);
+        latencyTracker.onCommitted(2);
+        latencyTracker.onApplied(2);
+
+        //then
+        for (final LatencyStage stage : LatencyStage.values()) {
+            assertThat(latencyTracker.intervalHistogram(stage, null).getTotalCount()).as(stage.name()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void should_not_record_apply_of_entries_not_committed_by_this_leader() throws Exception {
+        //when
+        latencyTracker.onApplied(5);
+
+        //then
+        assertThat(latencyTracker.intervalHistogram(LatencyStage.APPLY, null).getTotalCount()).isZero();
+        assertThat(latencyTracker.intervalHistogram(LatencyStage.END_TO_END, null).getTotalCount()).isZero();
+    }
+
+    @Test
+    public void should_skip_entries_overtaken_by_newer_entries() throws Exception {
+        //given
+        for (int i = 0; i < 20; i++) {
+            latencyTracker.onCommandReceived();
+            latencyTracker.onAppended(i);
+        }
+
+        //when
+        latencyTracker.onAppendRequestSent(19);
+
+        //then
+        assertThat(latencyTracker.intervalHistogram(LatencyStage.APPEND, null).getTotalCount()).isEqualTo(20);
+        assertThat(latencyTracker.intervalHistogram(LatencyStage.SEND, null).getTotalCount()).isEqualTo(8);
+    }
+
+    @Test
+    public void intervalHistogram_should_return_values_since_last_interval() throws Exception {
+        //given
+        final Histogram histogram = new Histogram(LatencyTracker.DEFAULT_HIGHEST_TRACKABLE_NANOS,
+                LatencyTracker.DEFAULT_SIGNIFICANT_DIGITS);
+        latencyTracker.onCommandReceived();
+        latencyTracker.onAppended(0);
+
+        //when
+        latencyTracker.intervalHistogramInto(LatencyStage.APPEND, histogram);
+        final long firstCount = histogram.getTotalCount();
+        latencyTracker.intervalHistogramInto(LatencyStage.APPEND, histogram);
+        final long secondCount = histogram.getTotalCount();
+
+        //then
+        assertThat(firstCount).isEqualTo(1);
+        assertThat(secondCount).isZero();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_should_reject_capacity_not_power_of_two() throws Exception {
+        new LatencyTracker(10, LatencyTracker.DEFAULT_HIGHEST_TRACKABLE_NANOS, LatencyTracker.DEFAULT_SIGNIFICANT_DIGITS);
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.metrics;
+
+import org.agrona.concurrent.status.CountersReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tools4j.hoverraft.command.InMemoryCommandLog;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.server.Mockery;
+import org.tools4j.hoverraft.state.PersistentState;
+import org.tools4j.hoverraft.state.Role;
+import org.tools4j.hoverraft.state.VolatileState;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+public class ServerCountersTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final ConsensusConfig consensusConfig = Mockery.consensusConfig(3, 2);
+
+    private File file;
+
+    //under test
+    private ServerCounters serverCounters;
+
+    @Before
+    public void init() throws Exception {
+        file = new File(folder.getRoot(), "counters");
+        serverCounters = new ServerCounters(file, Mockery.SERVER_ID, consensusConfig);
+    }
+
+    @After
+    public void close() {
+        serverCounters.close();
+    }
+
+    @Test
+    public void mapReader_should_read_counters_written_by_server() throws Exception {
+        //given
+        serverCounters.onElectionStarted();
+        serverCounters.onElectionStarted();
+        serverCounters.onAppendRequestSent();
+        serverCounters.onAppendRequestRejected();
+        serverCounters.onResendStrategyInvoked();
+        serverCounters.commandsDropped().increment();
+        serverCounters.serverMessagesPolled(2).orderedIncrement();
+        serverCounters.sourceMessagesPolled(2).setOrdered(7);
+
+        //when
+        final Map<String, Long> values = values(ServerCounters.mapReader(file));
+
+        //then
+        assertThat(values).hasSize(10 + 3 * 2 + 2);
+        assertThat(values.get("elections started")).isEqualTo(2);
+        assertThat(values.get("append requests sent")).isEqualTo(1);
+        assertThat(values.get("append requests rejected")).isEqualTo(1);
+        assertThat(values.get("resend strategy invocations")).isEqualTo(1);
+        assertThat(values.get("commands dropped")).isEqualTo(1);
+        assertThat(values.get("messages polled from server 2")).isEqualTo(1);
+        assertThat(values.get("messages polled from server 3")).isEqualTo(0);
+        assertThat(values.get("commands polled from source 1")).isEqualTo(0);
+        assertThat(values.get("commands polled from source 2")).isEqualTo(7);
+    }
+
+    @Test
+    public void update_should_set_state_gauges_and_count_term_changes() throws Exception {
+        //given
+        final PersistentState persistentState = Mockery.persistentState();
+        final InMemoryCommandLog commandLog = new InMemoryCommandLog();
+        when(persistentState.commandLog()).thenReturn(commandLog);
+        final VolatileState volatileState = Mockery.volatileState(consensusConfig);
+        for (int i = 0; i < 10; i++) {
+            commandLog.append(1, new AllocatingDirectFactory().command().sourceId(1).commandIndex(i));
+        }
+        volatileState.commitIndex(7).lastApplied(5);
+        volatileState.followerStateById(2).nextIndex(10).updateMatchIndex(9);
+        volatileState.followerStateById(3).nextIndex(4).updateMatchIndex(2);
+
+        //when
+        serverCounters.update(Role.LEADER, persistentState, volatileState);
+        serverCounters.update(Role.LEADER, persistentState, volatileState);
+        when(persistentState.currentTerm()).thenReturn(2);
+        serverCounters.update(Role.LEADER, persistentState, volatileState);
+        final Map<String, Long> values = values(serverCounters.countersReader());
+
+        //then
+        assertThat(values.get("term changes")).isEqualTo(2);
+        assertThat(values.get("current term")).isEqualTo(2);
+        assertThat(values.get("commit index")).isEqualTo(7);
+        assertThat(values.get("last applied")).isEqualTo(5);
+        assertThat(values.get("log size")).isEqualTo(10);
+        assertThat(values.get("follower 2 match index lag")).isEqualTo(0);
+        assertThat(values.get("follower 2 next index lag")).isEqualTo(0);
+        assertThat(values.get("follower 3 match index lag")).isEqualTo(7);
+        assertThat(values.get("follower 3 next index lag")).isEqualTo(6);
+
+        //when
+        serverCounters.update(Role.FOLLOWER, persistentState, volatileState);
+
+        //then
+        assertThat(values(serverCounters.countersReader()).get("follower 3 match index lag")).isEqualTo(0);
+    }
+
+    private static Map<String, Long> values(final CountersReader countersReader) {
+        final Map<String, Long> values = new HashMap<>();
+        countersReader.forEach((id, label) -> values.put(label, countersReader.getCounterValue(id)));
+        return values;
+    }
+}
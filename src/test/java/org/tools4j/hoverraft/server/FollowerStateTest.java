@@ -35,6 +35,8 @@ import org.tools4j.hoverraft.direct.DirectFactory;
 import org.tools4j.hoverraft.message.AppendRequest;
 import org.tools4j.hoverraft.message.AppendResponse;
 import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.message.Sequence;
+import org.tools4j.hoverraft.message.TimeoutNow;
 import org.tools4j.hoverraft.state.FollowerState;
 import org.tools4j.hoverraft.state.PersistentState;
 import org.tools4j.hoverraft.state.Transition;
@@ -42,12 +44,18 @@ import org.tools4j.hoverraft.state.VolatileState;
 import org.tools4j.hoverraft.transport.Sender;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class FollowerStateTest {
 
+    private static final long TIMER_TIMEOUT_MILLIS = 50;
+
     //under test
     private FollowerState followerState;
 
@@ -109,6 +117,9 @@ public class FollowerStateTest {
         final LogKey prevLogEntry = appendRequest.prevLogKey();
 
         when(commandLog.contains(prevLogEntry)).thenReturn(LogContainment.IN);
+        when(commandLog.size()).thenReturn(101L);
+        when(commandLog.appendAll(same(appendRequest.logEntries()), any(LogEntry.class))).thenReturn(1);
+        when(commandLog.lastIndex()).thenReturn(101L);
 
         when(serverContext.connections().serverSender(leaderId)).thenReturn(sender);
 
@@ -116,14 +127,15 @@ public class FollowerStateTest {
         final Transition transition = followerState.onEvent(serverContext, appendRequest);
 
         //then
-        final ArgumentCaptor<Command> commandCaptor = ArgumentCaptor.forClass(Command.class);
-        final ArgumentCaptor<Integer> termCaptor = ArgumentCaptor.forClass(Integer.class);
+        final ArgumentCaptor<Sequence> entriesCaptor = ArgumentCaptor.forClass(Sequence.class);
 
-        verify(commandLog).append(termCaptor.capture(), commandCaptor.capture());
+        verify(commandLog).appendAll(entriesCaptor.capture(), any(LogEntry.class));
 
-        final long capturedCommandIndex = commandCaptor.getValue().commandKey().commandIndex();
-        final int capturedCommandSourceId = commandCaptor.getValue().commandKey().sourceId();
-        final int capturedTerm = termCaptor.getValue();
+        final LogEntry appendedEntry = directFactory.logEntry();
+        entriesCaptor.getValue().iterator().readNextTo(appendedEntry);
+        final long capturedCommandIndex = appendedEntry.command().commandKey().commandIndex();
+        final int capturedCommandSourceId = appendedEntry.command().commandKey().sourceId();
+        final int capturedTerm = appendedEntry.logKey().term();
 
         assertThat(capturedCommandIndex).isEqualTo(commandIndex);
         assertThat(capturedCommandSourceId).isEqualTo(commandSourceId);
@@ -164,4 +176,118 @@ public class FollowerStateTest {
         assertThat(response.term()).isEqualTo(term);
         assertThat(transition).isEqualTo(Transition.STEADY);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void onAppendRequest_conflictRepliesWithConflictTermHint() throws Exception {
+        //given
+        final int term = 4;
+        final int leaderId = serverContext.id() + 1;
+        final DirectFactory directFactory = new AllocatingDirectFactory();
+        final CommandLog commandLog = new InMemoryCommandLog();
+        final int[] logTerms = {1, 1, 3, 3, 3};
+        for (int i = 0; i < logTerms.length; i++) {
+            final Command command = directFactory.command().sourceId(7).commandIndex(i);
+            command.commandPayload().bytesFrom(new byte[0], 0, 0);
+            commandLog.append(logTerms[i], command);
+        }
+        when(persistentState.currentTerm()).thenReturn(term);
+        when(persistentState.commandLog()).thenReturn(commandLog);
+        when(serverContext.connections().serverSender(leaderId)).thenReturn(sender);
+
+        final AppendRequest appendRequest = directFactory
+                .appendRequest()
+                .term(term)
+                .leaderId(leaderId);
+        appendRequest.prevLogKey().term(2).index(4);
+
+        //when
+        final Transition transition = followerState.onEvent(serverContext, appendRequest);
+
+        //then
+        final ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(sender).offer(captor.capture());
+        final AppendResponse response = (AppendResponse)captor.getValue();
+        assertThat(response.successful()).isFalse();
+        assertThat(response.matchLogIndex()).isEqualTo(4);
+        assertThat(response.conflictTerm()).isEqualTo(3);
+        assertThat(response.conflictIndex()).isEqualTo(2);
+        assertThat(commandLog.size()).isEqualTo(4);
+        assertThat(transition).isEqualTo(Transition.STEADY);
+    }
+
+    @Test
+    public void onTransition_restartsElectionTimer() throws Exception {
+        //given
+        serverContext.timer().timeoutNow();
+
+        //when
+        followerState.onEvent(serverContext, Transition.TO_FOLLOWER);
+
+        //then
+        assertThat(serverContext.timer().hasTimeoutElapsed()).isFalse();
+    }
+
+    @Test
+    public void onAppendRequest_resetsElectionTimerOnlyForCurrentTerm() throws Exception {
+        //given
+        final int term = persistentState.currentTerm();
+        final int leaderId = serverContext.id() + 1;
+        final DirectFactory directFactory = new AllocatingDirectFactory();
+        when(persistentState.commandLog()).thenReturn(new InMemoryCommandLog());
+        when(serverContext.connections().serverSender(leaderId)).thenReturn(sender);
+        serverContext.timer().restart(TIMER_TIMEOUT_MILLIS, TIMER_TIMEOUT_MILLIS);
+        Thread.sleep(TIMER_TIMEOUT_MILLIS + 10);
+
+        //when: request of a stale leader
+        followerState.onEvent(serverContext, heartbeat(directFactory, term - 1, leaderId));
+
+        //then
+        assertThat(serverContext.timer().hasTimeoutElapsed()).isTrue();
+
+        //when
+        followerState.onEvent(serverContext, heartbeat(directFactory, term, leaderId));
+
+        //then
+        assertThat(serverContext.timer().hasTimeoutElapsed()).isFalse();
+    }
+
+    @Test
+    public void onMessage_dispatchesToStateHandler() throws Exception {
+        //given
+        final TimeoutNow timeoutNow = new AllocatingDirectFactory().timeoutNow()
+                .term(persistentState.currentTerm())
+                .candidateId(serverContext.id());
+
+        //when
+        final Transition transition = followerState.onMessage(serverContext, timeoutNow);
+
+        //then
+        assertThat(transition).isEqualTo(Transition.TO_CANDIDATE);
+        verify(persistentState, never()).clearVotedForAndSetCurrentTerm(anyInt());
+    }
+
+    @Test
+    public void onMessage_higherTermTransitionsToFollower() throws Exception {
+        //given
+        final int higherTerm = persistentState.currentTerm() + 1;
+        final TimeoutNow timeoutNow = new AllocatingDirectFactory().timeoutNow()
+                .term(higherTerm)
+                .candidateId(serverContext.id());
+
+        //when
+        final Transition transition = followerState.onMessage(serverContext, timeoutNow);
+
+        //then
+        assertThat(transition).isEqualTo(Transition.TO_FOLLOWER);
+        verify(persistentState).clearVotedForAndSetCurrentTerm(higherTerm);
+    }
+
+    private static AppendRequest heartbeat(final DirectFactory directFactory, final int term, final int leaderId) {
+        final AppendRequest appendRequest = directFactory.appendRequest()
+                .term(term)
+                .leaderId(leaderId)
+                .leaderCommit(-1);
+        appendRequest.prevLogKey().term(CommandLog.NO_TERM).index(-1);
+        return appendRequest;
+    }
+}
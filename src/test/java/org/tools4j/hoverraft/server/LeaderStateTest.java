@@ -0,0 +1,448 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.server;
+
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.command.CommandLog;
+import org.tools4j.hoverraft.command.InMemoryCommandLog;
+import org.tools4j.hoverraft.command.LogEntry;
+import org.tools4j.hoverraft.config.DurabilityPolicy;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.event.FlushEvent;
+import org.tools4j.hoverraft.message.AppendRequest;
+import org.tools4j.hoverraft.message.AppendResponse;
+import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.message.Sequence;
+import org.tools4j.hoverraft.state.LeaderState;
+import org.tools4j.hoverraft.state.PersistentState;
+import org.tools4j.hoverraft.state.Transition;
+import org.tools4j.hoverraft.state.VolatileState;
+import org.tools4j.hoverraft.timer.TimerEvent;
+import org.tools4j.hoverraft.transport.RejectReason;
+import org.tools4j.hoverraft.transport.Sender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LeaderStateTest {
+
+    private static final int FOLLOWER_ID = Mockery.SERVER_ID + 1;
+    private static final int OTHER_FOLLOWER_ID = Mockery.SERVER_ID + 2;
+    private static final int PAYLOAD_LENGTH = 12;
+    private static final int ENTRY_BYTE_LENGTH = 40;//log key + command key + payload length + payload
+
+    //under test
+    private LeaderState leaderState;
+
+    private ServerContext serverContext;
+    private PersistentState persistentState;
+    private VolatileState volatileState;
+    private CommandLog commandLog;
+    private DirectFactory directFactory;
+
+    @Mock
+    private Sender<Message> sender;
+    @Mock
+    private Sender<Message> otherSender;
+
+    @Before
+    public void init() {
+        serverContext = Mockery.simple(Mockery.configBuilder(3, 0)
+                .maxAppendRequestByteLength(40 + 2 * ENTRY_BYTE_LENGTH)
+                .maxInflightAppendRequests(2)
+                .build());
+        persistentState = Mockery.persistentState();
+        volatileState = Mockery.volatileState(serverContext.consensusConfig());
+        commandLog = new InMemoryCommandLog();
+        directFactory = new AllocatingDirectFactory();
+        when(persistentState.commandLog()).thenReturn(commandLog);
+        when(serverContext.connections().serverSender(FOLLOWER_ID)).thenReturn(sender);
+        when(serverContext.connections().serverSender(OTHER_FOLLOWER_ID)).thenReturn(otherSender);
+        when(sender.tryClaim(anyInt(), any())).thenReturn(RejectReason.CLAIM_NOT_SUPPORTED);
+        when(otherSender.tryClaim(anyInt(), any())).thenReturn(RejectReason.CLAIM_NOT_SUPPORTED);
+
+        leaderState = new LeaderState(persistentState, volatileState);
+    }
+
+    @Test
+    public void onTransition_sendsHeartbeatToAllFollowers() throws Exception {
+        //given
+        final int term = persistentState.currentTerm();
+        commandLog.append(term, command(0));
+
+        //when
+        leaderState.onEvent(serverContext, Transition.TO_LEADER);
+
+        //then
+        final List<AppendRequest> requests = sentAppendRequests(sender, 1);
+        assertThat(requests.get(0).term()).isEqualTo(term);
+        assertThat(requests.get(0).leaderId()).isEqualTo(Mockery.SERVER_ID);
+        assertThat(requests.get(0).prevLogKey().index()).isEqualTo(0);
+        assertThat(requests.get(0).prevLogKey().term()).isEqualTo(term);
+        assertThat(entryCount(requests.get(0))).isEqualTo(0);
+        assertThat(sentAppendRequests(otherSender, 1)).hasSize(1);
+    }
+
+    @Test
+    public void onCommand_encodesAppendRequestInClaimedRegion() throws Exception {
+        //given
+        final int term = persistentState.currentTerm();
+        final List<Integer> claimedLengths = new ArrayList<>();
+        leaderState.onEvent(serverContext, Transition.TO_LEADER);
+        leaderState.onEvent(serverContext, appendResponse(FOLLOWER_ID, true, -1));
+        when(sender.tryClaim(anyInt(), any())).thenAnswer(invocation -> {
+            final int byteLength = (Integer)invocation.getArguments()[0];
+            ((Message)invocation.getArguments()[1]).wrap(new ExpandableArrayBuffer(byteLength), 0);
+            claimedLengths.add(byteLength);
+            return 1L;
+        });
+
+        //when
+        leaderState.onEvent(serverContext, command(0));
+        leaderState.onEvent(serverContext, command(1));
+        leaderState.onEvent(serverContext, FlushEvent.FLUSH);
+
+        //then
+        final ArgumentCaptor<AppendRequest> captor = ArgumentCaptor.forClass(AppendRequest.class);
+        verify(sender).commit(captor.capture());
+        verify(sender, times(1)).offer(any());//heartbeat only
+        final AppendRequest appendRequest = captor.getValue();
+        assertThat(claimedLengths).containsExactly(appendRequest.byteLength());
+        assertThat(appendRequest.term()).isEqualTo(term);
+        assertThat(appendRequest.prevLogKey().index()).isEqualTo(-1);
+        assertThat(entryCount(appendRequest)).isEqualTo(2);
+    }
+
+    @Test
+    public void onFlush_abortsClaimIfEncodingFails() throws Exception {
+        //given
+        leaderState.onEvent(serverContext, Transition.TO_LEADER);
+        leaderState.onEvent(serverContext, appendResponse(FOLLOWER_ID, true, -1));
+        when(sender.tryClaim(anyInt(), any())).thenAnswer(invocation -> {
+            //claimed region too short for the request
+            final int byteLength = (Integer)invocation.getArguments()[0];
+            ((Message)invocation.getArguments()[1]).wrap(new UnsafeBuffer(new byte[byteLength - 1]), 0);
+            return 1L;
+        });
+        leaderState.onEvent(serverContext, command(0));
+
+        //when + then
+        assertThatThrownBy(() -> leaderState.onEvent(serverContext, FlushEvent.FLUSH))
+                .isInstanceOf(IndexOutOfBoundsException.class);
+        verify(sender).abort(any());
+        verify(sender, never()).commit(any());
+    }
+
+    @Test
+    public void onCommand_pipelinesBatchedAppendRequests() throws Exception {
+        //given
+        leaderState.onEvent(serverContext, Transition.TO_LEADER);
+        leaderState.onEvent(serverContext, appendResponse(FOLLOWER_ID, true, -1));
+
+        //when: one command per duty cycle
+        for (int i = 0; i < 5; i++) {
+            leaderState.onEvent(serverContext, command(i));
+            leaderState.onEvent(serverContext, FlushEvent.FLUSH);
+        }
+
+        //then: heartbeat plus one request per command until in-flight window is full
+        List<AppendRequest> requests = sentAppendRequests(sender, 3);
+        assertThat(entryCount(requests.get(1))).isEqualTo(1);
+        assertThat(requests.get(1).prevLogKey().index()).isEqualTo(-1);
+        assertThat(entryCount(requests.get(2))).isEqualTo(1);
+        assertThat(requests.get(2).prevLogKey().index()).isEqualTo(0);
+
+        //when
+        leaderState.onEvent(serverContext, appendResponse(FOLLOWER_ID, true, 0));
+        leaderState.onEvent(serverContext, appendResponse(FOLLOWER_ID, true, 1));
+
+        //then: remaining entries are batched up to the byte limit
+        requests = sentAppendRequests(sender, 5);
+        assertThat(requests.get(3).prevLogKey().index()).isEqualTo(1);
+        assertThat(entryCount(requests.get(3))).isEqualTo(2);
+        assertThat(requests.get(3).byteLength()).isEqualTo(40 + 2 * ENTRY_BYTE_LENGTH);
+        assertThat(requests.get(4).prevLogKey().index()).isEqualTo(3);
+        assertThat(entryCount(requests.get(4))).isEqualTo(1);
+        assertThat(volatileState.followerStateById(FOLLOWER_ID).matchIndex()).isEqualTo(1);
+        assertThat(volatileState.followerStateById(FOLLOWER_ID).nextIndex()).isEqualTo(5);
+    }
+
+    @Test
+    public void onFlush_sendsCommandsOfDutyCycleInOneRequest() throws Exception {
+        //given
+        leaderState.onEvent(serverContext, Transition.TO_LEADER);
+        leaderState.onEvent(serverContext, appendResponse(FOLLOWER_ID, true, -1));
+
+        //when
+        leaderState.onEvent(serverContext, command(0));
+        leaderState.onEvent(serverContext, command(1));
+
+        //then: nothing sent before flush
+        sentAppendRequests(sender, 1);
+
+        //when
+        leaderState.onEvent(serverContext, FlushEvent.FLUSH);
+        leaderState.onEvent(serverContext, FlushEvent.FLUSH);
+
+        //then
+        final List<AppendRequest> requests = sentAppendRequests(sender, 2);
+        assertThat(requests.get(1).prevLogKey().index()).isEqualTo(-1);
+        assertThat(entryCount(requests.get(1))).isEqualTo(2);
+        assertThat(commandLog.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void onAppendResponse_doesNotReplicateEntriesBeforeBatchIsSynced() throws Exception {
+        //given
+        final CommandLog syncedLog = spy(new InMemoryCommandLog());
+        when(persistentState.commandLog()).thenReturn(syncedLog);
+        serverContext = Mockery.simple(Mockery.configBuilder(3, 0)
+                .durabilityPolicy(DurabilityPolicy.SYNC_PER_BATCH)
+                .groupCommitWindowNanos(TimeUnit.MINUTES.toNanos(1))
+                .build());
+        when(serverContext.connections().serverSender(FOLLOWER_ID)).thenReturn(sender);
+        when(serverContext.connections().serverSender(OTHER_FOLLOWER_ID)).thenReturn(otherSender);
+        leaderState.onEvent(serverContext, Transition.TO_LEADER);
+        leaderState.onEvent(serverContext, command(0));
+        leaderState.onEvent(serverContext, command(1));
+        leaderState.onEvent(serverContext, FlushEvent.FLUSH);
+
+        //when: response to heartbeat while group commit window is open
+        leaderState.onEvent(serverContext, appendResponse(FOLLOWER_ID, true, -1));
+
+        //then
+        sentAppendRequests(sender, 1);
+        verify(syncedLog, never()).sync();
+
+        //when: timer closes the window
+        leaderState.onEvent(serverContext, TimerEvent.TIMEOUT);
+
+        //then: entries are synced before they are replicated
+        final InOrder inOrder = inOrder(syncedLog, sender);
+        inOrder.verify(syncedLog).sync();
+        inOrder.verify(sender).offer(any());
+        final List<AppendRequest> requests = sentAppendRequests(sender, 2);
+        assertThat(requests.get(1).prevLogKey().index()).isEqualTo(-1);
+        assertThat(entryCount(requests.get(1))).isEqualTo(2);
+    }
+
+    @Test
+    public void onAppendResponse_unsuccessfulProbesWithSingleRequest() throws Exception {
+        //given
+        final int term = persistentState.currentTerm();
+        for (int i = 0; i < 4; i++) {
+            commandLog.append(term, command(i));
+        }
+        leaderState.onEvent(serverContext, Transition.TO_LEADER);
+
+        //when
+        leaderState.onEvent(serverContext, appendFailure(FOLLOWER_ID, 3, AppendResponse.NO_CONFLICT_TERM, 3));
+
+        //then
+        final List<AppendRequest> requests = sentAppendRequests(sender, 2);
+        assertThat(requests.get(1).prevLogKey().index()).isEqualTo(2);
+        assertThat(entryCount(requests.get(1))).isEqualTo(1);
+    }
+
+    @Test
+    public void onAppendResponse_unsuccessfulSkipsConflictTerm() throws Exception {
+        //given
+        when(persistentState.currentTerm()).thenReturn(4);
+        final int[] logTerms = {1, 1, 2, 2, 4, 4};
+        for (int i = 0; i < logTerms.length; i++) {
+            commandLog.append(logTerms[i], command(i));
+        }
+        leaderState.onEvent(serverContext, Transition.TO_LEADER);
+
+        //when: leader has entries of the conflict term
+        leaderState.onEvent(serverContext, appendFailure(FOLLOWER_ID, 5, 2, 2));
+
+        //then
+        List<AppendRequest> requests = sentAppendRequests(sender, 2);
+        assertThat(requests.get(0).prevLogKey().index()).isEqualTo(5);
+        assertThat(requests.get(1).prevLogKey().index()).isEqualTo(3);
+        assertThat(volatileState.followerStateById(FOLLOWER_ID).isProbing()).isTrue();
+
+        //when: follower has no entries of the conflict term
+        leaderState.onEvent(serverContext, appendFailure(FOLLOWER_ID, 3, 3, 2));
+
+        //then
+        requests = sentAppendRequests(sender, 3);
+        assertThat(requests.get(2).prevLogKey().index()).isEqualTo(1);
+    }
+
+    @Test
+    public void onTimerEvent_resendsInflightRequestsOnlyAfterWholeIntervalWithoutProgress() throws Exception {
+        //given: in-flight window of two requests filled
+        leaderState.onEvent(serverContext, Transition.TO_LEADER);
+        leaderState.onEvent(serverContext, appendResponse(FOLLOWER_ID, true, -1));
+        for (int i = 0; i < 2; i++) {
+            leaderState.onEvent(serverContext, command(i));
+            leaderState.onEvent(serverContext, FlushEvent.FLUSH);
+        }
+        sentAppendRequests(sender, 3);
+
+        //when
+        leaderState.onEvent(serverContext, TimerEvent.TIMEOUT);
+
+        //then: nothing resent, the window may have been filled just before
+        sentAppendRequests(sender, 3);
+
+        //when
+        leaderState.onEvent(serverContext, TimerEvent.TIMEOUT);
+
+        //then: oldest unacknowledged entries are sent again
+        final List<AppendRequest> requests = sentAppendRequests(sender, 4);
+        assertThat(requests.get(3).prevLogKey().index()).isEqualTo(-1);
+        assertThat(entryCount(requests.get(3))).isEqualTo(2);
+    }
+
+    @Test
+    public void onAppendResponse_commitsIndexStoredOnMajority() throws Exception {
+        //given
+        leaderState.onEvent(serverContext, Transition.TO_LEADER);
+        for (int i = 0; i < 3; i++) {
+            leaderState.onEvent(serverContext, command(i));
+        }
+        leaderState.onEvent(serverContext, FlushEvent.FLUSH);
+
+        //when
+        leaderState.onEvent(serverContext, appendResponse(OTHER_FOLLOWER_ID, true, 0));
+
+        //then: leader and other follower store index 0
+        assertThat(volatileState.commitIndex()).isEqualTo(0);
+
+        //when
+        leaderState.onEvent(serverContext, appendResponse(FOLLOWER_ID, true, 2));
+
+        //then: leader and follower store index 2
+        assertThat(volatileState.commitIndex()).isEqualTo(2);
+    }
+
+    @Test
+    public void onAppendResponse_countsOnlySyncedEntriesOfLeader() throws Exception {
+        //given
+        serverContext = Mockery.simple(Mockery.configBuilder(3, 0)
+                .durabilityPolicy(DurabilityPolicy.SYNC_PER_BATCH)
+                .groupCommitWindowNanos(TimeUnit.MINUTES.toNanos(1))
+                .build());
+        when(serverContext.connections().serverSender(FOLLOWER_ID)).thenReturn(sender);
+        when(serverContext.connections().serverSender(OTHER_FOLLOWER_ID)).thenReturn(otherSender);
+        leaderState.onEvent(serverContext, Transition.TO_LEADER);
+        leaderState.onEvent(serverContext, command(0));
+        leaderState.onEvent(serverContext, FlushEvent.FLUSH);
+
+        //when: follower stores the entry while the leader's batch is still open
+        leaderState.onEvent(serverContext, appendResponse(FOLLOWER_ID, true, 0));
+
+        //then
+        assertThat(volatileState.commitIndex()).isEqualTo(-1);
+
+        //when
+        leaderState.onEvent(serverContext, TimerEvent.TIMEOUT);
+        leaderState.onEvent(serverContext, appendResponse(FOLLOWER_ID, true, 0));
+
+        //then
+        assertThat(volatileState.commitIndex()).isEqualTo(0);
+    }
+
+    @Test
+    public void onAppendResponse_commitsEntriesOfPreviousTermsOnlyWithEntryOfCurrentTerm() throws Exception {
+        //given
+        when(persistentState.currentTerm()).thenReturn(2);
+        commandLog.append(1, command(0));
+        commandLog.append(1, command(1));
+        leaderState.onEvent(serverContext, Transition.TO_LEADER);
+
+        //when
+        leaderState.onEvent(serverContext, appendResponse(FOLLOWER_ID, true, 1));
+
+        //then
+        assertThat(volatileState.commitIndex()).isEqualTo(-1);
+
+        //when
+        leaderState.onEvent(serverContext, command(2));
+        leaderState.onEvent(serverContext, FlushEvent.FLUSH);
+        leaderState.onEvent(serverContext, appendResponse(FOLLOWER_ID, true, 2));
+
+        //then
+        assertThat(volatileState.commitIndex()).isEqualTo(2);
+    }
+
+    private Command command(final int commandIndex) {
+        final Command command = directFactory.command()
+                .sourceId(7)
+                .commandIndex(commandIndex);
+        command.commandPayload().bytesFrom(new byte[PAYLOAD_LENGTH], 0, PAYLOAD_LENGTH);
+        return command;
+    }
+
+    private AppendResponse appendResponse(final int serverId, final boolean successful, final long matchLogIndex) {
+        return directFactory.appendResponse()
+                .term(persistentState.currentTerm())
+                .serverId(serverId)
+                .successful(successful)
+                .matchLogIndex(matchLogIndex);
+    }
+
+    private AppendResponse appendFailure(final int serverId, final long prevLogIndex,
+                                         final int conflictTerm, final long conflictIndex) {
+        return appendResponse(serverId, false, prevLogIndex)
+                .conflictTerm(conflictTerm)
+                .conflictIndex(conflictIndex);
+    }
+
+    private static List<AppendRequest> sentAppendRequests(final Sender<Message> sender, final int times) {
+        final ArgumentCaptor<AppendRequest> captor = ArgumentCaptor.forClass(AppendRequest.class);
+        verify(sender, times(times)).offer(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private int entryCount(final AppendRequest appendRequest) {
+        final LogEntry logEntry = directFactory.logEntry();
+        final Sequence.SequenceIterator<LogEntry> iterator = appendRequest.logEntries().iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.readNextTo(logEntry);
+            count++;
+        }
+        return count;
+    }
+}
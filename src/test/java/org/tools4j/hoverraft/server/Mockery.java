@@ -52,6 +52,13 @@ public class Mockery {
         return server(servers, sources, connections, new AllocatingDirectFactory());
     }
 
+    public static ServerContext simple(final ConsensusConfig consensusConfig) {
+        return new Server(SERVER_ID,
+                consensusConfig, persistentState(), volatileState(consensusConfig),
+                stateMachine(), connections(consensusConfig.serverCount(), consensusConfig.sourceCount()),
+                new AllocatingDirectFactory());
+    }
+
     private static ServerContext server(final int servers, final int sources, final int connections,
                                         final DirectFactory directFactory) {
         final ConsensusConfig consensusConfig = consensusConfig(servers, sources);
@@ -61,6 +68,10 @@ public class Mockery {
     }
 
     public static ConsensusConfig consensusConfig(final int servers, final int sources) {
+        return configBuilder(servers, sources).build();
+    }
+
+    public static ConfigBuilder configBuilder(final int servers, final int sources) {
         final ConfigBuilder configBuilder = new ConfigBuilder()
                 .minElectionTimeoutMillis(MIN_ELECTION_TIMEOUT_MILLIS)
                 .maxElectionTimeoutMillis(MAX_ELECTION_TIMEOUT_MILLIS)
@@ -71,7 +82,7 @@ public class Mockery {
         for (int i = 1; i <= sources; i++) {
             configBuilder.addSource(i, "source-" + i);
         }
-        return configBuilder.build();
+        return configBuilder;
     }
 
     public static StateMachine stateMachine() {
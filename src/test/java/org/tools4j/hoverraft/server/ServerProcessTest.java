@@ -0,0 +1,189 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.server;
+
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tools4j.hoverraft.cluster.InMemoryClusterTransport;
+import org.tools4j.hoverraft.cluster.TestCluster;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.config.ThreadingMode;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ServerProcessTest {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final long COMMAND_COUNT = 100;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void run_should_pass_work_count_to_idle_strategy() throws Exception {
+        //given
+        final ServerContext serverContext = mock(ServerContext.class);
+        when(serverContext.consensusConfig()).thenReturn(Mockery.consensusConfig(1, 0));
+        when(serverContext.perform()).thenReturn(1, 0);
+        final AtomicInteger workIdles = new AtomicInteger();
+        final AtomicInteger noWorkIdles = new AtomicInteger();
+        final ServerProcess serverProcess = new ServerProcess(serverContext, () -> new IdleStrategy() {
+            @Override
+            public void idle(final int workCount) {
+                (workCount > 0 ? workIdles : noWorkIdles).incrementAndGet();
+            }
+
+            @Override
+            public void idle() {
+                noWorkIdles.incrementAndGet();
+            }
+
+            @Override
+            public void reset() {
+                //no op
+            }
+        });
+
+        //when
+        serverProcess.start();
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (noWorkIdles.get() < 10 && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        serverProcess.terminate();
+        serverProcess.awaitTermination(10, TimeUnit.SECONDS);
+
+        //then
+        assertThat(workIdles.get()).isEqualTo(1);
+        assertThat(noWorkIdles.get()).isGreaterThanOrEqualTo(10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_should_reject_server_context_requiring_apply_thread() throws Exception {
+        //given
+        final ServerContext serverContext = mock(ServerContext.class);
+        when(serverContext.consensusConfig()).thenReturn(Mockery.configBuilder(1, 0)
+                .dedicatedApplyThread(true)
+                .build());
+
+        //when
+        new ServerProcess(serverContext);
+    }
+
+    @Test
+    public void start_should_apply_committed_entries_in_dedicated_apply_thread() throws Exception {
+        //given
+        final ConsensusConfig consensusConfig = TestCluster.configBuilder(3)
+                .dedicatedApplyThread(true)
+                .build();
+
+        //when + then
+        assertCommandsApplied(consensusConfig);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_should_reject_server_context_requiring_source_threads() throws Exception {
+        //given
+        final ServerContext serverContext = mock(ServerContext.class);
+        when(serverContext.consensusConfig()).thenReturn(Mockery.configBuilder(1, 1)
+                .threadingMode(ThreadingMode.SOURCES_SHARED)
+                .build());
+
+        //when
+        new ServerProcess(serverContext);
+    }
+
+    @Test
+    public void start_should_poll_sources_in_shared_source_thread() throws Exception {
+        //given
+        final ConsensusConfig consensusConfig = TestCluster.configBuilder(3)
+                .threadingMode(ThreadingMode.SOURCES_SHARED)
+                .build();
+
+        //when + then
+        assertCommandsApplied(consensusConfig);
+    }
+
+    @Test
+    public void start_should_poll_sources_in_dedicated_source_threads() throws Exception {
+        //given
+        final ConsensusConfig consensusConfig = TestCluster.configBuilder(3)
+                .threadingMode(ThreadingMode.DEDICATED)
+                .dedicatedApplyThread(true)
+                .build();
+
+        //when + then
+        assertCommandsApplied(consensusConfig);
+    }
+
+    private void assertCommandsApplied(final ConsensusConfig consensusConfig) throws Exception {
+        try (final TestCluster cluster = new TestCluster(consensusConfig,
+                new InMemoryClusterTransport(consensusConfig), folder.newFolder("data"))) {
+            final ServerProcess[] processes = new ServerProcess[cluster.serverCount()];
+            for (int i = 0; i < processes.length; i++) {
+                processes[i] = new ServerProcess(cluster.server(i), ServerProcessTest::idleStrategy);
+                processes[i].start();
+            }
+            try {
+                //commands sent before a leader has been elected are ignored
+                final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+                while (!isApplied(cluster, COMMAND_COUNT) && System.currentTimeMillis() < deadline) {
+                    cluster.offerCommand();
+                    Thread.sleep(1);
+                }
+            } finally {
+                for (final ServerProcess process : processes) {
+                    process.terminate();
+                }
+                for (final ServerProcess process : processes) {
+                    process.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+            for (int i = 0; i < cluster.serverCount(); i++) {
+                assertThat(cluster.applied(i)).isGreaterThanOrEqualTo(COMMAND_COUNT);
+            }
+        }
+    }
+
+    private static IdleStrategy idleStrategy() {
+        return new BackoffIdleStrategy(10, 10, TimeUnit.MICROSECONDS.toNanos(1), TimeUnit.MICROSECONDS.toNanos(100));
+    }
+
+    private static boolean isApplied(final TestCluster cluster, final long count) {
+        for (int i = 0; i < cluster.serverCount(); i++) {
+            if (cluster.volatileState(i).lastApplied() < count - 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.server;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tools4j.hoverraft.command.InMemoryCommandLog;
+import org.tools4j.hoverraft.command.machine.StateMachine;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.state.PersistentState;
+import org.tools4j.hoverraft.util.Files;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+public class ServerTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final ConsensusConfig snapshotConfig = Mockery.configBuilder(3, 0)
+            .snapshotLogEntryThreshold(100)
+            .build();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_should_reject_snapshots_with_command_log_not_supporting_compaction() throws Exception {
+        //given
+        final StateMachine stateMachine = Mockery.stateMachine();
+        when(stateMachine.supportsSnapshots()).thenReturn(true);
+
+        //when
+        server(Mockery.persistentState(), stateMachine);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_should_reject_snapshots_with_state_machine_not_supporting_snapshots() throws Exception {
+        //given
+        final PersistentState persistentState = Mockery.persistentState();
+        when(persistentState.commandLog()).thenReturn(new InMemoryCommandLog());
+
+        //when
+        server(persistentState, Mockery.stateMachine());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_should_reject_apply_thread_with_command_log_not_supporting_concurrent_reads()
+            throws Exception {
+        //given
+        final ConsensusConfig consensusConfig = Mockery.configBuilder(3, 0)
+                .dedicatedApplyThread(true)
+                .build();
+
+        //when
+        server(consensusConfig, Mockery.persistentState(), Mockery.stateMachine(), folder.getRoot());
+    }
+
+    @Test
+    public void constructor_should_map_counters_file_in_given_directory() throws Exception {
+        //given
+        final ConsensusConfig consensusConfig = Mockery.consensusConfig(3, 0);
+        final File first = folder.newFolder("first");
+        final File second = folder.newFolder("second");
+
+        //when
+        try (final Server firstServer = server(consensusConfig, Mockery.persistentState(), Mockery.stateMachine(),
+                first);
+             final Server secondServer = server(consensusConfig, Mockery.persistentState(), Mockery.stateMachine(),
+                     second)) {
+            //then
+            assertThat(new File(first, Files.fileName(Mockery.SERVER_ID, "counters"))).isFile();
+            assertThat(new File(second, Files.fileName(Mockery.SERVER_ID, "counters"))).isFile();
+            assertThat(firstServer.counters()).isNotSameAs(secondServer.counters());
+        }
+    }
+
+    private Server server(final PersistentState persistentState, final StateMachine stateMachine) {
+        return server(snapshotConfig, persistentState, stateMachine, folder.getRoot());
+    }
+
+    private Server server(final ConsensusConfig consensusConfig,
+                          final PersistentState persistentState,
+                          final StateMachine stateMachine,
+                          final File directory) {
+        return new Server(Mockery.SERVER_ID, consensusConfig, persistentState,
+                Mockery.volatileState(consensusConfig), stateMachine,
+                Mockery.connections(consensusConfig.serverCount(), consensusConfig.sourceCount()),
+                new AllocatingDirectFactory(), directory);
+    }
+}
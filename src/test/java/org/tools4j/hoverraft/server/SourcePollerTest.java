@@ -0,0 +1,99 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.server;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+import org.agrona.concurrent.status.CountersReader;
+import org.junit.Test;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.transport.Receiver;
+import org.tools4j.hoverraft.transport.embedded.RingBufferMessageBus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SourcePollerTest {
+
+    private final DirectFactory directFactory = new AllocatingDirectFactory();
+    private final RingBufferMessageBus<Command> commandQueue = RingBufferMessageBus.oneToOneCommandBus(1024);
+    private final AtomicCounter commandsDropped = new CountersManager(
+            new UnsafeBuffer(new byte[CountersReader.METADATA_LENGTH]),
+            new UnsafeBuffer(new byte[CountersReader.COUNTER_LENGTH])).newCounter("commands dropped");
+
+    @Test
+    public void poll_should_drop_and_count_commands_longer_than_max_message_length() throws Exception {
+        //given
+        final int tooLong = commandQueue.maxMessageLength();
+        final RingBufferMessageBus<Command> source = RingBufferMessageBus.oneToOneCommandBus(16 * tooLong);
+        source.offer(command(1, 8));
+        source.offer(command(2, tooLong));
+        source.offer(command(3, 8));
+        final SourcePoller sourcePoller = sourcePoller(source);
+        final List<Long> received = new ArrayList<>();
+
+        //when
+        final int polled = sourcePoller.poll();
+
+        //then
+        assertThat(polled).isEqualTo(3);
+        assertThat(commandsDropped.get()).isEqualTo(1);
+        assertThat(commandQueue.poll(c -> received.add(c.commandKey().commandIndex()), 10)).isEqualTo(2);
+        assertThat(received).containsExactly(1L, 3L);
+    }
+
+    @Test
+    public void poll_should_drop_and_count_command_if_queue_is_full_and_process_not_running() throws Exception {
+        //given
+        final RingBufferMessageBus<Command> source = RingBufferMessageBus.oneToOneCommandBus(1024);
+        final SourcePoller sourcePoller = new SourcePoller(source, commandQueue, commandsDropped, 1, () -> false);
+        int offered = 0;
+        while (commandQueue.offer(command(offered, 8)) >= 0) {
+            offered++;
+        }
+        source.offer(command(offered, 8));
+
+        //when
+        sourcePoller.poll();
+
+        //then
+        assertThat(commandsDropped.get()).isEqualTo(1);
+        assertThat(commandQueue.poll(c -> {}, offered + 1)).isEqualTo(offered);
+    }
+
+    private SourcePoller sourcePoller(final Receiver<Command> source) {
+        return new SourcePoller(source, commandQueue, commandsDropped, 10, () -> true);
+    }
+
+    private Command command(final long commandIndex, final int payloadLength) {
+        final Command command = directFactory.command().sourceId(1).commandIndex(commandIndex);
+        command.commandPayload().bytesFrom(new byte[payloadLength], 0, payloadLength);
+        return command;
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.state;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tools4j.hoverraft.server.Mockery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AbstractStateTest {
+
+    private PersistentState persistentState;
+    private VolatileState volatileState;
+
+    @Before
+    public void init() {
+        persistentState = Mockery.persistentState();
+        volatileState = Mockery.volatileState(Mockery.consensusConfig(3, 1));
+    }
+
+    @Test
+    public void eventHandler_isSameInstanceForEveryEvent() throws Exception {
+        //given
+        final AbstractState[] states = {
+                new FollowerState(persistentState, volatileState),
+                new CandidateState(persistentState, volatileState),
+                new LeaderState(persistentState, volatileState)
+        };
+
+        for (final AbstractState state : states) {
+            //when
+            final Object first = state.eventHandler();
+            final Object second = state.eventHandler();
+
+            //then
+            assertThat(first).as(state.role().name()).isNotNull().isSameAs(second);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.state;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.command.CommandLog;
+import org.tools4j.hoverraft.command.InMemoryCommandLog;
+import org.tools4j.hoverraft.command.LogCursor;
+import org.tools4j.hoverraft.command.machine.StateMachine;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.server.Mockery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+public class CommittedLogApplierTest {
+
+    private final DirectFactory directFactory = new AllocatingDirectFactory();
+    private final CommandLog commandLog = new InMemoryCommandLog();
+    private final List<Long> applied = new ArrayList<>();
+    private final List<Long> batchSizes = new ArrayList<>();
+
+    private VolatileState volatileState;
+
+    //under test
+    private CommittedLogApplier committedLogApplier;
+
+    @Before
+    public void init() {
+        final PersistentState persistentState = Mockery.persistentState();
+        when(persistentState.commandLog()).thenReturn(commandLog);
+        volatileState = Mockery.volatileState(Mockery.consensusConfig(3, 0));
+        committedLogApplier = new CommittedLogApplier(persistentState, volatileState);
+    }
+
+    @Test
+    public void applyCommitted_should_apply_committed_range_as_batch() throws Exception {
+        //given
+        for (int i = 0; i < 5; i++) {
+            commandLog.append(1, command(i));
+        }
+        volatileState.commitIndex(3);
+
+        //when
+        final int count = committedLogApplier.applyCommitted(stateMachine());
+
+        //then
+        assertThat(count).isEqualTo(4);
+        assertThat(applied).containsExactly(0L, 1L, 2L, 3L);
+        assertThat(batchSizes).containsExactly(4L);
+        assertThat(volatileState.lastApplied()).isEqualTo(3);
+        assertThat(committedLogApplier.applyCommitted(stateMachine())).isEqualTo(0);
+    }
+
+    @Test
+    public void applyCommitted_should_follow_commitIndex_from_other_thread() throws Exception {
+        //given
+        final int entries = 10000;
+        final StateMachine stateMachine = stateMachine();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final Thread applyThread = new Thread(() -> {
+            while (running.get()) {
+                committedLogApplier.applyCommitted(stateMachine);
+            }
+        });
+        applyThread.start();
+
+        //when
+        for (int i = 0; i < entries; i++) {
+            commandLog.append(1, command(i));
+            volatileState.commitIndex(i);
+        }
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (volatileState.lastApplied() < entries - 1 && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        running.set(false);
+        applyThread.join();
+
+        //then
+        assertThat(volatileState.lastApplied()).isEqualTo(entries - 1);
+        assertThat(applied).hasSize(entries);
+        for (int i = 0; i < entries; i++) {
+            assertThat(applied.get(i)).isEqualTo(i);
+        }
+    }
+
+    private StateMachine stateMachine() {
+        return new StateMachine() {
+            @Override
+            public void onMessage(final Command message) {
+                applied.add(message.commandKey().commandIndex());
+            }
+
+            @Override
+            public void onCommitted(final LogCursor committed) {
+                batchSizes.add(committed.size());
+                StateMachine.super.onCommitted(committed);
+            }
+        };
+    }
+
+    private Command command(final int commandIndex) {
+        final Command command = directFactory.command().sourceId(1).commandIndex(commandIndex);
+        command.commandPayload().bytesFrom(new byte[0], 0, 0);
+        return command;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.state;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tools4j.hoverraft.command.mapped.MappedCommandLog;
+import org.tools4j.hoverraft.config.CommandLogType;
+import org.tools4j.hoverraft.config.ConfigBuilder;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+import org.tools4j.hoverraft.transport.chronicle.ChronicleCommandLog;
+import org.tools4j.hoverraft.util.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DirectPersistentStateTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private String fileDirectory;
+
+    @Before
+    public void init() {
+        fileDirectory = System.getProperty(Files.SYS_PROP_FILE_DIR);
+        System.setProperty(Files.SYS_PROP_FILE_DIR, folder.getRoot().getAbsolutePath());
+    }
+
+    @After
+    public void restoreFileDirectory() {
+        if (fileDirectory == null) {
+            System.clearProperty(Files.SYS_PROP_FILE_DIR);
+        } else {
+            System.setProperty(Files.SYS_PROP_FILE_DIR, fileDirectory);
+        }
+    }
+
+    @Test
+    public void constructor_should_create_mapped_command_log_by_default() throws Exception {
+        //given
+        final ConsensusConfig consensusConfig = new ConfigBuilder().addServer(1, "server-1").build();
+
+        //when
+        final DirectPersistentState persistentState = new DirectPersistentState(consensusConfig.serverConfig(0),
+                consensusConfig);
+
+        //then
+        assertThat(persistentState.commandLog()).isInstanceOf(MappedCommandLog.class);
+        ((MappedCommandLog)persistentState.commandLog()).close();
+    }
+
+    @Test
+    public void constructor_should_create_configured_command_log() throws Exception {
+        //given
+        final ConsensusConfig consensusConfig = new ConfigBuilder()
+                .commandLogType(CommandLogType.CHRONICLE)
+                .addServer(1, "server-1")
+                .build();
+
+        //when
+        final DirectPersistentState persistentState = new DirectPersistentState(consensusConfig.serverConfig(0),
+                consensusConfig);
+
+        //then
+        assertThat(persistentState.commandLog()).isInstanceOf(ChronicleCommandLog.class);
+    }
+}
@@ -24,6 +24,8 @@
 package org.tools4j.hoverraft.state;
 
 import org.junit.Test;
+import org.tools4j.hoverraft.command.CommandLog;
+import org.tools4j.hoverraft.command.DirectLogEntry;
 import org.tools4j.hoverraft.command.InMemoryCommandLog;
 import org.tools4j.hoverraft.command.LogEntry;
 import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
@@ -47,4 +49,65 @@ public class InMemoryCommandLogTest {
 
         assertThat(commandLog.size()).isEqualTo(1);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void lastTerm_should_return_no_term_for_empty_log() throws Exception {
+        final InMemoryCommandLog commandLog = new InMemoryCommandLog();
+        final LogEntry logEntry = new AllocatingDirectFactory().logEntry();
+
+        commandLog.lastKeyTo(logEntry.logKey());
+
+        assertThat(commandLog.lastTerm()).isEqualTo(CommandLog.NO_TERM);
+        assertThat(logEntry.logKey().term()).isEqualTo(CommandLog.NO_TERM);
+        assertThat(logEntry.logKey().index()).isEqualTo(-1);
+    }
+
+    @Test
+    public void wrap_should_wrap_logEntry_without_copy() throws Exception {
+        final AllocatingDirectFactory factory = new AllocatingDirectFactory();
+        final LogEntry logEntry = factory.logEntry();
+        logEntry.command().sourceId(3).commandIndex(42);
+        logEntry.command().commandPayload().bytesFrom(new byte[] {1, 2, 3}, 0, 3);
+
+        final InMemoryCommandLog commandLog = new InMemoryCommandLog();
+        commandLog.append(5, logEntry.command());
+
+        final LogEntry flyweight = new DirectLogEntry();
+        commandLog.wrap(0, flyweight);
+
+        assertThat(flyweight.writeBufferOrNull()).isNull();
+        assertThat(flyweight.logKey().term()).isEqualTo(5);
+        assertThat(flyweight.logKey().index()).isEqualTo(0);
+        assertThat(flyweight.command().commandKey().sourceId()).isEqualTo(3);
+        assertThat(flyweight.command().commandKey().commandIndex()).isEqualTo(42);
+        assertThat(flyweight.command().commandPayload().commandByteLength()).isEqualTo(3);
+    }
+
+    @Test
+    public void compactIncluding_should_discard_prefix_and_keep_indices() throws Exception {
+        final AllocatingDirectFactory factory = new AllocatingDirectFactory();
+        final LogEntry logEntry = factory.logEntry();
+        logEntry.command().commandPayload().bytesFrom(new byte[] {}, 0, 0);
+
+        final InMemoryCommandLog commandLog = new InMemoryCommandLog();
+        for (int i = 0; i < 5; i++) {
+            commandLog.append(i < 3 ? 1 : 2, logEntry.command().sourceId(1).commandIndex(i));
+        }
+
+        commandLog.compactIncluding(1, 2);
+
+        assertThat(commandLog.firstIndex()).isEqualTo(3);
+        assertThat(commandLog.size()).isEqualTo(5);
+        assertThat(commandLog.readTerm(2)).isEqualTo(1);
+        assertThat(commandLog.readTerm(3)).isEqualTo(2);
+        assertThat(commandLog.contains(logEntry.command().commandIndex(1).commandKey())).isTrue();
+
+        commandLog.compactIncluding(3, 7);
+        commandLog.append(3, logEntry.command().commandIndex(5));
+
+        assertThat(commandLog.firstIndex()).isEqualTo(8);
+        assertThat(commandLog.lastIndex()).isEqualTo(8);
+        assertThat(commandLog.readTerm(7)).isEqualTo(3);
+        assertThat(commandLog.readTerm(8)).isEqualTo(3);
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.state;
+
+import org.junit.Test;
+import org.tools4j.hoverraft.config.ConfigBuilder;
+import org.tools4j.hoverraft.config.ConsensusConfig;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QuorumMatchIndexTest {
+
+    @Test
+    public void should_return_index_stored_on_majority_of_three() throws Exception {
+        //given
+        final VolatileState volatileState = volatileState(3);
+        final QuorumMatchIndex quorumMatchIndex = new QuorumMatchIndex(3);
+        volatileState.followerState(0).onAppendSuccess(4);
+
+        //when
+        final long quorumIndex = quorumMatchIndex.quorumIndex(7, volatileState);
+
+        //then
+        assertThat(quorumIndex).isEqualTo(4);
+    }
+
+    @Test
+    public void should_include_leader_in_majority_of_five() throws Exception {
+        //given
+        final VolatileState volatileState = volatileState(5);
+        final QuorumMatchIndex quorumMatchIndex = new QuorumMatchIndex(5);
+        volatileState.followerState(0).onAppendSuccess(9);
+        volatileState.followerState(1).onAppendSuccess(3);
+        volatileState.followerState(2).onAppendSuccess(6);
+
+        //when
+        final long quorumIndex = quorumMatchIndex.quorumIndex(9, volatileState);
+
+        //then: stored on leader and on followers with 9 and 6
+        assertThat(quorumIndex).isEqualTo(6);
+    }
+
+    @Test
+    public void should_return_minus_one_without_majority() throws Exception {
+        //given
+        final VolatileState volatileState = volatileState(4);
+        final QuorumMatchIndex quorumMatchIndex = new QuorumMatchIndex(4);
+        volatileState.followerState(0).onAppendSuccess(2);
+
+        //when
+        final long quorumIndex = quorumMatchIndex.quorumIndex(5, volatileState);
+
+        //then
+        assertThat(quorumIndex).isEqualTo(-1);
+    }
+
+    @Test
+    public void select_should_match_sorted_position() throws Exception {
+        final Random random = new Random(42);
+        for (int length = 1; length <= 9; length++) {
+            for (int run = 0; run < 100; run++) {
+                //given
+                final long[] values = new long[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = random.nextInt(5) - 1;
+                }
+                final long[] sorted = values.clone();
+                Arrays.sort(sorted);
+                final int position = random.nextInt(length);
+
+                //when
+                final long selected = QuorumMatchIndex.select(values, position);
+
+                //then
+                assertThat(selected).isEqualTo(sorted[position]);
+            }
+        }
+    }
+
+    private static VolatileState volatileState(final int serverCount) {
+        final ConfigBuilder configBuilder = new ConfigBuilder();
+        for (int id = 1; id <= serverCount; id++) {
+            configBuilder.addServer(id, "server-" + id);
+        }
+        final ConsensusConfig consensusConfig = configBuilder.build();
+        final VolatileState volatileState = new VolatileState(1, consensusConfig);
+        volatileState.resetFollowersState(0);
+        return volatileState;
+    }
+}
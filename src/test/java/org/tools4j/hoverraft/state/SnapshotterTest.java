@@ -0,0 +1,238 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.state;
+
+import org.agrona.DirectBuffer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.command.CommandLog;
+import org.tools4j.hoverraft.command.InMemoryCommandLog;
+import org.tools4j.hoverraft.command.machine.StateMachine;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.message.InstallSnapshot;
+import org.tools4j.hoverraft.server.Mockery;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class SnapshotterTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final DirectFactory directFactory = new AllocatingDirectFactory();
+    private final CommandLog commandLog = new InMemoryCommandLog();
+
+    private PersistentState persistentState;
+    private VolatileState volatileState;
+    private File snapshotFile;
+
+    //under test
+    private Snapshotter snapshotter;
+
+    @Before
+    public void init() {
+        persistentState = Mockery.persistentState();
+        when(persistentState.commandLog()).thenReturn(commandLog);
+        doAnswer(invocation -> {
+            commandLog.compactIncluding((Integer) invocation.getArguments()[0], (Long) invocation.getArguments()[1]);
+            return null;
+        }).when(persistentState).snapshotTaken(anyInt(), anyLong());
+        volatileState = Mockery.volatileState(Mockery.consensusConfig(3, 0));
+        snapshotFile = new File(folder.getRoot(), "snapshot");
+        snapshotter = new Snapshotter(snapshotFile, persistentState, volatileState, 4);
+    }
+
+    @Test
+    public void takeSnapshot_should_write_snapshot_when_threshold_is_reached() throws Exception {
+        //given
+        final SummingStateMachine stateMachine = new SummingStateMachine();
+        append(1, 3);
+        volatileState.commitIndex(2).lastApplied(2);
+
+        //when
+        final int belowThreshold = snapshotter.takeSnapshot(stateMachine);
+        append(2, 2);
+        volatileState.commitIndex(4).lastApplied(4);
+        stateMachine.sum = 42;
+        final int taken = snapshotter.takeSnapshot(stateMachine);
+        final int pending = snapshotter.takeSnapshot(stateMachine);
+
+        //then
+        assertThat(belowThreshold).isEqualTo(0);
+        assertThat(taken).isEqualTo(1);
+        assertThat(pending).isEqualTo(0);
+        assertThat(snapshotFile.exists()).isTrue();
+        verify(persistentState, never()).snapshotTaken(anyInt(), anyLong());
+
+        //when
+        final int compacted = snapshotter.compactLog();
+
+        //then
+        assertThat(compacted).isEqualTo(1);
+        assertThat(snapshotter.compactLog()).isEqualTo(0);
+        verify(persistentState).snapshotTaken(2, 4);
+        assertThat(commandLog.firstIndex()).isEqualTo(5);
+    }
+
+    @Test
+    public void recover_should_load_snapshot_and_advance_applied_index() throws Exception {
+        //given
+        final SummingStateMachine stateMachine = new SummingStateMachine();
+        append(1, 6);
+        volatileState.commitIndex(5).lastApplied(5);
+        stateMachine.sum = 17;
+        snapshotter.takeSnapshot(stateMachine);
+        snapshotter.compactLog();
+
+        final VolatileState recoveredState = Mockery.volatileState(Mockery.consensusConfig(3, 0));
+        final SummingStateMachine recoveredMachine = new SummingStateMachine();
+        final Snapshotter recovering = new Snapshotter(snapshotFile, persistentState, recoveredState, 4);
+
+        //when
+        final long index = recovering.recover(recoveredMachine);
+
+        //then
+        assertThat(index).isEqualTo(5);
+        assertThat(recoveredMachine.sum).isEqualTo(17);
+        assertThat(recoveredState.commitIndex()).isEqualTo(5);
+        assertThat(recoveredState.lastApplied()).isEqualTo(5);
+    }
+
+    @Test
+    public void receiveChunk_should_install_snapshot_sent_in_chunks() throws Exception {
+        //given
+        final SummingStateMachine stateMachine = new SummingStateMachine();
+        append(1, 6);
+        volatileState.commitIndex(5).lastApplied(5);
+        stateMachine.sum = 23;
+        snapshotter.takeSnapshot(stateMachine);
+        snapshotter.compactLog();
+        final DirectBuffer snapshot = snapshotter.mappedSnapshot();
+
+        final CommandLog followerLog = new InMemoryCommandLog();
+        final PersistentState followerPersistentState = Mockery.persistentState();
+        when(followerPersistentState.commandLog()).thenReturn(followerLog);
+        final VolatileState followerState = Mockery.volatileState(Mockery.consensusConfig(3, 1));
+        final SummingStateMachine followerMachine = new SummingStateMachine();
+        final Snapshotter follower = new Snapshotter(folder.newFile("follower.snapshot"),
+                followerPersistentState, followerState, 4);
+        final InstallSnapshot installSnapshot = directFactory.installSnapshot();
+        final int chunkLength = 5;
+
+        //when
+        long position = 0;
+        while (position < snapshot.capacity()) {
+            final int length = (int)Math.min(chunkLength, snapshot.capacity() - position);
+            installSnapshot.term(2).leaderId(0)
+                    .snapshotByteLength(snapshot.capacity())
+                    .chunkPosition(position)
+                    .lastIncludedLogKey().term(1).index(5);
+            installSnapshot.chunkFrom(snapshot, (int)position, length);
+            assertThat(follower.installReceived(followerMachine)).isEqualTo(0);
+            position = follower.receiveChunk(installSnapshot);
+        }
+        final int installed = follower.installReceived(followerMachine);
+        final int compacted = follower.compactLog();
+
+        //then
+        assertThat(position).isEqualTo(snapshot.capacity());
+        assertThat(installed).isEqualTo(1);
+        assertThat(compacted).isEqualTo(1);
+        assertThat(followerMachine.sum).isEqualTo(23);
+        assertThat(followerState.lastApplied()).isEqualTo(5);
+        assertThat(followerState.commitIndex()).isEqualTo(5);
+        assertThat(follower.isInstalled(5)).isTrue();
+        verify(followerPersistentState).snapshotTaken(1, 5);
+    }
+
+    @Test
+    public void close_should_release_mapped_snapshot() throws Exception {
+        //given
+        final SummingStateMachine stateMachine = new SummingStateMachine();
+        append(1, 6);
+        volatileState.commitIndex(5).lastApplied(5);
+        snapshotter.takeSnapshot(stateMachine);
+        snapshotter.compactLog();
+        final DirectBuffer snapshot = snapshotter.mappedSnapshot();
+        final int capacity = snapshot.capacity();
+
+        //when
+        snapshotter.close();
+
+        //then
+        assertThat(capacity).isGreaterThan(0);
+        assertThat(snapshot.capacity()).isEqualTo(0);
+
+        //when
+        final DirectBuffer remapped = snapshotter.mappedSnapshot();
+
+        //then
+        assertThat(remapped.capacity()).isEqualTo(capacity);
+        assertThat(Snapshotter.snapshotIndex(remapped)).isEqualTo(5);
+    }
+
+    private void append(final int term, final int count) {
+        for (int i = 0; i < count; i++) {
+            final Command command = directFactory.command().sourceId(1).commandIndex(commandLog.size());
+            command.commandPayload().bytesFrom(new byte[0], 0, 0);
+            commandLog.append(term, command);
+        }
+    }
+
+    private static final class SummingStateMachine implements StateMachine {
+        private long sum;
+
+        @Override
+        public void onMessage(final Command message) {
+            sum += message.commandKey().commandIndex();
+        }
+
+        @Override
+        public void writeSnapshot(final OutputStream out) throws IOException {
+            new DataOutputStream(out).writeLong(sum);
+        }
+
+        @Override
+        public void loadSnapshot(final InputStream in) throws IOException {
+            sum = new DataInputStream(in).readLong();
+        }
+
+        @Override
+        public boolean supportsSnapshots() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.state;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TrackedFollowerStateTest {
+
+    private final TrackedFollowerState followerState = new TrackedFollowerState(2, 3);
+
+    @Before
+    public void init() {
+        followerState.reset(10);
+    }
+
+    @Test
+    public void reset_should_probe_with_single_request() throws Exception {
+        assertThat(followerState.isProbing()).isTrue();
+        assertThat(followerState.hasInflightCapacity()).isTrue();
+
+        followerState.onAppendRequestSent(9, 9);
+
+        assertThat(followerState.hasInflightCapacity()).isFalse();
+        assertThat(followerState.nextIndex()).isEqualTo(10);
+        assertThat(followerState.matchIndex()).isEqualTo(-1);
+    }
+
+    @Test
+    public void success_should_open_inflight_window() throws Exception {
+        followerState.onAppendRequestSent(9, 9).onAppendSuccess(9);
+
+        assertThat(followerState.isProbing()).isFalse();
+        assertThat(followerState.matchIndex()).isEqualTo(9);
+
+        followerState.onAppendRequestSent(9, 12)
+                .onAppendRequestSent(12, 15)
+                .onAppendRequestSent(15, 15);
+
+        assertThat(followerState.inflightCount()).isEqualTo(3);
+        assertThat(followerState.hasInflightCapacity()).isFalse();
+        assertThat(followerState.nextIndex()).isEqualTo(16);
+
+        followerState.onAppendSuccess(12);
+
+        assertThat(followerState.inflightCount()).isEqualTo(2);
+        assertThat(followerState.matchIndex()).isEqualTo(12);
+        assertThat(followerState.nextIndex()).isEqualTo(16);
+    }
+
+    @Test
+    public void failure_should_walk_back_and_ignore_stale_responses() throws Exception {
+        followerState.onAppendRequestSent(9, 9).onAppendSuccess(9);
+        followerState.onAppendRequestSent(9, 12)
+                .onAppendRequestSent(12, 15);
+
+        followerState.onAppendFailure(9, Long.MAX_VALUE);
+
+        assertThat(followerState.isProbing()).isTrue();
+        assertThat(followerState.inflightCount()).isEqualTo(0);
+        assertThat(followerState.nextIndex()).isEqualTo(10);
+
+        //stale response of second request
+        followerState.onAppendFailure(12, Long.MAX_VALUE);
+        assertThat(followerState.nextIndex()).isEqualTo(10);
+
+        followerState.onAppendRequestSent(9, 10).onAppendSuccess(10);
+        assertThat(followerState.isProbing()).isFalse();
+        assertThat(followerState.matchIndex()).isEqualTo(10);
+        assertThat(followerState.nextIndex()).isEqualTo(11);
+    }
+
+    @Test
+    public void failure_should_jump_to_conflict_hint() throws Exception {
+        followerState.onAppendRequestSent(9, 12);
+
+        followerState.onAppendFailure(9, 3);
+
+        assertThat(followerState.isProbing()).isTrue();
+        assertThat(followerState.nextIndex()).isEqualTo(3);
+    }
+
+    @Test
+    public void failure_should_apply_to_rejected_request_after_lost_response() throws Exception {
+        followerState.onAppendRequestSent(9, 9).onAppendSuccess(9);
+        followerState.onAppendRequestSent(9, 12)
+                .onAppendRequestSent(12, 15)
+                .onAppendRequestSent(15, 18);
+
+        //response of first request lost, second request rejected
+        followerState.onAppendFailure(12, 11);
+
+        assertThat(followerState.isProbing()).isTrue();
+        assertThat(followerState.inflightCount()).isEqualTo(0);
+        assertThat(followerState.nextIndex()).isEqualTo(11);
+
+        //stale rejection of third request
+        followerState.onAppendFailure(15, 11);
+
+        assertThat(followerState.nextIndex()).isEqualTo(11);
+
+        //probe is rejected again
+        followerState.onAppendRequestSent(10, 12).onAppendFailure(10, 10);
+
+        assertThat(followerState.isProbing()).isTrue();
+        assertThat(followerState.nextIndex()).isEqualTo(10);
+
+        //probe succeeds
+        followerState.onAppendRequestSent(9, 12).onAppendSuccess(12);
+
+        assertThat(followerState.isProbing()).isFalse();
+        assertThat(followerState.matchIndex()).isEqualTo(12);
+        assertThat(followerState.nextIndex()).isEqualTo(13);
+    }
+
+    @Test
+    public void resetInflight_should_resend_oldest_unacknowledged_request() throws Exception {
+        followerState.onAppendRequestSent(9, 9).onAppendSuccess(9);
+        followerState.onAppendRequestSent(9, 12)
+                .onAppendRequestSent(12, 15);
+
+        followerState.resetInflight();
+
+        assertThat(followerState.inflightCount()).isEqualTo(0);
+        assertThat(followerState.nextIndex()).isEqualTo(10);
+    }
+
+    @Test
+    public void heartbeat_should_expire_inflight_requests_only_after_whole_interval_without_progress() throws Exception {
+        followerState.onAppendRequestSent(9, 9).onAppendSuccess(9);
+        followerState.onAppendRequestSent(9, 12);
+
+        assertThat(followerState.onHeartbeat()).isFalse();
+
+        followerState.onAppendRequestSent(12, 15)
+                .onAppendSuccess(12);
+
+        assertThat(followerState.onHeartbeat()).isFalse();
+        assertThat(followerState.onHeartbeat()).isTrue();
+
+        followerState.onAppendSuccess(15);
+
+        assertThat(followerState.onHeartbeat()).isFalse();
+        assertThat(followerState.onHeartbeat()).isFalse();
+    }
+
+    @Test
+    public void resetInflight_should_ignore_late_responses_to_discarded_requests() throws Exception {
+        followerState.onAppendRequestSent(9, 9).onAppendSuccess(9);
+        followerState.onAppendRequestSent(9, 12)
+                .onAppendRequestSent(12, 15);
+
+        followerState.resetInflight();
+        followerState.onAppendRequestSent(9, 15);
+
+        //late responses of the discarded requests
+        followerState.onAppendSuccess(12);
+        followerState.onAppendFailure(12, 12);
+
+        assertThat(followerState.inflightCount()).isEqualTo(1);
+        assertThat(followerState.matchIndex()).isEqualTo(12);
+        assertThat(followerState.nextIndex()).isEqualTo(16);
+
+        //follower now holds all entries of the request sent after the reset
+        followerState.onAppendSuccess(15);
+
+        assertThat(followerState.inflightCount()).isEqualTo(0);
+        assertThat(followerState.matchIndex()).isEqualTo(15);
+
+        //response of the request sent after the reset
+        followerState.onAppendSuccess(15);
+
+        assertThat(followerState.inflightCount()).isEqualTo(0);
+        assertThat(followerState.nextIndex()).isEqualTo(16);
+    }
+
+    @Test
+    public void success_should_acknowledge_requests_coalesced_with_later_requests() throws Exception {
+        followerState.onAppendRequestSent(9, 9).onAppendSuccess(9);
+        followerState.onAppendRequestSent(9, 12)
+                .onAppendRequestSent(12, 12)
+                .onAppendRequestSent(12, 15);
+
+        //heartbeat (12, 12) replaced by (12, 15) in the resend queue, no response for it
+        followerState.onAppendSuccess(12);
+
+        assertThat(followerState.inflightCount()).isEqualTo(1);
+        assertThat(followerState.hasInflightCapacity()).isTrue();
+
+        followerState.onAppendSuccess(15);
+
+        assertThat(followerState.inflightCount()).isEqualTo(0);
+        assertThat(followerState.matchIndex()).isEqualTo(15);
+    }
+
+    @Test
+    public void heartbeat_should_expire_snapshot_chunks_only_after_whole_interval_without_ack() throws Exception {
+        followerState.startSnapshot(20);
+
+        assertThat(followerState.onHeartbeat()).isFalse();
+        assertThat(followerState.onHeartbeat()).isFalse();
+
+        followerState.onSnapshotChunkSent(100)
+                .onSnapshotChunkSent(200);
+
+        assertThat(followerState.onHeartbeat()).isFalse();
+
+        followerState.onSnapshotAck(100);
+
+        assertThat(followerState.onHeartbeat()).isFalse();
+        assertThat(followerState.onHeartbeat()).isTrue();
+
+        followerState.resetSnapshotInflight(1000);
+
+        assertThat(followerState.snapshotSentPosition()).isEqualTo(100);
+        assertThat(followerState.onHeartbeat()).isFalse();
+    }
+
+    @Test
+    public void snapshot_chunks_should_be_limited_by_inflight_window() throws Exception {
+        followerState.onAppendRequestSent(9, 9);
+
+        followerState.startSnapshot(20);
+
+        assertThat(followerState.isSendingSnapshot()).isTrue();
+        assertThat(followerState.inflightCount()).isEqualTo(0);
+
+        followerState.onSnapshotChunkSent(100)
+                .onSnapshotChunkSent(200)
+                .onSnapshotChunkSent(300);
+
+        assertThat(followerState.hasSnapshotCapacity(100)).isFalse();
+
+        followerState.onSnapshotAck(100);
+
+        assertThat(followerState.hasSnapshotCapacity(100)).isTrue();
+        assertThat(followerState.snapshotAckedPosition()).isEqualTo(100);
+
+        followerState.resetSnapshotInflight(1000);
+
+        assertThat(followerState.snapshotSentPosition()).isEqualTo(100);
+
+        followerState.onSnapshotInstalled(20);
+
+        assertThat(followerState.isSendingSnapshot()).isFalse();
+        assertThat(followerState.isProbing()).isFalse();
+        assertThat(followerState.matchIndex()).isEqualTo(20);
+        assertThat(followerState.nextIndex()).isEqualTo(21);
+    }
+}
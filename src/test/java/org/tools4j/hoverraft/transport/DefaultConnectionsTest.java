@@ -0,0 +1,109 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport;
+
+import org.agrona.collections.Int2ObjectHashMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.message.Message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class DefaultConnectionsTest {
+
+    private final Int2ObjectHashMap<Receiver<Command>> sourceReceivers = new Int2ObjectHashMap<>();
+    private final Int2ObjectHashMap<Receiver<Message>> serverReceivers = new Int2ObjectHashMap<>();
+    private final Int2ObjectHashMap<Sender<Message>> serverSenders = new Int2ObjectHashMap<>();
+    private final Message message = new AllocatingDirectFactory().voteRequest();
+
+    private Sender<Message> sender2;
+    private Sender<Message> sender3;
+
+    @Before
+    public void init() {
+        sender2 = mock(Sender.class);
+        sender3 = mock(Sender.class);
+        serverSenders.put(2, sender2);
+        serverSenders.put(3, sender3);
+        serverReceivers.put(2, mock(Receiver.class));
+        serverReceivers.put(3, mock(Receiver.class));
+        sourceReceivers.put(7, mock(Receiver.class));
+    }
+
+    @Test
+    public void serverSender_should_return_point_to_point_sender() throws Exception {
+        //given
+        final Connections<Message> connections = new DefaultConnections<>(sourceReceivers, serverReceivers,
+                serverSenders);
+
+        //when
+        connections.serverSender(3).offer(message);
+
+        //then
+        verify(sender3).offer(message);
+        verifyZeroInteractions(sender2);
+        assertThat(connections.serverReceiver(2)).isSameAs(serverReceivers.get(2));
+        assertThat(connections.sourceReceiver(7)).isSameAs(sourceReceivers.get(7));
+    }
+
+    @Test
+    public void serverMulticastSender_should_offer_to_all_senders_if_no_multicast_sender_given() throws Exception {
+        //given
+        when(sender2.offer(message)).thenReturn(RejectReason.BACK_PRESSURED);
+        when(sender3.offer(message)).thenReturn(42L);
+        final Connections<Message> connections = new DefaultConnections<>(sourceReceivers, serverReceivers,
+                serverSenders);
+
+        //when
+        final long result = connections.serverMulticastSender().offer(message);
+
+        //then
+        verify(sender2).offer(message);
+        verify(sender3).offer(message);
+        assertThat(result).isEqualTo(RejectReason.BACK_PRESSURED);
+    }
+
+    @Test
+    public void serverMulticastSender_should_return_given_multicast_sender() throws Exception {
+        //given
+        final Sender<Message> multicastSender = mock(Sender.class);
+        final Connections<Message> connections = new DefaultConnections<>(sourceReceivers, serverReceivers,
+                serverSenders, multicastSender);
+
+        //when
+        connections.serverMulticastSender().offer(message);
+
+        //then
+        verify(multicastSender).offer(message);
+        verifyZeroInteractions(sender2, sender3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void serverSender_should_throw_exception_for_unknown_server_id() throws Exception {
+        new DefaultConnections<>(sourceReceivers, serverReceivers, serverSenders).serverSender(1);
+    }
+}
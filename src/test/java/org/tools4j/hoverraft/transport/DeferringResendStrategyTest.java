@@ -0,0 +1,198 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport;
+
+import org.junit.Test;
+import org.tools4j.hoverraft.command.LogEntry;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.message.AppendRequest;
+import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.message.VoteResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeferringResendStrategyTest {
+
+    private final DirectFactory directFactory = new AllocatingDirectFactory();
+    private final RecordingSender sender = new RecordingSender();
+
+    @Test
+    public void resendDeferred_should_resend_copies_in_order() throws Exception {
+        //given
+        final DeferringResendStrategy resendStrategy = new DeferringResendStrategy(3, 4, false);
+        final VoteResponse voteResponse = directFactory.voteResponse().term(7).voteGranted(true);
+        resendStrategy.onRejectedOffer(sender, voteResponse, RejectReason.BACK_PRESSURED);
+        resendStrategy.onRejectedOffer(sender, appendRequest(3, 5, false), RejectReason.BACK_PRESSURED);
+        voteResponse.term(8);
+
+        //when
+        final int resent = resendStrategy.resendDeferred();
+
+        //then
+        assertThat(resent).isEqualTo(2);
+        assertThat(sender.sent).containsExactly("VOTE_RESPONSE term=7", "APPEND_REQUEST term=3 prevLogIndex=5");
+        assertThat(resendStrategy.pendingCount()).isZero();
+    }
+
+    @Test
+    public void resendDeferred_should_keep_messages_until_max_attempts() throws Exception {
+        //given
+        final DeferringResendStrategy resendStrategy = new DeferringResendStrategy(3, 4, false);
+        resendStrategy.onRejectedOffer(sender, directFactory.voteResponse().term(1), RejectReason.NOT_CONNECTED);
+        sender.rejectReason = RejectReason.NOT_CONNECTED;
+
+        //when + then
+        assertThat(resendStrategy.resendDeferred()).isZero();
+        assertThat(resendStrategy.pendingCount()).isEqualTo(1);
+        assertThat(resendStrategy.resendDeferred()).isZero();
+        assertThat(resendStrategy.pendingCount()).isZero();
+    }
+
+    @Test
+    public void onRejectedOffer_should_drop_messages_that_are_too_long() throws Exception {
+        //given
+        final DeferringResendStrategy resendStrategy = new DeferringResendStrategy(3, 4, false);
+
+        //when
+        resendStrategy.onRejectedOffer(sender, directFactory.voteResponse().term(1), RejectReason.MESSAGE_TOO_LONG);
+
+        //then
+        assertThat(resendStrategy.pendingCount()).isZero();
+        assertThat(resendStrategy.hasDeferred(sender)).isFalse();
+    }
+
+    @Test
+    public void sendTo_should_not_overtake_deferred_messages() throws Exception {
+        //given
+        final DeferringResendStrategy resendStrategy = new DeferringResendStrategy(3, 4, false);
+        sender.rejectReason = RejectReason.BACK_PRESSURED;
+        appendRequest(1, 5, true).sendTo(sender, resendStrategy);
+        sender.rejectReason = 0;
+
+        //when
+        appendRequest(1, 6, true).sendTo(sender, resendStrategy);
+
+        //then
+        assertThat(sender.sent).isEmpty();
+        assertThat(resendStrategy.hasDeferred(sender)).isTrue();
+
+        //when
+        final int resent = resendStrategy.resendDeferred();
+
+        //then
+        assertThat(resent).isEqualTo(2);
+        assertThat(sender.sent).containsExactly(
+                "APPEND_REQUEST term=1 prevLogIndex=5", "APPEND_REQUEST term=1 prevLogIndex=6");
+        assertThat(resendStrategy.hasDeferred(sender)).isFalse();
+    }
+
+    @Test
+    public void resendDeferred_should_attempt_queued_messages_max_attempts_times() throws Exception {
+        //given
+        final DeferringResendStrategy resendStrategy = new DeferringResendStrategy(2, 4, false);
+        resendStrategy.onRejectedOffer(sender, directFactory.voteResponse().term(1), RejectReason.BACK_PRESSURED);
+        resendStrategy.onRejectedOffer(sender, directFactory.voteResponse().term(2), RejectReason.DEFERRED);
+        sender.rejectReason = RejectReason.BACK_PRESSURED;
+
+        //when: first message dropped after second attempt
+        resendStrategy.resendDeferred();
+        sender.rejectReason = 0;
+        resendStrategy.resendDeferred();
+
+        //then: deferred message had not been offered before
+        assertThat(sender.sent).containsExactly("VOTE_RESPONSE term=2");
+    }
+
+    @Test
+    public void onRejectedOffer_should_drop_oldest_message_if_queue_is_full() throws Exception {
+        //given
+        final DeferringResendStrategy resendStrategy = new DeferringResendStrategy(3, 2, false);
+
+        //when
+        for (int term = 1; term <= 3; term++) {
+            resendStrategy.onRejectedOffer(sender, directFactory.voteResponse().term(term), RejectReason.BACK_PRESSURED);
+        }
+        resendStrategy.resendDeferred();
+
+        //then
+        assertThat(sender.sent).containsExactly("VOTE_RESPONSE term=2", "VOTE_RESPONSE term=3");
+    }
+
+    @Test
+    public void onRejectedOffer_should_replace_stale_append_requests_when_coalescing() throws Exception {
+        //given
+        final DeferringResendStrategy resendStrategy = new DeferringResendStrategy(3, 4, true);
+        resendStrategy.onRejectedOffer(sender, appendRequest(1, 5, false), RejectReason.BACK_PRESSURED);
+        resendStrategy.onRejectedOffer(sender, appendRequest(1, 6, true), RejectReason.BACK_PRESSURED);
+
+        //when
+        resendStrategy.onRejectedOffer(sender, appendRequest(2, 6, true), RejectReason.BACK_PRESSURED);
+        resendStrategy.onRejectedOffer(sender, appendRequest(2, 8, true), RejectReason.BACK_PRESSURED);
+        resendStrategy.resendDeferred();
+
+        //then: heartbeat replaced by first, request with same prev log index by second newer request
+        assertThat(sender.sent).containsExactly(
+                "APPEND_REQUEST term=2 prevLogIndex=6", "APPEND_REQUEST term=2 prevLogIndex=8");
+    }
+
+    private AppendRequest appendRequest(final int term, final long prevLogIndex, final boolean withEntry) {
+        final AppendRequest appendRequest = directFactory.appendRequest().term(term).leaderId(1).leaderCommit(-1);
+        appendRequest.prevLogKey().term(term).index(prevLogIndex);
+        if (withEntry) {
+            final LogEntry logEntry = directFactory.logEntry();
+            logEntry.logKey().term(term).index(prevLogIndex + 1);
+            appendRequest.appendLogEntry(logEntry);
+        }
+        return appendRequest;
+    }
+
+    private static final class RecordingSender implements Sender<Message> {
+        private final List<String> sent = new ArrayList<>();
+        private long rejectReason;
+
+        @Override
+        public long offer(final Message message) {
+            if (rejectReason < 0) {
+                return rejectReason;
+            }
+            switch (message.type()) {
+                case VOTE_RESPONSE:
+                    sent.add(message.type() + " term=" + ((VoteResponse)message).term());
+                    break;
+                case APPEND_REQUEST:
+                    final AppendRequest appendRequest = (AppendRequest)message;
+                    sent.add(message.type() + " term=" + appendRequest.term()
+                            + " prevLogIndex=" + appendRequest.prevLogKey().index());
+                    break;
+                default:
+                    sent.add(message.type().toString());
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport;
+
+import org.junit.Test;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReceiversTest {
+
+    @Test
+    public void fairRoundRobinReceiver_should_interleave_receivers() throws Exception {
+        //given
+        final Receiver<Command> receiver = Receivers.fairRoundRobinReceiver(
+                receiver(1, 5), receiver(2, 1), receiver(3, 2));
+        final List<Integer> sourceIds = new ArrayList<>();
+
+        //when
+        final int count = receiver.poll(c -> sourceIds.add(c.commandKey().sourceId()), 6);
+
+        //then
+        assertThat(count).isEqualTo(6);
+        assertThat(sourceIds).containsExactly(1, 2, 3, 1, 3, 1);
+    }
+
+    @Test
+    public void fairRoundRobinReceiver_should_stop_if_no_messages_available() throws Exception {
+        //given
+        final Receiver<Command> receiver = Receivers.fairRoundRobinReceiver(receiver(1, 2), receiver(2, 0));
+        final List<Integer> sourceIds = new ArrayList<>();
+
+        //when
+        final int count = receiver.poll(c -> sourceIds.add(c.commandKey().sourceId()), 10);
+
+        //then
+        assertThat(count).isEqualTo(2);
+        assertThat(sourceIds).containsExactly(1, 1);
+        assertThat(receiver.poll(c -> sourceIds.add(c.commandKey().sourceId()), 10)).isEqualTo(0);
+    }
+
+    private static Receiver<Command> receiver(final int sourceId, final int messages) {
+        final Command command = new AllocatingDirectFactory().command().sourceId(sourceId);
+        return new Receiver<Command>() {
+            private int remaining = messages;
+
+            @Override
+            public int poll(final Consumer<? super Command> messageHandler, final int limit) {
+                int cnt = 0;
+                while (remaining > 0 && cnt < limit) {
+                    messageHandler.accept(command);
+                    remaining--;
+                    cnt++;
+                }
+                return cnt;
+            }
+        };
+    }
+}
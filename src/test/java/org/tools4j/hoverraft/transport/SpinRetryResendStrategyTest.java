@@ -0,0 +1,72 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport;
+
+import org.junit.Test;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.message.Message;
+
+import static org.mockito.Mockito.*;
+
+public class SpinRetryResendStrategyTest {
+
+    private final Message message = new AllocatingDirectFactory().voteResponse();
+    private final Sender<Message> sender = mock(Sender.class);
+
+    //under test
+    private final ResendStrategy resendStrategy = new SpinRetryResendStrategy(3);
+
+    @Test
+    public void onRejectedOffer_should_retry_until_offer_succeeds() throws Exception {
+        //given
+        when(sender.offer(message)).thenReturn(RejectReason.ADMIN_ACTION, 1L);
+
+        //when
+        resendStrategy.onRejectedOffer(sender, message, RejectReason.BACK_PRESSURED);
+
+        //then
+        verify(sender, times(2)).offer(message);
+    }
+
+    @Test
+    public void onRejectedOffer_should_stop_after_max_attempts() throws Exception {
+        //given
+        when(sender.offer(message)).thenReturn(RejectReason.BACK_PRESSURED);
+
+        //when
+        resendStrategy.onRejectedOffer(sender, message, RejectReason.BACK_PRESSURED);
+
+        //then: rejected offer plus two retries
+        verify(sender, times(2)).offer(message);
+    }
+
+    @Test
+    public void onRejectedOffer_should_not_retry_if_not_connected() throws Exception {
+        //when
+        resendStrategy.onRejectedOffer(sender, message, RejectReason.NOT_CONNECTED);
+
+        //then
+        verifyZeroInteractions(sender);
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport.aeron;
+
+import io.aeron.Aeron;
+import io.aeron.Publication;
+import io.aeron.driver.MediaDriver;
+import io.aeron.driver.ThreadingMode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tools4j.hoverraft.command.LogEntry;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.message.AppendRequest;
+import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.message.MessageType;
+import org.tools4j.hoverraft.message.Sequence;
+import org.tools4j.hoverraft.transport.Receiver;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AeronReceiverTest {
+
+    //IPC publications do not fragment messages, hence UDP with the default MTU of 4K
+    private static final String UDP_CHANNEL = "aeron:udp?endpoint=localhost:40124";
+    private static final int STREAM_ID = 1;
+    private static final int PAYLOAD_LENGTH = 256;
+    private static final int ENTRY_COUNT = 32;
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final DirectFactory directFactory = new AllocatingDirectFactory();
+
+    private MediaDriver mediaDriver;
+    private Aeron aeron;
+    private Publication publication;
+    private Receiver<Message> receiver;
+
+    @Before
+    public void init() throws Exception {
+        final MediaDriver.Context context = new MediaDriver.Context()
+                .threadingMode(ThreadingMode.SHARED)
+                .dirsDeleteOnStart(true);
+        context.aeronDirectoryName(new File(folder.getRoot(), "aeron").getAbsolutePath());
+        mediaDriver = MediaDriver.launchEmbedded(context);
+        aeron = Aeron.connect(new Aeron.Context().aeronDirectoryName(mediaDriver.aeronDirectoryName()));
+        publication = aeron.addPublication(UDP_CHANNEL, STREAM_ID);
+        receiver = AeronReceiver.messageReceiver(aeron.addSubscription(UDP_CHANNEL, STREAM_ID));
+    }
+
+    @After
+    public void close() {
+        aeron.close();
+        mediaDriver.close();
+    }
+
+    @Test
+    public void poll_should_reassemble_fragmented_messages_and_handle_them_in_callback() throws Exception {
+        //given: append request larger than a single fragment
+        final AppendRequest appendRequest = directFactory.appendRequest().term(3).leaderId(2).leaderCommit(-1);
+        appendRequest.prevLogKey().term(3).index(-1);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            appendRequest.appendLogEntry(logEntry(3, i));
+        }
+        assertThat(appendRequest.byteLength()).isGreaterThan(publication.maxPayloadLength());
+        final AeronSender sender = new AeronSender(publication);
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (sender.offer(appendRequest) < 0 && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+
+        //when
+        final List<Message> handled = new ArrayList<>();
+        final List<Integer> entryCounts = new ArrayList<>();
+        while (handled.isEmpty() && System.currentTimeMillis() < deadline) {
+            receiver.poll(message -> {
+                handled.add(message);
+                assertThat(message.type()).isEqualTo(MessageType.APPEND_REQUEST);
+                entryCounts.add(entryCount((AppendRequest)message));
+            }, 1);
+        }
+
+        //then
+        assertThat(entryCounts).containsExactly(ENTRY_COUNT);
+        assertThat(handled.get(0).readBufferOrNull()).isNull();
+    }
+
+    private LogEntry logEntry(final int term, final long index) {
+        final LogEntry logEntry = directFactory.logEntry();
+        logEntry.logKey().term(term).index(index);
+        logEntry.command().sourceId(7).commandIndex(index).commandPayload()
+                .bytesFrom(new byte[PAYLOAD_LENGTH], 0, PAYLOAD_LENGTH);
+        return logEntry;
+    }
+
+    private int entryCount(final AppendRequest appendRequest) {
+        final LogEntry logEntry = directFactory.logEntry();
+        final Sequence.SequenceIterator<LogEntry> iterator = appendRequest.logEntries().iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.readNextTo(logEntry);
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport.aeron;
+
+import io.aeron.Publication;
+import io.aeron.logbuffer.BufferClaim;
+import io.aeron.protocol.DataHeaderFlyweight;
+import io.aeron.protocol.HeaderFlyweight;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.message.VoteResponse;
+import org.tools4j.hoverraft.transport.RejectReason;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class AeronSenderTest {
+
+    private static final int MAX_PAYLOAD_LENGTH = 1024;
+    private static final long POSITION = 42;
+
+    private final Publication publication = mock(Publication.class);
+    private final VoteResponse voteResponse = new AllocatingDirectFactory().voteResponse();
+    private final int byteLength = voteResponse.byteLength();
+
+    //under test
+    private AeronSender sender;
+
+    private UnsafeBuffer termBuffer;
+
+    @Before
+    public void init() {
+        when(publication.maxPayloadLength()).thenReturn(MAX_PAYLOAD_LENGTH);
+        when(publication.tryClaim(anyInt(), any(BufferClaim.class))).thenAnswer(invocation -> {
+            final int length = (Integer)invocation.getArguments()[0];
+            termBuffer = new UnsafeBuffer(new byte[DataHeaderFlyweight.HEADER_LENGTH + length]);
+            termBuffer.putShort(HeaderFlyweight.TYPE_FIELD_OFFSET, (short)HeaderFlyweight.HDR_TYPE_DATA);
+            ((BufferClaim)invocation.getArguments()[1]).wrap(termBuffer, 0, termBuffer.capacity());
+            return POSITION;
+        });
+        sender = new AeronSender(publication);
+    }
+
+    @Test
+    public void commit_should_publish_message_encoded_in_claimed_region() throws Exception {
+        //given
+        final VoteResponse claimed = new AllocatingDirectFactory().voteResponse();
+        assertThat(sender.tryClaim(byteLength, claimed)).isEqualTo(POSITION);
+        claimed.term(7).voteGranted(true);
+
+        //when
+        sender.commit(claimed);
+
+        //then
+        assertThat(termBuffer.getInt(HeaderFlyweight.FRAME_LENGTH_FIELD_OFFSET))
+                .isEqualTo(DataHeaderFlyweight.HEADER_LENGTH + byteLength);
+        assertThat(termBuffer.getShort(HeaderFlyweight.TYPE_FIELD_OFFSET))
+                .isEqualTo((short)HeaderFlyweight.HDR_TYPE_DATA);
+        assertThat(claimed.readBufferOrNull()).isNull();
+        voteResponse.wrap(termBuffer, DataHeaderFlyweight.HEADER_LENGTH);
+        assertThat(voteResponse.term()).isEqualTo(7);
+        assertThat(voteResponse.voteGranted()).isTrue();
+    }
+
+    @Test
+    public void tryClaim_should_not_support_messages_exceeding_max_payload_length() throws Exception {
+        //when
+        final long result = sender.tryClaim(MAX_PAYLOAD_LENGTH + 1, voteResponse);
+
+        //then
+        assertThat(result).isEqualTo(RejectReason.CLAIM_NOT_SUPPORTED);
+        verify(publication, never()).tryClaim(anyInt(), any(BufferClaim.class));
+    }
+
+    @Test
+    public void tryClaim_should_reject_second_claim_before_commit_or_abort() throws Exception {
+        //given
+        sender.tryClaim(byteLength, voteResponse);
+
+        //when + then
+        assertThatThrownBy(() -> sender.tryClaim(byteLength, new AllocatingDirectFactory().voteResponse()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void commit_should_abort_claim_if_length_does_not_match() throws Exception {
+        //given
+        sender.tryClaim(byteLength + 4, voteResponse);
+        voteResponse.term(7);
+
+        //when + then
+        assertThatThrownBy(() -> sender.commit(voteResponse)).isInstanceOf(IllegalStateException.class);
+        assertThat(termBuffer.getShort(HeaderFlyweight.TYPE_FIELD_OFFSET))
+                .isEqualTo((short)HeaderFlyweight.HDR_TYPE_PAD);
+        assertThat(voteResponse.readBufferOrNull()).isNull();
+        assertThat(sender.tryClaim(byteLength, voteResponse)).isEqualTo(POSITION);
+    }
+
+    @Test
+    public void abort_should_release_claim_after_failed_encoding() throws Exception {
+        //given
+        sender.tryClaim(byteLength, voteResponse);
+
+        //when
+        sender.abort(voteResponse);
+
+        //then
+        assertThat(termBuffer.getShort(HeaderFlyweight.TYPE_FIELD_OFFSET))
+                .isEqualTo((short)HeaderFlyweight.HDR_TYPE_PAD);
+        assertThat(voteResponse.readBufferOrNull()).isNull();
+        assertThatThrownBy(() -> sender.abort(voteResponse)).isInstanceOf(IllegalStateException.class);
+        assertThat(sender.tryClaim(byteLength, voteResponse)).isEqualTo(POSITION);
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport.chronicle;
+
+import net.openhft.chronicle.ChronicleQueueBuilder;
+import net.openhft.chronicle.VanillaChronicle;
+import org.agrona.ExpandableArrayBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.command.CommandLog;
+import org.tools4j.hoverraft.command.LogKey;
+import org.tools4j.hoverraft.direct.AllocatingDirectFactory;
+import org.tools4j.hoverraft.direct.DirectFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChronicleCommandLogTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final DirectFactory directFactory = new AllocatingDirectFactory();
+
+    private VanillaChronicle chronicle;
+    private ChronicleCommandLog commandLog;
+
+    @Before
+    public void init() throws Exception {
+        chronicle = (VanillaChronicle)ChronicleQueueBuilder.vanilla(folder.newFolder("commandlog")).build();
+        commandLog = new ChronicleCommandLog(chronicle, new ExpandableArrayBuffer(256));
+    }
+
+    @After
+    public void close() throws Exception {
+        chronicle.close();
+    }
+
+    @Test
+    public void lastTerm_should_return_no_term_for_empty_log() throws Exception {
+        //given
+        final LogKey lastKey = directFactory.logEntry().logKey();
+
+        //when
+        commandLog.lastKeyTo(lastKey);
+
+        //then
+        assertThat(commandLog.lastTerm()).isEqualTo(CommandLog.NO_TERM);
+        assertThat(lastKey.term()).isEqualTo(CommandLog.NO_TERM);
+        assertThat(lastKey.index()).isEqualTo(-1);
+    }
+
+    @Test
+    public void lastTerm_should_return_term_of_last_entry() throws Exception {
+        //given
+        commandLog.append(2, command(0));
+        commandLog.append(3, command(1));
+        final LogKey lastKey = directFactory.logEntry().logKey();
+
+        //when
+        commandLog.lastKeyTo(lastKey);
+
+        //then
+        assertThat(commandLog.lastTerm()).isEqualTo(3);
+        assertThat(lastKey.term()).isEqualTo(3);
+        assertThat(lastKey.index()).isEqualTo(commandLog.lastIndex());
+    }
+
+    private Command command(final long commandIndex) {
+        final Command command = directFactory.command().sourceId(7).commandIndex(commandIndex);
+        command.commandPayload().bytesFrom(new byte[] {1, 2, 3}, 0, 3);
+        return command;
+    }
+}
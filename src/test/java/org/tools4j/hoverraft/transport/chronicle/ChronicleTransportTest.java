@@ -0,0 +1,104 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport.chronicle;
+
+import net.openhft.chronicle.Chronicle;
+import net.openhft.chronicle.ChronicleQueueBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tools4j.hoverraft.command.LogEntry;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.direct.PooledDirectFactory;
+import org.tools4j.hoverraft.message.AppendRequest;
+import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.message.MessageType;
+import org.tools4j.hoverraft.message.VoteResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChronicleTransportTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final DirectFactory directFactory = new PooledDirectFactory(2, 1024, 64);
+
+    private Chronicle chronicle;
+    private ChronicleSender sender;
+    private ChronicleReceiver receiver;
+
+    @Before
+    public void init() throws Exception {
+        chronicle = ChronicleQueueBuilder.vanilla(folder.newFolder("chronicle")).build();
+        sender = new ChronicleSender(chronicle.createAppender());
+        receiver = new ChronicleReceiver(chronicle.createTailer());
+    }
+
+    @After
+    public void close() throws Exception {
+        chronicle.close();
+    }
+
+    @Test
+    public void poll_should_receive_sent_messages_up_to_limit() throws Exception {
+        //given
+        final VoteResponse voteResponse = directFactory.voteResponse().term(3).voteGranted(true);
+        final AppendRequest appendRequest = directFactory.appendRequest().term(4).leaderId(2).leaderCommit(7);
+        appendRequest.prevLogKey().term(4).index(9);
+        final LogEntry logEntry = directFactory.logEntry();
+        logEntry.logKey().term(4).index(10);
+        logEntry.command().commandPayload().bytesFrom(new byte[] {1, 2, 3, 4, 5}, 0, 5);
+        appendRequest.appendLogEntry(logEntry);
+        final List<String> received = new ArrayList<>();
+
+        //when
+        assertThat(sender.offer(voteResponse)).isGreaterThanOrEqualTo(0);
+        assertThat(sender.offer(appendRequest)).isGreaterThanOrEqualTo(0);
+        voteResponse.term(5);
+        assertThat(sender.offer(voteResponse)).isGreaterThanOrEqualTo(0);
+        final int count = receiver.poll(m -> received.add(describe(m)), 2);
+
+        //then
+        assertThat(count).isEqualTo(2);
+        assertThat(received).containsExactly("VOTE_RESPONSE term=3", "APPEND_REQUEST term=4 prevLogIndex=9 length="
+                + appendRequest.byteLength());
+        assertThat(receiver.poll(m -> received.add(describe(m)), 2)).isEqualTo(1);
+        assertThat(received.get(2)).isEqualTo("VOTE_RESPONSE term=5");
+    }
+
+    private static String describe(final Message message) {
+        if (message.type() == MessageType.VOTE_RESPONSE) {
+            return message.type() + " term=" + ((VoteResponse)message).term();
+        }
+        final AppendRequest appendRequest = (AppendRequest)message;
+        return message.type() + " term=" + appendRequest.term() + " prevLogIndex="
+                + appendRequest.prevLogKey().index() + " length=" + appendRequest.byteLength();
+    }
+}
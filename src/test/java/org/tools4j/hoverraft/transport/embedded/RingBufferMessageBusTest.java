@@ -0,0 +1,170 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016-2017 hover-raft (tools4j), Marco Terzer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.tools4j.hoverraft.transport.embedded;
+
+import org.junit.Test;
+import org.tools4j.hoverraft.command.Command;
+import org.tools4j.hoverraft.command.LogEntry;
+import org.tools4j.hoverraft.direct.DirectFactory;
+import org.tools4j.hoverraft.direct.PooledDirectFactory;
+import org.tools4j.hoverraft.message.AppendRequest;
+import org.tools4j.hoverraft.message.Message;
+import org.tools4j.hoverraft.message.MessageType;
+import org.tools4j.hoverraft.message.VoteResponse;
+import org.tools4j.hoverraft.transport.RejectReason;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RingBufferMessageBusTest {
+
+    private final DirectFactory directFactory = new PooledDirectFactory(1, 1024, 64);
+
+    @Test
+    public void poll_should_receive_copies_of_offered_messages() throws Exception {
+        //given
+        final RingBufferMessageBus<Message> messageBus = RingBufferMessageBus.oneToOneMessageBus(4096);
+        final VoteResponse voteResponse = directFactory.voteResponse().term(3).voteGranted(true);
+        final AppendRequest appendRequest = directFactory.appendRequest().term(4).leaderId(2).leaderCommit(7);
+        appendRequest.prevLogKey().term(4).index(9);
+        final List<String> received = new ArrayList<>();
+
+        //when: flyweights reused after offer
+        assertThat(messageBus.offer(voteResponse)).isGreaterThanOrEqualTo(0);
+        voteResponse.term(5);
+        assertThat(messageBus.offer(voteResponse)).isGreaterThanOrEqualTo(0);
+        assertThat(messageBus.offer(appendRequest)).isGreaterThanOrEqualTo(0);
+        final int count = messageBus.poll(m -> received.add(describe(m)), 10);
+
+        //then
+        assertThat(count).isEqualTo(3);
+        assertThat(received).containsExactly("VOTE_RESPONSE term=3", "VOTE_RESPONSE term=5",
+                "APPEND_REQUEST term=4 prevLogIndex=9 leaderCommit=7");
+        assertThat(messageBus.poll(m -> received.add(describe(m)), 10)).isZero();
+    }
+
+    @Test
+    public void poll_should_respect_limit() throws Exception {
+        //given
+        final RingBufferMessageBus<Command> commandBus = RingBufferMessageBus.manyToOneCommandBus(4096);
+        final Command command = directFactory.command();
+        final List<Long> commandIndices = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            commandBus.offer(command.sourceId(1).commandIndex(i));
+        }
+
+        //when
+        final int count = commandBus.poll(c -> commandIndices.add(c.commandKey().commandIndex()), 3);
+
+        //then
+        assertThat(count).isEqualTo(3);
+        assertThat(commandIndices).containsExactly(0L, 1L, 2L);
+    }
+
+    @Test
+    public void manyToOneCommandBus_should_receive_commands_from_all_producers() throws Exception {
+        //given
+        final int producers = 3;
+        final int commandsPerProducer = 10000;
+        final RingBufferMessageBus<Command> commandBus = RingBufferMessageBus.manyToOneCommandBus(1024);
+        final long[] nextCommandIndex = new long[producers];
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int sourceId = p;
+            threads[p] = new Thread(() -> {
+                final Command command = new PooledDirectFactory(1, 1024, 64).command().sourceId(sourceId);
+                for (int i = 0; i < commandsPerProducer; i++) {
+                    command.commandKey().commandIndex(i);
+                    while (commandBus.offer(command) < 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        //when
+        int received = 0;
+        while (received < producers * commandsPerProducer) {
+            received += commandBus.poll(c -> {
+                final int sourceId = c.commandKey().sourceId();
+                assertThat(c.commandKey().commandIndex()).isEqualTo(nextCommandIndex[sourceId]);
+                nextCommandIndex[sourceId]++;
+            }, 100);
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        //then
+        for (int p = 0; p < producers; p++) {
+            assertThat(nextCommandIndex[p]).isEqualTo(commandsPerProducer);
+        }
+    }
+
+    @Test
+    public void offer_should_return_back_pressured_if_full() throws Exception {
+        //given
+        final RingBufferMessageBus<Message> messageBus = RingBufferMessageBus.oneToOneMessageBus(256);
+        final VoteResponse voteResponse = directFactory.voteResponse();
+
+        //when
+        long result = 0;
+        for (int i = 0; i < 64 && result >= 0; i++) {
+            result = messageBus.offer(voteResponse);
+        }
+
+        //then
+        assertThat(result).isEqualTo(RejectReason.BACK_PRESSURED);
+    }
+
+    @Test
+    public void offer_should_reject_message_longer_than_max_message_length() throws Exception {
+        //given
+        final RingBufferMessageBus<Message> messageBus = RingBufferMessageBus.oneToOneMessageBus(256);
+        final int payloadLength = messageBus.maxMessageLength();
+        final LogEntry logEntry = directFactory.logEntry();
+        logEntry.command().commandPayload().bytesFrom(new byte[payloadLength], 0, payloadLength);
+        final AppendRequest appendRequest = directFactory.appendRequest().appendLogEntry(logEntry);
+
+        //when
+        final long result = messageBus.offer(appendRequest);
+
+        //then
+        assertThat(appendRequest.byteLength()).isGreaterThan(messageBus.maxMessageLength());
+        assertThat(result).isEqualTo(RejectReason.MESSAGE_TOO_LONG);
+        assertThat(messageBus.poll(message -> {}, 1)).isEqualTo(0);
+    }
+
+    private static String describe(final Message message) {
+        if (message.type() == MessageType.VOTE_RESPONSE) {
+            return message.type() + " term=" + ((VoteResponse)message).term();
+        }
+        final AppendRequest appendRequest = (AppendRequest)message;
+        return message.type() + " term=" + appendRequest.term() + " prevLogIndex="
+                + appendRequest.prevLogKey().index() + " leaderCommit=" + appendRequest.leaderCommit();
+    }
+}